@@ -0,0 +1,53 @@
+package org.coursework.eventticketingsystemapi.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.coursework.eventticketingsystemapi.service.AdaptiveConcurrencyLimiter;
+import org.coursework.eventticketingsystemapi.service.AdmissionControlService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Admits ticket pool requests against the adaptive limits and reports each outcome back
+ */
+@Component
+public class AdmissionControlInterceptor implements HandlerInterceptor {
+    private static final String LIMITER_ATTRIBUTE = AdmissionControlInterceptor.class.getName() + ".limiter";
+    private static final String START_ATTRIBUTE = AdmissionControlInterceptor.class.getName() + ".start";
+
+    private final AdmissionControlService admissionControlService;
+
+    @Autowired
+    public AdmissionControlInterceptor(AdmissionControlService admissionControlService) {
+        this.admissionControlService = admissionControlService;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!admissionControlService.isEnabled()) {
+            return true;
+        }
+        AdmissionControlService.Budget budget = admissionControlService.classify(request.getMethod(), request.getRequestURI());
+        if (budget == null) {
+            return true;
+        }
+        // Rejections are thrown so the global exception handler writes the 429 and its Retry-After header
+        request.setAttribute(LIMITER_ATTRIBUTE, admissionControlService.admit(budget));
+        request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (!(request.getAttribute(LIMITER_ATTRIBUTE) instanceof AdaptiveConcurrencyLimiter limiter)) {
+            return;
+        }
+        request.removeAttribute(LIMITER_ATTRIBUTE);
+        if (ex != null || response.getStatus() >= 500) {
+            limiter.onDropped();
+        } else {
+            limiter.onSuccess(System.nanoTime() - (long) request.getAttribute(START_ATTRIBUTE));
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package org.coursework.eventticketingsystemapi.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+//Ref: https://www.baeldung.com/configuration-properties-in-spring-boot
+// Tuning properties for the ticket pool, bound from the ticket-pool.* keys in application.properties
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "ticket-pool")
+public class TicketPoolProperties {
+    private WriteBehind writeBehind = new WriteBehind();
+    private ConfigurationFile configurationFile = new ConfigurationFile();
+    private GroupCommit groupCommit = new GroupCommit();
+    private RingBuffer ringBuffer = new RingBuffer();
+    private Holds holds = new Holds();
+    private Allocation allocation = new Allocation();
+    private Cluster cluster = new Cluster();
+    private Journal journal = new Journal();
+    private Admission admission = new Admission();
+    private Participants participants = new Participants();
+    private Simulation simulation = new Simulation();
+    private Serials serials = new Serials();
+    private TicketMigration ticketMigration = new TicketMigration();
+    private TicketStorage ticketStorage = new TicketStorage();
+    private TicketCache ticketCache = new TicketCache();
+    private Indexes indexes = new Indexes();
+
+    @Data
+    public static class WriteBehind {
+        // When disabled, purchase and release side effects are written synchronously
+        private boolean enabled = true;
+        private int queueCapacity = 10000;
+        private int flushSize = 500;
+        private long flushIntervalMillis = 200;
+        // A single writer keeps vendor active flags in queue order
+        private int writerThreads = 1;
+        // How long a caller blocks on a full queue before the operation is rejected
+        private long offerTimeoutMillis = 5000;
+        private long shutdownTimeoutMillis = 30000;
+        // Attempts per batch before its failing operations are moved to the dead-letter file
+        private int maxAttempts = 10;
+        private String deadLetterFile = "write-behind-dead-letters.ndjson";
+    }
+
+    @Data
+    public static class ConfigurationFile {
+        // Minimum time between two writes of event-configuration.json from the ticket pool
+        private long debounceMillis = 1000;
+        private boolean fsync = false;
+    }
+
+    @Data
+    public static class GroupCommit {
+        // When enabled, purchases wait for a shared bulk write instead of going through write-behind
+        private boolean enabled = false;
+        private long windowMillis = 5;
+        private int maxBatchSize = 64;
+        private int queueCapacity = 10000;
+        private long offerTimeoutMillis = 5000;
+        // How long a caller waits for its purchase to be allocated and written
+        private long commitTimeoutMillis = 10000;
+        private long shutdownTimeoutMillis = 30000;
+    }
+
+    @Data
+    public static class RingBuffer {
+        // When enabled, inventory mutations are applied by a single allocator thread
+        private boolean enabled = false;
+        // Rounded up to a power of two
+        private int size = 1024;
+    }
+
+    @Data
+    public static class Holds {
+        // How long held tickets stay reserved before they return to the vendor
+        private long ttlMillis = 300000;
+        private long tickMillis = 100;
+        private int wheelSize = 64;
+        private int wheelLevels = 4;
+    }
+
+    @Data
+    public static class Allocation {
+        // round-robin, most-stock-first, oldest-release-first or weighted
+        private String strategy = "round-robin";
+    }
+
+    @Data
+    public static class Cluster {
+        // When enabled, vendor stock lives in a shared Mongo counter and each node sells from leased blocks
+        private boolean enabled = false;
+        // Defaults to the host name plus a random suffix
+        private String nodeId = "";
+        private int leaseBlockSize = 50;
+        // A node returns its unused quota before this expires; leases of dead nodes are reclaimed one TTL later
+        private long leaseTtlMillis = 30000;
+        private long tickMillis = 1000;
+        // Local stock per event below which the node leases another block in the background
+        private int lowWatermark = 10;
+    }
+
+    @Data
+    public static class Journal {
+        // When enabled, every inventory mutation is appended to a memory-mapped journal before it is acknowledged
+        private boolean enabled = false;
+        private String directory = "ticket-pool-journal";
+        private int segmentSizeBytes = 64 * 1024 * 1024;
+        // none: leave flushing to the OS, interval: msync every fsyncIntervalMillis, always: msync each record
+        private String fsync = "interval";
+        private long fsyncIntervalMillis = 100;
+        // Counter snapshots let recovery replay only the journal after them; 0 disables snapshots
+        private long snapshotIntervalMillis = 60_000;
+        private int snapshotsRetained = 2;
+    }
+
+    @Data
+    public static class Admission {
+        // When enabled, ticket pool requests beyond an adaptive concurrency limit are rejected with 429
+        private boolean enabled = false;
+        // Purchases, holds, releases and configuration changes
+        private int writeInitialLimit = 20;
+        private int writeMinLimit = 4;
+        private int writeMaxLimit = 200;
+        // Ticket listings, lookups and searches
+        private int queryInitialLimit = 20;
+        private int queryMinLimit = 4;
+        private int queryMaxLimit = 200;
+        // Status and configuration reads have their own budget, so neither writes nor ticket queries can starve them
+        private int readInitialLimit = 50;
+        private int readMinLimit = 10;
+        private int readMaxLimit = 500;
+    }
+
+    @Data
+    public static class Participants {
+        // Vendor and customer steps run on this many worker threads, however many participants are active
+        private int workerThreads = 16;
+        // Run each step on a virtual thread instead; only takes effect on a JDK with virtual threads
+        private boolean virtualThreads = false;
+    }
+
+    @Data
+    public static class Simulation {
+        // Vendors and customers a single simulation may create; runs are synchronous and one at a time
+        private int maxParticipants = 100_000;
+    }
+
+    @Data
+    public static class Serials {
+        // Ticket serials reserved from the shared counter per event and vendor at a time
+        private int blockSize = 1000;
+        // Must be unique per running instance and kept across restarts; blank uses the host name
+        private String nodeId = "";
+    }
+
+    @Data
+    public static class TicketMigration {
+        // Rewrite tickets that still reference their vendor and customer through DBRefs
+        private boolean enabled = true;
+        private int batchSize = 1000;
+        // Pause between batches so the migration does not compete with live sales
+        private long pauseMillis = 50;
+    }
+
+    @Data
+    public static class TicketStorage {
+        // tickets stores a document per ticket; allocations stores a document per purchase and vendor with a serial range
+        private String mode = "tickets";
+    }
+
+    @Data
+    public static class TicketCache {
+        // Caches the ticket lists served by the customer and vendor ticket endpoints
+        private boolean enabled = true;
+        private int maxEntries = 10000;
+        // Total tickets held across all entries
+        private long maxWeight = 100_000;
+        // Participants with more tickets than this are paged from Mongo; lists are cached from first pages, so
+        // lists longer than the page size callers ask for are never cached either
+        private int maxEntryTickets = 1000;
+        private long ttlMillis = 60000;
+    }
+
+    @Data
+    public static class Indexes {
+        // Create the indexes the application's queries rely on at startup
+        private boolean enabled = true;
+    }
+}
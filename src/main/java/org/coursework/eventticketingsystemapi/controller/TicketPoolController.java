@@ -1,16 +1,23 @@
 package org.coursework.eventticketingsystemapi.controller;
 
+import org.coursework.eventticketingsystemapi.exception.InvalidResourceOperationException;
 import org.coursework.eventticketingsystemapi.model.Customer;
 import org.coursework.eventticketingsystemapi.model.EventConfiguration;
+import org.coursework.eventticketingsystemapi.model.SimulationReport;
+import org.coursework.eventticketingsystemapi.model.SimulationScenario;
 import org.coursework.eventticketingsystemapi.model.Ticket;
+import org.coursework.eventticketingsystemapi.model.TicketPage;
 import org.coursework.eventticketingsystemapi.model.Vendor;
 import org.coursework.eventticketingsystemapi.service.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.HashMap;
 import java.util.List;
@@ -22,21 +29,35 @@ import java.util.stream.Collectors;
 @RequestMapping("/api/ticket-pool")
 public class TicketPoolController {
     private static final Logger log = LoggerFactory.getLogger(TicketPoolController.class);
+    // Longest a long-poll request may stay parked
+    private static final long MAX_AWAIT_MILLIS = 30_000;
+    private static final String DEFAULT_PAGE_SIZE = "1000";
+    private static final String NDJSON = "application/x-ndjson";
 
     private final TicketPoolService ticketPoolService;
     private final EventConfigurationService configurationService;
     private final TicketService ticketService;
     private final CustomerService customerService;
     private final VendorService vendorService;
+    private final TicketWriteBehindService writeBehindService;
+    private final AdmissionControlService admissionControlService;
+    private final ParticipantRuntime participantRuntime;
+    private final TicketPoolSimulator simulator;
 
     @Autowired
     public TicketPoolController(TicketPoolService ticketPoolService,
-                                EventConfigurationService configurationService, TicketService ticketService, CustomerService customerService, VendorService vendorService) {
+                                EventConfigurationService configurationService, TicketService ticketService, CustomerService customerService, VendorService vendorService,
+                                TicketWriteBehindService writeBehindService, AdmissionControlService admissionControlService,
+                                ParticipantRuntime participantRuntime, TicketPoolSimulator simulator) {
         this.ticketPoolService = ticketPoolService;
         this.configurationService = configurationService;
         this.ticketService = ticketService;
         this.customerService = customerService;
         this.vendorService = vendorService;
+        this.writeBehindService = writeBehindService;
+        this.admissionControlService = admissionControlService;
+        this.participantRuntime = participantRuntime;
+        this.simulator = simulator;
     }
 
     // Event Configuration Endpoints
@@ -70,38 +91,166 @@ public class TicketPoolController {
         return ResponseEntity.ok(updatedConfig);
     }
 
-    //Get ticket pool status
+    //Get ticket pool status of the default event
     @GetMapping("/status")
     public ResponseEntity<Map<String, Object>> getPoolStatus() {
+        return ResponseEntity.ok(poolStatus(ticketPoolService.getPool(EventConfiguration.DEFAULT_EVENT_ID)));
+    }
+
+    // Event Endpoints: every event has its own pool, addressed by event ID
+    @GetMapping("/events")
+    public ResponseEntity<List<Map<String, Object>>> getEvents() {
+        List<Map<String, Object>> events = ticketPoolService.getPools().stream()
+                .filter(pool -> pool.getConfiguration() != null)
+                .map(this::poolStatus)
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(events);
+    }
+
+    @GetMapping("/events/{eventId}/configuration")
+    public ResponseEntity<EventConfiguration> getEventConfiguration(@PathVariable String eventId) {
+        log.info("Request received to retrieve configuration of event {}", eventId);
+        EventConfiguration configuration = configurationService.getEventConfiguration(eventId);
+        if (configuration == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(configuration);
+    }
+
+    // Create or replace an event's configuration and (re)build its pool
+    @PutMapping("/events/{eventId}/configuration")
+    public ResponseEntity<EventConfiguration> configureEvent(@PathVariable String eventId, @RequestBody EventConfiguration configuration) {
+        log.info("Request received to configure event {}", eventId);
+        configuration.setEventId(eventId);
+        EventConfiguration savedConfig = configurationService.saveConfiguration(configuration);
+        ticketPoolService.configureEvent(savedConfig);
+        log.info("Event {} configured successfully", eventId);
+        return ResponseEntity.ok(savedConfig);
+    }
+
+    @GetMapping("/events/{eventId}/status")
+    public ResponseEntity<Map<String, Object>> getEventStatus(@PathVariable String eventId) {
+        return ResponseEntity.ok(poolStatus(ticketPoolService.findPool(eventId)));
+    }
+
+    @GetMapping("/events/{eventId}/tickets")
+    public ResponseEntity<TicketPage> getEventTickets(@PathVariable String eventId, @RequestParam(required = false) String after,
+                                                      @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
+        ticketPoolService.findPool(eventId);
+        return ResponseEntity.ok(ticketService.getTicketsByEvent(eventId, after, limit));
+    }
+
+    //export an event's tickets as newline-delimited JSON
+    @GetMapping(value = "/events/{eventId}/tickets/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportEventTickets(@PathVariable String eventId) {
+        ticketPoolService.findPool(eventId);
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON))
+                .body(out -> ticketService.exportTickets(eventId, out));
+    }
+
+    @PostMapping("/events/{eventId}/holds")
+    public ResponseEntity<TicketHold> holdEventTickets(@PathVariable String eventId, @RequestParam String customerId, @RequestParam int count) {
+        log.info("Request received to hold {} tickets in event {} for customer {}", count, eventId, customerId);
+        TicketHold hold = ticketPoolService.holdTickets(eventId, customerId, count);
+        return ResponseEntity.status(HttpStatus.CREATED).body(hold);
+    }
+
+    @PostMapping("/events/{eventId}/holds/{holdId}/confirm")
+    public ResponseEntity<Map<String, Object>> confirmEventHold(@PathVariable String eventId, @PathVariable String holdId) {
+        int purchased = ticketPoolService.confirmHold(eventId, holdId);
+        return ResponseEntity.ok(Map.of("holdId", holdId, "ticketsPurchased", purchased));
+    }
+
+    @DeleteMapping("/events/{eventId}/holds/{holdId}")
+    public ResponseEntity<String> cancelEventHold(@PathVariable String eventId, @PathVariable String holdId) {
+        ticketPoolService.cancelHold(eventId, holdId);
+        return ResponseEntity.ok("Hold cancelled successfully");
+    }
+
+    // Long-poll until tickets are released, so clients need not poll the status endpoint
+    @GetMapping("/await")
+    public DeferredResult<ResponseEntity<Map<String, Object>>> awaitTickets(@RequestParam(defaultValue = "10000") long timeout,
+                                                                           @RequestParam(defaultValue = "1") int count) {
+        return awaitEventTickets(EventConfiguration.DEFAULT_EVENT_ID, timeout, count);
+    }
+
+    @GetMapping("/events/{eventId}/await")
+    public DeferredResult<ResponseEntity<Map<String, Object>>> awaitEventTickets(@PathVariable String eventId,
+                                                                                @RequestParam(defaultValue = "10000") long timeout,
+                                                                                @RequestParam(defaultValue = "1") int count) {
+        // A servlet async timeout of 0 means no timeout at all, so the request would never be answered
+        if (timeout <= 0) {
+            throw new InvalidResourceOperationException("Timeout must be between 1 and " + MAX_AWAIT_MILLIS + " ms");
+        }
+        EventPool pool = ticketPoolService.findPool(eventId);
+        long boundedTimeout = Math.min(timeout, MAX_AWAIT_MILLIS);
+        DeferredResult<ResponseEntity<Map<String, Object>>> result = new DeferredResult<>(boundedTimeout);
+        AvailabilitySignal.Waiter waiter = ticketPoolService.awaitAvailableTickets(pool.getEventId(), count);
+        // Cancelling completes the waiter with false, which answers a timed-out request with signalled=false
+        result.onTimeout(waiter::cancel);
+        result.onCompletion(waiter::cancel);
+        waiter.getFuture().thenAccept(signalled -> result.setResult(ResponseEntity.ok(Map.of(
+                "eventId", pool.getEventId(),
+                "signalled", signalled,
+                "availableTickets", pool.getInventory().getAvailableTickets().get()))));
+        return result;
+    }
+
+    // Simulate a sale on a virtual clock; runs in memory and does not touch the live pools
+    @PostMapping("/simulations")
+    public ResponseEntity<SimulationReport> simulate(@RequestBody SimulationScenario scenario) {
+        log.info("Request received to simulate {} vendors and {} customers with seed {}",
+                scenario.getVendors(), scenario.getCustomers(), scenario.getSeed());
+        return ResponseEntity.ok(simulator.run(scenario));
+    }
+
+    private Map<String, Object> poolStatus(EventPool pool) {
         Map<String, Object> status = new HashMap<>();
-        status.put("configured", ticketPoolService.isConfigured());
-        status.put("availableTickets", ticketPoolService.getAvailableTickets());
+        status.put("eventId", pool.getEventId());
+        status.put("configured", pool.isConfigured());
+        status.put("availableTickets", pool.getInventory().getAvailableTickets());
+        status.put("pendingWrites", writeBehindService.getPendingRecords());
+        status.put("recoverySource", pool.getRecoverySource());
+        status.put("occupancy", pool.getInventory().getOccupancy());
+        status.put("averageOccupancy", pool.getInventory().getAverageOccupancy());
+        status.put("waitingVendors", pool.getInventory().getCapacitySignal().getWaiting());
+        status.put("waitingCustomers", pool.getInventory().getAvailabilitySignal().getWaiting());
+        status.put("admission", admissionControlService.getStatus());
+        status.put("participants", participantRuntime.getStatus());
 
-        EventConfiguration config = ticketPoolService.getEventConfiguration();
+        EventConfiguration config = pool.getConfiguration();
         if (config != null) {
             status.put("eventName", config.getEventName());
             status.put("maxCapacity", config.getMaxCapacity());
             status.put("ticketReleaseRate", config.getTicketReleaseRate());
             status.put("customerRetrievalRate", config.getCustomerRetrievalRate());
         }
-
-        return ResponseEntity.ok(status);
+        return status;
     }
 
-    //get all tickets
+    //get a page of all tickets
     @GetMapping("/tickets")
-    public ResponseEntity<List<Ticket>> getAllTickets() {
-        List<Ticket> tickets = ticketService.getAllTickets();
+    public ResponseEntity<TicketPage> getAllTickets(@RequestParam(required = false) String after,
+                                                    @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
+        TicketPage tickets = ticketService.getAllTickets(after, limit);
         return ResponseEntity.ok(tickets);
     }
 
+    //export all tickets as newline-delimited JSON
+    @GetMapping(value = "/tickets/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportTickets() {
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON))
+                .body(out -> ticketService.exportTickets(null, out));
+    }
+
     //find ticket by customer name
     @GetMapping("/customer/name/{customerName}/tickets")
-    public ResponseEntity<List<Ticket>> findTicketsByCustomer(@PathVariable String customerName) {
+    public ResponseEntity<TicketPage> findTicketsByCustomer(@PathVariable String customerName, @RequestParam(required = false) String after,
+                                                            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
         Optional<Customer> customer = customerService.findCustomerByName(customerName);
 
         if (customer.isPresent()) {
-            List<Ticket> tickets = ticketService.getTicketsByCustomer(customer.get().getParticipantId());
+            TicketPage tickets = ticketService.getTicketsByCustomer(customer.get().getParticipantId(), after, limit);
             return ResponseEntity.ok(tickets);
         } else {
             return ResponseEntity.notFound().build();
@@ -111,11 +260,12 @@ public class TicketPoolController {
 
     //find ticket by vendor name
     @GetMapping("/vendor/name/{vendorName}/tickets")
-    public ResponseEntity<List<Ticket>> findTicketsByVendor(@PathVariable String vendorName) {
+    public ResponseEntity<TicketPage> findTicketsByVendor(@PathVariable String vendorName, @RequestParam(required = false) String after,
+                                                          @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
         Optional<Vendor> vendor = vendorService.findVendorByName(vendorName);
 
         if (vendor.isPresent()) {
-            List<Ticket> tickets = ticketService.getTicketsByVendor(vendor.get().getParticipantId());
+            TicketPage tickets = ticketService.getTicketsByVendor(vendor.get().getParticipantId(), after, limit);
             return ResponseEntity.ok(tickets);
         } else {
             return ResponseEntity.notFound().build();
@@ -136,4 +286,26 @@ public class TicketPoolController {
         return ResponseEntity.ok(ticket);
     }
 
-}
\ No newline at end of file
+    //hold tickets for a customer while they check out
+    @PostMapping("/holds")
+    public ResponseEntity<TicketHold> holdTickets(@RequestParam String customerId, @RequestParam int count) {
+        log.info("Request received to hold {} tickets for customer {}", count, customerId);
+        TicketHold hold = ticketPoolService.holdTickets(EventConfiguration.DEFAULT_EVENT_ID, customerId, count);
+        return ResponseEntity.status(HttpStatus.CREATED).body(hold);
+    }
+
+    //confirm a hold and purchase its tickets
+    @PostMapping("/holds/{holdId}/confirm")
+    public ResponseEntity<Map<String, Object>> confirmHold(@PathVariable String holdId) {
+        int purchased = ticketPoolService.confirmHold(EventConfiguration.DEFAULT_EVENT_ID, holdId);
+        return ResponseEntity.ok(Map.of("holdId", holdId, "ticketsPurchased", purchased));
+    }
+
+    //cancel a hold and return its tickets to the pool
+    @DeleteMapping("/holds/{holdId}")
+    public ResponseEntity<String> cancelHold(@PathVariable String holdId) {
+        ticketPoolService.cancelHold(EventConfiguration.DEFAULT_EVENT_ID, holdId);
+        return ResponseEntity.ok("Hold cancelled successfully");
+    }
+
+}
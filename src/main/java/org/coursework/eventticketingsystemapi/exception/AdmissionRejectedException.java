@@ -0,0 +1,14 @@
+package org.coursework.eventticketingsystemapi.exception;
+
+public class AdmissionRejectedException extends EventTicketingSystemException {
+    private final int retryAfterSeconds;
+
+    public AdmissionRejectedException(String message, int retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
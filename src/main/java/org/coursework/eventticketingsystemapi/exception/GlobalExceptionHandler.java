@@ -3,6 +3,7 @@ package org.coursework.eventticketingsystemapi.exception;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -87,6 +88,31 @@ public class GlobalExceptionHandler {
         );
     }
 
+    // Admission Rejected Exception: shed load quickly and tell the client when to retry
+    @ExceptionHandler(AdmissionRejectedException.class)
+    public ResponseEntity<Object> handleAdmissionRejectedException(AdmissionRejectedException ex) {
+        logger.warn("Admission Rejected: {}", ex.getMessage());
+        ResponseEntity<Object> response = createErrorResponse(
+                "Too Many Requests",
+                ex.getMessage(),
+                HttpStatus.TOO_MANY_REQUESTS
+        );
+        return ResponseEntity.status(response.getStatusCode())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(response.getBody());
+    }
+
+    // Purchase Pending Exception: the tickets are allocated, so tell the client not to retry
+    @ExceptionHandler(PurchasePendingException.class)
+    public ResponseEntity<Object> handlePurchasePendingException(PurchasePendingException ex) {
+        logger.warn("Purchase Pending: {}", ex.getMessage());
+        return createErrorResponse(
+                "Purchase Pending",
+                Map.of("reason", ex.getMessage(), "ticketsPurchased", ex.getTicketsPurchased()),
+                HttpStatus.ACCEPTED
+        );
+    }
+
     // Customer Registration Exception
     @ExceptionHandler(CustomerRegistrationException.class)
     public ResponseEntity<Object> handleCustomerRegistrationException(CustomerRegistrationException ex) {
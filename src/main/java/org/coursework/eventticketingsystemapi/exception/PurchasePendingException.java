@@ -0,0 +1,18 @@
+package org.coursework.eventticketingsystemapi.exception;
+
+/**
+ * A purchase whose tickets were allocated but whose write failed and was moved to the dead-letter file.
+ * The tickets belong to the customer; retrying would buy them a second time.
+ */
+public class PurchasePendingException extends EventTicketingSystemException {
+    private final int ticketsPurchased;
+
+    public PurchasePendingException(String message, int ticketsPurchased) {
+        super(message);
+        this.ticketsPurchased = ticketsPurchased;
+    }
+
+    public int getTicketsPurchased() {
+        return ticketsPurchased;
+    }
+}
@@ -0,0 +1,11 @@
+package org.coursework.eventticketingsystemapi.exception;
+
+public class VendorLimitExceededException extends InvalidResourceOperationException {
+    public VendorLimitExceededException(String message) {
+        super(message);
+    }
+
+    public VendorLimitExceededException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
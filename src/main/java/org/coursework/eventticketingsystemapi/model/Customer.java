@@ -6,16 +6,25 @@ import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.coursework.eventticketingsystemapi.exception.InvalidResourceOperationException;
-import org.coursework.eventticketingsystemapi.service.TicketPoolService;
+import org.coursework.eventticketingsystemapi.exception.PurchasePendingException;
+import org.coursework.eventticketingsystemapi.service.ParticipantStep;
+import org.coursework.eventticketingsystemapi.service.ParticipantTicketPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.annotation.Transient;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Data
 @NoArgsConstructor
 @EqualsAndHashCode(callSuper = true)
 @Document(collection = "customers")
+@CompoundIndexes({
+        @CompoundIndex(name = "email", def = "{'email': 1}", unique = true, sparse = true),
+        @CompoundIndex(name = "name_ci", def = "{'name': 1}", collation = Participant.CASE_INSENSITIVE_COLLATION),
+        @CompoundIndex(name = "active_event", def = "{'isActive': 1, 'eventId': 1}")
+})
 public class Customer extends Participant {
     private static final Logger log = LoggerFactory.getLogger(Customer.class);
     private static final int MILLISECONDS_IN_SECOND = 1000;
@@ -27,7 +36,7 @@ public class Customer extends Participant {
     @Setter
     @JsonIgnore
     @Transient
-    private TicketPoolService ticketPoolService;
+    private ParticipantTicketPool ticketPoolService;
 
     private volatile boolean isActive;
 
@@ -50,103 +59,98 @@ public class Customer extends Participant {
     }
 
     @Override
-    public void run() {
-        isActive = true;
-        log.info("Customer {} started ticket purchasing process", getName());
-
-        while (isActive) {
-            try {
-                if (!ticketPoolService.isConfigured()) {
-                    log.warn("Customer {} waiting - no active event configuration found. Will retry in {} s.",
-                            getName(), ticketRetrievalInterval);
-                    Thread.sleep(ticketRetrievalInterval * MILLISECONDS_IN_SECOND);
-                    continue;
-                }
+    public ParticipantStep step() {
+        if (!isActive) {
+            return ParticipantStep.finished();
+        }
+        long retrievalIntervalMillis = ticketRetrievalInterval * MILLISECONDS_IN_SECOND;
+        try {
+            if (!ticketPoolService.isConfigured(getEventId())) {
+                log.warn("Customer {} waiting - no active event configuration found. Will retry in {} s.",
+                        getName(), ticketRetrievalInterval);
+                return ParticipantStep.after(retrievalIntervalMillis);
+            }
 
-                int currentAvailable = ticketPoolService.getAvailableTickets().get();
-                int remainingTickets = ticketsToPurchase - totalTicketsPurchased;
+            int currentAvailable = ticketPoolService.getAvailableTickets(getEventId()).get();
+            int remainingTickets = ticketsToPurchase - totalTicketsPurchased;
 
-                log.debug("Customer {} status check: currentAvailable={}, remainingTickets={}, totalPurchased={}",
-                        getName(), currentAvailable, remainingTickets, totalTicketsPurchased);
+            log.debug("Customer {} status check: currentAvailable={}, remainingTickets={}, totalPurchased={}",
+                    getName(), currentAvailable, remainingTickets, totalTicketsPurchased);
 
-                // Check if the target is already reached
-                checkAndUpdateRunningStatus();
-                if (!isActive) {
-                    log.info("Customer {} reached purchase target: {}", getName(), ticketsToPurchase);
-                    break;
-                }
-
-                if (currentAvailable > 0 && remainingTickets > 0) {
-                    int maxBatchSize = ticketPoolService.getEventConfiguration().getCustomerRetrievalRate();
-                    int ticketsToAttempt = Math.min(
-                            Math.min(maxBatchSize, currentAvailable),
-                            remainingTickets
-                    );
+            // Check if the target is already reached
+            checkAndUpdateRunningStatus();
+            if (!isActive) {
+                log.info("Customer {} reached purchase target: {}", getName(), ticketsToPurchase);
+                return ParticipantStep.finished();
+            }
 
-                    if (ticketsToAttempt > 0) {
-                        log.info("Customer {} attempting to purchase {} tickets", getName(), ticketsToAttempt);
+            if (currentAvailable > 0 && remainingTickets > 0) {
+                int maxBatchSize = ticketPoolService.getEventConfiguration(getEventId()).getCustomerRetrievalRate();
+                int ticketsToAttempt = Math.min(
+                        Math.min(maxBatchSize, currentAvailable),
+                        remainingTickets
+                );
+
+                if (ticketsToAttempt > 0) {
+                    log.info("Customer {} attempting to purchase {} tickets", getName(), ticketsToAttempt);
+                    try {
+                        int purchasedTickets;
                         try {
-                            int purchasedTickets = ticketPoolService.purchaseTickets(this, ticketsToAttempt);
-
-                            if (purchasedTickets > 0) {
-                                totalTicketsPurchased += purchasedTickets;
-                                log.info("Customer {} purchased {} tickets. Total: {}/{}",
-                                        getName(), purchasedTickets, totalTicketsPurchased, ticketsToPurchase);
-
-                                checkAndUpdateRunningStatus();
-                                if (!isActive) {
-                                    stopCustomer();
-                                    break;
-                                }
-                            }
+                            purchasedTickets = ticketPoolService.purchaseTickets(this, ticketsToAttempt);
+                        } catch (PurchasePendingException e) {
+                            // The tickets are ours even though their write is pending; buying again would double them
+                            log.warn("Customer {} purchase is pending: {}", getName(), e.getMessage());
+                            purchasedTickets = e.getTicketsPurchased();
+                        }
 
-                            Thread.sleep(ticketRetrievalInterval * MILLISECONDS_IN_SECOND);
-                        } catch (InvalidResourceOperationException e) {
-                            log.warn("Customer {} purchase attempt failed: {}", getName(), e.getMessage());
-                            if (e.getMessage().contains("reached their limit")) {
-                                isActive = false;
+                        if (purchasedTickets > 0) {
+                            totalTicketsPurchased += purchasedTickets;
+                            log.info("Customer {} purchased {} tickets. Total: {}/{}",
+                                    getName(), purchasedTickets, totalTicketsPurchased, ticketsToPurchase);
+
+                            checkAndUpdateRunningStatus();
+                            if (!isActive) {
                                 stopCustomer();
-                                break;
+                                return ParticipantStep.finished();
                             }
-                            Thread.sleep(MILLISECONDS_IN_SECOND);
                         }
-                    } else {
-                        log.info("Customer {} reached purchase limit: totalPurchased={}, targetAmount={}",
-                                getName(), totalTicketsPurchased, ticketsToPurchase);
-                        isActive = false;
-                        stopCustomer();
-                        break;
+
+                        return ParticipantStep.after(retrievalIntervalMillis);
+                    } catch (InvalidResourceOperationException e) {
+                        log.warn("Customer {} purchase attempt failed: {}", getName(), e.getMessage());
+                        if (e.getMessage().contains("reached their limit")) {
+                            isActive = false;
+                            stopCustomer();
+                            return ParticipantStep.finished();
+                        }
+                        return ParticipantStep.after(MILLISECONDS_IN_SECOND);
                     }
                 } else {
-                    if (currentAvailable == 0) {
-                        log.warn("Customer {} waiting - no tickets currently available for purchase. Will retry in {} s. Please configure the event first",
-                                getName(), ticketRetrievalInterval);
-                    } else {
-                        log.debug("Customer {} waiting - target already reached or no more tickets to purchase", getName());
-                    }
-                    Thread.sleep(ticketRetrievalInterval * MILLISECONDS_IN_SECOND);
-                }
-            } catch (InterruptedException e) {
-                log.warn("Customer {} thread interrupted during purchase process", getName());
-                Thread.currentThread().interrupt();
-                isActive = false;
-                stopCustomer();
-                break;
-            } catch (Exception e) {
-                log.error("Customer {} encountered an error during ticket purchase: {}", getName(), e.getMessage(), e);
-                try {
-                    log.debug("Customer {} will retry operation after 1 second delay", getName());
-                    Thread.sleep(MILLISECONDS_IN_SECOND);
-                } catch (InterruptedException ie) {
-                    log.warn("Customer {} interrupted during error recovery", getName());
-                    Thread.currentThread().interrupt();
+                    log.info("Customer {} reached purchase limit: totalPurchased={}, targetAmount={}",
+                            getName(), totalTicketsPurchased, ticketsToPurchase);
                     isActive = false;
                     stopCustomer();
-                    break;
+                    return ParticipantStep.finished();
                 }
+            } else if (currentAvailable <= 0) {
+                // Wait until a release can serve this customer; the retrieval interval only bounds the wait
+                int wanted = Math.min(ticketPoolService.getEventConfiguration(getEventId()).getCustomerRetrievalRate(), remainingTickets);
+                log.debug("Customer {} waiting - no tickets currently available for purchase", getName());
+                return ParticipantStep.await(ticketPoolService.awaitAvailableTickets(getEventId(), wanted), retrievalIntervalMillis);
+            } else {
+                log.debug("Customer {} waiting - target already reached or no more tickets to purchase", getName());
+                return ParticipantStep.after(retrievalIntervalMillis);
             }
+        } catch (Exception e) {
+            log.error("Customer {} encountered an error during ticket purchase: {}", getName(), e.getMessage(), e);
+            log.debug("Customer {} will retry operation after 1 second delay", getName());
+            return ParticipantStep.after(MILLISECONDS_IN_SECOND);
         }
+    }
 
+    @Override
+    public void onStopped() {
+        isActive = false;
         log.info("Customer {} completed purchase process. Final statistics: purchasedTickets={}, targetAmount={}, completionRate={}%",
                 getName(), totalTicketsPurchased, ticketsToPurchase,
                 (totalTicketsPurchased * 100 / ticketsToPurchase));
@@ -157,7 +161,6 @@ public class Customer extends Participant {
             log.warn("Customer {} cannot start - already reached ticket purchase target: {}", getName(), ticketsToPurchase);
             return;
         }
-        startParticipant();
         log.info("Customer {} initialized for ticket purchases", getName());
         isActive = true;
     }
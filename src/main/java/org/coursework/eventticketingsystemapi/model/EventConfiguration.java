@@ -7,10 +7,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
 
 @Data
 @NoArgsConstructor
 public class EventConfiguration {
+    // Configurations and participants without an event ID belong to the default event
+    public static final String DEFAULT_EVENT_ID = "default";
+
+    private String eventId;
     private String eventName;
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
     private LocalDateTime eventDate;
@@ -27,4 +33,25 @@ public class EventConfiguration {
         this.ticketReleaseRate = ticketReleaseRate;
         this.customerRetrievalRate = customerRetrievalRate;
     }
+
+    /**
+     * Resolve an optional event ID, falling back to the default event
+     *
+     * @param eventId Event ID or null
+     * @return Event ID to use
+     */
+    public static String resolveEventId(String eventId) {
+        return eventId == null || eventId.isBlank() ? DEFAULT_EVENT_ID : eventId;
+    }
+
+    /**
+     * Event ID values stored on participants and tickets of an event. Records written before events had IDs
+     * carry none and belong to the default event.
+     *
+     * @param eventId Resolved event ID
+     * @return Stored values that match the event
+     */
+    public static List<String> storedEventIds(String eventId) {
+        return DEFAULT_EVENT_ID.equals(eventId) ? Arrays.asList(DEFAULT_EVENT_ID, null) : List.of(eventId);
+    }
 }
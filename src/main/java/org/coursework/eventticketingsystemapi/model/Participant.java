@@ -2,24 +2,36 @@ package org.coursework.eventticketingsystemapi.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
+import org.coursework.eventticketingsystemapi.service.ParticipantRuntime;
+import org.coursework.eventticketingsystemapi.service.ParticipantStep;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.Transient;
 
 @Slf4j
 @Data
 @NoArgsConstructor
-public abstract class Participant implements Runnable {
+public abstract class Participant {
+    // Names and emails are looked up ignoring case; queries must use the same collation as the indexes to use them
+    public static final String CASE_INSENSITIVE_COLLATION = "{ 'locale': 'en', 'strength': 2 }";
+
     @Id
     protected String participantId;
     protected String name;
     protected String email;
     protected String password;
+    // Event the participant releases or buys tickets in; null means the default event
+    protected String eventId;
 
+    // Loop driving this participant in the participant runtime, set when it is started
     @JsonIgnore
     @Transient
-    protected  Thread participantThread;
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    protected ParticipantRuntime.Runner runner;
 
     public Participant(String name, String email, String password) {
         this.name = name;
@@ -28,29 +40,24 @@ public abstract class Participant implements Runnable {
     }
 
     /**
-     * Starts the participant's thread if not already running.
+     * Stops the participant's loop; a step already running completes first.
      */
-    public void startParticipant() {
-        if (participantThread == null || !participantThread.isAlive()) {
-            participantThread = new Thread(this, getClass().getSimpleName() + "-" + name);
-            participantThread.start();
-        } else {
-            log.info("Participant {} is already running", name);
+    public void stopParticipant() {
+        if (runner != null) {
+            runner.cancel();
         }
     }
 
     /**
-     * Stops the participant's thread gracefully by interrupting it.
+     * Runs one iteration of the participant's work without blocking.
+     *
+     * @return When to run the next step, or {@link ParticipantStep#finished()} to stop
      */
-    public void stopParticipant() {
-        if (participantThread != null && participantThread.isAlive()) {
-            participantThread.interrupt();
-        }
-    }
+    public abstract ParticipantStep step();
 
     /**
-     * Ensures subclasses implement their own `run()` behavior.
+     * Called once when the participant's loop ends, however it was stopped.
      */
-    @Override
-    public abstract void run();
+    public void onStopped() {
+    }
 }
@@ -0,0 +1,42 @@
+package org.coursework.eventticketingsystemapi.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Outcome of a simulated sale. Times are simulated milliseconds from the start of the sale.
+ */
+@Data
+@NoArgsConstructor
+public class SimulationReport {
+    private long seed;
+    private int vendors;
+    private int customers;
+    private long stepsExecuted;
+    private long simulatedMillis;
+    private long wallClockMillis;
+
+    private long ticketsReleased;
+    private long ticketsSold;
+    // Time at which every ticket the vendors had to sell was sold, or null if the sale never sold out
+    private Long sellOutMillis;
+    // Time of the last purchase
+    private long lastPurchaseMillis;
+
+    // Sold tickets as a fraction of each vendor's ticketsToSell; per vendor only for small runs
+    private Map<String, Double> vendorSellThrough;
+    private Map<String, Double> vendorSellThroughPercentiles;
+
+    // Number of purchases by tickets bought in one purchase
+    private Map<Integer, Long> purchaseBatchSizes;
+
+    // Jain's index over each customer's share of the tickets they wanted: 1 when everyone got the same share
+    private double fairnessIndex;
+    private int customersFullyServed;
+    private int customersPartlyServed;
+    private int customersUnserved;
+    // Time from a customer's arrival to their first purchase
+    private Map<String, Long> firstPurchaseWaitPercentilesMillis;
+}
@@ -0,0 +1,34 @@
+package org.coursework.eventticketingsystemapi.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Workload for a simulated sale: the event, its vendors and customers, and the seed that makes the run
+ * reproducible. Ranges are inclusive and sampled uniformly per participant.
+ */
+@Data
+@NoArgsConstructor
+public class SimulationScenario {
+    private long seed = 1;
+    private String allocationStrategy = "round-robin";
+    // Simulated time after which the sale is cut off
+    private long durationSeconds = 24 * 60 * 60;
+
+    private int maxCapacity = 1000;
+    private int customerRetrievalRate = 4;
+
+    private int vendors = 100;
+    private int vendorTicketsToSell = 1000;
+    private int vendorTicketsPerRelease = 10;
+    private int vendorReleaseIntervalMinSeconds = 1;
+    private int vendorReleaseIntervalMaxSeconds = 5;
+
+    private int customers = 10_000;
+    private int customerTicketsMin = 1;
+    private int customerTicketsMax = 4;
+    private int customerRetrievalIntervalMinSeconds = 1;
+    private int customerRetrievalIntervalMaxSeconds = 10;
+    // Customers arrive at uniformly spread times within this window from the start of the sale
+    private long customerArrivalWindowSeconds = 60 * 60;
+}
@@ -1,38 +1,92 @@
 package org.coursework.eventticketingsystemapi.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.mongodb.DBRef;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
 import lombok.ToString;
 import org.springframework.data.annotation.Id;
-import org.springframework.data.mongodb.core.index.Indexed;
-import org.springframework.data.mongodb.core.mapping.DBRef;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
 
 import java.time.LocalDateTime;
 
+/**
+ * A sold ticket. Vendor and customer are embedded as IDs with their names, so reading tickets needs no lookups
+ * in the participant collections.
+ * <p>
+ * Automatic index creation is off, so the indexes below only exist because
+ * {@link org.coursework.eventticketingsystemapi.service.IndexBootstrapService} creates them at startup; with
+ * ticket-pool.indexes.enabled=false they have to be created by hand.
+ */
 @Data
+@NoArgsConstructor
 @Document(collection = "tickets")
-@EqualsAndHashCode(exclude = {"vendor", "customer"})
-@ToString(exclude = {"vendor", "customer"})
+@CompoundIndexes({
+        @CompoundIndex(name = "event_vendor_serial", def = "{'eventId': 1, 'vendorId': 1, 'serialNumber': 1}"),
+        @CompoundIndex(name = "event_customer", def = "{'eventId': 1, 'customerId': 1}"),
+        @CompoundIndex(name = "vendor_serial", def = "{'vendorId': 1, 'serialNumber': 1}"),
+        @CompoundIndex(name = "customer", def = "{'customerId': 1}"),
+        // Only tickets still in the DBRef format have these keys; queries match them until the migration finishes
+        @CompoundIndex(name = "legacy_vendor", def = "{'vendor.$id': 1}", sparse = true),
+        @CompoundIndex(name = "legacy_customer", def = "{'customer.$id': 1}", sparse = true)
+})
+@EqualsAndHashCode(exclude = {"legacyVendor", "legacyCustomer"})
+@ToString(exclude = {"legacyVendor", "legacyCustomer"})
 public class Ticket {
     @Id
     private String ticketId;
 
-    @DBRef
-    private Vendor vendor;
+    // Leading key of the event indexes, so per-event queries never scan other events
+    private String eventId;
 
-    @DBRef
-    private Customer customer;
+    private String vendorId;
+
+    private String vendorName;
+
+    // Dense per event and vendor, in the order the tickets were sold; null if no serial could be reserved
+    private Long serialNumber;
+
+    private String customerId;
+
+    private String customerName;
 
     private LocalDateTime createdAt;
 
     private LocalDateTime purchasedAt;
 
-    public Ticket(Vendor vendor,Customer customer) {
-        this.vendor = vendor;
-        this.customer = customer;
+    // References of documents written before the IDs were embedded, read until the migration rewrites them
+    @JsonIgnore
+    @Field("vendor")
+    private DBRef legacyVendor;
+
+    @JsonIgnore
+    @Field("customer")
+    private DBRef legacyCustomer;
+
+    public Ticket(Vendor vendor, Customer customer) {
+        this(null, vendor, customer);
+    }
+
+    public Ticket(String eventId, Vendor vendor, Customer customer) {
+        this.eventId = eventId;
+        this.vendorId = vendor.getParticipantId();
+        this.vendorName = vendor.getName();
+        this.customerId = customer.getParticipantId();
+        this.customerName = customer.getName();
         this.createdAt = LocalDateTime.now();
         this.purchasedAt = LocalDateTime.now();
     }
 
-}
\ No newline at end of file
+    public String getVendorId() {
+        return vendorId != null || legacyVendor == null ? vendorId : legacyVendor.getId().toString();
+    }
+
+    public String getCustomerId() {
+        return customerId != null || legacyCustomer == null ? customerId : legacyCustomer.getId().toString();
+    }
+
+}
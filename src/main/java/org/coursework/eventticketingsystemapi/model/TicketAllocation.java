@@ -0,0 +1,122 @@
+package org.coursework.eventticketingsystemapi.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The tickets one customer bought from one vendor in a single purchase, stored as a range of serials instead
+ * of a document per ticket. Individual tickets are materialized on read with IDs of the form
+ * allocationId:serial; refunding one seat adds its serial to refundedSerials.
+ */
+@Data
+@NoArgsConstructor
+@Document(collection = "ticket_allocations")
+@CompoundIndexes({
+        @CompoundIndex(name = "event_vendor_serial", def = "{'eventId': 1, 'vendorId': 1, 'firstSerial': 1}"),
+        @CompoundIndex(name = "event_customer", def = "{'eventId': 1, 'customerId': 1}"),
+        @CompoundIndex(name = "vendor_serial", def = "{'vendorId': 1, 'firstSerial': 1}"),
+        @CompoundIndex(name = "customer", def = "{'customerId': 1}")
+})
+public class TicketAllocation {
+    private static final char SERIAL_SEPARATOR = ':';
+
+    @Id
+    private String allocationId;
+
+    private String eventId;
+
+    private String vendorId;
+
+    private String vendorName;
+
+    private String customerId;
+
+    private String customerName;
+
+    private long firstSerial;
+
+    private long lastSerial;
+
+    private int count;
+
+    private List<Long> refundedSerials = new ArrayList<>();
+
+    private LocalDateTime purchasedAt;
+
+    public TicketAllocation(String eventId, Vendor vendor, Customer customer, long firstSerial, int count) {
+        this.eventId = eventId;
+        this.vendorId = vendor.getParticipantId();
+        this.vendorName = vendor.getName();
+        this.customerId = customer.getParticipantId();
+        this.customerName = customer.getName();
+        this.firstSerial = firstSerial;
+        this.lastSerial = firstSerial + count - 1;
+        this.count = count;
+        this.purchasedAt = LocalDateTime.now();
+    }
+
+    /**
+     * Tickets still held in this allocation
+     */
+    public int getActiveCount() {
+        return count - (refundedSerials == null ? 0 : refundedSerials.size());
+    }
+
+    public boolean contains(long serial) {
+        return serial >= firstSerial && serial <= lastSerial && (refundedSerials == null || !refundedSerials.contains(serial));
+    }
+
+    /**
+     * The allocation's tickets that have not been refunded, in serial order
+     */
+    public List<Ticket> toTickets() {
+        List<Ticket> tickets = new ArrayList<>(getActiveCount());
+        for (long serial = firstSerial; serial <= lastSerial; serial++) {
+            if (contains(serial)) {
+                tickets.add(toTicket(serial));
+            }
+        }
+        return tickets;
+    }
+
+    public Ticket toTicket(long serial) {
+        Ticket ticket = new Ticket();
+        ticket.setTicketId(ticketId(allocationId, serial));
+        ticket.setEventId(eventId);
+        ticket.setVendorId(vendorId);
+        ticket.setVendorName(vendorName);
+        ticket.setSerialNumber(serial);
+        ticket.setCustomerId(customerId);
+        ticket.setCustomerName(customerName);
+        ticket.setCreatedAt(purchasedAt);
+        ticket.setPurchasedAt(purchasedAt);
+        return ticket;
+    }
+
+    public static String ticketId(String allocationId, long serial) {
+        return allocationId + SERIAL_SEPARATOR + serial;
+    }
+
+    /**
+     * Whether a ticket ID points into an allocation; stored tickets have ObjectId hex IDs
+     */
+    public static boolean isAllocatedTicketId(String ticketId) {
+        return ticketId.indexOf(SERIAL_SEPARATOR) > 0;
+    }
+
+    public static String allocationIdOf(String ticketId) {
+        return ticketId.substring(0, ticketId.lastIndexOf(SERIAL_SEPARATOR));
+    }
+
+    public static long serialOf(String ticketId) {
+        return Long.parseLong(ticketId.substring(ticketId.lastIndexOf(SERIAL_SEPARATOR) + 1));
+    }
+}
@@ -0,0 +1,19 @@
+package org.coursework.eventticketingsystemapi.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of a ticket listing in ticket ID order. Pass nextCursor as the after parameter to get the next page;
+ * it is null on the last page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TicketPage {
+    private List<Ticket> tickets;
+    private String nextCursor;
+}
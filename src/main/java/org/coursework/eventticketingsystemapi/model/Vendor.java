@@ -5,16 +5,25 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
-import org.coursework.eventticketingsystemapi.service.TicketPoolService;
+import org.coursework.eventticketingsystemapi.service.ParticipantStep;
+import org.coursework.eventticketingsystemapi.service.ParticipantTicketPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.annotation.Transient;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Data
 @NoArgsConstructor
 @EqualsAndHashCode(callSuper = true)
 @Document(collection = "vendors")
+@CompoundIndexes({
+        @CompoundIndex(name = "email_ci", def = "{'email': 1}", unique = true, sparse = true,
+                collation = Participant.CASE_INSENSITIVE_COLLATION),
+        @CompoundIndex(name = "name_ci", def = "{'name': 1}", collation = Participant.CASE_INSENSITIVE_COLLATION),
+        @CompoundIndex(name = "active_event", def = "{'isActive': 1, 'eventId': 1}")
+})
 public class Vendor extends Participant{
     private static final Logger log = LoggerFactory.getLogger(Vendor.class);
     private static final int MILLISECONDS_IN_SECOND = 1000;
@@ -28,7 +37,7 @@ public class Vendor extends Participant{
     @Setter
     @JsonIgnore
     @Transient
-    private TicketPoolService ticketPoolService;
+    private ParticipantTicketPool ticketPoolService;
 
     private volatile boolean isActive;
 
@@ -53,77 +62,71 @@ public class Vendor extends Participant{
     }
 
     @Override
-    public void run() {
-        isActive = true;
-        log.info("Vendor {} started ticket release process", getName());
-
-        while (isActive) {
-            try {
-                if (!ticketPoolService.isConfigured()) {
-                    log.warn("Vendor {} waiting - no active event configuration found. Will retry in {} s.Please configure the event first",
-                            getName(), ticketReleaseInterval);
-                    Thread.sleep(ticketReleaseInterval * MILLISECONDS_IN_SECOND);
-                    continue;
-                }
+    public ParticipantStep step() {
+        if (!isActive) {
+            return ParticipantStep.finished();
+        }
+        long releaseIntervalMillis = ticketReleaseInterval * MILLISECONDS_IN_SECOND;
+        try {
+            if (!ticketPoolService.isConfigured(getEventId())) {
+                log.warn("Vendor {} waiting - no active event configuration found. Will retry in {} s.Please configure the event first",
+                        getName(), ticketReleaseInterval);
+                return ParticipantStep.after(releaseIntervalMillis);
+            }
 
-                int currentAvailable = ticketPoolService.getAvailableTickets().get();
-                int maxCapacity = ticketPoolService.getEventConfiguration().getMaxCapacity();
-
-                log.debug("Vendor {} status check: currentAvailable={}, maxCapacity={}, totalTicketsSold={}",
-                        getName(), currentAvailable, maxCapacity, totalTicketsSold);
-
-                if (currentAvailable < maxCapacity) {
-                    int remainingTickets = ticketsToSell - totalTicketsSold;
-                    int ticketsToAdd = Math.min(
-                            Math.min(ticketsPerRelease, maxCapacity - currentAvailable),
-                            remainingTickets
-                    );
-
-                    if (ticketsToAdd > 0) {
-                        log.info("Vendor {} attempting to add {} tickets", getName(), ticketsToAdd);
-                        ticketPoolService.addTickets(this, ticketsToAdd);
-                        totalTicketsSold += ticketsToAdd;
-                        checkAndUpdateRunningStatus(); // Check if we've reached max tickets
-                        log.info("Vendor {} successfully added {} tickets, new total={}, remaining capacity={}",
-                                getName(), ticketsToAdd, totalTicketsSold,
-                                maxCapacity - (currentAvailable + ticketsToAdd));
-
-                        if (!isActive) {
-                            log.info("Vendor {} reached max tickets to sell. Stopping.", getName());
-                            stopVendor();
-                            break;
-                        }
-
-                        Thread.sleep(ticketReleaseInterval * MILLISECONDS_IN_SECOND);
-                    } else {
-                        log.info("Vendor {} reached limit: currentTotal={}, maxLimit={}",
-                                getName(), totalTicketsSold, ticketsToSell);
+            int currentAvailable = ticketPoolService.getAvailableTickets(getEventId()).get();
+            int maxCapacity = ticketPoolService.getEventConfiguration(getEventId()).getMaxCapacity();
+            // Tickets held for checkout still take up room, so the free capacity can be less than max - available
+            int freeCapacity = ticketPoolService.getFreeCapacity(getEventId());
+
+            log.debug("Vendor {} status check: currentAvailable={}, maxCapacity={}, totalTicketsSold={}",
+                    getName(), currentAvailable, maxCapacity, totalTicketsSold);
+
+            if (freeCapacity > 0) {
+                int remainingTickets = ticketsToSell - totalTicketsSold;
+                int ticketsToAdd = Math.min(
+                        Math.min(ticketsPerRelease, freeCapacity),
+                        remainingTickets
+                );
+
+                if (ticketsToAdd > 0) {
+                    log.info("Vendor {} attempting to add {} tickets", getName(), ticketsToAdd);
+                    ticketPoolService.addTickets(this, ticketsToAdd);
+                    totalTicketsSold += ticketsToAdd;
+                    checkAndUpdateRunningStatus(); // Check if we've reached max tickets
+                    log.info("Vendor {} successfully added {} tickets, new total={}, remaining capacity={}",
+                            getName(), ticketsToAdd, totalTicketsSold,
+                            freeCapacity - ticketsToAdd);
+
+                    if (!isActive) {
+                        log.info("Vendor {} reached max tickets to sell. Stopping.", getName());
                         stopVendor();
-                        break;
+                        return ParticipantStep.finished();
                     }
+
+                    return ParticipantStep.after(releaseIntervalMillis);
                 } else {
-                    log.debug("Vendor {} waiting - pool at capacity: current={}, max={}", getName(), currentAvailable, maxCapacity);
-                    Thread.sleep(ticketReleaseInterval * MILLISECONDS_IN_SECOND);
-                }
-            } catch (InterruptedException e) {
-                log.warn("Vendor {} thread interrupted during ticket release process", getName());
-                Thread.currentThread().interrupt();
-                stopVendor();
-                break;
-            } catch (Exception e) {
-                log.error("Vendor {} encountered an error during ticket release: {}", getName(), e.getMessage(), e);
-                try {
-                    log.debug("Vendor {} will retry operation after 1 second delay", getName());
-                    Thread.sleep(MILLISECONDS_IN_SECOND);
-                } catch (InterruptedException ie) {
-                    log.warn("Vendor {} interrupted during error recovery", getName());
-                    Thread.currentThread().interrupt();
+                    log.info("Vendor {} reached limit: currentTotal={}, maxLimit={}",
+                            getName(), totalTicketsSold, ticketsToSell);
                     stopVendor();
-                    break;
+                    return ParticipantStep.finished();
                 }
+            } else {
+                // Wait until purchases free room for this vendor's share; the release interval only bounds the wait
+                int wanted = Math.min(ticketsPerRelease, ticketsToSell - totalTicketsSold);
+                log.debug("Vendor {} waiting - pool at capacity: current={}, max={}", getName(), currentAvailable, maxCapacity);
+                return ParticipantStep.await(ticketPoolService.awaitFreeCapacity(getEventId(), wanted), releaseIntervalMillis);
             }
+        } catch (Exception e) {
+            log.error("Vendor {} encountered an error during ticket release: {}", getName(), e.getMessage(), e);
+            log.debug("Vendor {} will retry operation after 1 second delay", getName());
+            return ParticipantStep.after(MILLISECONDS_IN_SECOND);
         }
+    }
 
+    @Override
+    public void onStopped() {
+        isActive = false;
         try {
             ticketPoolService.updateVendorTicketCount(this, 0);
         } catch (Exception e) {
@@ -140,7 +143,6 @@ public class Vendor extends Participant{
             log.warn("Vendor {} cannot start - already reached max tickets to sell: {}", getName(), ticketsToSell);
             return;
         }
-        startParticipant();
         log.info("Vendor {} initialized for ticket sales", getName());
         isActive = true;
     }
@@ -1,9 +1,12 @@
 package org.coursework.eventticketingsystemapi.repository;
 
 import org.coursework.eventticketingsystemapi.model.Customer;
+import org.coursework.eventticketingsystemapi.model.Participant;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,5 +14,8 @@ import java.util.Optional;
 public interface CustomerRepository extends MongoRepository<Customer, String> {
     Optional<Customer> findByEmail(String email);
     List<Customer> findByIsActive(Boolean isActive);
+    List<Customer> findByIsActiveAndEventIdIn(Boolean isActive, Collection<String> eventIds);
+    // Case-insensitive through the collation of the name_ci index rather than a regex scan
+    @Query(value = "{ 'name': ?0 }", collation = Participant.CASE_INSENSITIVE_COLLATION)
     Optional<Customer> findByNameIgnoreCase(String name);
 }
@@ -1,16 +1,22 @@
 package org.coursework.eventticketingsystemapi.repository;
 
+import org.coursework.eventticketingsystemapi.model.Participant;
 import org.coursework.eventticketingsystemapi.model.Vendor;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface VendorRepository extends MongoRepository<Vendor, String> {
+    // Case-insensitive through the collation of the email_ci and name_ci indexes rather than a regex scan
+    @Query(value = "{ 'email': ?0 }", collation = Participant.CASE_INSENSITIVE_COLLATION)
     Optional<Vendor> findByEmailIgnoreCase(String email);
+    @Query(value = "{ 'name': ?0 }", collation = Participant.CASE_INSENSITIVE_COLLATION)
     Optional<Vendor> findByNameIgnoreCase(String name);
     List<Vendor> findByIsActive(boolean isActive);
+    List<Vendor> findByIsActiveAndEventIdIn(boolean isActive, Collection<String> eventIds);
 }
\ No newline at end of file
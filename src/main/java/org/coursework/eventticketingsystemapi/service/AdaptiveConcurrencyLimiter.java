@@ -0,0 +1,140 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrency limit that adapts to measured latency, in the style of TCP Vegas.
+ * The lowest latency seen approximates the no-load latency; the ratio between it and each sample estimates how
+ * many of the in-flight requests are queueing rather than being served. The limit grows while that queue is
+ * short and shrinks when it gets long or requests fail, so admission follows what the service can actually
+ * absorb instead of a fixed number.
+ */
+public class AdaptiveConcurrencyLimiter {
+    // The no-load latency is re-measured every this many samples, so it can follow a slower steady state
+    private static final int NO_LOAD_PROBE_SAMPLES = 5_000;
+    private static final double DROP_BACKOFF = 0.9;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+    private volatile double limit;
+    private volatile long noLoadRttNanos = Long.MAX_VALUE;
+    private volatile long lastRttNanos;
+    private volatile double queueEstimate;
+    private int samples;
+    private int peakInFlight;
+
+    public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit) {
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * Admit one request if the in-flight count is below the current limit
+     *
+     * @return True if admitted; the caller must then report the outcome with {@link #onSuccess} or {@link #onDropped}
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                rejected.incrementAndGet();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Report a completed request and adjust the limit from its latency
+     *
+     * @param rttNanos Time the request took
+     */
+    public void onSuccess(long rttNanos) {
+        int inFlightAtCompletion = inFlight.getAndDecrement();
+        synchronized (this) {
+            lastRttNanos = rttNanos;
+            peakInFlight = Math.max(peakInFlight, inFlightAtCompletion);
+            if (++samples >= NO_LOAD_PROBE_SAMPLES) {
+                boolean loaded = peakInFlight * 2 >= limit;
+                samples = 0;
+                peakInFlight = 0;
+                noLoadRttNanos = rttNanos;
+                if (loaded) {
+                    // Under sustained load the no-load latency is never observed directly; halve the limit so the
+                    // next samples run with less queueing and measure it afresh
+                    limit = Math.max(minLimit, limit / 2);
+                    return;
+                }
+            }
+            if (rttNanos < noLoadRttNanos) {
+                noLoadRttNanos = Math.max(1, rttNanos);
+            }
+
+            double current = limit;
+            double queue = current * (1 - (double) noLoadRttNanos / Math.max(rttNanos, noLoadRttNanos));
+            queueEstimate = queue;
+            double step = Math.max(1, Math.log10(current));
+            double alpha = 3 * step;
+            double beta = 6 * step;
+            if (queue <= alpha) {
+                // Only grow when the limit is actually being used, otherwise an idle service would grow without bound
+                if (inFlightAtCompletion * 2 >= current) {
+                    current += step;
+                }
+            } else if (queue >= beta) {
+                current -= step;
+            }
+            limit = Math.max(minLimit, Math.min(maxLimit, current));
+        }
+    }
+
+    /**
+     * Report a request that failed or timed out, which backs the limit off multiplicatively
+     */
+    public void onDropped() {
+        inFlight.decrementAndGet();
+        synchronized (this) {
+            limit = Math.max(minLimit, limit * DROP_BACKOFF);
+        }
+    }
+
+    /**
+     * Seconds a rejected client should wait: enough for the requests in flight to drain at the last latency
+     */
+    public int retryAfterSeconds() {
+        double drainNanos = lastRttNanos * Math.max(1.0, (double) inFlight.get() / Math.max(1, (int) limit));
+        return (int) Math.max(1, Math.ceil(drainNanos / 1_000_000_000.0));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public double getQueueEstimate() {
+        return queueEstimate;
+    }
+
+    public long getNoLoadRttNanos() {
+        return noLoadRttNanos == Long.MAX_VALUE ? 0 : noLoadRttNanos;
+    }
+}
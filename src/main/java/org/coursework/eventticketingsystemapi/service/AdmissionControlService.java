@@ -0,0 +1,127 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.coursework.eventticketingsystemapi.config.TicketPoolProperties;
+import org.coursework.eventticketingsystemapi.exception.AdmissionRejectedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Admission control for the ticket pool API.
+ * Requests that change pool state, ticket queries and status reads are admitted against separate adaptive limits,
+ * so a burst of purchases or of ticket pages is shed quickly with 429 while status requests keep their own capacity.
+ */
+@Service
+public class AdmissionControlService {
+    private static final Logger log = LoggerFactory.getLogger(AdmissionControlService.class);
+
+    public enum Budget {READ, QUERY, WRITE}
+
+    private final boolean enabled;
+    private final Map<Budget, AdaptiveConcurrencyLimiter> limiters = new EnumMap<>(Budget.class);
+
+    @Autowired
+    public AdmissionControlService(TicketPoolProperties properties, MeterRegistry meterRegistry) {
+        TicketPoolProperties.Admission settings = properties.getAdmission();
+        this.enabled = settings.isEnabled();
+        limiters.put(Budget.WRITE, new AdaptiveConcurrencyLimiter("write",
+                settings.getWriteInitialLimit(), settings.getWriteMinLimit(), settings.getWriteMaxLimit()));
+        limiters.put(Budget.QUERY, new AdaptiveConcurrencyLimiter("query",
+                settings.getQueryInitialLimit(), settings.getQueryMinLimit(), settings.getQueryMaxLimit()));
+        limiters.put(Budget.READ, new AdaptiveConcurrencyLimiter("read",
+                settings.getReadInitialLimit(), settings.getReadMinLimit(), settings.getReadMaxLimit()));
+        for (AdaptiveConcurrencyLimiter limiter : limiters.values()) {
+            Gauge.builder("ticketpool.admission.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                    .description("Current adaptive concurrency limit")
+                    .tag("budget", limiter.getName())
+                    .register(meterRegistry);
+            Gauge.builder("ticketpool.admission.in_flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                    .description("Admitted requests still running")
+                    .tag("budget", limiter.getName())
+                    .register(meterRegistry);
+            FunctionCounter.builder("ticketpool.admission.rejected", limiter, AdaptiveConcurrencyLimiter::getRejected)
+                    .description("Requests rejected with 429")
+                    .tag("budget", limiter.getName())
+                    .register(meterRegistry);
+        }
+        if (enabled) {
+            log.info("Admission control enabled: write limit {}..{}, query limit {}..{}, read limit {}..{}",
+                    settings.getWriteMinLimit(), settings.getWriteMaxLimit(), settings.getQueryMinLimit(), settings.getQueryMaxLimit(),
+                    settings.getReadMinLimit(), settings.getReadMaxLimit());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Decide which budget a request is admitted against
+     *
+     * @param method HTTP method
+     * @param path   Request path
+     * @return Budget, or null if the request is not subject to admission control
+     */
+    public Budget classify(String method, String path) {
+        // Long-polls are parked by design, and simulations and exports are long runs; counting any of them would
+        // read as queueing latency. Simulations limit themselves to one run at a time instead
+        if (path == null || path.endsWith("/await") || path.endsWith("/simulations") || path.endsWith("/export")) {
+            return null;
+        }
+        boolean readOnly = "GET".equalsIgnoreCase(method) || "HEAD".equalsIgnoreCase(method);
+        if (path.startsWith("/api/ticket-pool")) {
+            if (!readOnly) {
+                return Budget.WRITE;
+            }
+            // Ticket listings page through Mongo; keep them from using up the capacity of status reads
+            return path.contains("/tickets") ? Budget.QUERY : Budget.READ;
+        }
+        // Activating vendors and customers starts their release and purchase loops
+        if (!readOnly && (path.startsWith("/api/vendors") || path.startsWith("/api/customers"))) {
+            return Budget.WRITE;
+        }
+        return null;
+    }
+
+    /**
+     * Admit a request or reject it straight away
+     *
+     * @param budget Budget to admit against
+     * @return Limiter the outcome must be reported to
+     * @throws AdmissionRejectedException if the budget's limit is reached
+     */
+    public AdaptiveConcurrencyLimiter admit(Budget budget) {
+        AdaptiveConcurrencyLimiter limiter = limiters.get(budget);
+        if (!limiter.tryAcquire()) {
+            log.debug("Rejected {} request at {} in flight", limiter.getName(), limiter.getInFlight());
+            throw new AdmissionRejectedException("Ticket pool is at capacity, retry later", limiter.retryAfterSeconds());
+        }
+        return limiter;
+    }
+
+    /**
+     * Current limits and load of every budget
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        for (AdaptiveConcurrencyLimiter limiter : limiters.values()) {
+            Map<String, Object> budget = new LinkedHashMap<>();
+            budget.put("limit", limiter.getLimit());
+            budget.put("inFlight", limiter.getInFlight());
+            budget.put("rejected", limiter.getRejected());
+            budget.put("queueEstimate", limiter.getQueueEstimate());
+            budget.put("noLoadLatencyMicros", limiter.getNoLoadRttNanos() / 1000);
+            status.put(limiter.getName(), budget);
+        }
+        return status;
+    }
+}
@@ -0,0 +1,379 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.coursework.eventticketingsystemapi.config.TicketPoolProperties;
+import org.coursework.eventticketingsystemapi.exception.ResourceProcessingException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Single-writer allocation core for the ticket pool.
+ * Callers publish inventory mutations into a pre-allocated ring of slots and one allocator thread applies
+ * them in sequence order. The slots are reused, so steady-state operation allocates nothing, and each slot
+ * doubles as the completion handle its publisher waits on. While the ring is enabled, every mutation of an
+ * inventory's stock, including holds and leased quota, goes through it.
+ */
+@Service
+public class AllocationRingBuffer {
+    private static final Logger log = LoggerFactory.getLogger(AllocationRingBuffer.class);
+    private static final int SPIN_TRIES = 200;
+    private static final long PARK_NANOS = 50_000;
+
+    private static final int RELEASE = 0;
+    private static final int PURCHASE = 1;
+    private static final int ADJUST = 2;
+    private static final int HOLD = 3;
+    private static final int CONFIRM_HOLD = 4;
+    private static final int RETURN_HOLD = 5;
+    private static final int ADD_LEASED = 6;
+    private static final int TAKE_AVAILABLE = 7;
+
+    private final TicketPoolProperties.RingBuffer settings;
+    private final AtomicLong claimSequence = new AtomicLong();
+    private Slot[] slots;
+    private int mask;
+    private Thread allocatorThread;
+    private volatile boolean running;
+    private volatile boolean allocatorParked;
+
+    /**
+     * Completion handle for a published operation. Valid until {@link #recycle()} is called.
+     */
+    public interface AllocationHandle {
+        /**
+         * Wait for the allocator to apply the operation
+         *
+         * @return Operation result
+         */
+        int await();
+
+        /**
+         * Tickets claimed from the vendor at the given index of a purchase's candidate list
+         */
+        int claimedFrom(int vendorIndex);
+
+        /**
+         * Hand the slot back to the ring
+         */
+        void recycle();
+
+        /**
+         * Wait for the operation, then hand the slot back
+         *
+         * @return Operation result
+         */
+        default int awaitAndRecycle() {
+            try {
+                return await();
+            } finally {
+                recycle();
+            }
+        }
+    }
+
+    @Autowired
+    public AllocationRingBuffer(TicketPoolProperties properties) {
+        this.settings = properties.getRingBuffer();
+    }
+
+    /**
+     * Pre-allocate the ring and start the allocator thread when the ring-buffer mode is selected
+     */
+    @PostConstruct
+    public void start() {
+        if (!settings.isEnabled()) {
+            return;
+        }
+        int size = Integer.highestOneBit(Math.max(2, settings.getSize() - 1)) << 1;
+        slots = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot(i);
+        }
+        mask = size - 1;
+        running = true;
+        allocatorThread = new Thread(this::allocateLoop, "PoolAllocator");
+        allocatorThread.setDaemon(true);
+        allocatorThread.start();
+        log.info("Ring-buffer allocation core started with {} slots", size);
+    }
+
+    public boolean isEnabled() {
+        return running;
+    }
+
+    /**
+     * Publish a vendor release
+     */
+    public AllocationHandle publishRelease(TicketInventory inventory, String vendorId, int ticketsToSell, int count) {
+        Slot slot = claimSlot();
+        slot.type = RELEASE;
+        slot.inventory = inventory;
+        slot.vendorId = vendorId;
+        slot.ticketsToSell = ticketsToSell;
+        slot.count = count;
+        return publish(slot);
+    }
+
+    /**
+     * Publish a customer purchase against the given candidate vendors
+     */
+    public AllocationHandle publishPurchase(TicketInventory inventory, String customerId, int requested, int initialRemaining, List<String> vendorIds) {
+        return publishAllocation(PURCHASE, inventory, customerId, requested, initialRemaining, vendorIds);
+    }
+
+    /**
+     * Publish a customer hold against the given candidate vendors
+     */
+    public AllocationHandle publishHold(TicketInventory inventory, String customerId, int requested, int initialRemaining, List<String> vendorIds) {
+        return publishAllocation(HOLD, inventory, customerId, requested, initialRemaining, vendorIds);
+    }
+
+    private AllocationHandle publishAllocation(int type, TicketInventory inventory, String customerId, int requested, int initialRemaining, List<String> vendorIds) {
+        Slot slot = claimSlot();
+        slot.type = type;
+        slot.inventory = inventory;
+        slot.customerId = customerId;
+        slot.count = requested;
+        slot.initialRemaining = initialRemaining;
+        slot.vendorIds = vendorIds;
+        return publish(slot);
+    }
+
+    /**
+     * Publish a direct adjustment of a vendor's available count
+     */
+    public AllocationHandle publishAdjust(TicketInventory inventory, String vendorId, int delta) {
+        Slot slot = claimSlot();
+        slot.type = ADJUST;
+        slot.inventory = inventory;
+        slot.vendorId = vendorId;
+        slot.count = delta;
+        return publish(slot);
+    }
+
+    /**
+     * Publish the confirmation of a hold
+     */
+    public AllocationHandle publishConfirmHold(TicketInventory inventory, TicketHold hold) {
+        Slot slot = claimSlot();
+        slot.type = CONFIRM_HOLD;
+        slot.inventory = inventory;
+        slot.hold = hold;
+        return publish(slot);
+    }
+
+    /**
+     * Publish the return of a cancelled or expired hold
+     */
+    public AllocationHandle publishReturnHold(TicketInventory inventory, TicketHold hold) {
+        Slot slot = claimSlot();
+        slot.type = RETURN_HOLD;
+        slot.inventory = inventory;
+        slot.hold = hold;
+        return publish(slot);
+    }
+
+    /**
+     * Publish stock leased from the cluster's quota authority
+     */
+    public AllocationHandle publishAddLeased(TicketInventory inventory, String vendorId, int count) {
+        Slot slot = claimSlot();
+        slot.type = ADD_LEASED;
+        slot.inventory = inventory;
+        slot.vendorId = vendorId;
+        slot.count = count;
+        return publish(slot);
+    }
+
+    /**
+     * Publish taking a vendor's available stock out, so it can be handed back to the quota authority
+     */
+    public AllocationHandle publishTakeAvailable(TicketInventory inventory, String vendorId) {
+        Slot slot = claimSlot();
+        slot.type = TAKE_AVAILABLE;
+        slot.inventory = inventory;
+        slot.vendorId = vendorId;
+        return publish(slot);
+    }
+
+    private Slot claimSlot() {
+        if (!running) {
+            throw new ResourceProcessingException("Ticket pool allocator is not running");
+        }
+        long sequence = claimSequence.getAndIncrement();
+        Slot slot = slots[(int) (sequence & mask)];
+        int spins = 0;
+        while (slot.freeSequence != sequence) {
+            if (!running) {
+                throw new ResourceProcessingException("Ticket pool allocator stopped");
+            }
+            spins = backoff(spins);
+        }
+        slot.sequence = sequence;
+        return slot;
+    }
+
+    private Slot publish(Slot slot) {
+        slot.waiter = Thread.currentThread();
+        slot.publishedSequence = slot.sequence;
+        if (allocatorParked) {
+            LockSupport.unpark(allocatorThread);
+        }
+        return slot;
+    }
+
+    /**
+     * Allocator loop: apply slots strictly in sequence order
+     */
+    private void allocateLoop() {
+        long sequence = 0;
+        while (true) {
+            Slot slot = slots[(int) (sequence & mask)];
+            int spins = 0;
+            while (slot.publishedSequence != sequence) {
+                if (!running && claimSequence.get() <= sequence) {
+                    return;
+                }
+                if (spins++ < SPIN_TRIES) {
+                    Thread.onSpinWait();
+                } else {
+                    allocatorParked = true;
+                    if (slot.publishedSequence != sequence) {
+                        LockSupport.parkNanos(this, PARK_NANOS);
+                    }
+                    allocatorParked = false;
+                }
+            }
+            apply(slot);
+            slot.completedSequence = sequence;
+            LockSupport.unpark(slot.waiter);
+            sequence++;
+        }
+    }
+
+    private void apply(Slot slot) {
+        try {
+            switch (slot.type) {
+                case RELEASE -> {
+                    slot.inventory.release(slot.vendorId, slot.ticketsToSell, slot.count);
+                    slot.result = slot.count;
+                }
+                case PURCHASE, HOLD -> {
+                    int candidates = slot.vendorIds.size();
+                    if (slot.claimed.length < candidates) {
+                        slot.claimed = new int[Integer.highestOneBit(candidates) << 1];
+                    }
+                    slot.result = slot.type == PURCHASE
+                            ? slot.inventory.purchase(slot.customerId, slot.count, slot.initialRemaining, slot.vendorIds, slot.claimed)
+                            : slot.inventory.hold(slot.customerId, slot.count, slot.initialRemaining, slot.vendorIds, slot.claimed);
+                }
+                case ADJUST -> slot.result = slot.inventory.adjustVendorAvailable(slot.vendorId, slot.count);
+                case CONFIRM_HOLD -> {
+                    slot.inventory.confirmHold(slot.hold);
+                    slot.result = slot.hold.getQuantity();
+                }
+                case RETURN_HOLD -> {
+                    slot.inventory.returnHold(slot.hold);
+                    slot.result = slot.hold.getQuantity();
+                }
+                case ADD_LEASED -> {
+                    slot.inventory.addLeasedTickets(slot.vendorId, slot.count);
+                    slot.result = slot.count;
+                }
+                case TAKE_AVAILABLE -> slot.result = slot.inventory.takeAvailable(slot.vendorId);
+                default -> throw new IllegalStateException("Unknown allocation type " + slot.type);
+            }
+        } catch (RuntimeException e) {
+            slot.error = e;
+        }
+    }
+
+    private static int backoff(int spins) {
+        if (spins < SPIN_TRIES) {
+            Thread.onSpinWait();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+        return spins + 1;
+    }
+
+    /**
+     * Stop the allocator after it has applied everything already published
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (allocatorThread == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(allocatorThread);
+        try {
+            allocatorThread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("Ring-buffer allocation core stopped after {} operations", claimSequence.get());
+    }
+
+    private final class Slot implements AllocationHandle {
+        private volatile long freeSequence;
+        private volatile long publishedSequence = -1;
+        private volatile long completedSequence = -1;
+
+        private long sequence;
+        private int type;
+        private TicketInventory inventory;
+        private String vendorId;
+        private String customerId;
+        private int ticketsToSell;
+        private int count;
+        private int initialRemaining;
+        private List<String> vendorIds;
+        private TicketHold hold;
+        private int[] claimed = new int[16];
+        private int result;
+        private RuntimeException error;
+        private Thread waiter;
+
+        Slot(long freeSequence) {
+            this.freeSequence = freeSequence;
+        }
+
+        @Override
+        public int await() {
+            int spins = 0;
+            while (completedSequence != sequence) {
+                if (!running && !allocatorThread.isAlive() && completedSequence != sequence) {
+                    throw new ResourceProcessingException("Ticket pool allocator stopped before applying the operation");
+                }
+                spins = backoff(spins);
+            }
+            if (error != null) {
+                throw error;
+            }
+            return result;
+        }
+
+        @Override
+        public int claimedFrom(int vendorIndex) {
+            return claimed[vendorIndex];
+        }
+
+        @Override
+        public void recycle() {
+            inventory = null;
+            vendorIds = null;
+            hold = null;
+            error = null;
+            waiter = null;
+            freeSequence = sequence + slots.length;
+        }
+    }
+}
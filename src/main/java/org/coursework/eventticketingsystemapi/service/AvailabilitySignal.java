@@ -0,0 +1,171 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntSupplier;
+
+/**
+ * Parks waiters until units of some resource become available and wakes them in arrival order.
+ * A signal for n units wakes only as many waiters as n can satisfy, so a release of a few tickets does not
+ * wake every parked customer. Waiters are futures, so both threads and asynchronous requests can wait.
+ * Signalling is a single volatile read when nobody waits.
+ */
+public class AvailabilitySignal {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashSet<Waiter> waiters = new LinkedHashSet<>();
+    private volatile int waiting;
+
+    /**
+     * One parked waiter; identity equality keeps each registration distinct
+     */
+    public static final class Waiter {
+        private final AvailabilitySignal signal;
+        private final int wanted;
+        private final CompletableFuture<Boolean> future = new CompletableFuture<>();
+
+        private Waiter(AvailabilitySignal signal, int wanted) {
+            this.signal = signal;
+            this.wanted = wanted;
+        }
+
+        /**
+         * Stop waiting; see {@link AvailabilitySignal#cancel}
+         */
+        public void cancel() {
+            signal.cancel(this);
+        }
+
+        /**
+         * Completes with true when units were signalled for this waiter, false when it was released without units
+         */
+        public CompletableFuture<Boolean> getFuture() {
+            return future;
+        }
+    }
+
+    /**
+     * Register a waiter for some units
+     *
+     * @param wanted    Units the waiter intends to take
+     * @param available Current units, checked after registering so a signal sent just before is not missed
+     * @return The waiter; call {@link #cancel} if it stops waiting before being signalled
+     */
+    public Waiter await(int wanted, IntSupplier available) {
+        Waiter waiter = new Waiter(this, Math.max(1, wanted));
+        lock.lock();
+        try {
+            waiters.add(waiter);
+            waiting = waiters.size();
+        } finally {
+            lock.unlock();
+        }
+        int units = available.getAsInt();
+        if (units > 0) {
+            signal(units);
+        }
+        return waiter;
+    }
+
+    /**
+     * Wait for units on the calling thread
+     *
+     * @param wanted        Units the caller intends to take
+     * @param available     Current units
+     * @param timeoutMillis Longest time to wait
+     * @return True if units were signalled, false on timeout or release without units
+     */
+    public boolean await(int wanted, IntSupplier available, long timeoutMillis) throws InterruptedException {
+        Waiter waiter = await(wanted, available);
+        try {
+            return waiter.future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            return false;
+        } finally {
+            cancel(waiter);
+        }
+    }
+
+    /**
+     * Stop waiting. A waiter that was already signalled is unaffected.
+     *
+     * @param waiter Waiter to remove
+     */
+    public void cancel(Waiter waiter) {
+        if (waiter.future.complete(false)) {
+            lock.lock();
+            try {
+                waiters.remove(waiter);
+                waiting = waiters.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Wake waiters in arrival order until their wanted units cover the units made available
+     *
+     * @param units Units that became available
+     * @return Number of waiters woken
+     */
+    public int signal(int units) {
+        if (waiting == 0 || units <= 0) {
+            return 0;
+        }
+        List<Waiter> woken = new ArrayList<>();
+        lock.lock();
+        try {
+            Iterator<Waiter> iterator = waiters.iterator();
+            while (units > 0 && iterator.hasNext()) {
+                Waiter waiter = iterator.next();
+                iterator.remove();
+                if (!waiter.future.isDone()) {
+                    woken.add(waiter);
+                    units -= waiter.wanted;
+                }
+            }
+            waiting = waiters.size();
+        } finally {
+            lock.unlock();
+        }
+        // Complete outside the lock; completions may run request callbacks
+        int unclaimed = 0;
+        int count = 0;
+        for (Waiter waiter : woken) {
+            if (waiter.future.complete(true)) {
+                count++;
+            } else {
+                // Cancelled between being picked and being woken; pass its share on
+                unclaimed += waiter.wanted;
+            }
+        }
+        return unclaimed > 0 ? count + signal(unclaimed) : count;
+    }
+
+    /**
+     * Release every waiter without units, for example when the inventory they wait on is replaced
+     */
+    public void releaseAll() {
+        List<Waiter> released;
+        lock.lock();
+        try {
+            released = new ArrayList<>(waiters);
+            waiters.clear();
+            waiting = 0;
+        } finally {
+            lock.unlock();
+        }
+        released.forEach(waiter -> waiter.future.complete(false));
+    }
+
+    public int getWaiting() {
+        return waiting;
+    }
+}
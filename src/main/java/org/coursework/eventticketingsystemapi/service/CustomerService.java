@@ -3,6 +3,7 @@ package org.coursework.eventticketingsystemapi.service;
 import org.coursework.eventticketingsystemapi.exception.ResourceNotFoundException;
 import org.coursework.eventticketingsystemapi.exception.ResourceProcessingException;
 import org.coursework.eventticketingsystemapi.model.Customer;
+import org.coursework.eventticketingsystemapi.model.EventConfiguration;
 import org.coursework.eventticketingsystemapi.model.Vendor;
 import org.coursework.eventticketingsystemapi.repository.CustomerRepository;
 import org.slf4j.Logger;
@@ -20,13 +21,18 @@ public class CustomerService {
 
     private final CustomerRepository customerRepository;
     private final TicketPoolService ticketPoolService;
+    private final ParticipantRegistry participantRegistry;
+    private final ParticipantRuntime participantRuntime;
 
     private final Map<String, Customer> activeCustomers = new ConcurrentHashMap<>();
 
     @Autowired
-    public CustomerService(CustomerRepository customerRepository, TicketPoolService ticketPoolService) {
+    public CustomerService(CustomerRepository customerRepository, TicketPoolService ticketPoolService, ParticipantRegistry participantRegistry,
+                           ParticipantRuntime participantRuntime) {
         this.customerRepository = customerRepository;
         this.ticketPoolService = ticketPoolService;
+        this.participantRegistry = participantRegistry;
+        this.participantRuntime = participantRuntime;
     }
 
     /**
@@ -127,8 +133,8 @@ public class CustomerService {
         if (customer.getTicketRetrievalInterval() <= 0) {
             throw new IllegalArgumentException("Ticket retrieval interval must be greater than 0");
         }
-        if (!ticketPoolService.isConfigured()) {
-            log.warn("Registering customer while event is not configured");
+        if (!ticketPoolService.isConfigured(customer.getEventId())) {
+            log.warn("Registering customer while event {} is not configured", EventConfiguration.resolveEventId(customer.getEventId()));
         }
     }
 
@@ -149,6 +155,7 @@ public class CustomerService {
         existingCustomer.setActive(true);
         existingCustomer.setTicketsToPurchase(newDetails.getTicketsToPurchase());
         existingCustomer.setTicketRetrievalInterval(newDetails.getTicketRetrievalInterval());
+        existingCustomer.setEventId(newDetails.getEventId());
         existingCustomer.setTotalTicketsPurchased(0);
 
         return saveAndStartCustomer(existingCustomer);
@@ -175,8 +182,9 @@ public class CustomerService {
     private Customer saveAndStartCustomer(Customer customer) {
         initializeCustomerServices(customer);
         Customer savedCustomer = customerRepository.save(customer);
+        participantRegistry.registerCustomer(savedCustomer);
         activeCustomers.put(savedCustomer.getParticipantId(), savedCustomer);
-        startCustomerThread(savedCustomer);
+        startCustomerRunner(savedCustomer);
         return savedCustomer;
     }
 
@@ -190,21 +198,20 @@ public class CustomerService {
     }
 
     /**
-     * Starts the customer thread for the specified customer.
+     * Starts the customer's purchase loop in the participant runtime.
      *
      * @param customer the customer to start
-     * @throws ResourceProcessingException if there is an error starting the customer thread
+     * @throws ResourceProcessingException if there is an error starting the customer
      */
-    private void startCustomerThread(Customer customer) {
+    private void startCustomerRunner(Customer customer) {
         try {
             customer.startCustomer();
-            Thread customerThread = new Thread(customer);
-            customerThread.setName("Customer-" + customer.getParticipantId());
-            customerThread.start();
-            log.info("Customer {} thread started successfully", customer.getParticipantId());
+            if (participantRuntime.start(customer)) {
+                log.info("Customer {} started successfully", customer.getParticipantId());
+            }
         } catch (Exception e) {
-            log.error("Error starting customer thread {}: {}", customer.getParticipantId(), e.getMessage(), e);
-            throw new ResourceProcessingException("Failed to start customer thread");
+            log.error("Error starting customer {}: {}", customer.getParticipantId(), e.getMessage(), e);
+            throw new ResourceProcessingException("Failed to start customer");
         }
     }
 
@@ -222,9 +229,10 @@ public class CustomerService {
 
             customer.setActive(true);
             customerRepository.save(customer);
+            participantRegistry.updateCustomerDetails(customer);
             activeCustomers.put(customer.getParticipantId(), customer);
             customer.setTicketPoolService(ticketPoolService);
-            startCustomerThread(customer);
+            startCustomerRunner(customer);
             log.info("Customer {} successfully reactivated", customerId);
         } catch (Exception e) {
             log.error("Error reactivating customer {}: {}", customerId, e.getMessage(), e);
@@ -245,8 +253,11 @@ public class CustomerService {
 
             customer.stopCustomer();
             customer.setActive(false);
+            // The running loop belongs to the instance that was started, not the one just loaded
+            participantRuntime.stop(customerId);
 
             customerRepository.save(customer);
+            participantRegistry.updateCustomerDetails(customer);
             activeCustomers.remove(customerId);
 
             log.info("Customer {} successfully deactivated. Final tickets purchased: {}",
@@ -265,6 +276,7 @@ public class CustomerService {
                     .orElseThrow(() -> new IllegalArgumentException("Customer not found with name: " + customerName));
             deactivateCustomer(customer.getParticipantId());
             customerRepository.delete(customer);
+            participantRegistry.removeCustomer(customer.getParticipantId());
 
             log.info("Customer {} deleted successfully", customerName);
         } catch (Exception e) {
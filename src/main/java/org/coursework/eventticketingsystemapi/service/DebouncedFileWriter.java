@@ -0,0 +1,162 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Writes snapshots of a file atomically (temp file plus rename) and coalesces rapid updates
+ * into at most one write per debounce interval. The monitor only guards the pending state and the
+ * rename; serializing and writing the temp file happen outside it, and a snapshot older than the
+ * file on disk is dropped instead of renamed over it.
+ */
+public class DebouncedFileWriter {
+    private static final Logger log = LoggerFactory.getLogger(DebouncedFileWriter.class);
+
+    private final Path target;
+    private final long debounceMillis;
+    private final boolean fsync;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicReference<SnapshotSource> pending = new AtomicReference<>();
+    private long lastWriteMillis;
+    private boolean writeScheduled;
+    // Order in which snapshots were taken, and the newest one renamed into place
+    private long nextSequence;
+    private long writtenSequence;
+
+    /**
+     * Source of the file content, evaluated when the write actually happens
+     */
+    public interface SnapshotSource {
+        byte[] snapshot() throws IOException;
+    }
+
+    public DebouncedFileWriter(Path target, long debounceMillis, boolean fsync) {
+        this.target = target.toAbsolutePath();
+        this.debounceMillis = Math.max(0, debounceMillis);
+        this.fsync = fsync;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "SnapshotWriter-" + target.getFileName());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Schedule a write. Only the latest source is written if several arrive within one interval.
+     *
+     * @param source Content to write
+     */
+    public void schedule(SnapshotSource source) {
+        pending.set(source);
+        synchronized (this) {
+            if (writeScheduled) {
+                return;
+            }
+            writeScheduled = true;
+            long delay = Math.max(0, lastWriteMillis + debounceMillis - System.currentTimeMillis());
+            scheduler.schedule(this::writePending, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Write content immediately, replacing any pending scheduled snapshot
+     *
+     * @param content Content to write
+     * @throws IOException if the file cannot be written
+     */
+    public void writeNow(byte[] content) throws IOException {
+        long sequence;
+        synchronized (this) {
+            pending.set(null);
+            sequence = ++nextSequence;
+        }
+        writeAtomically(content, sequence);
+    }
+
+    /**
+     * Write the pending snapshot now, if there is one
+     */
+    public void flush() {
+        writePending();
+    }
+
+    /**
+     * Flush the pending snapshot and stop the scheduler
+     */
+    public void close() {
+        flush();
+        scheduler.shutdown();
+    }
+
+    private void writePending() {
+        SnapshotSource source;
+        long sequence;
+        synchronized (this) {
+            writeScheduled = false;
+            source = pending.getAndSet(null);
+            if (source == null) {
+                return;
+            }
+            sequence = ++nextSequence;
+        }
+        try {
+            writeAtomically(source.snapshot(), sequence);
+        } catch (IOException e) {
+            log.error("Failed to write snapshot {}: {}", target, e.getMessage());
+        }
+    }
+
+    private void writeAtomically(byte[] content, long sequence) throws IOException {
+        Path directory = target.getParent();
+        Path temp = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(content);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                if (fsync) {
+                    channel.force(true);
+                }
+            }
+            synchronized (this) {
+                if (sequence < writtenSequence) {
+                    return;
+                }
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    log.warn("Atomic move not supported for {}, falling back to replace", target);
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+                writtenSequence = sequence;
+                lastWriteMillis = System.currentTimeMillis();
+            }
+            if (fsync) {
+                syncDirectory(directory);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Persist the rename itself. Not every platform can open a directory, so failures are only logged.
+     */
+    private void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            log.debug("Directory sync not supported for {}: {}", directory, e.getMessage());
+        }
+    }
+}
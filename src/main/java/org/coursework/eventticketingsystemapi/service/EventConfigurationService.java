@@ -2,45 +2,75 @@ package org.coursework.eventticketingsystemapi.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.annotation.PreDestroy;
+import org.coursework.eventticketingsystemapi.config.TicketPoolProperties;
 import org.coursework.eventticketingsystemapi.exception.ResourceProcessingException;
 import org.coursework.eventticketingsystemapi.model.EventConfiguration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
 
 @Service
 public class EventConfigurationService {
     private static final Logger log = LoggerFactory.getLogger(EventConfigurationService.class);
+    // The default event keeps the original file name; every other event gets its own file
     private static final String CONFIGURATION_FILE = "event-configuration.json";
+    private static final String EVENT_CONFIGURATION_FILE_PREFIX = "event-configuration-";
+    private static final Pattern EVENT_ID_PATTERN = Pattern.compile("[A-Za-z0-9_-]{1,64}");
     private final ObjectMapper objectMapper;
+    private final TicketPoolProperties.ConfigurationFile settings;
+    private final Map<String, DebouncedFileWriter> fileWriters = new ConcurrentHashMap<>();
 
-    public EventConfigurationService() {
+    @Autowired
+    public EventConfigurationService(TicketPoolProperties properties) {
         this.objectMapper = new ObjectMapper();
         this.objectMapper.registerModule(new JavaTimeModule());
+        this.settings = properties.getConfigurationFile();
     }
 
     /**
-     * Load event configuration from file
+     * Load the default event's configuration from file
      *
      * @return EventConfiguration object
      */
     public EventConfiguration getEventConfiguration() {
-        log.debug("Loading event configuration");
+        return getEventConfiguration(EventConfiguration.DEFAULT_EVENT_ID);
+    }
+
+    /**
+     * Load an event's configuration from file
+     *
+     * @param eventId Event ID
+     * @return EventConfiguration object, or null if the event has no configuration file
+     */
+    public EventConfiguration getEventConfiguration(String eventId) {
+        log.debug("Loading event configuration for {}", eventId);
+        String resolvedId = EventConfiguration.resolveEventId(eventId);
+        if (!EVENT_ID_PATTERN.matcher(resolvedId).matches()) {
+            return null;
+        }
+        Path path = configurationPath(resolvedId);
         try {
-            EventConfiguration configuration = loadConfiguration();
+            EventConfiguration configuration = loadConfiguration(path);
             if (configuration != null) {
                 validateConfiguration(configuration);
                 return configuration;
             }
-            log.info("No configuration file found at: {}", Paths.get(CONFIGURATION_FILE).toAbsolutePath());
+            log.info("No configuration file found at: {}", path.toAbsolutePath());
             return null;
         } catch (IOException e) {
             log.error("Failed to read configuration file: {}", e.getMessage());
@@ -48,20 +78,58 @@ public class EventConfigurationService {
         }
     }
 
+    /**
+     * Load the configurations of every event that has a configuration file
+     *
+     * @return Event configurations; invalid files are skipped
+     */
+    public List<EventConfiguration> getEventConfigurations() {
+        List<EventConfiguration> configurations = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get("").toAbsolutePath(), "event-configuration*.json")) {
+            for (Path path : files) {
+                try {
+                    EventConfiguration configuration = loadConfiguration(path);
+                    validateConfiguration(configuration);
+                    configurations.add(configuration);
+                } catch (IOException | ResourceProcessingException e) {
+                    log.error("Skipping configuration file {}: {}", path.getFileName(), e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            log.error("Failed to list configuration files: {}", e.getMessage());
+            throw new ResourceProcessingException("Unable to list configuration files");
+        }
+        return configurations;
+    }
+
     /**
      * Load event configuration from file
      *
+     * @param path Configuration file
      * @return EventConfiguration object
      */
-    private EventConfiguration loadConfiguration() throws IOException {
-        Path path = Paths.get(CONFIGURATION_FILE);
+    private EventConfiguration loadConfiguration(Path path) throws IOException {
         File file = path.toFile();
 
         if (!file.exists()) {
             return null;
         }
 
-        return objectMapper.readValue(file, EventConfiguration.class);
+        EventConfiguration configuration = objectMapper.readValue(file, EventConfiguration.class);
+        // Files written before events had IDs hold the default event
+        configuration.setEventId(EventConfiguration.resolveEventId(configuration.getEventId()));
+        return configuration;
+    }
+
+    private Path configurationPath(String eventId) {
+        return EventConfiguration.DEFAULT_EVENT_ID.equals(eventId)
+                ? Paths.get(CONFIGURATION_FILE)
+                : Paths.get(EVENT_CONFIGURATION_FILE_PREFIX + eventId + ".json");
+    }
+
+    private DebouncedFileWriter fileWriter(String eventId) {
+        return fileWriters.computeIfAbsent(eventId, id ->
+                new DebouncedFileWriter(configurationPath(id), settings.getDebounceMillis(), settings.isFsync()));
     }
 
     /**
@@ -93,6 +161,9 @@ public class EventConfigurationService {
             return errors;
         }
 
+        if (configuration.getEventId() != null && !EVENT_ID_PATTERN.matcher(configuration.getEventId()).matches()) {
+            errors.add("Event ID may only contain letters, digits, '-' and '_'");
+        }
         if (configuration.getMaxCapacity() <= 0) {
             errors.add("Maximum capacity must be greater than zero");
         }
@@ -110,7 +181,7 @@ public class EventConfigurationService {
     }
 
     /**
-     * Save the configuration object to file
+     * Save the configuration object to file immediately, replacing the file atomically
      *
      * @param configuration EventConfiguration object
      * @return EventConfiguration object
@@ -121,10 +192,11 @@ public class EventConfigurationService {
                 configuration.setEventDate(LocalDateTime.now());
             }
 
+            configuration.setEventId(EventConfiguration.resolveEventId(configuration.getEventId()));
             validateConfiguration(configuration);
 
-            Path path = Paths.get(CONFIGURATION_FILE);
-            objectMapper.writeValue(path.toFile(), configuration);
+            Path path = configurationPath(configuration.getEventId());
+            fileWriter(configuration.getEventId()).writeNow(objectMapper.writeValueAsBytes(configuration));
 
             log.info("Configuration saved to: {}", path.toAbsolutePath());
             return configuration;
@@ -134,4 +206,22 @@ public class EventConfigurationService {
         }
     }
 
+    /**
+     * Schedule a save of a configuration that is already validated, such as the ticket pool's
+     * running configuration. Rapid updates are coalesced into one write per debounce interval.
+     *
+     * @param configuration EventConfiguration object
+     */
+    public void scheduleSave(EventConfiguration configuration) {
+        fileWriter(EventConfiguration.resolveEventId(configuration.getEventId()))
+                .schedule(() -> objectMapper.writeValueAsBytes(configuration));
+    }
+
+    /**
+     * Write any pending configuration snapshots before shutdown
+     */
+    @PreDestroy
+    public void flushPendingSave() {
+        fileWriters.values().forEach(DebouncedFileWriter::close);
+    }
 }
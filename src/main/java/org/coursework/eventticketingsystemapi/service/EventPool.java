@@ -0,0 +1,117 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import lombok.Getter;
+import org.coursework.eventticketingsystemapi.model.EventConfiguration;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One event hosted by the ticket pool: its configuration, its inventory of vendor and customer counters,
+ * and the lock that guards its reconfiguration.
+ * Pools share no mutable state, so releases, purchases and reconfiguration of one event never wait on another.
+ */
+@Getter
+public class EventPool {
+    public static final String RECOVERED_FROM_DATABASE = "database";
+    public static final String RECOVERED_FROM_JOURNAL = "journal";
+
+    private final String eventId;
+    // Guards configuration changes only; releases and purchases go through the lock-free inventory
+    private final ReentrantLock configurationLock = new ReentrantLock();
+    private volatile TicketInventory inventory = new TicketInventory(0);
+    private volatile EventConfiguration configuration;
+    private volatile boolean configured;
+    // Where the counters of the current inventory were loaded from
+    private volatile String recoverySource;
+    // Occupied ticket-seconds of the inventories this pool has replaced, so the total never goes backwards
+    private volatile double retiredOccupiedTicketSeconds;
+    // Releases, purchases and holds in progress; reconfiguration waits for them before it reloads the counters
+    @Getter(lombok.AccessLevel.NONE)
+    private final AtomicInteger activeOperations = new AtomicInteger();
+    private volatile boolean quiescing;
+
+    public EventPool(String eventId) {
+        this.eventId = eventId;
+    }
+
+    /**
+     * Swap in a new configuration and the inventory built for it. Callers hold the configuration lock.
+     *
+     * @param configuration  Event configuration
+     * @param inventory      Inventory built for the configuration
+     * @param recoverySource Where the inventory's counters were loaded from
+     */
+    void install(EventConfiguration configuration, TicketInventory inventory, String recoverySource) {
+        TicketInventory previous = this.inventory;
+        this.configuration = configuration;
+        this.inventory = inventory;
+        // Waiters on the replaced inventory would never be signalled again; let them re-check the new one
+        previous.getAvailabilitySignal().releaseAll();
+        previous.getCapacitySignal().releaseAll();
+        this.retiredOccupiedTicketSeconds += previous.getOccupiedTicketSeconds();
+        this.recoverySource = recoverySource;
+        this.configured = true;
+    }
+
+    /**
+     * Available tickets integrated over time across every inventory this pool has held
+     */
+    public double getOccupiedTicketSeconds() {
+        return retiredOccupiedTicketSeconds + inventory.getOccupiedTicketSeconds();
+    }
+
+    /**
+     * Enter a pool operation, waiting while the pool is quiesced for reconfiguration
+     *
+     * @param timeoutMillis Longest time to wait
+     * @return False if the pool stayed quiesced for the whole timeout
+     */
+    boolean enterOperation(long timeoutMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (true) {
+            activeOperations.incrementAndGet();
+            if (!quiescing) {
+                return true;
+            }
+            activeOperations.decrementAndGet();
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+
+    void exitOperation() {
+        activeOperations.decrementAndGet();
+    }
+
+    /**
+     * Hold back new operations and wait for the running ones to finish. Callers hold the configuration lock
+     * and call {@link #resume} afterwards, whatever the result.
+     *
+     * @param timeoutMillis Longest time to wait
+     * @return True if no operation is running any more
+     */
+    boolean quiesce(long timeoutMillis) {
+        quiescing = true;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (activeOperations.get() > 0) {
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        return true;
+    }
+
+    void resume() {
+        quiescing = false;
+    }
+
+    void markUnconfigured() {
+        this.configured = false;
+    }
+}
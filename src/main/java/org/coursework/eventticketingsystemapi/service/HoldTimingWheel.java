@@ -0,0 +1,104 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel for hold expiry.
+ * Each level has wheelSize buckets and each bucket on level n spans wheelSize^n ticks. A hold is placed in the
+ * lowest level whose range covers it and cascades down as the wheel turns, so scheduling and expiring a hold
+ * are O(1) and no tick ever scans holds that are not due. Not thread-safe; driven by a single ticker thread.
+ */
+public class HoldTimingWheel {
+    private final long tickMillis;
+    private final int bits;
+    private final int mask;
+    private final int levels;
+    private final ArrayDeque<TicketHold>[][] buckets;
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param tickMillis Duration of one tick
+     * @param wheelSize  Buckets per level, rounded up to a power of two
+     * @param levels     Number of levels
+     * @param nowMillis  Current time
+     */
+    @SuppressWarnings("unchecked")
+    public HoldTimingWheel(long tickMillis, int wheelSize, int levels, long nowMillis) {
+        this.tickMillis = Math.max(1, tickMillis);
+        this.bits = 32 - Integer.numberOfLeadingZeros(Math.max(2, wheelSize) - 1);
+        this.mask = (1 << bits) - 1;
+        this.levels = Math.max(1, levels);
+        this.buckets = new ArrayDeque[this.levels][1 << bits];
+        for (ArrayDeque<TicketHold>[] level : buckets) {
+            for (int i = 0; i < level.length; i++) {
+                level[i] = new ArrayDeque<>();
+            }
+        }
+        this.currentTick = nowMillis / this.tickMillis;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Place a hold in the wheel
+     *
+     * @param hold Hold to schedule
+     * @return False if the hold is already due and was not scheduled
+     */
+    public boolean schedule(TicketHold hold) {
+        long expiryTick = hold.getExpiresAtMillis() / tickMillis;
+        long delta = expiryTick - currentTick;
+        if (delta <= 0) {
+            return false;
+        }
+        int level = 0;
+        while (level < levels - 1 && delta >= 1L << (bits * (level + 1))) {
+            level++;
+        }
+        // Holds beyond the top level's range are parked in its furthest bucket and re-placed when it cascades
+        long placementTick = Math.min(expiryTick, currentTick + (1L << (bits * (level + 1))) - 1);
+        buckets[level][(int) ((placementTick >>> (bits * level)) & mask)].add(hold);
+        size++;
+        return true;
+    }
+
+    /**
+     * Turn the wheel up to the given time and hand every hold that became due to the consumer
+     *
+     * @param nowMillis Current time
+     * @param expired   Receives due holds
+     */
+    public void advanceTo(long nowMillis, Consumer<TicketHold> expired) {
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+            for (int level = 1; level < levels; level++) {
+                if ((currentTick & ((1L << (bits * level)) - 1)) != 0) {
+                    break;
+                }
+                cascade(buckets[level][(int) ((currentTick >>> (bits * level)) & mask)], expired);
+            }
+            ArrayDeque<TicketHold> due = buckets[0][(int) (currentTick & mask)];
+            TicketHold hold;
+            while ((hold = due.poll()) != null) {
+                size--;
+                expired.accept(hold);
+            }
+        }
+    }
+
+    private void cascade(ArrayDeque<TicketHold> bucket, Consumer<TicketHold> expired) {
+        int count = bucket.size();
+        for (int i = 0; i < count; i++) {
+            TicketHold hold = bucket.poll();
+            size--;
+            if (!schedule(hold)) {
+                expired.accept(hold);
+            }
+        }
+    }
+}
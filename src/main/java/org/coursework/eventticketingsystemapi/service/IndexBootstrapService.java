@@ -0,0 +1,107 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import org.coursework.eventticketingsystemapi.config.TicketPoolProperties;
+import org.coursework.eventticketingsystemapi.model.Customer;
+import org.coursework.eventticketingsystemapi.model.Ticket;
+import org.coursework.eventticketingsystemapi.model.TicketAllocation;
+import org.coursework.eventticketingsystemapi.model.Vendor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates the indexes every query of the application relies on. Entity indexes are declared with annotations on
+ * the model classes; collections written as plain documents get theirs here. Automatic index creation is off in
+ * Spring Boot, so nothing else creates them.
+ * <p>
+ * Runs before the other startup work that queries Mongo in the background, such as the ticket migration. Creating
+ * an index that already exists is a no-op. An index that cannot be built, for example a unique index over
+ * existing duplicates, is logged and skipped so the application still starts.
+ */
+@Service
+public class IndexBootstrapService {
+    private static final Logger log = LoggerFactory.getLogger(IndexBootstrapService.class);
+    static final List<Class<?>> INDEXED_ENTITIES = List.of(Ticket.class, TicketAllocation.class, Customer.class, Vendor.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final TicketPoolProperties.Indexes settings;
+
+    @Autowired
+    public IndexBootstrapService(MongoTemplate mongoTemplate, TicketPoolProperties properties) {
+        this.mongoTemplate = mongoTemplate;
+        this.settings = properties.getIndexes();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void start() {
+        if (!settings.isEnabled()) {
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            int ensured = ensureIndexes();
+            log.info("Ensured {} indexes in {} ms", ensured, (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.warn("Could not create indexes: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Create all indexes that do not exist yet
+     *
+     * @return Number of indexes created or found in place
+     */
+    int ensureIndexes() {
+        int ensured = 0;
+        for (Map.Entry<String, List<IndexDefinition>> collection : definitions().entrySet()) {
+            IndexOperations indexOps = mongoTemplate.indexOps(collection.getKey());
+            for (IndexDefinition index : collection.getValue()) {
+                try {
+                    indexOps.ensureIndex(index);
+                    ensured++;
+                } catch (RuntimeException e) {
+                    log.error("Could not create index {} on {}: {}", index.getIndexOptions().get("name"), collection.getKey(), e.getMessage());
+                }
+            }
+        }
+        return ensured;
+    }
+
+    /**
+     * Index definitions by collection name
+     */
+    Map<String, List<IndexDefinition>> definitions() {
+        IndexResolver resolver = IndexResolver.create(mongoTemplate.getConverter().getMappingContext());
+        Map<String, List<IndexDefinition>> definitions = new LinkedHashMap<>();
+        for (Class<?> type : INDEXED_ENTITIES) {
+            List<IndexDefinition> indexes = new ArrayList<>();
+            resolver.resolveIndexFor(type).forEach(indexes::add);
+            definitions.put(mongoTemplate.getCollectionName(type), indexes);
+        }
+
+        // Vendors with stock left to lease in an event, and leases past their expiry
+        definitions.put(MongoQuotaAuthority.QUOTAS, List.of(new Index().named("event_remaining")
+                .on("eventId", Sort.Direction.ASC).on("remaining", Sort.Direction.ASC)));
+        definitions.put(MongoQuotaAuthority.LEASES, List.of(new Index().named("expires").on("expiresAt", Sort.Direction.ASC)));
+        // Serial blocks a node held when it stopped
+        definitions.put(MongoSerialBlockStore.BLOCKS, List.of(new Index().named("node").on("nodeId", Sort.Direction.ASC)));
+        return definitions;
+    }
+}
@@ -0,0 +1,195 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * One inventory mutation in the pool journal.
+ * Framed as [body length][CRC32C of body][body], where the body is
+ * type, sequence, event ID, subject, count and a list of (ID, a, b) entries.
+ * Strings are length-prefixed UTF-8; a zero body length marks the end of a segment.
+ */
+@Getter
+public class JournalRecord {
+    static final int FRAME_HEADER = 8;
+
+    public enum Type {
+        // count = max capacity
+        CONFIGURE,
+        // entries = (vendor, available, sold), absolute
+        VENDOR_BASELINE,
+        // entries = (customer, purchased, 0), absolute
+        CUSTOMER_BASELINE,
+        // subject = vendor, count = tickets released
+        RELEASE,
+        // subject = customer, count = total, entries = (vendor, claimed, 0); also written for holds
+        PURCHASE,
+        // subject = customer, count = total, entries = (vendor, returned, 0)
+        HOLD_RETURN,
+        // subject = vendor, count = applied change to available
+        ADJUST,
+        // subject = vendor
+        STOP
+    }
+
+    private static final Type[] TYPES = Type.values();
+
+    private final Type type;
+    private final long sequence;
+    private final String eventId;
+    private final String subject;
+    private final int count;
+    private final List<String> ids;
+    private final int[] a;
+    private final int[] b;
+
+    private JournalRecord(Type type, long sequence, String eventId, String subject, int count, List<String> ids, int[] a, int[] b) {
+        this.type = type;
+        this.sequence = sequence;
+        this.eventId = eventId;
+        this.subject = subject == null ? "" : subject;
+        this.count = count;
+        this.ids = ids;
+        this.a = a;
+        this.b = b;
+    }
+
+    public static JournalRecord configure(String eventId, int maxCapacity) {
+        return new JournalRecord(Type.CONFIGURE, 0, eventId, "", maxCapacity, List.of(), new int[0], new int[0]);
+    }
+
+    public static JournalRecord vendorBaseline(String eventId, List<String> vendorIds, int[] available, int[] sold) {
+        return new JournalRecord(Type.VENDOR_BASELINE, 0, eventId, "", 0, vendorIds, available, sold);
+    }
+
+    public static JournalRecord customerBaseline(String eventId, List<String> customerIds, int[] purchased) {
+        return new JournalRecord(Type.CUSTOMER_BASELINE, 0, eventId, "", 0, customerIds, purchased, new int[purchased.length]);
+    }
+
+    public static JournalRecord release(String eventId, String vendorId, int count) {
+        return new JournalRecord(Type.RELEASE, 0, eventId, vendorId, count, List.of(), new int[0], new int[0]);
+    }
+
+    public static JournalRecord purchase(String eventId, String customerId, List<String> vendorIds, int[] claimed, int total) {
+        return new JournalRecord(Type.PURCHASE, 0, eventId, customerId, total, vendorIds, claimed, new int[claimed.length]);
+    }
+
+    public static JournalRecord holdReturn(String eventId, String customerId, List<String> vendorIds, int[] returned, int total) {
+        return new JournalRecord(Type.HOLD_RETURN, 0, eventId, customerId, total, vendorIds, returned, new int[returned.length]);
+    }
+
+    public static JournalRecord adjust(String eventId, String vendorId, int applied) {
+        return new JournalRecord(Type.ADJUST, 0, eventId, vendorId, applied, List.of(), new int[0], new int[0]);
+    }
+
+    public static JournalRecord stop(String eventId, String vendorId) {
+        return new JournalRecord(Type.STOP, 0, eventId, vendorId, 0, List.of(), new int[0], new int[0]);
+    }
+
+    /**
+     * Size of the framed record in bytes
+     */
+    int encodedSize() {
+        int size = FRAME_HEADER + 1 + 8 + stringSize(eventId) + stringSize(subject) + 4 + 4;
+        for (String id : ids) {
+            size += stringSize(id) + 8;
+        }
+        return size;
+    }
+
+    /**
+     * Write the framed record at the buffer's position
+     *
+     * @param buffer   Target buffer with at least {@link #encodedSize()} bytes remaining
+     * @param sequence Sequence number assigned by the journal
+     */
+    void encode(ByteBuffer buffer, long sequence) {
+        int start = buffer.position();
+        buffer.position(start + FRAME_HEADER);
+        buffer.put((byte) type.ordinal());
+        buffer.putLong(sequence);
+        putString(buffer, eventId);
+        putString(buffer, subject);
+        buffer.putInt(count);
+        buffer.putInt(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            putString(buffer, ids.get(i));
+            buffer.putInt(a[i]);
+            buffer.putInt(b[i]);
+        }
+        int end = buffer.position();
+        int bodyLength = end - start - FRAME_HEADER;
+        buffer.putInt(start + 4, checksum(buffer, start + FRAME_HEADER, bodyLength));
+        // The length goes in last, so a reader never sees a length before the body it covers
+        buffer.putInt(start, bodyLength);
+    }
+
+    /**
+     * Read the framed record at the buffer's position
+     *
+     * @param buffer Source buffer
+     * @return The record, or null at the end of the written data or at a torn or corrupt record
+     */
+    static JournalRecord decode(ByteBuffer buffer) {
+        int start = buffer.position();
+        if (buffer.remaining() < FRAME_HEADER) {
+            return null;
+        }
+        int bodyLength = buffer.getInt(start);
+        if (bodyLength <= 0 || bodyLength > buffer.remaining() - FRAME_HEADER) {
+            return null;
+        }
+        if (buffer.getInt(start + 4) != checksum(buffer, start + FRAME_HEADER, bodyLength)) {
+            return null;
+        }
+        try {
+            buffer.position(start + FRAME_HEADER);
+            Type type = TYPES[buffer.get()];
+            long sequence = buffer.getLong();
+            String eventId = getString(buffer);
+            String subject = getString(buffer);
+            int count = buffer.getInt();
+            int entries = buffer.getInt();
+            List<String> ids = new ArrayList<>(entries);
+            int[] a = new int[entries];
+            int[] b = new int[entries];
+            for (int i = 0; i < entries; i++) {
+                ids.add(getString(buffer));
+                a[i] = buffer.getInt();
+                b[i] = buffer.getInt();
+            }
+            buffer.position(start + FRAME_HEADER + bodyLength);
+            return new JournalRecord(type, sequence, eventId, subject, count, ids, a, b);
+        } catch (RuntimeException e) {
+            buffer.position(start);
+            return null;
+        }
+    }
+
+    private static int checksum(ByteBuffer buffer, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+
+    private static int stringSize(String value) {
+        return 2 + value.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,195 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.coursework.eventticketingsystemapi.exception.VendorLimitExceededException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Quota authority backed by two Mongo collections.
+ * inventory_quotas holds one counter document per event and vendor with the tickets released and the tickets
+ * not yet leased; inventory_leases holds one document per node lease. Stock only leaves a counter through a
+ * findAndModify guarded by remaining >= n, and only comes back through the removal of a lease document, so
+ * concurrent nodes can neither lease the same tickets nor return a lease twice. A lease records each acquisition
+ * as a pending intent before the counter moves, so stock taken by a node that crashed before crediting its lease
+ * is returned when the lease is reclaimed.
+ */
+@Service
+public class MongoQuotaAuthority implements QuotaAuthority {
+    private static final Logger log = LoggerFactory.getLogger(MongoQuotaAuthority.class);
+    static final String QUOTAS = "inventory_quotas";
+    static final String LEASES = "inventory_leases";
+    private static final int MAX_ACQUIRE_ATTEMPTS = 8;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public MongoQuotaAuthority(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void addQuota(String eventId, String vendorId, int ticketsToSell, int count) {
+        String quotaId = quotaId(eventId, vendorId);
+        mongoTemplate.upsert(Query.query(Criteria.where("_id").is(quotaId)), new Update()
+                .setOnInsert("eventId", eventId)
+                .setOnInsert("vendorId", vendorId)
+                .setOnInsert("released", 0)
+                .setOnInsert("remaining", 0), QUOTAS);
+
+        long updated = mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(quotaId).and("released").lte(ticketsToSell - count)),
+                new Update().inc("released", count).inc("remaining", count), QUOTAS).getModifiedCount();
+        if (updated == 0) {
+            throw new VendorLimitExceededException(
+                    String.format("Cannot release %d tickets: would exceed vendor's maximum of %d", count, ticketsToSell));
+        }
+    }
+
+    @Override
+    public List<String> vendorsWithQuota(String eventId, int limit) {
+        Query query = Query.query(Criteria.where("eventId").is(eventId).and("remaining").gt(0)).limit(limit);
+        query.fields().include("vendorId");
+        List<String> vendorIds = new ArrayList<>();
+        mongoTemplate.find(query, Document.class, QUOTAS).forEach(quota -> vendorIds.add(quota.getString("vendorId")));
+        return vendorIds;
+    }
+
+    @Override
+    public QuotaLease acquire(QuotaLease lease, String eventId, String vendorId, String nodeId, int wanted, long expiresAt) {
+        String quotaId = quotaId(eventId, vendorId);
+        Query leaseQuery = Query.query(Criteria.where("_id").is(QuotaLease.leaseId(eventId, vendorId, nodeId)));
+        for (int attempt = 0; attempt < MAX_ACQUIRE_ATTEMPTS; attempt++) {
+            Document quota = mongoTemplate.findById(quotaId, Document.class, QUOTAS);
+            int remaining = quota == null ? 0 : quota.getInteger("remaining", 0);
+            int take = Math.min(wanted, remaining);
+            if (take <= 0) {
+                return lease;
+            }
+            // Record the intent on the lease before any stock moves, so a crash between the two updates
+            // leaves a trace that the lease's release or reclaim can settle
+            String intent = new ObjectId().toHexString();
+            mongoTemplate.upsert(leaseQuery, new Update()
+                    .setOnInsert("eventId", eventId)
+                    .setOnInsert("vendorId", vendorId)
+                    .setOnInsert("nodeId", nodeId)
+                    .setOnInsert("consumed", 0)
+                    .setOnInsert("granted", 0)
+                    .set("pending." + intent, take)
+                    .set("expiresAt", expiresAt), LEASES);
+
+            // Only succeeds if no other node took the stock since it was read; the quota lists the intent until
+            // the lease has been credited
+            Document taken = mongoTemplate.findAndModify(
+                    Query.query(Criteria.where("_id").is(quotaId).and("remaining").gte(take)),
+                    new Update().inc("remaining", -take).push("intents", intent),
+                    FindAndModifyOptions.options().returnNew(true), Document.class, QUOTAS);
+            if (taken == null) {
+                mongoTemplate.updateFirst(leaseQuery, new Update().unset("pending." + intent), LEASES);
+                continue;
+            }
+
+            long credited = mongoTemplate.updateFirst(leaseQuery,
+                    new Update().inc("granted", take).unset("pending." + intent), LEASES).getModifiedCount();
+            if (credited == 0) {
+                // The lease was reclaimed in between and its removal already returned the stock
+                return lease;
+            }
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(quotaId)), new Update().pull("intents", intent), QUOTAS);
+            if (lease == null) {
+                return new QuotaLease(eventId, vendorId, nodeId, take, expiresAt);
+            }
+            lease.grow(take, expiresAt);
+            return lease;
+        }
+        log.debug("Gave up leasing from vendor {} after {} contended attempts", vendorId, MAX_ACQUIRE_ATTEMPTS);
+        return lease;
+    }
+
+    @Override
+    public void report(QuotaLease lease, int consumed) {
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(lease.getLeaseId())),
+                new Update().set("consumed", consumed), LEASES);
+        lease.reported(consumed);
+    }
+
+    @Override
+    public void release(QuotaLease lease, int unused) {
+        // Whoever removes the lease document returns its stock; a lease that was already reclaimed returns nothing
+        Document removed = mongoTemplate.findAndRemove(Query.query(Criteria.where("_id").is(lease.getLeaseId())), Document.class, LEASES);
+        if (removed == null) {
+            return;
+        }
+        if (unused > 0) {
+            returnStock(lease.getEventId(), lease.getVendorId(), unused);
+        }
+        settleIntents(removed);
+    }
+
+    @Override
+    public int reclaimExpired(long cutoffMillis) {
+        int returned = 0;
+        Query expired = Query.query(Criteria.where("expiresAt").lt(cutoffMillis));
+        for (Document lease : mongoTemplate.find(expired, Document.class, LEASES)) {
+            Document removed = mongoTemplate.findAndRemove(Query.query(Criteria.where("_id").is(lease.get("_id"))
+                    .and("expiresAt").lt(cutoffMillis)), Document.class, LEASES);
+            if (removed == null) {
+                continue;
+            }
+            int unused = Math.max(0, removed.getInteger("granted", 0) - removed.getInteger("consumed", 0));
+            if (unused > 0) {
+                returnStock(removed.getString("eventId"), removed.getString("vendorId"), unused);
+            }
+            unused += settleIntents(removed);
+            returned += unused;
+            log.warn("Reclaimed lease {} of node {}, returning {} tickets", removed.get("_id"), removed.getString("nodeId"), unused);
+        }
+        return returned;
+    }
+
+    /**
+     * Return the stock of acquisitions that took tickets from the quota but never credited them to the removed lease.
+     * The quota still lists such an intent, and the stock goes back in the same update that removes it from the list.
+     *
+     * @return Number of tickets returned
+     */
+    private int settleIntents(Document lease) {
+        Document pending = lease.get("pending", Document.class);
+        if (pending == null) {
+            return 0;
+        }
+        String quotaId = quotaId(lease.getString("eventId"), lease.getString("vendorId"));
+        int returned = 0;
+        for (Map.Entry<String, Object> intent : pending.entrySet()) {
+            int count = ((Number) intent.getValue()).intValue();
+            long settled = mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(quotaId).and("intents").is(intent.getKey())),
+                    new Update().pull("intents", intent.getKey()).inc("remaining", count), QUOTAS).getModifiedCount();
+            if (settled > 0) {
+                log.warn("Returned {} tickets of an interrupted lease of vendor {}", count, lease.getString("vendorId"));
+                returned += count;
+            }
+        }
+        return returned;
+    }
+
+    private void returnStock(String eventId, String vendorId, int count) {
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(quotaId(eventId, vendorId))),
+                new Update().inc("remaining", count), QUOTAS);
+    }
+
+    private static String quotaId(String eventId, String vendorId) {
+        return eventId + ":" + vendorId;
+    }
+}
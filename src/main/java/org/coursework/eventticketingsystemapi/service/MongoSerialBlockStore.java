@@ -0,0 +1,138 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+/**
+ * Serial block store backed by two Mongo collections.
+ * ticket_serials holds one counter document per event and vendor with the highest serial reserved so far and a
+ * list of returned ranges; ticket_serial_blocks holds one document per block a node is handing out. A returned
+ * range at the end of the counter moves the counter back, any other one is queued and reserved again first.
+ */
+@Service
+public class MongoSerialBlockStore implements SerialBlockStore {
+    private static final Logger log = LoggerFactory.getLogger(MongoSerialBlockStore.class);
+    static final String SERIALS = "ticket_serials";
+    static final String BLOCKS = "ticket_serial_blocks";
+    private static final String TICKETS = "tickets";
+    private static final String ALLOCATIONS = "ticket_allocations";
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public MongoSerialBlockStore(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public SerialBlock reserve(String eventId, String vendorId, String nodeId, int size) {
+        String counterId = counterId(eventId, vendorId);
+        SerialBlock block;
+        // The document as it was before the pop, so its first free range is the one this call took
+        Document returned = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(counterId).and("free.0").exists(true)),
+                new Update().pop("free", Update.Position.FIRST),
+                Document.class, SERIALS);
+        if (returned != null) {
+            Document range = returned.getList("free", Document.class).get(0);
+            block = new SerialBlock(eventId, vendorId, nodeId, range.get("first", Number.class).longValue(),
+                    range.get("last", Number.class).longValue());
+        } else {
+            Document counter = mongoTemplate.findAndModify(Query.query(Criteria.where("_id").is(counterId)), new Update()
+                            .setOnInsert("eventId", eventId)
+                            .setOnInsert("vendorId", vendorId)
+                            .inc("reserved", (long) size),
+                    FindAndModifyOptions.options().upsert(true).returnNew(true), Document.class, SERIALS);
+            long reserved = counter.get("reserved", Number.class).longValue();
+            block = new SerialBlock(eventId, vendorId, nodeId, reserved - size + 1, reserved);
+        }
+
+        mongoTemplate.insert(new Document("_id", block.getBlockId())
+                .append("eventId", eventId)
+                .append("vendorId", vendorId)
+                .append("nodeId", nodeId)
+                .append("first", block.getFirst())
+                .append("last", block.getLast()), BLOCKS);
+        return block;
+    }
+
+    @Override
+    public void release(SerialBlock block, long nextUnused) {
+        // Whoever removes the block document returns its serials, so a block is never returned twice
+        Document removed = mongoTemplate.findAndRemove(Query.query(Criteria.where("_id").is(block.getBlockId())), Document.class, BLOCKS);
+        if (removed != null && nextUnused <= block.getLast()) {
+            returnRange(block.getEventId(), block.getVendorId(), Math.max(nextUnused, block.getFirst()), block.getLast());
+        }
+    }
+
+    @Override
+    public long reclaim(String nodeId) {
+        long returned = 0;
+        for (Document held : mongoTemplate.find(Query.query(Criteria.where("nodeId").is(nodeId)), Document.class, BLOCKS)) {
+            Document removed = mongoTemplate.findAndRemove(Query.query(Criteria.where("_id").is(held.get("_id"))), Document.class, BLOCKS);
+            if (removed == null) {
+                continue;
+            }
+            String eventId = removed.getString("eventId");
+            String vendorId = removed.getString("vendorId");
+            long first = removed.get("first", Number.class).longValue();
+            long last = removed.get("last", Number.class).longValue();
+            // Serials after the highest one on a saved ticket or allocation were handed out to nothing that survived
+            long from = Math.max(first, highestSaved(eventId, vendorId, first, last) + 1);
+            if (from <= last) {
+                returnRange(eventId, vendorId, from, last);
+                returned += last - from + 1;
+            }
+            log.info("Reclaimed serials {}-{} of vendor {} for event {} from node {}", from, last, vendorId, eventId, nodeId);
+        }
+        return returned;
+    }
+
+    private long highestSaved(String eventId, String vendorId, long first, long last) {
+        Query ticketQuery = Query.query(Criteria.where("eventId").is(eventId)
+                        .and("vendorId").is(vendorId)
+                        .and("serialNumber").gte(first).lte(last))
+                .with(Sort.by(Sort.Direction.DESC, "serialNumber"))
+                .limit(1);
+        ticketQuery.fields().include("serialNumber");
+        Document ticket = mongoTemplate.findOne(ticketQuery, Document.class, TICKETS);
+        long highest = ticket == null ? first - 1 : ticket.get("serialNumber", Number.class).longValue();
+
+        // Allocations never overlap, so the one starting last within the block ends last
+        Query allocationQuery = Query.query(Criteria.where("eventId").is(eventId)
+                        .and("vendorId").is(vendorId)
+                        .and("firstSerial").lte(last)
+                        .and("lastSerial").gte(first))
+                .with(Sort.by(Sort.Direction.DESC, "firstSerial"))
+                .limit(1);
+        allocationQuery.fields().include("lastSerial");
+        Document allocation = mongoTemplate.findOne(allocationQuery, Document.class, ALLOCATIONS);
+        if (allocation != null) {
+            highest = Math.max(highest, Math.min(last, allocation.get("lastSerial", Number.class).longValue()));
+        }
+        return highest;
+    }
+
+    private void returnRange(String eventId, String vendorId, long first, long last) {
+        String counterId = counterId(eventId, vendorId);
+        long rolledBack = mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(counterId).and("reserved").is(last)),
+                new Update().set("reserved", first - 1), SERIALS).getModifiedCount();
+        if (rolledBack == 0) {
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(counterId)),
+                    new Update().push("free", new Document("first", first).append("last", last)), SERIALS);
+        }
+    }
+
+    private static String counterId(String eventId, String vendorId) {
+        return eventId + ":" + vendorId;
+    }
+}
@@ -0,0 +1,59 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Sells from the vendors holding the most stock first.
+ * Vendors are kept in a skip list ordered by their stock as of the last change, so every update and
+ * selection is O(log n).
+ */
+public class MostStockFirstAllocationStrategy implements VendorAllocationStrategy {
+    private static final Comparator<Entry> ORDER = Comparator.comparingInt((Entry entry) -> entry.stock).reversed()
+            .thenComparing(entry -> entry.slot.getVendorId());
+
+    private final NavigableSet<Entry> byStock = new ConcurrentSkipListSet<>(ORDER);
+    private final Map<VendorTicketSlot, Entry> current = new ConcurrentHashMap<>();
+
+    @Override
+    public void stockChanged(VendorTicketSlot slot) {
+        // Serialise updates per vendor so the old entry is always removed before the new one is added
+        synchronized (slot) {
+            int stock = slot.getAvailable();
+            Entry previous = current.get(slot);
+            if (previous != null && previous.stock == stock) {
+                return;
+            }
+            if (previous != null) {
+                byStock.remove(previous);
+                current.remove(slot);
+            }
+            if (stock > 0) {
+                Entry entry = new Entry(slot, stock);
+                current.put(slot, entry);
+                byStock.add(entry);
+            }
+        }
+    }
+
+    @Override
+    public List<String> select(int wanted) {
+        List<String> selected = new ArrayList<>();
+        int covered = 0;
+        for (Entry entry : byStock) {
+            if (covered >= wanted) {
+                break;
+            }
+            int available = entry.slot.getAvailable();
+            if (available > 0) {
+                selected.add(entry.slot.getVendorId());
+                covered += available;
+            }
+        }
+        return selected;
+    }
+
+    private record Entry(VendorTicketSlot slot, int stock) {
+    }
+}
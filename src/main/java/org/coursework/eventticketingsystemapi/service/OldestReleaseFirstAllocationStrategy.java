@@ -0,0 +1,46 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Sells from the vendors whose stock has been waiting longest.
+ * Vendors are queued in the order they gained stock and stay at the front until they sell out.
+ */
+public class OldestReleaseFirstAllocationStrategy implements VendorAllocationStrategy {
+    private final Queue<VendorTicketSlot> queue = new ConcurrentLinkedQueue<>();
+    private final Set<VendorTicketSlot> indexed = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public void stockChanged(VendorTicketSlot slot) {
+        if (slot.getAvailable() > 0 && indexed.add(slot)) {
+            queue.add(slot);
+        }
+    }
+
+    @Override
+    public List<String> select(int wanted) {
+        List<String> selected = new ArrayList<>();
+        int covered = 0;
+        Iterator<VendorTicketSlot> iterator = queue.iterator();
+        while (covered < wanted && iterator.hasNext()) {
+            VendorTicketSlot slot = iterator.next();
+            int available = slot.getAvailable();
+            if (available <= 0) {
+                iterator.remove();
+                indexed.remove(slot);
+                // Stock may have arrived between the read and the removal
+                stockChanged(slot);
+                continue;
+            }
+            selected.add(slot.getVendorId());
+            covered += available;
+        }
+        return selected;
+    }
+}
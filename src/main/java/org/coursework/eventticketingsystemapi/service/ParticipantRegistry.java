@@ -0,0 +1,258 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import org.coursework.eventticketingsystemapi.exception.ResourceNotFoundException;
+import org.coursework.eventticketingsystemapi.model.Customer;
+import org.coursework.eventticketingsystemapi.model.Vendor;
+import org.coursework.eventticketingsystemapi.repository.CustomerRepository;
+import org.coursework.eventticketingsystemapi.repository.VendorRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Live vendor and customer state for the ticket pool.
+ * While an event runs this registry, not Mongo, is the source of truth for limits, counters and active flags.
+ * Participants are loaded once, counter changes are applied here and persisted by the write-behind stage,
+ * and the purchase and release paths never read participants from the database.
+ * Entries are detached copies, so the running participant threads never share state with the registry.
+ */
+@Service
+public class ParticipantRegistry {
+    private static final Logger log = LoggerFactory.getLogger(ParticipantRegistry.class);
+
+    private final VendorRepository vendorRepository;
+    private final CustomerRepository customerRepository;
+    private final Map<String, Vendor> vendors = new ConcurrentHashMap<>();
+    private final Map<String, Customer> customers = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ParticipantRegistry(VendorRepository vendorRepository, CustomerRepository customerRepository) {
+        this.vendorRepository = vendorRepository;
+        this.customerRepository = customerRepository;
+    }
+
+    /**
+     * Seed participants loaded for an event. Entries that are already live are kept, as they may hold
+     * changes the database has not caught up with yet.
+     *
+     * @param loadedVendors   Vendors read from the database
+     * @param loadedCustomers Customers read from the database
+     */
+    public void seed(List<Vendor> loadedVendors, List<Customer> loadedCustomers) {
+        loadedVendors.forEach(vendor -> vendors.putIfAbsent(vendor.getParticipantId(), copyOf(vendor)));
+        loadedCustomers.forEach(customer -> customers.putIfAbsent(customer.getParticipantId(), copyOf(customer)));
+        log.info("Participant registry holds {} vendors and {} customers", vendors.size(), customers.size());
+    }
+
+    /**
+     * Get the live state of a vendor, loading it once if it is not registered yet
+     *
+     * @param vendorId Vendor ID
+     * @return Live vendor
+     * @throws ResourceNotFoundException if the vendor does not exist
+     */
+    public Vendor getVendor(String vendorId) {
+        Vendor vendor = vendors.get(vendorId);
+        if (vendor != null) {
+            return vendor;
+        }
+        Vendor loaded = vendorRepository.findById(vendorId)
+                .orElseThrow(() -> new ResourceNotFoundException("Vendor not found in database"));
+        return vendors.computeIfAbsent(vendorId, id -> copyOf(loaded));
+    }
+
+    /**
+     * Get the live state of several vendors, loading any unknown ones with a single query
+     *
+     * @param vendorIds Vendor IDs
+     * @return Live vendors in the given order; unknown IDs are skipped
+     */
+    public List<Vendor> getVendors(List<String> vendorIds) {
+        List<String> missing = new ArrayList<>();
+        for (String vendorId : vendorIds) {
+            if (!vendors.containsKey(vendorId)) {
+                missing.add(vendorId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            vendorRepository.findAllById(missing).forEach(vendor -> vendors.computeIfAbsent(vendor.getParticipantId(), id -> copyOf(vendor)));
+        }
+        List<Vendor> result = new ArrayList<>(vendorIds.size());
+        for (String vendorId : vendorIds) {
+            Vendor vendor = vendors.get(vendorId);
+            if (vendor != null) {
+                result.add(vendor);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the live state of a customer, loading it once if it is not registered yet
+     *
+     * @param customerId Customer ID
+     * @return Live customer
+     * @throws ResourceNotFoundException if the customer does not exist
+     */
+    public Customer getCustomer(String customerId) {
+        Customer customer = customers.get(customerId);
+        if (customer != null) {
+            return customer;
+        }
+        Customer loaded = customerRepository.findById(customerId)
+                .orElseThrow(() -> new ResourceNotFoundException("Customer not found in database"));
+        return customers.computeIfAbsent(customerId, id -> copyOf(loaded));
+    }
+
+    /**
+     * Record a release against a vendor
+     *
+     * @param vendorId Vendor ID
+     * @param count    Number of tickets released
+     * @return Vendor's active flag after the release
+     */
+    public boolean recordRelease(String vendorId, int count) {
+        Vendor vendor = getVendor(vendorId);
+        synchronized (vendor) {
+            vendor.setTicketsReleased(vendor.getTicketsReleased() + count);
+            vendor.setActive(vendor.getTotalTicketsSold() < vendor.getTicketsToSell());
+            return vendor.isActive();
+        }
+    }
+
+    /**
+     * Record a sale against a vendor
+     *
+     * @param vendor Live vendor
+     * @param count  Number of tickets sold
+     * @return True if the sale exhausted the vendor and deactivated it
+     */
+    public boolean recordSale(Vendor vendor, int count) {
+        synchronized (vendor) {
+            vendor.setTotalTicketsSold(vendor.getTotalTicketsSold() + count);
+            if (vendor.isActive() && vendor.getTotalTicketsSold() >= vendor.getTicketsToSell()) {
+                vendor.setActive(false);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Record a purchase by a customer
+     *
+     * @param customer Live customer
+     * @param count    Number of tickets purchased
+     */
+    public void recordPurchase(Customer customer, int count) {
+        synchronized (customer) {
+            customer.setTotalTicketsPurchased(customer.getTotalTicketsPurchased() + count);
+        }
+    }
+
+    /**
+     * Align a live vendor's sold count with the inventory after a reconciliation
+     *
+     * @param vendorId Vendor ID
+     * @param sold     Sold count written to the database
+     */
+    public void reconcileSold(String vendorId, int sold) {
+        Vendor vendor = vendors.get(vendorId);
+        if (vendor != null) {
+            synchronized (vendor) {
+                vendor.setTotalTicketsSold(sold);
+            }
+        }
+    }
+
+    /**
+     * Replace a vendor after it has been registered or re-registered, including its counters
+     */
+    public void registerVendor(Vendor vendor) {
+        vendors.put(vendor.getParticipantId(), copyOf(vendor));
+    }
+
+    /**
+     * Apply an administrative change to a vendor's limits and active flag, keeping the live counters
+     */
+    public void updateVendorDetails(Vendor vendor) {
+        Vendor live = vendors.get(vendor.getParticipantId());
+        if (live == null) {
+            return;
+        }
+        synchronized (live) {
+            live.setName(vendor.getName());
+            live.setEmail(vendor.getEmail());
+            live.setTicketsPerRelease(vendor.getTicketsPerRelease());
+            live.setTicketReleaseInterval(vendor.getTicketReleaseInterval());
+            live.setTicketsToSell(vendor.getTicketsToSell());
+            live.setActive(vendor.isActive());
+        }
+    }
+
+    public void removeVendor(String vendorId) {
+        vendors.remove(vendorId);
+    }
+
+    /**
+     * Replace a customer after it has been registered or re-registered, including its counters
+     */
+    public void registerCustomer(Customer customer) {
+        customers.put(customer.getParticipantId(), copyOf(customer));
+    }
+
+    /**
+     * Apply an administrative change to a customer's limits and active flag, keeping the live counters
+     */
+    public void updateCustomerDetails(Customer customer) {
+        Customer live = customers.get(customer.getParticipantId());
+        if (live == null) {
+            return;
+        }
+        synchronized (live) {
+            live.setName(customer.getName());
+            live.setEmail(customer.getEmail());
+            live.setTicketsToPurchase(customer.getTicketsToPurchase());
+            live.setTicketRetrievalInterval(customer.getTicketRetrievalInterval());
+            live.setActive(customer.isActive());
+        }
+    }
+
+    public void removeCustomer(String customerId) {
+        customers.remove(customerId);
+    }
+
+    private static Vendor copyOf(Vendor vendor) {
+        Vendor copy = new Vendor();
+        copy.setParticipantId(vendor.getParticipantId());
+        copy.setName(vendor.getName());
+        copy.setEmail(vendor.getEmail());
+        copy.setEventId(vendor.getEventId());
+        copy.setTicketsPerRelease(vendor.getTicketsPerRelease());
+        copy.setTicketReleaseInterval(vendor.getTicketReleaseInterval());
+        copy.setTicketsToSell(vendor.getTicketsToSell());
+        copy.setTicketsReleased(vendor.getTicketsReleased());
+        copy.setTotalTicketsSold(vendor.getTotalTicketsSold());
+        copy.setActive(vendor.isActive());
+        return copy;
+    }
+
+    private static Customer copyOf(Customer customer) {
+        Customer copy = new Customer();
+        copy.setParticipantId(customer.getParticipantId());
+        copy.setName(customer.getName());
+        copy.setEmail(customer.getEmail());
+        copy.setEventId(customer.getEventId());
+        copy.setTicketsToPurchase(customer.getTicketsToPurchase());
+        copy.setTicketRetrievalInterval(customer.getTicketRetrievalInterval());
+        copy.setTotalTicketsPurchased(customer.getTotalTicketsPurchased());
+        copy.setActive(customer.isActive());
+        return copy;
+    }
+}
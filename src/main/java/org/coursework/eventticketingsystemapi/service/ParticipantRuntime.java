@@ -0,0 +1,298 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.coursework.eventticketingsystemapi.config.TicketPoolProperties;
+import org.coursework.eventticketingsystemapi.model.Participant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs vendors and customers as scheduled steps instead of one thread each.
+ * A single timer thread keeps the delays and signal timeouts, and every step runs on a bounded worker pool
+ * (or on virtual threads where the JDK has them), so the thread count does not grow with the participants.
+ * Runners are keyed by participant ID and a runner never overlaps its own steps, so each participant has
+ * exactly one loop however often it is started.
+ */
+@Service
+public class ParticipantRuntime {
+    private static final Logger log = LoggerFactory.getLogger(ParticipantRuntime.class);
+    private static final long ERROR_RETRY_MILLIS = 1000;
+
+    private final Map<String, Runner> runners = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService timer;
+    private final ExecutorService workers;
+    private final String workerMode;
+    private final Timer lag;
+
+    @Autowired
+    public ParticipantRuntime(TicketPoolProperties properties, MeterRegistry meterRegistry) {
+        TicketPoolProperties.Participants settings = properties.getParticipants();
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, daemonThreads("ParticipantTimer"));
+        // Woken waiters cancel their timeout; drop those tasks instead of keeping them until they expire
+        scheduler.setRemoveOnCancelPolicy(true);
+        this.timer = scheduler;
+
+        ExecutorService virtual = settings.isVirtualThreads() ? newVirtualThreadExecutor() : null;
+        if (virtual != null) {
+            this.workers = virtual;
+            this.workerMode = "virtual";
+        } else {
+            int threads = Math.max(1, settings.getWorkerThreads());
+            this.workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(), daemonThreads("Participant"));
+            this.workerMode = threads + " threads";
+        }
+
+        this.lag = Timer.builder("ticketpool.participants.lag")
+                .description("Delay between a participant step becoming due and starting to run")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("ticketpool.participants.live", runners, Map::size)
+                .description("Vendors and customers with a running loop")
+                .register(meterRegistry);
+        log.info("Participant runtime started on {}", workerMode);
+    }
+
+    /**
+     * Start running a participant's steps
+     *
+     * @param participant Saved participant
+     * @return False if the participant already has a running loop
+     */
+    public boolean start(Participant participant) {
+        String participantId = participant.getParticipantId();
+        Runner[] replaced = new Runner[1];
+        Runner started = new Runner(participant);
+        Runner current = runners.compute(participantId, (id, existing) -> {
+            if (existing != null && !existing.cancelled.get()) {
+                return existing;
+            }
+            replaced[0] = existing;
+            return started;
+        });
+        if (current != started) {
+            log.info("Participant {} is already running", participant.getName());
+            return false;
+        }
+        participant.setRunner(started);
+        if (replaced[0] == null) {
+            started.dispatch();
+        } else {
+            // A stopped loop may still be inside its last step; start the new one only after it has finished
+            replaced[0].done.thenRun(started::dispatch);
+        }
+        return true;
+    }
+
+    /**
+     * Stop a participant's loop. A step already running completes first.
+     *
+     * @param participantId Participant ID
+     */
+    public void stop(String participantId) {
+        Runner runner = participantId == null ? null : runners.get(participantId);
+        if (runner != null) {
+            runner.cancel();
+        }
+    }
+
+    public boolean isRunning(String participantId) {
+        Runner runner = participantId == null ? null : runners.get(participantId);
+        return runner != null && !runner.cancelled.get();
+    }
+
+    public int getLiveParticipants() {
+        return runners.size();
+    }
+
+    /**
+     * Runner count, worker mode and step lag
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("liveParticipants", runners.size());
+        status.put("workers", workerMode);
+        if (workers instanceof ThreadPoolExecutor pool) {
+            status.put("queuedSteps", pool.getQueue().size());
+        }
+        status.put("meanLagMillis", lag.mean(TimeUnit.MILLISECONDS));
+        status.put("maxLagMillis", lag.max(TimeUnit.MILLISECONDS));
+        return status;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        new ArrayList<>(runners.values()).forEach(Runner::cancel);
+        timer.shutdownNow();
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(5, TimeUnit.SECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            workers.shutdownNow();
+        }
+        log.info("Participant runtime stopped");
+    }
+
+    /**
+     * The loop of one participant. Every wake-up (timer, signal or cancellation) dispatches {@link #runStep},
+     * and the running flag keeps two dispatches from stepping the participant at the same time.
+     */
+    public final class Runner {
+        private final Participant participant;
+        private final AtomicBoolean running = new AtomicBoolean();
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private volatile ScheduledFuture<?> pending;
+        private volatile AvailabilitySignal.Waiter waiter;
+        private volatile long dueNanos = System.nanoTime();
+
+        private Runner(Participant participant) {
+            this.participant = participant;
+        }
+
+        /**
+         * Stop the loop; the participant's onStopped runs once the current step, if any, has returned
+         */
+        public void cancel() {
+            if (cancelled.compareAndSet(false, true)) {
+                dispatch();
+            }
+        }
+
+        private void dispatch() {
+            try {
+                workers.execute(this::runStep);
+            } catch (RejectedExecutionException e) {
+                finish();
+            }
+        }
+
+        private void runStep() {
+            if (finished.get() || !running.compareAndSet(false, true)) {
+                // Another dispatch is stepping; it checks for cancellation when its step returns
+                return;
+            }
+            ParticipantStep next;
+            try {
+                if (cancelled.get()) {
+                    finish();
+                    return;
+                }
+                lag.record(Math.max(0, System.nanoTime() - dueNanos), TimeUnit.NANOSECONDS);
+                try {
+                    next = participant.step();
+                } catch (RuntimeException e) {
+                    log.error("Participant {} step failed: {}", participant.getName(), e.getMessage(), e);
+                    next = ParticipantStep.after(ERROR_RETRY_MILLIS);
+                }
+                if (cancelled.get() || next.isFinished()) {
+                    cancelled.set(true);
+                    finish();
+                    return;
+                }
+            } finally {
+                running.set(false);
+            }
+            // Arm the next wake-up only after releasing the running flag, so an immediate wake-up is not dropped
+            arm(next);
+        }
+
+        private void arm(ParticipantStep next) {
+            AvailabilitySignal.Waiter nextWaiter = next.getWaiter();
+            try {
+                if (nextWaiter == null) {
+                    dueNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(next.getDelayMillis());
+                    pending = timer.schedule(this::dispatch, next.getDelayMillis(), TimeUnit.MILLISECONDS);
+                } else {
+                    waiter = nextWaiter;
+                    pending = timer.schedule(nextWaiter::cancel, next.getDelayMillis(), TimeUnit.MILLISECONDS);
+                    nextWaiter.getFuture().whenComplete((signalled, error) -> {
+                        dueNanos = System.nanoTime();
+                        ScheduledFuture<?> timeout = pending;
+                        if (timeout != null) {
+                            timeout.cancel(false);
+                        }
+                        dispatch();
+                    });
+                }
+            } catch (RejectedExecutionException e) {
+                finish();
+                return;
+            }
+            if (cancelled.get()) {
+                // Cancelled while arming; make sure the wake-up that finishes the loop is not left waiting
+                dispatch();
+            }
+        }
+
+        private void finish() {
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+            runners.remove(participant.getParticipantId(), this);
+            ScheduledFuture<?> timeout = pending;
+            if (timeout != null) {
+                timeout.cancel(false);
+            }
+            AvailabilitySignal.Waiter parked = waiter;
+            if (parked != null) {
+                parked.cancel();
+            }
+            try {
+                participant.onStopped();
+            } catch (RuntimeException e) {
+                log.error("Participant {} failed to stop cleanly: {}", participant.getName(), e.getMessage(), e);
+            } finally {
+                done.complete(null);
+            }
+        }
+    }
+
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor, looked up reflectively so the service still builds for Java 17
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            log.warn("Virtual threads are not available on Java {}; using platform worker threads", Runtime.version().feature());
+            return null;
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,55 @@
+package org.coursework.eventticketingsystemapi.service;
+
+/**
+ * What a participant does after one step: run again after a delay, wait on a signal, or stop.
+ * Steps never block on their own, so the {@link ParticipantRuntime} can run many participants on a few threads.
+ */
+public final class ParticipantStep {
+    private static final ParticipantStep FINISHED = new ParticipantStep(0, null);
+
+    private final long delayMillis;
+    private final AvailabilitySignal.Waiter waiter;
+
+    private ParticipantStep(long delayMillis, AvailabilitySignal.Waiter waiter) {
+        this.delayMillis = delayMillis;
+        this.waiter = waiter;
+    }
+
+    /**
+     * Run the next step after a delay
+     *
+     * @param delayMillis Delay in milliseconds
+     */
+    public static ParticipantStep after(long delayMillis) {
+        return new ParticipantStep(Math.max(0, delayMillis), null);
+    }
+
+    /**
+     * Run the next step once the waiter is signalled, or after the timeout
+     *
+     * @param waiter        Registered waiter
+     * @param timeoutMillis Longest time to wait
+     */
+    public static ParticipantStep await(AvailabilitySignal.Waiter waiter, long timeoutMillis) {
+        return new ParticipantStep(Math.max(0, timeoutMillis), waiter);
+    }
+
+    /**
+     * Stop running the participant
+     */
+    public static ParticipantStep finished() {
+        return FINISHED;
+    }
+
+    public boolean isFinished() {
+        return this == FINISHED;
+    }
+
+    public long getDelayMillis() {
+        return delayMillis;
+    }
+
+    public AvailabilitySignal.Waiter getWaiter() {
+        return waiter;
+    }
+}
@@ -0,0 +1,33 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import org.coursework.eventticketingsystemapi.model.Customer;
+import org.coursework.eventticketingsystemapi.model.EventConfiguration;
+import org.coursework.eventticketingsystemapi.model.Vendor;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The ticket pool operations vendors and customers use in their steps.
+ * {@link TicketPoolService} is the live implementation; the simulator runs the same participant code against
+ * an in-memory pool on a virtual clock.
+ */
+public interface ParticipantTicketPool {
+
+    boolean isConfigured(String eventId);
+
+    EventConfiguration getEventConfiguration(String eventId);
+
+    AtomicInteger getAvailableTickets(String eventId);
+
+    int getFreeCapacity(String eventId);
+
+    AvailabilitySignal.Waiter awaitAvailableTickets(String eventId, int wanted);
+
+    AvailabilitySignal.Waiter awaitFreeCapacity(String eventId, int wanted);
+
+    void addTickets(Vendor vendor, int count);
+
+    int purchaseTickets(Customer customer, int count);
+
+    void updateVendorTicketCount(Vendor vendor, int addedTickets);
+}
@@ -0,0 +1,157 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import lombok.Getter;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Vendor and customer counters of every event, rebuilt by applying pool journal records in order.
+ * Deltas are applied without clamping, so records of concurrent operations that reached the journal in a
+ * different order than they reached the inventory still add up to the same totals.
+ * The state can be written to and read back from a snapshot, so recovery only replays the journal after it.
+ */
+public class PoolCounterState {
+    private final Map<String, EventCounters> events = new HashMap<>();
+    @Getter
+    private long lastSequence;
+
+    @Getter
+    public static class EventCounters {
+        private int maxCapacity;
+        // An event has a baseline once its loaded state was journaled; only then are its counters complete
+        private boolean baseline;
+        // vendor ID -> {available, sold}
+        private final Map<String, int[]> vendors = new HashMap<>();
+        private final Map<String, Integer> customerPurchased = new HashMap<>();
+        private final Set<String> stoppedVendors = new HashSet<>();
+
+        public int getVendorAvailable(String vendorId) {
+            int[] counters = vendors.get(vendorId);
+            return counters == null ? 0 : counters[0];
+        }
+
+        public int getVendorSold(String vendorId) {
+            int[] counters = vendors.get(vendorId);
+            return counters == null ? 0 : counters[1];
+        }
+
+        private int[] vendor(String vendorId) {
+            return vendors.computeIfAbsent(vendorId, id -> new int[2]);
+        }
+    }
+
+    public EventCounters getEvent(String eventId) {
+        return events.get(eventId);
+    }
+
+    public Map<String, EventCounters> getEvents() {
+        return events;
+    }
+
+    /**
+     * Apply one journal record
+     *
+     * @param record Record read from the journal
+     */
+    public void apply(JournalRecord record) {
+        EventCounters event = events.computeIfAbsent(record.getEventId(), id -> new EventCounters());
+        switch (record.getType()) {
+            case CONFIGURE -> event.maxCapacity = record.getCount();
+            case VENDOR_BASELINE -> {
+                event.baseline = true;
+                for (int i = 0; i < record.getIds().size(); i++) {
+                    event.vendors.put(record.getIds().get(i), new int[]{record.getA()[i], record.getB()[i]});
+                }
+            }
+            case CUSTOMER_BASELINE -> {
+                for (int i = 0; i < record.getIds().size(); i++) {
+                    event.customerPurchased.put(record.getIds().get(i), record.getA()[i]);
+                }
+            }
+            case RELEASE -> {
+                event.vendor(record.getSubject())[0] += record.getCount();
+                event.stoppedVendors.remove(record.getSubject());
+            }
+            case PURCHASE, HOLD_RETURN -> {
+                int sign = record.getType() == JournalRecord.Type.PURCHASE ? 1 : -1;
+                for (int i = 0; i < record.getIds().size(); i++) {
+                    int[] counters = event.vendor(record.getIds().get(i));
+                    counters[0] -= sign * record.getA()[i];
+                    counters[1] += sign * record.getA()[i];
+                }
+                event.customerPurchased.merge(record.getSubject(), sign * record.getCount(), Integer::sum);
+            }
+            case ADJUST -> event.vendor(record.getSubject())[0] += record.getCount();
+            case STOP -> event.stoppedVendors.add(record.getSubject());
+        }
+        lastSequence = Math.max(lastSequence, record.getSequence());
+    }
+
+    /**
+     * Write the whole state in snapshot form
+     *
+     * @param out Target stream
+     */
+    void writeTo(DataOutput out) throws IOException {
+        out.writeLong(lastSequence);
+        out.writeInt(events.size());
+        for (Map.Entry<String, EventCounters> entry : events.entrySet()) {
+            EventCounters event = entry.getValue();
+            out.writeUTF(entry.getKey());
+            out.writeInt(event.maxCapacity);
+            out.writeBoolean(event.baseline);
+            out.writeInt(event.vendors.size());
+            for (Map.Entry<String, int[]> vendor : event.vendors.entrySet()) {
+                out.writeUTF(vendor.getKey());
+                out.writeInt(vendor.getValue()[0]);
+                out.writeInt(vendor.getValue()[1]);
+            }
+            out.writeInt(event.customerPurchased.size());
+            for (Map.Entry<String, Integer> customer : event.customerPurchased.entrySet()) {
+                out.writeUTF(customer.getKey());
+                out.writeInt(customer.getValue());
+            }
+            out.writeInt(event.stoppedVendors.size());
+            for (String vendorId : event.stoppedVendors) {
+                out.writeUTF(vendorId);
+            }
+        }
+    }
+
+    /**
+     * Read a state written by {@link #writeTo}
+     *
+     * @param in Source stream
+     * @return Restored state
+     */
+    static PoolCounterState readFrom(DataInput in) throws IOException {
+        PoolCounterState state = new PoolCounterState();
+        state.lastSequence = in.readLong();
+        int eventCount = in.readInt();
+        for (int e = 0; e < eventCount; e++) {
+            EventCounters event = new EventCounters();
+            state.events.put(in.readUTF(), event);
+            event.maxCapacity = in.readInt();
+            event.baseline = in.readBoolean();
+            int vendorCount = in.readInt();
+            for (int i = 0; i < vendorCount; i++) {
+                event.vendors.put(in.readUTF(), new int[]{in.readInt(), in.readInt()});
+            }
+            int customerCount = in.readInt();
+            for (int i = 0; i < customerCount; i++) {
+                event.customerPurchased.put(in.readUTF(), in.readInt());
+            }
+            int stoppedCount = in.readInt();
+            for (int i = 0; i < stoppedCount; i++) {
+                event.stoppedVendors.add(in.readUTF());
+            }
+        }
+        return state;
+    }
+}
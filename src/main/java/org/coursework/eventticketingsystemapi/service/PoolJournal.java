@@ -0,0 +1,322 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.coursework.eventticketingsystemapi.config.TicketPoolProperties;
+import org.coursework.eventticketingsystemapi.exception.ResourceProcessingException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Append-only journal of ticket pool inventory mutations, written to memory-mapped segment files.
+ * An append is a copy into the mapped segment, so a mutation is durable against a process crash as soon as it
+ * is journaled; how quickly it is also durable against a power loss depends on the fsync policy.
+ * Segments are pre-sized files named after the first sequence number they hold, and a new one is started when
+ * the current one cannot fit the next record.
+ */
+@Service
+public class PoolJournal {
+    private static final Logger log = LoggerFactory.getLogger(PoolJournal.class);
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    public enum FsyncPolicy {NONE, INTERVAL, ALWAYS}
+
+    private final TicketPoolProperties.Journal settings;
+    private final boolean enabled;
+    private final FsyncPolicy fsyncPolicy;
+    private final Path directory;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long nextSequence = 1;
+    private volatile boolean unsynced;
+    private volatile boolean running;
+    private Thread syncer;
+
+    @Autowired
+    public PoolJournal(TicketPoolProperties properties) {
+        this.settings = properties.getJournal();
+        if (settings.isEnabled() && properties.getCluster().isEnabled()) {
+            // In clustered mode stock lives with the quota authority, not in the local inventory
+            log.warn("Pool journal is not used in clustered mode");
+        }
+        this.enabled = settings.isEnabled() && !properties.getCluster().isEnabled();
+        this.fsyncPolicy = FsyncPolicy.valueOf(settings.getFsync().toUpperCase(Locale.ROOT));
+        this.directory = Paths.get(settings.getDirectory());
+    }
+
+    /**
+     * Open the last segment and position the journal after its last intact record
+     */
+    @PostConstruct
+    public void open() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            List<Path> segments = segments();
+            if (segments.isEmpty()) {
+                openSegment(1);
+            } else {
+                Path last = segments.get(segments.size() - 1);
+                mapSegment(last);
+                nextSequence = firstSequence(last);
+                JournalRecord record;
+                while ((record = JournalRecord.decode(segment)) != null) {
+                    nextSequence = record.getSequence() + 1;
+                }
+                if (segment.remaining() >= 4 && segment.getInt(segment.position()) != 0) {
+                    // A torn or corrupt record; later records in this segment are unreachable, so continue in a new one
+                    log.warn("Pool journal segment {} is damaged after sequence {}", last.getFileName(), nextSequence - 1);
+                    rollSegment();
+                }
+            }
+        } catch (IOException e) {
+            log.error("Failed to open pool journal in {}: {}", directory.toAbsolutePath(), e.getMessage());
+            throw new ResourceProcessingException("Failed to open pool journal");
+        }
+
+        if (fsyncPolicy == FsyncPolicy.INTERVAL) {
+            running = true;
+            syncer = new Thread(this::runSyncer, "JournalSync");
+            syncer.setDaemon(true);
+            syncer.start();
+        }
+        log.info("Pool journal opened in {} at sequence {} with fsync policy {}", directory.toAbsolutePath(), nextSequence, fsyncPolicy);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Append a record. Returns once the record is in the mapped segment, and after msync with the ALWAYS policy.
+     *
+     * @param record Record to append
+     * @return Sequence number of the record, or 0 when the journal is disabled
+     */
+    public long append(JournalRecord record) {
+        if (!enabled) {
+            return 0;
+        }
+        int size = record.encodedSize();
+        appendLock.lock();
+        try {
+            // Keep room for the zero length that terminates the segment
+            if (segment.remaining() < size + 4) {
+                if (size + 4 > settings.getSegmentSizeBytes()) {
+                    throw new ResourceProcessingException("Journal record of " + size + " bytes does not fit a segment");
+                }
+                rollSegment();
+            }
+            long sequence = nextSequence++;
+            int position = segment.position();
+            record.encode(segment, sequence);
+            if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+                segment.force(position, size);
+            } else {
+                unsynced = true;
+            }
+            return sequence;
+        } catch (IOException e) {
+            log.error("Failed to append to pool journal: {}", e.getMessage());
+            throw new ResourceProcessingException("Failed to append to pool journal");
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Read every intact record after a sequence number, in order
+     *
+     * @param afterSequence Records up to and including this sequence are skipped
+     * @param consumer      Receives the records
+     */
+    public void replay(long afterSequence, Consumer<JournalRecord> consumer) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            List<Path> segments = segments();
+            for (int i = 0; i < segments.size(); i++) {
+                // A segment is entirely before the cut if the next one starts at or before it
+                if (i + 1 < segments.size() && firstSequence(segments.get(i + 1)) <= afterSequence + 1) {
+                    continue;
+                }
+                try (FileChannel reader = FileChannel.open(segments.get(i), StandardOpenOption.READ)) {
+                    MappedByteBuffer buffer = reader.map(FileChannel.MapMode.READ_ONLY, 0, reader.size());
+                    JournalRecord record;
+                    while ((record = JournalRecord.decode(buffer)) != null) {
+                        if (record.getSequence() > afterSequence) {
+                            consumer.accept(record);
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.error("Failed to replay pool journal: {}", e.getMessage());
+            throw new ResourceProcessingException("Failed to replay pool journal");
+        }
+    }
+
+    /**
+     * Rebuild the counters of every event from the whole journal
+     *
+     * @return Rebuilt counters
+     */
+    public PoolCounterState recoverState() {
+        PoolCounterState state = new PoolCounterState();
+        replay(0, state::apply);
+        return state;
+    }
+
+    /**
+     * Sequence number of the last appended record
+     */
+    public long getLastSequence() {
+        appendLock.lock();
+        try {
+            return nextSequence - 1;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Delete segments whose records all have a sequence number up to the given one.
+     * The segment being written is always kept.
+     *
+     * @param sequence Last sequence number that is no longer needed, typically covered by a snapshot
+     * @return Number of segments deleted
+     */
+    public int deleteSegmentsUpTo(long sequence) {
+        if (!enabled) {
+            return 0;
+        }
+        appendLock.lock();
+        try {
+            List<Path> segments = segments();
+            int deleted = 0;
+            for (int i = 0; i + 1 < segments.size() && firstSequence(segments.get(i + 1)) <= sequence + 1; i++) {
+                Files.deleteIfExists(segments.get(i));
+                deleted++;
+            }
+            return deleted;
+        } catch (IOException e) {
+            log.error("Failed to delete pool journal segments: {}", e.getMessage());
+            return 0;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Force written records to disk now
+     */
+    public void sync() {
+        if (!enabled || !unsynced) {
+            return;
+        }
+        appendLock.lock();
+        try {
+            unsynced = false;
+            segment.force();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void rollSegment() throws IOException {
+        if (fsyncPolicy != FsyncPolicy.NONE) {
+            segment.force();
+        }
+        channel.close();
+        openSegment(nextSequence);
+        log.debug("Pool journal rolled to segment starting at sequence {}", nextSequence);
+    }
+
+    private void openSegment(long firstSequence) throws IOException {
+        mapSegment(directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX)));
+    }
+
+    private void mapSegment(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = Math.max(channel.size(), settings.getSegmentSizeBytes());
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return new ArrayList<>(files
+                    .filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                            && path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList());
+        }
+    }
+
+    private static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private void runSyncer() {
+        while (running) {
+            try {
+                Thread.sleep(settings.getFsyncIntervalMillis());
+                sync();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Pool journal sync failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Flush and close the current segment
+     */
+    @PreDestroy
+    public void close() {
+        if (!enabled || channel == null) {
+            return;
+        }
+        running = false;
+        if (syncer != null) {
+            syncer.interrupt();
+        }
+        appendLock.lock();
+        try {
+            segment.force();
+            channel.close();
+            log.info("Pool journal closed at sequence {}", nextSequence - 1);
+        } catch (IOException e) {
+            log.error("Failed to close pool journal: {}", e.getMessage());
+        } finally {
+            appendLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.coursework.eventticketingsystemapi.config.TicketPoolProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Periodic snapshots of the journaled pool counters.
+ * A snapshot is the previous snapshot with the journal records written since then applied, so it is built
+ * entirely off the purchase path. Recovery loads the newest intact snapshot and replays only the journal tail
+ * after it; journal segments covered by every retained snapshot are deleted.
+ */
+@Service
+public class PoolSnapshotService {
+    private static final Logger log = LoggerFactory.getLogger(PoolSnapshotService.class);
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+    private static final int SNAPSHOT_MAGIC = 0x504F4F4C;
+
+    private final PoolJournal journal;
+    private final TicketPoolProperties.Journal settings;
+    // State of the last snapshot written, advanced by each checkpoint
+    private PoolCounterState checkpointed;
+    private long writtenSequence;
+    private ScheduledExecutorService scheduler;
+
+    @Autowired
+    public PoolSnapshotService(PoolJournal journal, TicketPoolProperties properties) {
+        this.journal = journal;
+        this.settings = properties.getJournal();
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!isEnabled()) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "PoolSnapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                checkpoint();
+            } catch (Exception e) {
+                log.error("Pool snapshot failed: {}", e.getMessage());
+            }
+        }, settings.getSnapshotIntervalMillis(), settings.getSnapshotIntervalMillis(), TimeUnit.MILLISECONDS);
+        log.info("Pool snapshots every {} ms, keeping {}", settings.getSnapshotIntervalMillis(), settings.getSnapshotsRetained());
+    }
+
+    public boolean isEnabled() {
+        return journal.isEnabled() && settings.getSnapshotIntervalMillis() > 0;
+    }
+
+    /**
+     * Rebuild the counters of every event from the newest snapshot and the journal after it
+     *
+     * @return Recovered counters, or null when the journal is disabled
+     */
+    public synchronized PoolCounterState recoverState() {
+        if (!journal.isEnabled()) {
+            return null;
+        }
+        long start = System.nanoTime();
+        PoolCounterState state = loadLatestSnapshot();
+        long loaded = System.nanoTime();
+        long snapshotSequence = state.getLastSequence();
+        int[] replayed = new int[1];
+        journal.replay(snapshotSequence, record -> {
+            state.apply(record);
+            replayed[0]++;
+        });
+        long end = System.nanoTime();
+
+        log.info("Recovered pool counters of {} events from {} and {} journal records in {} ms (snapshot {} ms, replay {} ms)",
+                state.getEvents().size(), snapshotSequence > 0 ? "the snapshot at sequence " + snapshotSequence : "no snapshot",
+                replayed[0], TimeUnit.NANOSECONDS.toMillis(end - start),
+                TimeUnit.NANOSECONDS.toMillis(loaded - start), TimeUnit.NANOSECONDS.toMillis(end - loaded));
+        return state;
+    }
+
+    /**
+     * Write a snapshot if the journal has advanced since the last one, then delete what it made obsolete
+     *
+     * @return Sequence number covered by the newest snapshot
+     */
+    public synchronized long checkpoint() throws IOException {
+        if (checkpointed == null) {
+            checkpointed = loadLatestSnapshot();
+            writtenSequence = checkpointed.getLastSequence();
+        }
+        journal.replay(checkpointed.getLastSequence(), checkpointed::apply);
+        if (checkpointed.getLastSequence() == writtenSequence) {
+            return writtenSequence;
+        }
+
+        long start = System.nanoTime();
+        Path target = snapshotPath(checkpointed.getLastSequence());
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        CRC32C crc = new CRC32C();
+        try (OutputStream file = Files.newOutputStream(temporary);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(file, crc)))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            checkpointed.writeTo(out);
+            out.flush();
+            // The checksum trailer is written past the checked stream
+            file.write(ByteBuffer.allocate(4).putInt((int) crc.getValue()).array());
+        }
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        writtenSequence = checkpointed.getLastSequence();
+        log.info("Wrote pool snapshot at sequence {} in {} ms", checkpointed.getLastSequence(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        pruneSnapshots();
+        return writtenSequence;
+    }
+
+    /**
+     * Keep the newest snapshots and delete the journal segments the oldest kept snapshot covers
+     */
+    private void pruneSnapshots() throws IOException {
+        List<Path> snapshots = snapshots();
+        int retained = Math.max(1, settings.getSnapshotsRetained());
+        for (int i = 0; i < snapshots.size() - retained; i++) {
+            Files.deleteIfExists(snapshots.get(i));
+        }
+        List<Path> kept = snapshots.subList(Math.max(0, snapshots.size() - retained), snapshots.size());
+        if (!kept.isEmpty()) {
+            int deleted = journal.deleteSegmentsUpTo(snapshotSequence(kept.get(0)));
+            if (deleted > 0) {
+                log.info("Deleted {} journal segments covered by snapshots", deleted);
+            }
+        }
+    }
+
+    /**
+     * Load the newest snapshot that passes its checksum, or an empty state if there is none
+     */
+    private PoolCounterState loadLatestSnapshot() {
+        List<Path> snapshots;
+        try {
+            snapshots = snapshots();
+        } catch (IOException e) {
+            log.error("Failed to list pool snapshots: {}", e.getMessage());
+            return new PoolCounterState();
+        }
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            try {
+                byte[] bytes = Files.readAllBytes(snapshots.get(i));
+                CRC32C crc = new CRC32C();
+                crc.update(bytes, 0, Math.max(0, bytes.length - 4));
+                if (bytes.length < 8 || ByteBuffer.wrap(bytes, bytes.length - 4, 4).getInt() != (int) crc.getValue()) {
+                    log.warn("Pool snapshot {} is damaged, trying an older one", snapshots.get(i).getFileName());
+                    continue;
+                }
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 0, bytes.length - 4));
+                if (in.readInt() != SNAPSHOT_MAGIC) {
+                    continue;
+                }
+                return PoolCounterState.readFrom(in);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Failed to read pool snapshot {}: {}", snapshots.get(i).getFileName(), e.getMessage());
+            }
+        }
+        return new PoolCounterState();
+    }
+
+    private List<Path> snapshots() throws IOException {
+        if (!Files.isDirectory(journal.getDirectory())) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(journal.getDirectory())) {
+            return new ArrayList<>(files
+                    .filter(path -> path.getFileName().toString().startsWith(SNAPSHOT_PREFIX)
+                            && path.getFileName().toString().endsWith(SNAPSHOT_SUFFIX))
+                    .sorted(Comparator.comparing(path -> path.getFileName().toString()))
+                    .toList());
+        }
+    }
+
+    private Path snapshotPath(long sequence) {
+        return journal.getDirectory().resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, sequence, SNAPSHOT_SUFFIX));
+    }
+
+    private static long snapshotSequence(Path snapshot) {
+        String name = snapshot.getFileName().toString();
+        return Long.parseLong(name.substring(SNAPSHOT_PREFIX.length(), name.length() - SNAPSHOT_SUFFIX.length()));
+    }
+
+    /**
+     * Take a final snapshot so the next start replays as little as possible
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+            checkpoint();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Final pool snapshot failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.coursework.eventticketingsystemapi.model.Customer;
+import org.coursework.eventticketingsystemapi.model.Ticket;
+import org.coursework.eventticketingsystemapi.model.TicketAllocation;
+import org.coursework.eventticketingsystemapi.model.Vendor;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.*;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * A set of {@link PoolWriteRecord}s merged per document and written with one unordered bulk
+ * operation per collection. Operations that succeeded are dropped after each attempt, so retrying
+ * the batch never applies the same increment twice.
+ */
+public class PoolWriteBatch {
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final List<Ticket> tickets = new ArrayList<>();
+    private final List<TicketAllocation> allocations = new ArrayList<>();
+    private final List<Map.Entry<String, Update>> vendorUpdates = new ArrayList<>();
+    private final List<Map.Entry<String, Update>> customerUpdates = new ArrayList<>();
+    // Pending inserts are dropped once written; these keep what the batch inserted for the read cache
+    private final List<Ticket> insertedTickets;
+    private final List<TicketAllocation> insertedAllocations;
+    private final int recordCount;
+    private final int ticketCount;
+
+    public PoolWriteBatch(List<PoolWriteRecord> records) {
+        Map<String, Integer> sold = new LinkedHashMap<>();
+        Map<String, Integer> released = new LinkedHashMap<>();
+        Map<String, Boolean> active = new LinkedHashMap<>();
+        Map<String, Integer> purchased = new LinkedHashMap<>();
+        Set<String> soldIsAbsolute = new HashSet<>();
+        for (PoolWriteRecord record : records) {
+            tickets.addAll(record.getTickets());
+            allocations.addAll(record.getAllocations());
+            // An absolute total replaces the deltas merged before it; later deltas are added to it
+            record.getVendorSoldTotals().forEach((id, total) -> {
+                sold.put(id, total);
+                soldIsAbsolute.add(id);
+            });
+            record.getVendorSoldDeltas().forEach((id, delta) -> sold.merge(id, delta, Integer::sum));
+            record.getVendorReleasedDeltas().forEach((id, delta) -> released.merge(id, delta, Integer::sum));
+            active.putAll(record.getVendorActiveStates());
+            record.getCustomerPurchasedDeltas().forEach((id, delta) -> purchased.merge(id, delta, Integer::sum));
+        }
+
+        // Assign ids up front so a retried insert is recognised as a duplicate instead of a second copy
+        for (Ticket ticket : tickets) {
+            if (ticket.getTicketId() == null) {
+                ticket.setTicketId(new ObjectId().toHexString());
+            }
+        }
+        for (TicketAllocation allocation : allocations) {
+            if (allocation.getAllocationId() == null) {
+                allocation.setAllocationId(new ObjectId().toHexString());
+            }
+        }
+
+        Set<String> vendorIds = new LinkedHashSet<>(sold.keySet());
+        vendorIds.addAll(released.keySet());
+        vendorIds.addAll(active.keySet());
+        for (String vendorId : vendorIds) {
+            Update update = new Update();
+            if (soldIsAbsolute.contains(vendorId)) update.set("totalTicketsSold", sold.get(vendorId));
+            else if (sold.getOrDefault(vendorId, 0) != 0) update.inc("totalTicketsSold", sold.get(vendorId));
+            if (released.getOrDefault(vendorId, 0) != 0) update.inc("ticketsReleased", released.get(vendorId));
+            if (active.containsKey(vendorId)) update.set("isActive", active.get(vendorId));
+            vendorUpdates.add(Map.entry(vendorId, update));
+        }
+        purchased.forEach((customerId, delta) ->
+                customerUpdates.add(Map.entry(customerId, new Update().inc("totalTicketsPurchased", delta))));
+
+        this.insertedTickets = List.copyOf(tickets);
+        this.insertedAllocations = List.copyOf(allocations);
+        this.recordCount = records.size();
+        this.ticketCount = tickets.size() + allocations.stream().mapToInt(TicketAllocation::getCount).sum();
+    }
+
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    public int getTicketCount() {
+        return ticketCount;
+    }
+
+    /**
+     * Every ticket the batch inserts, with the tickets of allocations materialized
+     */
+    public List<Ticket> getInsertedTickets() {
+        List<Ticket> inserted = new ArrayList<>(insertedTickets);
+        insertedAllocations.forEach(allocation -> inserted.addAll(allocation.toTickets()));
+        return inserted;
+    }
+
+    public boolean isComplete() {
+        return tickets.isEmpty() && allocations.isEmpty() && vendorUpdates.isEmpty() && customerUpdates.isEmpty();
+    }
+
+    /**
+     * Describe the operations that have not been written yet, for the dead-letter store
+     *
+     * @param mongoTemplate Template whose converter maps the inserted documents
+     * @return One document per operation with its collection, type and payload
+     */
+    public List<Document> pendingOperations(MongoTemplate mongoTemplate) {
+        List<Document> operations = new ArrayList<>();
+        for (Ticket ticket : tickets) {
+            operations.add(insertOperation(mongoTemplate, Ticket.class, ticket));
+        }
+        for (TicketAllocation allocation : allocations) {
+            operations.add(insertOperation(mongoTemplate, TicketAllocation.class, allocation));
+        }
+        vendorUpdates.forEach(entry -> operations.add(updateOperation(mongoTemplate, Vendor.class, entry)));
+        customerUpdates.forEach(entry -> operations.add(updateOperation(mongoTemplate, Customer.class, entry)));
+        return operations;
+    }
+
+    private static Document insertOperation(MongoTemplate mongoTemplate, Class<?> type, Object entity) {
+        Document document = new Document();
+        mongoTemplate.getConverter().write(entity, document);
+        return new Document("collection", mongoTemplate.getCollectionName(type)).append("operation", "insert").append("document", document);
+    }
+
+    private static Document updateOperation(MongoTemplate mongoTemplate, Class<?> type, Map.Entry<String, Update> entry) {
+        return new Document("collection", mongoTemplate.getCollectionName(type)).append("operation", "update")
+                .append("id", entry.getKey()).append("update", entry.getValue().getUpdateObject());
+    }
+
+    /**
+     * Write everything that has not been written yet
+     *
+     * @param mongoTemplate Template used for the bulk operations
+     * @throws BulkOperationException if some operations failed; only those remain in the batch
+     */
+    public void writeRemaining(MongoTemplate mongoTemplate) {
+        if (!tickets.isEmpty()) {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Ticket.class);
+            bulk.insert(tickets);
+            execute(bulk, tickets, true);
+        }
+        if (!allocations.isEmpty()) {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TicketAllocation.class);
+            bulk.insert(allocations);
+            execute(bulk, allocations, true);
+        }
+        if (!vendorUpdates.isEmpty()) {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Vendor.class);
+            vendorUpdates.forEach(entry -> bulk.updateOne(query(where("_id").is(entry.getKey())), entry.getValue()));
+            execute(bulk, vendorUpdates, false);
+        }
+        if (!customerUpdates.isEmpty()) {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Customer.class);
+            customerUpdates.forEach(entry -> bulk.updateOne(query(where("_id").is(entry.getKey())), entry.getValue()));
+            execute(bulk, customerUpdates, false);
+        }
+    }
+
+    /**
+     * Execute a bulk operation and keep only the operations that failed
+     */
+    private <T> void execute(BulkOperations bulk, List<T> operations, boolean duplicatesSucceeded) {
+        try {
+            bulk.execute();
+            operations.clear();
+        } catch (BulkOperationException e) {
+            Set<Integer> failed = new HashSet<>();
+            for (BulkWriteError error : e.getErrors()) {
+                if (!(duplicatesSucceeded && error.getCode() == DUPLICATE_KEY)) {
+                    failed.add(error.getIndex());
+                }
+            }
+            List<T> remaining = new ArrayList<>();
+            for (int i = 0; i < operations.size(); i++) {
+                if (failed.contains(i)) {
+                    remaining.add(operations.get(i));
+                }
+            }
+            operations.clear();
+            operations.addAll(remaining);
+            if (!remaining.isEmpty()) {
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import lombok.Getter;
+import org.coursework.eventticketingsystemapi.model.Ticket;
+import org.coursework.eventticketingsystemapi.model.TicketAllocation;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persistence side effects of one acknowledged pool operation.
+ * Counter changes are kept as deltas so that records can be merged and applied in any order.
+ */
+@Getter
+public class PoolWriteRecord {
+    private final List<Ticket> tickets;
+    private final List<TicketAllocation> allocations;
+    private final Map<String, Integer> vendorSoldDeltas;
+    private final Map<String, Integer> vendorReleasedDeltas;
+    private final Map<String, Boolean> vendorActiveStates;
+    private final Map<String, Integer> customerPurchasedDeltas;
+    // Absolute sold counts from a reconciliation; deltas queued after it are added on top
+    private final Map<String, Integer> vendorSoldTotals;
+
+    private PoolWriteRecord(List<Ticket> tickets, Map<String, Integer> vendorSoldDeltas, Map<String, Integer> vendorReleasedDeltas,
+                            Map<String, Boolean> vendorActiveStates, Map<String, Integer> customerPurchasedDeltas) {
+        this(tickets, List.of(), vendorSoldDeltas, vendorReleasedDeltas, vendorActiveStates, customerPurchasedDeltas, Map.of());
+    }
+
+    private PoolWriteRecord(List<Ticket> tickets, List<TicketAllocation> allocations, Map<String, Integer> vendorSoldDeltas,
+                            Map<String, Integer> vendorReleasedDeltas, Map<String, Boolean> vendorActiveStates,
+                            Map<String, Integer> customerPurchasedDeltas, Map<String, Integer> vendorSoldTotals) {
+        this.vendorSoldTotals = vendorSoldTotals;
+        this.tickets = tickets;
+        this.allocations = allocations;
+        this.vendorSoldDeltas = vendorSoldDeltas;
+        this.vendorReleasedDeltas = vendorReleasedDeltas;
+        this.vendorActiveStates = vendorActiveStates;
+        this.customerPurchasedDeltas = customerPurchasedDeltas;
+    }
+
+    /**
+     * Record for a completed purchase
+     *
+     * @param customerId         Customer who purchased the tickets
+     * @param tickets            Tickets created by the purchase
+     * @param vendorSoldDeltas   Tickets sold per vendor
+     * @param vendorActiveStates Vendors whose active flag changed
+     * @return Purchase record
+     */
+    public static PoolWriteRecord purchase(String customerId, List<Ticket> tickets, Map<String, Integer> vendorSoldDeltas,
+                                           Map<String, Boolean> vendorActiveStates) {
+        return purchase(customerId, tickets, List.of(), vendorSoldDeltas, vendorActiveStates);
+    }
+
+    /**
+     * Record for a completed purchase stored partly or wholly as allocations
+     *
+     * @param customerId         Customer who purchased the tickets
+     * @param tickets            Tickets stored one document each
+     * @param allocations        Serial ranges stored one document per range
+     * @param vendorSoldDeltas   Tickets sold per vendor
+     * @param vendorActiveStates Vendors whose active flag changed
+     * @return Purchase record
+     */
+    public static PoolWriteRecord purchase(String customerId, List<Ticket> tickets, List<TicketAllocation> allocations,
+                                           Map<String, Integer> vendorSoldDeltas, Map<String, Boolean> vendorActiveStates) {
+        int purchased = tickets.size() + allocations.stream().mapToInt(TicketAllocation::getCount).sum();
+        return new PoolWriteRecord(tickets, allocations, vendorSoldDeltas, Map.of(), vendorActiveStates, Map.of(customerId, purchased), Map.of());
+    }
+
+    /**
+     * Record for a completed vendor release
+     *
+     * @param vendorId Vendor who released the tickets
+     * @param count    Number of tickets released
+     * @param active   Vendor's active flag after the release
+     * @return Release record
+     */
+    public static PoolWriteRecord release(String vendorId, int count, boolean active) {
+        return new PoolWriteRecord(List.of(), Map.of(), Map.of(vendorId, count), Map.of(vendorId, active), Map.of());
+    }
+
+    /**
+     * Record that reconciles vendor sold counts with the inventory. The totals replace any deltas before them,
+     * so it must not be written while purchases of the same vendors are in flight.
+     *
+     * @param vendorSoldTotals   Sold count per vendor
+     * @param vendorActiveStates Vendors whose active flag should be set as well
+     * @return Reconciliation record
+     */
+    public static PoolWriteRecord reconcile(Map<String, Integer> vendorSoldTotals, Map<String, Boolean> vendorActiveStates) {
+        return new PoolWriteRecord(List.of(), List.of(), Map.of(), Map.of(), vendorActiveStates, Map.of(), vendorSoldTotals);
+    }
+
+    /**
+     * Record that only sets vendor active flags
+     *
+     * @param vendorActiveStates Active flag per vendor
+     * @return Active state record
+     */
+    public static PoolWriteRecord activeStates(Map<String, Boolean> vendorActiveStates) {
+        return new PoolWriteRecord(List.of(), List.of(), Map.of(), Map.of(), vendorActiveStates, Map.of(), Map.of());
+    }
+}
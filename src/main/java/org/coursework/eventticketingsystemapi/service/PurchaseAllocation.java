@@ -0,0 +1,15 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * In-memory result of a purchase: how many tickets were allocated and what still has to be persisted
+ */
+@Getter
+@AllArgsConstructor
+public class PurchaseAllocation {
+    private final int purchased;
+    // Null when nothing was allocated
+    private final PoolWriteRecord record;
+}
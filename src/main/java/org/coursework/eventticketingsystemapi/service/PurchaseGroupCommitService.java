@@ -0,0 +1,263 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.coursework.eventticketingsystemapi.config.TicketPoolProperties;
+import org.coursework.eventticketingsystemapi.exception.PurchasePendingException;
+import org.coursework.eventticketingsystemapi.exception.ResourceProcessingException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Group commit for purchases. Purchases arriving within a short window (or up to a maximum batch size)
+ * are allocated together on one committer thread and persisted with a single unordered bulk write per
+ * collection. Each caller blocks until its batch is written and then receives its own result, or fails
+ * after the commit timeout. A purchase whose caller gave up before it was allocated is never applied.
+ * If the bulk write fails, the allocations stay applied and their writes are dead-lettered, so callers
+ * get a {@link PurchasePendingException} instead of an error they would retry.
+ */
+@Service
+public class PurchaseGroupCommitService {
+    private static final Logger log = LoggerFactory.getLogger(PurchaseGroupCommitService.class);
+
+    private final TicketWriteBehindService writeBehindService;
+    private final TicketPoolProperties.GroupCommit settings;
+    private final BlockingQueue<PendingPurchase> queue;
+    private final DistributionSummary batchSizes;
+    private final Timer writeLatency;
+    private final Timer commitLatency;
+    private Thread committer;
+    private volatile boolean running;
+
+    @Autowired
+    public PurchaseGroupCommitService(TicketWriteBehindService writeBehindService, TicketPoolProperties properties, MeterRegistry meterRegistry) {
+        this.writeBehindService = writeBehindService;
+        this.settings = properties.getGroupCommit();
+        this.queue = new LinkedBlockingQueue<>(Math.max(1, settings.getQueueCapacity()));
+        this.batchSizes = DistributionSummary.builder("ticketpool.group_commit.batch_size")
+                .description("Purchases committed per group commit")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.writeLatency = Timer.builder("ticketpool.group_commit.write")
+                .description("Time spent in the bulk write of one group commit")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.commitLatency = Timer.builder("ticketpool.group_commit.latency")
+                .description("Time from enqueueing a purchase to its commit acknowledgement")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Start the committer thread when group commit is enabled
+     */
+    @PostConstruct
+    public void start() {
+        if (!settings.isEnabled()) {
+            return;
+        }
+        running = true;
+        committer = new Thread(this::commitLoop, "GroupCommit");
+        committer.setDaemon(true);
+        committer.start();
+        log.info("Group commit enabled with window {} ms and max batch size {}", settings.getWindowMillis(), settings.getMaxBatchSize());
+    }
+
+    public boolean isEnabled() {
+        return running;
+    }
+
+    /**
+     * Queue a purchase for the next group commit and wait for its result
+     *
+     * @param allocation In-memory allocation, run on the committer thread
+     * @return Number of tickets purchased
+     * @throws PurchasePendingException if the tickets were allocated but their write was dead-lettered
+     */
+    public int commit(Supplier<PurchaseAllocation> allocation) {
+        PendingPurchase pending = new PendingPurchase(allocation);
+        try {
+            if (!running || !queue.offer(pending, settings.getOfferTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                throw new ResourceProcessingException("Ticket pool is busy committing earlier purchases, please retry");
+            }
+            // The committer may have stopped between the running check and the offer
+            if (!running && queue.remove(pending)) {
+                throw new ResourceProcessingException("Ticket pool is shutting down, please retry");
+            }
+            return pending.future.get(settings.getCommitTimeoutMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (pending.abandon()) {
+                throw new ResourceProcessingException("Purchase was not committed within " + settings.getCommitTimeoutMillis() + " ms, please retry");
+            }
+            throw new ResourceProcessingException("Purchase is still being written, check the customer's tickets before retrying");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.abandon();
+            throw new ResourceProcessingException("Interrupted while waiting for the purchase commit");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new ResourceProcessingException("Failed to commit purchase: " + e.getCause().getMessage());
+        }
+    }
+
+    public double getAverageBatchSize() {
+        return batchSizes.mean();
+    }
+
+    public long getCommittedBatches() {
+        return batchSizes.count();
+    }
+
+    /**
+     * Committer loop: gather a group, allocate each purchase, bulk write, then acknowledge
+     */
+    private void commitLoop() {
+        List<PendingPurchase> group = new ArrayList<>(settings.getMaxBatchSize());
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingPurchase first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(settings.getWindowMillis());
+                while (group.size() < settings.getMaxBatchSize()) {
+                    queue.drainTo(group, settings.getMaxBatchSize() - group.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (group.size() >= settings.getMaxBatchSize() || remaining <= 0) {
+                        break;
+                    }
+                    PendingPurchase next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                }
+                commitGroup(group);
+            } catch (InterruptedException e) {
+                log.warn("Group committer interrupted, continuing until the queue is drained");
+            } catch (Exception e) {
+                log.error("Group commit failed unexpectedly: {}", e.getMessage(), e);
+                group.forEach(pending -> pending.future.completeExceptionally(
+                        new ResourceProcessingException("Failed to commit purchase: " + e.getMessage())));
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    private void commitGroup(List<PendingPurchase> group) {
+        List<PoolWriteRecord> records = new ArrayList<>(group.size());
+        int[] results = new int[group.size()];
+        boolean[] recorded = new boolean[group.size()];
+        for (int i = 0; i < group.size(); i++) {
+            PendingPurchase pending = group.get(i);
+            if (!pending.begin()) {
+                continue;
+            }
+            try {
+                PurchaseAllocation allocation = pending.allocation.get();
+                results[i] = allocation.getPurchased();
+                if (allocation.getRecord() != null) {
+                    records.add(allocation.getRecord());
+                    recorded[i] = true;
+                }
+            } catch (RuntimeException e) {
+                pending.future.completeExceptionally(e);
+            }
+        }
+
+        if (!records.isEmpty()) {
+            long start = System.nanoTime();
+            boolean written = writeBehindService.writeWithRetry(new PoolWriteBatch(records));
+            writeLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (!written) {
+                // The allocations are already applied, so report them as pending rather than failed
+                for (int i = 0; i < group.size(); i++) {
+                    if (recorded[i]) {
+                        group.get(i).future.completeExceptionally(new PurchasePendingException(
+                                "Purchase of " + results[i] + " tickets was allocated but its write was moved to the dead-letter file, do not retry",
+                                results[i]));
+                    }
+                }
+            }
+        }
+        batchSizes.record(group.size());
+
+        long now = System.nanoTime();
+        for (int i = 0; i < group.size(); i++) {
+            PendingPurchase pending = group.get(i);
+            if (pending.future.complete(results[i])) {
+                commitLatency.record(now - pending.enqueuedAt, TimeUnit.NANOSECONDS);
+            }
+        }
+        log.debug("Group commit of {} purchases ({} with tickets)", group.size(), records.size());
+    }
+
+    /**
+     * Stop taking purchases and commit everything already queued. Purchases still queued when the
+     * shutdown timeout expires are failed rather than left waiting.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (committer == null) {
+            return;
+        }
+        running = false;
+        try {
+            committer.join(settings.getShutdownTimeoutMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<PendingPurchase> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        remaining.forEach(pending -> pending.future.completeExceptionally(
+                new ResourceProcessingException("Ticket pool is shutting down, please retry")));
+        if (!remaining.isEmpty()) {
+            log.warn("Failed {} purchases still queued at shutdown", remaining.size());
+        }
+        log.info("Group commit stopped after {} batches, average batch size {}", batchSizes.count(), batchSizes.mean());
+    }
+
+    private static class PendingPurchase {
+        private static final int QUEUED = 0;
+        private static final int STARTED = 1;
+        private static final int ABANDONED = 2;
+
+        private final Supplier<PurchaseAllocation> allocation;
+        private final CompletableFuture<Integer> future = new CompletableFuture<>();
+        private final long enqueuedAt = System.nanoTime();
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+
+        PendingPurchase(Supplier<PurchaseAllocation> allocation) {
+            this.allocation = allocation;
+        }
+
+        /**
+         * Claim the purchase for allocation; fails if its caller already gave up
+         */
+        boolean begin() {
+            return state.compareAndSet(QUEUED, STARTED);
+        }
+
+        /**
+         * Give up on the purchase; fails if the committer already allocated it
+         */
+        boolean abandon() {
+            return state.compareAndSet(QUEUED, ABANDONED);
+        }
+    }
+}
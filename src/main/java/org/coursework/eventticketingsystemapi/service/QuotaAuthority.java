@@ -0,0 +1,68 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import java.util.List;
+
+/**
+ * Shared owner of the unsold stock of every vendor when the ticket pool runs on several nodes.
+ * Released tickets are added here, and nodes take them out in leased blocks. Every operation is a single
+ * conditional update, so the stock handed out never exceeds the stock released.
+ */
+public interface QuotaAuthority {
+
+    /**
+     * Add released tickets to a vendor's shared stock
+     *
+     * @param eventId       Event ID
+     * @param vendorId      Vendor ID
+     * @param ticketsToSell Vendor's maximum tickets to sell
+     * @param count         Number of tickets released
+     * @throws org.coursework.eventticketingsystemapi.exception.VendorLimitExceededException if the vendor would exceed ticketsToSell
+     */
+    void addQuota(String eventId, String vendorId, int ticketsToSell, int count);
+
+    /**
+     * Find vendors of an event that still have stock to lease
+     *
+     * @param eventId Event ID
+     * @param limit   Maximum number of vendors to return
+     * @return Vendor IDs
+     */
+    List<String> vendorsWithQuota(String eventId, int limit);
+
+    /**
+     * Take up to wanted tickets out of a vendor's shared stock, creating or growing the node's lease
+     *
+     * @param lease       The node's current lease for the vendor, or null
+     * @param eventId     Event ID
+     * @param vendorId    Vendor ID
+     * @param nodeId      Node taking the lease
+     * @param wanted      Number of tickets wanted
+     * @param expiresAt   New expiry of the lease
+     * @return The lease, or null if nothing could be leased and the node had no lease
+     */
+    QuotaLease acquire(QuotaLease lease, String eventId, String vendorId, String nodeId, int wanted, long expiresAt);
+
+    /**
+     * Record how much of a lease the node has used, so a reclaim after a crash returns only the rest
+     *
+     * @param lease    Lease
+     * @param consumed Tickets sold or held from the lease
+     */
+    void report(QuotaLease lease, int consumed);
+
+    /**
+     * End a lease and put its unused tickets back into the shared stock
+     *
+     * @param lease  Lease
+     * @param unused Tickets the node took back out of its inventory
+     */
+    void release(QuotaLease lease, int unused);
+
+    /**
+     * Reclaim the leases of nodes that stopped without returning them
+     *
+     * @param cutoffMillis Leases that expired before this time are reclaimed
+     * @return Number of tickets returned to the shared stock
+     */
+    int reclaimExpired(long cutoffMillis);
+}
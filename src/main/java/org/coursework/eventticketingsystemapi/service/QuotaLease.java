@@ -0,0 +1,40 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import lombok.Getter;
+
+/**
+ * A block of one vendor's stock that a node has taken out of the shared quota and may sell without coordination.
+ * A node holds at most one lease per event and vendor; leasing more grows it and pushes its expiry back.
+ */
+@Getter
+public class QuotaLease {
+    private final String leaseId;
+    private final String eventId;
+    private final String vendorId;
+    private final String nodeId;
+    private volatile int granted;
+    private volatile int reportedConsumed;
+    private volatile long expiresAtMillis;
+
+    public QuotaLease(String eventId, String vendorId, String nodeId, int granted, long expiresAtMillis) {
+        this.leaseId = leaseId(eventId, vendorId, nodeId);
+        this.eventId = eventId;
+        this.vendorId = vendorId;
+        this.nodeId = nodeId;
+        this.granted = granted;
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    public static String leaseId(String eventId, String vendorId, String nodeId) {
+        return eventId + ":" + vendorId + ":" + nodeId;
+    }
+
+    void grow(int count, long expiresAtMillis) {
+        this.granted += count;
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    void reported(int consumed) {
+        this.reportedConsumed = consumed;
+    }
+}
@@ -0,0 +1,286 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.coursework.eventticketingsystemapi.config.TicketPoolProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Node side of the clustered ticket pool.
+ * Vendor releases go to the shared {@link QuotaAuthority}; this node leases blocks of that stock into its local
+ * inventories and sells from them with the usual lock-free path. Each lease is handed back, minus what was sold,
+ * shortly before it expires and on shutdown, so stock never stays parked on an idle node. A node stops selling
+ * from a lease before the authority could reclaim it, which keeps every ticket sold by at most one node.
+ */
+@Service
+public class QuotaLeaseService {
+    private static final Logger log = LoggerFactory.getLogger(QuotaLeaseService.class);
+    // How many vendors with stock are considered per refill
+    private static final int VENDORS_PER_REFILL = 8;
+
+    private final QuotaAuthority authority;
+    private final AllocationRingBuffer ringBuffer;
+    private final TicketPoolProperties.Cluster settings;
+    private final String nodeId;
+    private final Map<String, LeasedStock> leases = new ConcurrentHashMap<>();
+    private final Map<String, TicketInventory> inventories = new ConcurrentHashMap<>();
+    private final Queue<PendingReturn> pendingReturns = new ConcurrentLinkedQueue<>();
+    // Serialize lease changes per event; purchases only take them when the local stock runs short, so a slow
+    // Mongo round trip while refilling stalls buyers of that event only
+    private final Map<String, ReentrantLock> eventLocks = new ConcurrentHashMap<>();
+    private volatile boolean running;
+    private Thread ticker;
+
+    private record LeasedStock(QuotaLease lease, TicketInventory inventory) {
+    }
+
+    private record PendingReturn(QuotaLease lease, int unused) {
+    }
+
+    @Autowired
+    public QuotaLeaseService(QuotaAuthority authority, AllocationRingBuffer ringBuffer, TicketPoolProperties properties) {
+        this.authority = authority;
+        this.ringBuffer = ringBuffer;
+        this.settings = properties.getCluster();
+        this.nodeId = settings.getNodeId() == null || settings.getNodeId().isBlank() ? defaultNodeId() : settings.getNodeId();
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!settings.isEnabled()) {
+            return;
+        }
+        running = true;
+        ticker = new Thread(this::runTicker, "QuotaLease");
+        ticker.setDaemon(true);
+        ticker.start();
+        log.info("Clustered ticket pool enabled on node {} with lease blocks of {} tickets", nodeId, settings.getLeaseBlockSize());
+    }
+
+    public boolean isEnabled() {
+        return settings.isEnabled();
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Make an event's current inventory the target of background refills
+     *
+     * @param eventId   Event ID
+     * @param inventory Inventory the event sells from
+     */
+    public void track(String eventId, TicketInventory inventory) {
+        inventories.put(eventId, inventory);
+    }
+
+    /**
+     * Add released tickets to the vendor's shared stock
+     *
+     * @throws org.coursework.eventticketingsystemapi.exception.VendorLimitExceededException if the vendor would exceed ticketsToSell
+     */
+    public void addQuota(String eventId, String vendorId, int ticketsToSell, int count) {
+        authority.addQuota(eventId, vendorId, ticketsToSell, count);
+    }
+
+    /**
+     * Lease more stock into an inventory if it holds fewer than the wanted tickets.
+     * Runs on the purchase path and waits for the authority; the maintenance pass refills inventories below the
+     * low watermark ahead of demand, so buyers normally find the stock already leased.
+     *
+     * @param eventId   Event ID
+     * @param inventory Inventory to refill
+     * @param wanted    Tickets the caller is about to sell
+     * @return Number of tickets leased
+     */
+    public int replenish(String eventId, TicketInventory inventory, int wanted) {
+        if (inventory.getAvailableTickets().get() >= wanted) {
+            return 0;
+        }
+        ReentrantLock lock = eventLock(eventId);
+        lock.lock();
+        try {
+            // Another thread may have refilled while this one waited
+            int missing = wanted - inventory.getAvailableTickets().get();
+            if (missing <= 0) {
+                return 0;
+            }
+            int block = Math.max(settings.getLeaseBlockSize(), missing);
+            int leased = 0;
+            for (String vendorId : authority.vendorsWithQuota(eventId, VENDORS_PER_REFILL)) {
+                leased += lease(eventId, vendorId, inventory, block - leased);
+                if (leased >= missing) {
+                    break;
+                }
+            }
+            return leased;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int lease(String eventId, String vendorId, TicketInventory inventory, int wanted) {
+        String leaseId = QuotaLease.leaseId(eventId, vendorId, nodeId);
+        LeasedStock stock = leases.get(leaseId);
+        if (stock != null && stock.inventory() != inventory) {
+            // The event was reconfigured; hand back what is left in the old inventory first
+            returnLease(stock);
+            stock = null;
+        }
+        QuotaLease current = stock != null ? stock.lease() : null;
+        int grantedBefore = current != null ? current.getGranted() : 0;
+        QuotaLease lease = authority.acquire(current, eventId, vendorId, nodeId, wanted, System.currentTimeMillis() + settings.getLeaseTtlMillis());
+        if (lease == null) {
+            return 0;
+        }
+        int granted = lease.getGranted() - grantedBefore;
+        if (granted > 0) {
+            if (ringBuffer.isEnabled()) {
+                ringBuffer.publishAddLeased(inventory, vendorId, granted).awaitAndRecycle();
+            } else {
+                inventory.addLeasedTickets(vendorId, granted);
+            }
+            leases.putIfAbsent(leaseId, new LeasedStock(lease, inventory));
+            log.debug("Node {} leased {} tickets of vendor {} for event {}", nodeId, granted, vendorId, eventId);
+        }
+        return granted;
+    }
+
+    /**
+     * One maintenance pass: hand back leases that are about to expire, report usage of the others,
+     * refill inventories below the low watermark and reclaim leases abandoned by other nodes
+     *
+     * @param nowMillis Current time
+     */
+    void tick(long nowMillis) {
+        retryPendingReturns();
+        for (LeasedStock stock : leases.values()) {
+            QuotaLease lease = stock.lease();
+            ReentrantLock lock = eventLock(lease.getEventId());
+            lock.lock();
+            try {
+                if (leases.get(lease.getLeaseId()) != stock) {
+                    // Returned by a refill of a reconfigured event while this pass waited
+                    continue;
+                }
+                if (nowMillis >= lease.getExpiresAtMillis() - 2 * settings.getTickMillis()) {
+                    returnLease(stock);
+                    continue;
+                }
+                int consumed = Math.max(0, lease.getGranted() - stock.inventory().getVendorAvailable(lease.getVendorId()));
+                if (consumed != lease.getReportedConsumed()) {
+                    authority.report(lease, consumed);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        inventories.forEach((eventId, inventory) -> {
+            if (inventory.getAvailableTickets().get() < settings.getLowWatermark()) {
+                replenish(eventId, inventory, settings.getLowWatermark());
+            }
+        });
+
+        int reclaimed = authority.reclaimExpired(nowMillis - settings.getLeaseTtlMillis());
+        if (reclaimed > 0) {
+            log.warn("Reclaimed {} tickets from expired leases of stopped nodes", reclaimed);
+        }
+    }
+
+    /**
+     * Take a lease's unsold tickets out of the local inventory, then hand them back.
+     * The local stock is removed first so nothing can be sold from a lease that is no longer held.
+     */
+    private void returnLease(LeasedStock stock) {
+        QuotaLease lease = stock.lease();
+        leases.remove(lease.getLeaseId(), stock);
+        int unused = ringBuffer.isEnabled()
+                ? ringBuffer.publishTakeAvailable(stock.inventory(), lease.getVendorId()).awaitAndRecycle()
+                : stock.inventory().takeAvailable(lease.getVendorId());
+        try {
+            authority.release(lease, unused);
+            log.debug("Node {} returned {} of {} leased tickets of vendor {}", nodeId, unused, lease.getGranted(), lease.getVendorId());
+        } catch (RuntimeException e) {
+            log.error("Failed to return lease {}, will retry: {}", lease.getLeaseId(), e.getMessage());
+            pendingReturns.add(new PendingReturn(lease, unused));
+        }
+    }
+
+    private void retryPendingReturns() {
+        pendingReturns.removeIf(pending -> {
+            try {
+                authority.release(pending.lease(), pending.unused());
+                return true;
+            } catch (RuntimeException e) {
+                return false;
+            }
+        });
+    }
+
+    private void runTicker() {
+        while (running) {
+            try {
+                tick(System.currentTimeMillis());
+                Thread.sleep(settings.getTickMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Quota lease maintenance failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Hand every lease back before the node stops
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (ticker != null) {
+            ticker.interrupt();
+        }
+        for (LeasedStock stock : leases.values()) {
+            ReentrantLock lock = eventLock(stock.lease().getEventId());
+            lock.lock();
+            try {
+                if (leases.get(stock.lease().getLeaseId()) == stock) {
+                    returnLease(stock);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        retryPendingReturns();
+        if (!pendingReturns.isEmpty()) {
+            log.error("{} leases could not be returned and will be reclaimed after they expire", pendingReturns.size());
+        }
+    }
+
+    private ReentrantLock eventLock(String eventId) {
+        return eventLocks.computeIfAbsent(eventId, id -> new ReentrantLock());
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "node";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
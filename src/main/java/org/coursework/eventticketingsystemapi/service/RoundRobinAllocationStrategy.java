@@ -0,0 +1,49 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Rotates through vendors with stock so that sales are spread evenly.
+ * Vendors enter the queue when they gain stock and are dropped lazily once they are found empty.
+ */
+public class RoundRobinAllocationStrategy implements VendorAllocationStrategy {
+    private final Queue<VendorTicketSlot> queue = new ConcurrentLinkedQueue<>();
+    private final Set<VendorTicketSlot> indexed = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public void stockChanged(VendorTicketSlot slot) {
+        if (slot.getAvailable() > 0 && indexed.add(slot)) {
+            queue.add(slot);
+        }
+    }
+
+    @Override
+    public List<String> select(int wanted) {
+        List<String> selected = new ArrayList<>();
+        int covered = 0;
+        // Bound the walk so concurrent rotation cannot keep a single call busy
+        int budget = indexed.size() + 1;
+        while (covered < wanted && budget-- > 0) {
+            VendorTicketSlot slot = queue.poll();
+            if (slot == null) {
+                break;
+            }
+            int available = slot.getAvailable();
+            if (available <= 0) {
+                indexed.remove(slot);
+                // Stock may have arrived between the read and the removal
+                stockChanged(slot);
+                continue;
+            }
+            queue.add(slot);
+            selected.add(slot.getVendorId());
+            covered += available;
+        }
+        return selected;
+    }
+}
@@ -0,0 +1,29 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import lombok.Getter;
+
+/**
+ * A range of ticket serials of one event and vendor that a node has reserved and may hand out without coordination.
+ */
+@Getter
+public class SerialBlock {
+    private final String blockId;
+    private final String eventId;
+    private final String vendorId;
+    private final String nodeId;
+    private final long first;
+    private final long last;
+
+    public SerialBlock(String eventId, String vendorId, String nodeId, long first, long last) {
+        this.blockId = eventId + ":" + vendorId + ":" + nodeId + ":" + first;
+        this.eventId = eventId;
+        this.vendorId = vendorId;
+        this.nodeId = nodeId;
+        this.first = first;
+        this.last = last;
+    }
+
+    public long size() {
+        return last - first + 1;
+    }
+}
@@ -0,0 +1,36 @@
+package org.coursework.eventticketingsystemapi.service;
+
+/**
+ * Shared owner of the ticket serial counters of every event and vendor.
+ * Nodes reserve serials in blocks and record each block they hold, so the unused part of a block can be handed
+ * back on shutdown, or reclaimed by the same node after a crash, and given out again.
+ */
+public interface SerialBlockStore {
+
+    /**
+     * Reserve the next block of serials, reusing a returned range before extending the counter
+     *
+     * @param eventId  Event ID
+     * @param vendorId Vendor ID
+     * @param nodeId   Node reserving the block
+     * @param size     Number of serials wanted; a reused range may be smaller
+     * @return The reserved block
+     */
+    SerialBlock reserve(String eventId, String vendorId, String nodeId, int size);
+
+    /**
+     * Give up a block, returning the serials from nextUnused onwards
+     *
+     * @param block      Block reserved by this node
+     * @param nextUnused First serial of the block that was not handed out
+     */
+    void release(SerialBlock block, long nextUnused);
+
+    /**
+     * Return the serials of every block a node still held when it stopped, except those already on saved tickets
+     *
+     * @param nodeId Node ID
+     * @return Number of serials returned
+     */
+    long reclaim(String nodeId);
+}
@@ -0,0 +1,139 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import org.coursework.eventticketingsystemapi.exception.InvalidResourceOperationException;
+import org.coursework.eventticketingsystemapi.exception.VendorLimitExceededException;
+import org.coursework.eventticketingsystemapi.model.Customer;
+import org.coursework.eventticketingsystemapi.model.EventConfiguration;
+import org.coursework.eventticketingsystemapi.model.Vendor;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Single-event pool for the simulator. Releases and purchases go through a real {@link TicketInventory}, so
+ * capacity, vendor limits, customer allowances and the allocation strategy behave as in the live pool, but
+ * nothing is persisted or journaled. Every sale is recorded against the simulated clock for the report.
+ */
+class SimulatedTicketPool implements ParticipantTicketPool {
+    private final EventConfiguration configuration;
+    private final TicketInventory inventory;
+    private final LongSupplier clock;
+    private final long totalSupply;
+
+    private long released;
+    private long sold;
+    private Long sellOutMillis;
+    private long lastPurchaseMillis;
+    private final Map<Integer, Long> batchSizes = new TreeMap<>();
+    private final Map<String, Long> firstPurchaseMillis = new HashMap<>();
+
+    SimulatedTicketPool(EventConfiguration configuration, TicketInventory inventory, LongSupplier clock, long totalSupply) {
+        this.configuration = configuration;
+        this.inventory = inventory;
+        this.clock = clock;
+        this.totalSupply = totalSupply;
+    }
+
+    @Override
+    public boolean isConfigured(String eventId) {
+        return true;
+    }
+
+    @Override
+    public EventConfiguration getEventConfiguration(String eventId) {
+        return configuration;
+    }
+
+    @Override
+    public AtomicInteger getAvailableTickets(String eventId) {
+        return inventory.getAvailableTickets();
+    }
+
+    @Override
+    public int getFreeCapacity(String eventId) {
+        return inventory.getFreeCapacity();
+    }
+
+    @Override
+    public AvailabilitySignal.Waiter awaitAvailableTickets(String eventId, int wanted) {
+        return inventory.getAvailabilitySignal().await(wanted, inventory.getAvailableTickets()::get);
+    }
+
+    @Override
+    public AvailabilitySignal.Waiter awaitFreeCapacity(String eventId, int wanted) {
+        return inventory.getCapacitySignal().await(wanted, inventory::getFreeCapacity);
+    }
+
+    @Override
+    public void addTickets(Vendor vendor, int count) {
+        try {
+            inventory.release(vendor.getParticipantId(), vendor.getTicketsToSell(), count);
+        } catch (VendorLimitExceededException e) {
+            vendor.stopVendor();
+            throw e;
+        }
+        released += count;
+    }
+
+    @Override
+    public int purchaseTickets(Customer customer, int count) {
+        int remaining = customer.getTicketsToPurchase() - customer.getTotalTicketsPurchased();
+        if (remaining <= 0) {
+            throw new InvalidResourceOperationException("Cannot purchase tickets, customer has reached their limit");
+        }
+        int wanted = Math.min(count, remaining);
+        List<String> vendorIds = inventory.selectVendors(wanted);
+        int purchased = inventory.purchase(customer.getParticipantId(), wanted, remaining, vendorIds, new int[vendorIds.size()]);
+        if (purchased == TicketInventory.ALLOWANCE_EXHAUSTED) {
+            throw new InvalidResourceOperationException("Cannot purchase tickets, customer has reached their limit");
+        }
+        if (purchased > 0) {
+            long now = clock.getAsLong();
+            sold += purchased;
+            lastPurchaseMillis = now;
+            batchSizes.merge(purchased, 1L, Long::sum);
+            firstPurchaseMillis.putIfAbsent(customer.getParticipantId(), now);
+            if (sold == totalSupply && sellOutMillis == null) {
+                sellOutMillis = now;
+            }
+        }
+        return purchased;
+    }
+
+    @Override
+    public void updateVendorTicketCount(Vendor vendor, int addedTickets) {
+        inventory.adjustVendorAvailable(vendor.getParticipantId(), addedTickets);
+    }
+
+    TicketInventory getInventory() {
+        return inventory;
+    }
+
+    long getReleased() {
+        return released;
+    }
+
+    long getSold() {
+        return sold;
+    }
+
+    Long getSellOutMillis() {
+        return sellOutMillis;
+    }
+
+    long getLastPurchaseMillis() {
+        return lastPurchaseMillis;
+    }
+
+    Map<Integer, Long> getBatchSizes() {
+        return batchSizes;
+    }
+
+    Long getFirstPurchaseMillis(String customerId) {
+        return firstPurchaseMillis.get(customerId);
+    }
+}
@@ -0,0 +1,59 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tickets held for a customer while they finish checkout.
+ * A hold leaves the HELD state exactly once: confirmed into tickets, cancelled, or expired by the timing wheel.
+ */
+@Getter
+public class TicketHold {
+    public enum State {HELD, CONFIRMED, CANCELLED, EXPIRED}
+
+    private final String holdId;
+    private final String eventId;
+    private final String customerId;
+    private final int quantity;
+    private final long expiresAtMillis;
+    @JsonIgnore
+    private final List<String> vendorIds;
+    @JsonIgnore
+    private final int[] vendorCounts;
+    @JsonIgnore
+    private final TicketInventory inventory;
+    @Getter(lombok.AccessLevel.NONE)
+    private final AtomicReference<State> state = new AtomicReference<>(State.HELD);
+
+    public TicketHold(String holdId, String eventId, String customerId, List<String> vendorIds, int[] vendorCounts, long expiresAtMillis, TicketInventory inventory) {
+        int total = 0;
+        for (int count : vendorCounts) {
+            total += count;
+        }
+        this.holdId = holdId;
+        this.eventId = eventId;
+        this.customerId = customerId;
+        this.vendorIds = vendorIds;
+        this.vendorCounts = vendorCounts;
+        this.quantity = total;
+        this.expiresAtMillis = expiresAtMillis;
+        this.inventory = inventory;
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    /**
+     * Move the hold out of the HELD state
+     *
+     * @param target Final state
+     * @return True if this call made the transition
+     */
+    public boolean complete(State target) {
+        return state.compareAndSet(State.HELD, target);
+    }
+}
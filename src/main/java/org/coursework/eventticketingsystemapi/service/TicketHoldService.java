@@ -0,0 +1,160 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.coursework.eventticketingsystemapi.config.TicketPoolProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registry of active ticket holds and their expiry.
+ * New holds are handed to a single ticker thread through a lock-free queue; the ticker owns the timing wheel
+ * and returns expired holds to the inventory they were taken from, through the allocation ring when it is enabled.
+ * Holds that were confirmed or cancelled before their deadline are simply dropped when their bucket comes due.
+ */
+@Service
+public class TicketHoldService {
+    private static final Logger log = LoggerFactory.getLogger(TicketHoldService.class);
+
+    private final TicketPoolProperties.Holds settings;
+    private final PoolJournal journal;
+    private final AllocationRingBuffer ringBuffer;
+    private final Map<String, TicketHold> activeHolds = new ConcurrentHashMap<>();
+    private final Queue<TicketHold> incoming = new ConcurrentLinkedQueue<>();
+    private final AtomicLong expiredHolds = new AtomicLong();
+    private HoldTimingWheel wheel;
+    private ScheduledExecutorService ticker;
+
+    @Autowired
+    public TicketHoldService(TicketPoolProperties properties, PoolJournal journal, AllocationRingBuffer ringBuffer) {
+        this.settings = properties.getHolds();
+        this.journal = journal;
+        this.ringBuffer = ringBuffer;
+    }
+
+    /**
+     * Start the ticker that turns the timing wheel
+     */
+    @PostConstruct
+    public void startTicker() {
+        wheel = new HoldTimingWheel(settings.getTickMillis(), settings.getWheelSize(), settings.getWheelLevels(), System.currentTimeMillis());
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "HoldExpiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tick, settings.getTickMillis(), settings.getTickMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public long getTtlMillis() {
+        return settings.getTtlMillis();
+    }
+
+    /**
+     * Register a new hold for expiry
+     *
+     * @param hold Hold to track
+     */
+    public void register(TicketHold hold) {
+        activeHolds.put(hold.getHoldId(), hold);
+        incoming.add(hold);
+    }
+
+    public Optional<TicketHold> getHold(String holdId) {
+        return Optional.ofNullable(activeHolds.get(holdId));
+    }
+
+    /**
+     * Stop tracking a hold that has been confirmed or cancelled
+     *
+     * @param hold Hold to forget
+     */
+    public void remove(TicketHold hold) {
+        activeHolds.remove(hold.getHoldId(), hold);
+    }
+
+    /**
+     * Return every active hold of an event to its inventory, before the event's inventory is replaced
+     *
+     * @param eventId Event being reconfigured
+     * @return Number of holds returned
+     */
+    public int returnHolds(String eventId) {
+        int returned = 0;
+        for (TicketHold hold : activeHolds.values()) {
+            if (hold.getEventId().equals(eventId) && returnHold(hold, TicketHold.State.CANCELLED)) {
+                returned++;
+            }
+        }
+        return returned;
+    }
+
+    public int getActiveHoldCount() {
+        return activeHolds.size();
+    }
+
+    public long getExpiredHoldCount() {
+        return expiredHolds.get();
+    }
+
+    private void tick() {
+        try {
+            TicketHold hold;
+            while ((hold = incoming.poll()) != null) {
+                if (!wheel.schedule(hold)) {
+                    expire(hold);
+                }
+            }
+            wheel.advanceTo(System.currentTimeMillis(), this::expire);
+        } catch (Exception e) {
+            log.error("Hold expiry tick failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void expire(TicketHold hold) {
+        if (returnHold(hold, TicketHold.State.EXPIRED)) {
+            expiredHolds.incrementAndGet();
+            log.debug("Hold {} for customer {} expired, returned {} tickets", hold.getHoldId(), hold.getCustomerId(), hold.getQuantity());
+        }
+    }
+
+    private boolean returnHold(TicketHold hold, TicketHold.State state) {
+        if (!hold.complete(state)) {
+            return false;
+        }
+        activeHolds.remove(hold.getHoldId(), hold);
+        if (ringBuffer.isEnabled()) {
+            ringBuffer.publishReturnHold(hold.getInventory(), hold).awaitAndRecycle();
+        } else {
+            hold.getInventory().returnHold(hold);
+        }
+        journal.append(JournalRecord.holdReturn(hold.getEventId(), hold.getCustomerId(), hold.getVendorIds(), hold.getVendorCounts(), hold.getQuantity()));
+        return true;
+    }
+
+    /**
+     * Return every outstanding hold to the inventory before shutdown
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (ticker == null) {
+            return;
+        }
+        ticker.shutdown();
+        try {
+            ticker.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        activeHolds.values().forEach(this::expire);
+        log.info("Hold expiry stopped, {} holds expired in total", expiredHolds.get());
+    }
+}
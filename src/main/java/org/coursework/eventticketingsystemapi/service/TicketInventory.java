@@ -0,0 +1,447 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import org.coursework.eventticketingsystemapi.exception.InvalidResourceOperationException;
+import org.coursework.eventticketingsystemapi.exception.VendorLimitExceededException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory ticket inventory for one event configuration.
+ * Every vendor owns a {@link VendorTicketSlot} that is claimed with CAS, and the pool-wide
+ * available count is reserved against maxCapacity with CAS as well, so no lock is needed
+ * on the release and purchase paths.
+ */
+public class TicketInventory {
+    // Returned by purchase when the customer has no allowance left
+    public static final int ALLOWANCE_EXHAUSTED = -1;
+
+    private final int maxCapacity;
+    private final AtomicInteger availableTickets = new AtomicInteger(0);
+    // Held tickets keep their room in the pool until they are confirmed, so returning a hold never overfills it
+    private final AtomicInteger heldTickets = new AtomicInteger(0);
+    private final Map<String, VendorTicketSlot> vendorSlots = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> customerRemainingTickets = new ConcurrentHashMap<>();
+    private final VendorAllocationStrategy allocationStrategy;
+    // Vendors whose counters changed since the last synchronization
+    private final Set<String> dirtyVendors = ConcurrentHashMap.newKeySet();
+    // Customers waiting for stock are woken when tickets are released or returned
+    private final AvailabilitySignal availabilitySignal = new AvailabilitySignal();
+    // Vendors waiting for room in a full pool are woken when purchases and confirmed holds free capacity
+    private final AvailabilitySignal capacitySignal = new AvailabilitySignal();
+    // Occupancy integral: each change of the available count adds delta * (time since creation), so the
+    // ticket-seconds held so far can be derived at any time without a lock on the hot path
+    private final long createdMicros = System.nanoTime() / 1000;
+    private final LongAdder availableChangeMoments = new LongAdder();
+
+    public TicketInventory(int maxCapacity) {
+        this(maxCapacity, new RoundRobinAllocationStrategy());
+    }
+
+    public TicketInventory(int maxCapacity, VendorAllocationStrategy allocationStrategy) {
+        this.maxCapacity = maxCapacity;
+        this.allocationStrategy = allocationStrategy;
+    }
+
+    public int getMaxCapacity() {
+        return maxCapacity;
+    }
+
+    public AtomicInteger getAvailableTickets() {
+        return availableTickets;
+    }
+
+    public int getHeldTickets() {
+        return heldTickets.get();
+    }
+
+    public Collection<VendorTicketSlot> getVendorSlots() {
+        return vendorSlots.values();
+    }
+
+    public VendorTicketSlot getVendorSlot(String vendorId) {
+        return vendorId == null ? null : vendorSlots.get(vendorId);
+    }
+
+    public Map<String, AtomicInteger> getCustomerRemainingTickets() {
+        return customerRemainingTickets;
+    }
+
+    public AvailabilitySignal getAvailabilitySignal() {
+        return availabilitySignal;
+    }
+
+    public AvailabilitySignal getCapacitySignal() {
+        return capacitySignal;
+    }
+
+    /**
+     * Room left before the pool reaches maxCapacity; held tickets still take up room
+     */
+    public int getFreeCapacity() {
+        return Math.max(0, maxCapacity - availableTickets.get() - heldTickets.get());
+    }
+
+    /**
+     * Fraction of maxCapacity currently filled with available tickets
+     */
+    public double getOccupancy() {
+        return maxCapacity <= 0 ? 0 : (double) availableTickets.get() / maxCapacity;
+    }
+
+    /**
+     * Available tickets integrated over time since this inventory was created.
+     * Divided by elapsed seconds and maxCapacity it gives the time-weighted occupancy.
+     */
+    public double getOccupiedTicketSeconds() {
+        long elapsedMicros = System.nanoTime() / 1000 - createdMicros;
+        return ((double) availableTickets.get() * elapsedMicros - availableChangeMoments.sum()) / 1_000_000.0;
+    }
+
+    /**
+     * Time-weighted occupancy since this inventory was created
+     */
+    public double getAverageOccupancy() {
+        double elapsedSeconds = (System.nanoTime() / 1000 - createdMicros) / 1_000_000.0;
+        return maxCapacity <= 0 || elapsedSeconds <= 0 ? 0 : getOccupiedTicketSeconds() / (elapsedSeconds * maxCapacity);
+    }
+
+    /**
+     * Seed a vendor slot while loading existing participants. Capacity is not checked here.
+     *
+     * @param vendorId      Vendor ID
+     * @param ticketsToSell Vendor's maximum tickets to sell
+     * @param available     Tickets currently available from the vendor
+     * @param sold          Tickets already sold by the vendor
+     */
+    public void loadVendor(String vendorId, int ticketsToSell, int available, int sold) {
+        VendorTicketSlot slot = new VendorTicketSlot(vendorId, ticketsToSell, available, sold);
+        VendorTicketSlot previous = vendorSlots.put(vendorId, slot);
+        addAvailable(available - (previous != null ? previous.getAvailable() : 0));
+        allocationStrategy.stockChanged(slot);
+    }
+
+    /**
+     * Seed the remaining ticket allowance of a customer
+     *
+     * @param customerId       Customer ID
+     * @param remainingTickets Tickets the customer may still purchase
+     */
+    public void loadCustomer(String customerId, int remainingTickets) {
+        customerRemainingTickets.put(customerId, new AtomicInteger(Math.max(0, remainingTickets)));
+    }
+
+    /**
+     * Release tickets for a vendor, enforcing both the vendor limit and the pool capacity
+     *
+     * @param vendorId      Vendor releasing the tickets
+     * @param ticketsToSell Vendor's current maximum tickets to sell
+     * @param count         Number of tickets to release
+     * @throws VendorLimitExceededException      if the vendor would exceed ticketsToSell
+     * @throws InvalidResourceOperationException if the pool would exceed maxCapacity
+     */
+    public void release(String vendorId, int ticketsToSell, int count) {
+        VendorTicketSlot slot = vendorSlots.computeIfAbsent(vendorId, id -> new VendorTicketSlot(id, ticketsToSell, 0, 0));
+        slot.setTicketsToSell(ticketsToSell);
+
+        if (!slot.canRelease(count)) {
+            throw vendorLimitExceeded(count, ticketsToSell);
+        }
+        if (!reserveCapacity(count)) {
+            throw capacityExceeded(count);
+        }
+        if (!slot.tryRelease(count)) {
+            addAvailable(-count);
+            capacitySignal.signal(count);
+            throw vendorLimitExceeded(count, ticketsToSell);
+        }
+        stockChanged(slot);
+        availabilitySignal.signal(count);
+    }
+
+    /**
+     * Purchase tickets for a customer: reserve the customer's allowance, claim stock from the given
+     * vendors in order and return whatever allowance was not used
+     *
+     * @param customerId       Customer ID
+     * @param requested        Number of tickets requested
+     * @param initialRemaining Allowance to seed if the customer was not loaded yet
+     * @param vendorIds        Candidate vendors in claim order
+     * @param claimedPerVendor Receives the number claimed from each candidate vendor
+     * @return Total tickets claimed, or {@link #ALLOWANCE_EXHAUSTED} if the customer has no allowance left
+     */
+    public int purchase(String customerId, int requested, int initialRemaining, List<String> vendorIds, int[] claimedPerVendor) {
+        return allocate(customerId, requested, initialRemaining, vendorIds, claimedPerVendor, false);
+    }
+
+    /**
+     * Hold tickets for a customer: same as {@link #purchase} but the claimed tickets stay held until
+     * {@link #confirmHold} or {@link #returnHold} is called
+     *
+     * @return Total tickets held, or {@link #ALLOWANCE_EXHAUSTED} if the customer has no allowance left
+     */
+    public int hold(String customerId, int requested, int initialRemaining, List<String> vendorIds, int[] heldPerVendor) {
+        return allocate(customerId, requested, initialRemaining, vendorIds, heldPerVendor, true);
+    }
+
+    /**
+     * Turn a hold's tickets into sold tickets
+     *
+     * @param hold Hold being confirmed
+     */
+    public void confirmHold(TicketHold hold) {
+        for (int i = 0; i < hold.getVendorIds().size(); i++) {
+            VendorTicketSlot slot = vendorSlots.get(hold.getVendorIds().get(i));
+            if (slot != null) {
+                slot.confirmHeld(hold.getVendorCounts()[i]);
+                dirtyVendors.add(slot.getVendorId());
+            }
+        }
+        // The sold tickets leave the pool, so vendors may refill their room now
+        heldTickets.addAndGet(-hold.getQuantity());
+        capacitySignal.signal(hold.getQuantity());
+    }
+
+    /**
+     * Give a hold's tickets back to their vendors and its allowance back to the customer
+     *
+     * @param hold Hold being cancelled or expired
+     */
+    public void returnHold(TicketHold hold) {
+        for (int i = 0; i < hold.getVendorIds().size(); i++) {
+            VendorTicketSlot slot = vendorSlots.get(hold.getVendorIds().get(i));
+            if (slot != null) {
+                int count = hold.getVendorCounts()[i];
+                slot.returnHeld(count);
+                addAvailable(count);
+                stockChanged(slot);
+            }
+        }
+        // Available before held, so a concurrent capacity check never sees the room as free
+        heldTickets.addAndGet(-hold.getQuantity());
+        AtomicInteger remaining = customerRemainingTickets.get(hold.getCustomerId());
+        if (remaining != null) {
+            remaining.addAndGet(hold.getQuantity());
+        }
+        availabilitySignal.signal(hold.getQuantity());
+    }
+
+    private int allocate(String customerId, int requested, int initialRemaining, List<String> vendorIds, int[] claimedPerVendor, boolean hold) {
+        AtomicInteger remaining = customerRemainingTickets.get(customerId);
+        if (remaining == null) {
+            remaining = customerRemainingTickets.computeIfAbsent(customerId, id -> new AtomicInteger(Math.max(0, initialRemaining)));
+        }
+        int reserved = reserve(remaining, requested);
+        if (reserved <= 0) {
+            return ALLOWANCE_EXHAUSTED;
+        }
+
+        int total = 0;
+        for (int i = 0; i < vendorIds.size(); i++) {
+            int claimed = 0;
+            if (total < reserved) {
+                claimed = hold ? holdFromVendor(vendorIds.get(i), reserved - total) : claimFromVendor(vendorIds.get(i), reserved - total);
+            }
+            claimedPerVendor[i] = claimed;
+            total += claimed;
+        }
+        if (reserved > total) {
+            remaining.addAndGet(reserved - total);
+        }
+        return total;
+    }
+
+    /**
+     * Choose vendors with stock to claim from, using the inventory's allocation strategy
+     *
+     * @param wanted Number of tickets wanted
+     * @return Vendor IDs in claim order
+     */
+    public List<String> selectVendors(int wanted) {
+        return allocationStrategy.select(wanted);
+    }
+
+    /**
+     * Claim up to max tickets from a vendor's slot
+     *
+     * @param vendorId Vendor ID
+     * @param max      Maximum number of tickets to claim
+     * @return Number of tickets claimed
+     */
+    public int claimFromVendor(String vendorId, int max) {
+        VendorTicketSlot slot = vendorSlots.get(vendorId);
+        if (slot == null || max <= 0) {
+            return 0;
+        }
+        int claimed = slot.claim(max);
+        if (claimed > 0) {
+            addAvailable(-claimed);
+            stockChanged(slot);
+            capacitySignal.signal(claimed);
+        }
+        return claimed;
+    }
+
+    private int holdFromVendor(String vendorId, int max) {
+        VendorTicketSlot slot = vendorSlots.get(vendorId);
+        if (slot == null || max <= 0) {
+            return 0;
+        }
+        int held = slot.hold(max);
+        if (held > 0) {
+            // Held before available, so a concurrent capacity check never sees the room as free
+            heldTickets.addAndGet(held);
+            addAvailable(-held);
+            stockChanged(slot);
+        }
+        return held;
+    }
+
+    /**
+     * Adjust a vendor's available count directly
+     *
+     * @param vendorId Vendor ID
+     * @param delta    Number of tickets to add (may be negative)
+     * @return Change actually applied, after clamping at zero
+     */
+    public int adjustVendorAvailable(String vendorId, int delta) {
+        VendorTicketSlot slot = vendorSlots.get(vendorId);
+        if (slot == null || delta == 0) {
+            return 0;
+        }
+        int applied = slot.adjustAvailable(delta);
+        addAvailable(applied);
+        stockChanged(slot);
+        availabilitySignal.signal(applied);
+        capacitySignal.signal(-applied);
+        return applied;
+    }
+
+    /**
+     * Add stock leased from the cluster's quota authority. The authority has already applied the vendor limit,
+     * and capacity is not checked because the leased tickets are already out of the shared stock.
+     *
+     * @param vendorId Vendor ID
+     * @param count    Number of tickets leased
+     */
+    public void addLeasedTickets(String vendorId, int count) {
+        VendorTicketSlot slot = vendorSlots.computeIfAbsent(vendorId, id -> new VendorTicketSlot(id, Integer.MAX_VALUE, 0, 0));
+        int added = slot.adjustAvailable(count);
+        addAvailable(added);
+        allocationStrategy.stockChanged(slot);
+        availabilitySignal.signal(added);
+    }
+
+    /**
+     * Take every available ticket of a vendor out of the inventory, so it can be handed back to the quota authority
+     *
+     * @param vendorId Vendor ID
+     * @return Number of tickets taken
+     */
+    public int takeAvailable(String vendorId) {
+        VendorTicketSlot slot = vendorSlots.get(vendorId);
+        if (slot == null) {
+            return 0;
+        }
+        int taken = -slot.adjustAvailable(-Integer.MAX_VALUE);
+        if (taken > 0) {
+            addAvailable(-taken);
+            allocationStrategy.stockChanged(slot);
+        }
+        return taken;
+    }
+
+    /**
+     * Mark a vendor as changed so the next synchronization writes it
+     *
+     * @param vendorId Vendor ID
+     */
+    public void markDirty(String vendorId) {
+        dirtyVendors.add(vendorId);
+    }
+
+    /**
+     * Take the vendors that changed since the last call
+     *
+     * @return Changed vendor IDs
+     */
+    public List<String> drainDirtyVendors() {
+        List<String> drained = new ArrayList<>();
+        for (String vendorId : dirtyVendors) {
+            if (dirtyVendors.remove(vendorId)) {
+                drained.add(vendorId);
+            }
+        }
+        return drained;
+    }
+
+    private void addAvailable(int delta) {
+        if (delta != 0) {
+            availableTickets.addAndGet(delta);
+            recordAvailableChange(delta);
+        }
+    }
+
+    private void recordAvailableChange(int delta) {
+        availableChangeMoments.add(delta * (System.nanoTime() / 1000 - createdMicros));
+    }
+
+    private void stockChanged(VendorTicketSlot slot) {
+        dirtyVendors.add(slot.getVendorId());
+        allocationStrategy.stockChanged(slot);
+    }
+
+    public int getVendorAvailable(String vendorId) {
+        VendorTicketSlot slot = getVendorSlot(vendorId);
+        return slot != null ? slot.getAvailable() : 0;
+    }
+
+    public int getVendorSold(String vendorId) {
+        VendorTicketSlot slot = getVendorSlot(vendorId);
+        return slot != null ? slot.getSold() : 0;
+    }
+
+    private int reserve(AtomicInteger remaining, int requested) {
+        while (true) {
+            int current = remaining.get();
+            int reserved = Math.min(current, requested);
+            if (reserved <= 0) {
+                return 0;
+            }
+            if (remaining.compareAndSet(current, current - reserved)) {
+                return reserved;
+            }
+        }
+    }
+
+    private boolean reserveCapacity(int count) {
+        while (true) {
+            int current = availableTickets.get();
+            // Holds only move tickets between the two counts and always change the available count, so a
+            // hold that races this check makes the CAS below fail
+            if ((long) current + heldTickets.get() + count > maxCapacity) {
+                return false;
+            }
+            if (availableTickets.compareAndSet(current, current + count)) {
+                recordAvailableChange(count);
+                return true;
+            }
+        }
+    }
+
+    private InvalidResourceOperationException capacityExceeded(int count) {
+        return new InvalidResourceOperationException(
+                String.format("Cannot release %d tickets: would exceed maximum capacity of %d", count, maxCapacity));
+    }
+
+    private VendorLimitExceededException vendorLimitExceeded(int count, int ticketsToSell) {
+        return new VendorLimitExceededException(
+                String.format("Cannot release %d tickets: would exceed vendor's maximum of %d", count, ticketsToSell));
+    }
+}
@@ -0,0 +1,183 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import com.mongodb.DBRef;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.coursework.eventticketingsystemapi.config.TicketPoolProperties;
+import org.coursework.eventticketingsystemapi.model.Customer;
+import org.coursework.eventticketingsystemapi.model.Ticket;
+import org.coursework.eventticketingsystemapi.model.Vendor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Online migration of tickets written with DBRef vendor and customer fields to the embedded format.
+ * Once the application takes traffic, legacy tickets are rewritten in small batches in the background; each
+ * update only matches a ticket that is still in the old format, so the migration can stop and resume at any
+ * point. Until it has finished, ticket queries also match the old reference fields.
+ */
+@Service
+public class TicketMigrationService {
+    private static final Logger log = LoggerFactory.getLogger(TicketMigrationService.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final TicketPoolProperties.TicketMigration settings;
+    private volatile boolean complete;
+
+    @Autowired
+    public TicketMigrationService(MongoTemplate mongoTemplate, TicketPoolProperties properties) {
+        this.mongoTemplate = mongoTemplate;
+        this.settings = properties.getTicketMigration();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        try {
+            complete = !mongoTemplate.exists(legacyTickets(), Ticket.class);
+        } catch (RuntimeException e) {
+            log.warn("Could not check for tickets to migrate: {}", e.getMessage());
+            return;
+        }
+        if (complete || !settings.isEnabled()) {
+            return;
+        }
+        Thread migrator = new Thread(this::migrateAll, "TicketMigration");
+        migrator.setDaemon(true);
+        migrator.start();
+    }
+
+    /**
+     * True once no ticket references its vendor or customer through a DBRef
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    private void migrateAll() {
+        long start = System.nanoTime();
+        long migrated = 0;
+        try {
+            int batch;
+            while ((batch = migrateBatch()) > 0) {
+                migrated += batch;
+                Thread.sleep(settings.getPauseMillis());
+            }
+            complete = true;
+            log.info("Migrated {} tickets to embedded vendor and customer IDs in {} ms", migrated, (System.nanoTime() - start) / 1_000_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("Ticket migration stopped after {} tickets; it resumes on the next start: {}", migrated, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Rewrite the next batch of legacy tickets
+     *
+     * @return Number of tickets read for the batch; zero when none are left
+     */
+    int migrateBatch() {
+        Query query = legacyTickets().limit(Math.max(1, settings.getBatchSize()));
+        query.fields().include("vendor", "customer");
+        List<Document> tickets = mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(Ticket.class));
+        if (tickets.isEmpty()) {
+            return 0;
+        }
+
+        Set<Object> vendorIds = new HashSet<>();
+        Set<Object> customerIds = new HashSet<>();
+        for (Document ticket : tickets) {
+            addRefId(vendorIds, ticket.get("vendor"));
+            addRefId(customerIds, ticket.get("customer"));
+        }
+        Map<String, String> vendorNames = names(vendorIds, Vendor.class);
+        Map<String, String> customerNames = names(customerIds, Customer.class);
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Ticket.class);
+        for (Document ticket : tickets) {
+            Object vendorId = refId(ticket.get("vendor"));
+            Object customerId = refId(ticket.get("customer"));
+            Update update = new Update().unset("vendor").unset("customer");
+            // A ticket whose reference was never set keeps a null ID, which still marks it as migrated
+            update.set("vendorId", vendorId == null ? null : vendorId.toString());
+            update.set("customerId", customerId == null ? null : customerId.toString());
+            if (vendorId != null) update.set("vendorName", vendorNames.get(vendorId.toString()));
+            if (customerId != null) update.set("customerName", customerNames.get(customerId.toString()));
+            bulk.updateOne(legacyTickets().addCriteria(Criteria.where("_id").is(ticket.get("_id"))), update);
+        }
+        bulk.execute();
+        return tickets.size();
+    }
+
+    /**
+     * Match a ticket by vendor or customer in both formats while the migration is running
+     *
+     * @param field       Embedded ID field, vendorId or customerId
+     * @param legacyField Reference field of the old format, vendor or customer
+     * @param id          Participant ID
+     */
+    Criteria participantCriteria(String field, String legacyField, String id) {
+        if (complete) {
+            return Criteria.where(field).is(id);
+        }
+        return new Criteria().orOperator(
+                Criteria.where(field).is(id),
+                Criteria.where(legacyField + ".$id").in(storedIds(id)));
+    }
+
+    /**
+     * Participant IDs that look like ObjectIds are stored as ObjectIds in DBRefs
+     */
+    static Collection<Object> storedIds(String id) {
+        return ObjectId.isValid(id) ? List.of(id, new ObjectId(id)) : List.of(id);
+    }
+
+    private Map<String, String> names(Set<Object> ids, Class<?> participantType) {
+        Map<String, String> names = new HashMap<>();
+        if (ids.isEmpty()) {
+            return names;
+        }
+        Query query = Query.query(Criteria.where("_id").in(ids));
+        query.fields().include("name");
+        mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(participantType))
+                .forEach(participant -> names.put(participant.get("_id").toString(), participant.getString("name")));
+        return names;
+    }
+
+    private static Query legacyTickets() {
+        return Query.query(Criteria.where("vendorId").exists(false));
+    }
+
+    private static void addRefId(Set<Object> ids, Object ref) {
+        Object id = refId(ref);
+        if (id != null) {
+            ids.add(id);
+        }
+    }
+
+    private static Object refId(Object ref) {
+        if (ref instanceof DBRef dbRef) {
+            return dbRef.getId();
+        }
+        if (ref instanceof Document document) {
+            return document.get("$id");
+        }
+        return null;
+    }
+}
@@ -1,207 +1,587 @@
 package org.coursework.eventticketingsystemapi.service;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
-import lombok.Getter;
+import org.coursework.eventticketingsystemapi.config.TicketPoolProperties;
 import org.coursework.eventticketingsystemapi.exception.EventTicketingSystemException;
 import org.coursework.eventticketingsystemapi.exception.InvalidResourceOperationException;
 import org.coursework.eventticketingsystemapi.exception.ResourceNotFoundException;
 import org.coursework.eventticketingsystemapi.exception.ResourceProcessingException;
+import org.coursework.eventticketingsystemapi.exception.VendorLimitExceededException;
 import org.coursework.eventticketingsystemapi.model.Customer;
 import org.coursework.eventticketingsystemapi.model.EventConfiguration;
 import org.coursework.eventticketingsystemapi.model.Ticket;
+import org.coursework.eventticketingsystemapi.model.TicketAllocation;
 import org.coursework.eventticketingsystemapi.model.Vendor;
 import org.coursework.eventticketingsystemapi.repository.CustomerRepository;
 import org.coursework.eventticketingsystemapi.repository.VendorRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+/**
+ * Hosts the ticket pools of every configured event.
+ * Each event has its own {@link EventPool} with separate vendor and customer counters, capacity, rates and
+ * configuration lock. Participants are routed to the pool of the event they registered for.
+ */
 @Service
-public class TicketPoolService {
+public class TicketPoolService implements ParticipantTicketPool {
     private static final Logger log = LoggerFactory.getLogger(TicketPoolService.class);
-    private final Map<String, AtomicInteger> vendorCurrentAvailableCounts = new ConcurrentHashMap<>();
-    private final Map<String, AtomicInteger> customerRemainingTickets = new ConcurrentHashMap<>();
-    private final Map<String, AtomicInteger> vendorSoldTicketCounts = new ConcurrentHashMap<>();
-    private final ReentrantLock lock = new ReentrantLock();
+    // Entries per journal baseline record
+    private static final int BASELINE_CHUNK = 1000;
+    // Vendor selections per purchase or hold before it settles for fewer tickets than requested
+    private static final int MAX_SELECTION_ROUNDS = 8;
 
-    @Getter
-    private final AtomicInteger availableTickets;
+    private final Map<String, EventPool> pools = new ConcurrentHashMap<>();
     private final EventConfigurationService configurationService;
     private final TicketService ticketService;
     private final VendorRepository vendorRepository;
     private final CustomerRepository customerRepository;
-    @Getter
-    private EventConfiguration eventConfiguration;
-    @Getter
-    private volatile boolean isConfigured;
+    private final TicketWriteBehindService writeBehindService;
+    private final PurchaseGroupCommitService groupCommitService;
+    private final AllocationRingBuffer ringBuffer;
+    private final TicketHoldService holdService;
+    private final TicketPoolProperties properties;
+    private final ParticipantRegistry participantRegistry;
+    private final VendorCounterSynchronizer counterSynchronizer;
+    private final QuotaLeaseService quotaLeaseService;
+    private final PoolJournal journal;
+    private final PoolSnapshotService snapshotService;
+    private final TicketSerialAllocator serialAllocator;
+    // Store purchases as serial ranges; tickets without serials are always stored one document each
+    private final boolean storeAllocations;
+    private final MeterRegistry meterRegistry;
 
     @Autowired
-    public TicketPoolService(EventConfigurationService configurationService, TicketService ticketService, VendorRepository vendorRepository, CustomerRepository customerRepository) {
+    public TicketPoolService(EventConfigurationService configurationService, TicketService ticketService, VendorRepository vendorRepository,
+                             CustomerRepository customerRepository, TicketWriteBehindService writeBehindService,
+                             PurchaseGroupCommitService groupCommitService, AllocationRingBuffer ringBuffer,
+                             TicketHoldService holdService, TicketPoolProperties properties, ParticipantRegistry participantRegistry,
+                             VendorCounterSynchronizer counterSynchronizer, QuotaLeaseService quotaLeaseService,
+                             PoolJournal journal, PoolSnapshotService snapshotService, TicketSerialAllocator serialAllocator,
+                             MeterRegistry meterRegistry) {
         this.configurationService = configurationService;
         this.ticketService = ticketService;
         this.vendorRepository = vendorRepository;
         this.customerRepository = customerRepository;
-        this.availableTickets = new AtomicInteger(0);
+        this.writeBehindService = writeBehindService;
+        this.groupCommitService = groupCommitService;
+        this.ringBuffer = ringBuffer;
+        this.holdService = holdService;
+        this.properties = properties;
+        this.participantRegistry = participantRegistry;
+        this.counterSynchronizer = counterSynchronizer;
+        this.quotaLeaseService = quotaLeaseService;
+        this.journal = journal;
+        this.snapshotService = snapshotService;
+        this.serialAllocator = serialAllocator;
+        String storageMode = properties.getTicketStorage().getMode();
+        if (!"tickets".equalsIgnoreCase(storageMode) && !"allocations".equalsIgnoreCase(storageMode)) {
+            throw new IllegalArgumentException("Unknown ticket storage mode: " + storageMode);
+        }
+        this.storeAllocations = "allocations".equalsIgnoreCase(storageMode);
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Get the pool of an event, creating an unconfigured one if the event has not been seen yet
+     *
+     * @param eventId Event ID, or null for the default event
+     * @return Event pool
+     */
+    public EventPool getPool(String eventId) {
+        return pools.computeIfAbsent(EventConfiguration.resolveEventId(eventId), this::createPool);
+    }
+
+    private EventPool createPool(String eventId) {
+        EventPool pool = new EventPool(eventId);
+        // Sampled occupancy shows the current fill; the ticket-seconds counter gives time-weighted occupancy over
+        // any window as rate(ticket_seconds) / maxCapacity
+        Gauge.builder("ticketpool.occupancy", pool, p -> p.getInventory().getOccupancy())
+                .description("Available tickets as a fraction of maxCapacity")
+                .tag("event", eventId)
+                .register(meterRegistry);
+        FunctionCounter.builder("ticketpool.occupancy.ticket_seconds", pool, EventPool::getOccupiedTicketSeconds)
+                .description("Available tickets integrated over time")
+                .tag("event", eventId)
+                .register(meterRegistry);
+        Gauge.builder("ticketpool.vendors.waiting", pool, p -> p.getInventory().getCapacitySignal().getWaiting())
+                .description("Vendors parked until the pool has room")
+                .tag("event", eventId)
+                .register(meterRegistry);
+        return pool;
+    }
+
+    /**
+     * Get the pool of an event that has been configured
+     *
+     * @param eventId Event ID, or null for the default event
+     * @return Event pool
+     * @throws ResourceNotFoundException if the event is not hosted by this pool
+     */
+    public EventPool findPool(String eventId) {
+        EventPool pool = pools.get(EventConfiguration.resolveEventId(eventId));
+        if (pool == null || pool.getConfiguration() == null) {
+            throw new ResourceNotFoundException("Event not found: " + eventId);
+        }
+        return pool;
+    }
+
+    public Collection<EventPool> getPools() {
+        return Collections.unmodifiableCollection(pools.values());
     }
 
     /**
-     * Load event configuration on service initialization
+     * Check whether the default event is configured
+     */
+    public boolean isConfigured() {
+        return isConfigured(EventConfiguration.DEFAULT_EVENT_ID);
+    }
+
+    @Override
+    public boolean isConfigured(String eventId) {
+        EventPool pool = pools.get(EventConfiguration.resolveEventId(eventId));
+        return pool != null && pool.isConfigured();
+    }
+
+    /**
+     * Get the running configuration of the default event
+     */
+    public EventConfiguration getEventConfiguration() {
+        return getEventConfiguration(EventConfiguration.DEFAULT_EVENT_ID);
+    }
+
+    @Override
+    public EventConfiguration getEventConfiguration(String eventId) {
+        EventPool pool = pools.get(EventConfiguration.resolveEventId(eventId));
+        return pool == null ? null : pool.getConfiguration();
+    }
+
+    /**
+     * Get the live available tickets counter of the default event
+     *
+     * @return Available tickets counter
+     */
+    public AtomicInteger getAvailableTickets() {
+        return getAvailableTickets(EventConfiguration.DEFAULT_EVENT_ID);
+    }
+
+    /**
+     * Get the live available tickets counter of an event's current inventory
+     *
+     * @param eventId Event ID, or null for the default event
+     * @return Available tickets counter
+     */
+    @Override
+    public AtomicInteger getAvailableTickets(String eventId) {
+        return getPool(eventId).getInventory().getAvailableTickets();
+    }
+
+    /**
+     * Get the room left in an event before it reaches maxCapacity, counting held tickets as taking room
+     *
+     * @param eventId Event ID, or null for the default event
+     * @return Free capacity
+     */
+    @Override
+    public int getFreeCapacity(String eventId) {
+        return getPool(eventId).getInventory().getFreeCapacity();
+    }
+
+    /**
+     * Wait on the calling thread until tickets are released into an event, or the timeout passes
+     *
+     * @param eventId       Event ID, or null for the default event
+     * @param wanted        Tickets the caller intends to buy
+     * @param timeoutMillis Longest time to wait
+     * @return True if tickets became available, false on timeout or when the event was reconfigured
+     */
+    public boolean awaitAvailableTickets(String eventId, int wanted, long timeoutMillis) throws InterruptedException {
+        TicketInventory current = getPool(eventId).getInventory();
+        return current.getAvailabilitySignal().await(wanted, current.getAvailableTickets()::get, timeoutMillis);
+    }
+
+    /**
+     * Register an asynchronous wait for tickets in an event
+     *
+     * @param eventId Event ID, or null for the default event
+     * @param wanted  Tickets the caller intends to buy
+     * @return Waiter whose future completes when tickets become available; cancel it when the caller gives up
+     */
+    @Override
+    public AvailabilitySignal.Waiter awaitAvailableTickets(String eventId, int wanted) {
+        TicketInventory current = getPool(eventId).getInventory();
+        return current.getAvailabilitySignal().await(wanted, current.getAvailableTickets()::get);
+    }
+
+    /**
+     * Wait on the calling thread until purchases free capacity in an event, or the timeout passes.
+     * Vendors are woken in arrival order, each taking a share of the freed capacity, so they release in turn.
+     *
+     * @param eventId       Event ID, or null for the default event
+     * @param wanted        Tickets the caller intends to release
+     * @param timeoutMillis Longest time to wait
+     * @return True if capacity was freed, false on timeout or when the event was reconfigured
+     */
+    public boolean awaitFreeCapacity(String eventId, int wanted, long timeoutMillis) throws InterruptedException {
+        TicketInventory current = getPool(eventId).getInventory();
+        return current.getCapacitySignal().await(wanted, current::getFreeCapacity, timeoutMillis);
+    }
+
+    /**
+     * Register an asynchronous wait for free capacity in an event
+     *
+     * @param eventId Event ID, or null for the default event
+     * @param wanted  Tickets the caller intends to release
+     * @return Waiter whose future completes when capacity is freed; cancel it when the caller gives up
+     */
+    @Override
+    public AvailabilitySignal.Waiter awaitFreeCapacity(String eventId, int wanted) {
+        TicketInventory current = getPool(eventId).getInventory();
+        return current.getCapacitySignal().await(wanted, current::getFreeCapacity);
+    }
+
+    /**
+     * Load the configuration of every event on service initialization
      */
     @PostConstruct
     private void loadConfiguration() {
-        lock.lock();
+        long start = System.nanoTime();
+        List<EventConfiguration> configurations;
         try {
-            eventConfiguration = configurationService.getEventConfiguration();
-            if (eventConfiguration != null) {
-                configureEvent(eventConfiguration);
-                isConfigured = true;
-            } else {
-                log.error("No configuration found or error loading configuration");
-                isConfigured = false;
-            }
+            configurations = configurationService.getEventConfigurations();
         } catch (Exception e) {
             log.error("Configuration load failed: {}", e.getMessage());
-            isConfigured = false;
-        } finally {
-            lock.unlock();
+            return;
+        }
+        if (configurations.isEmpty()) {
+            log.error("No configuration found or error loading configuration");
         }
+        PoolCounterState recovered = snapshotService.recoverState();
+        for (EventConfiguration configuration : configurations) {
+            try {
+                configureEvent(configuration, recovered);
+            } catch (Exception e) {
+                log.error("Configuration load failed for event {}: {}", configuration.getEventId(), e.getMessage());
+                getPool(configuration.getEventId()).markUnconfigured();
+            }
+        }
+        log.info("Ticket pool ready with {} events in {} ms", pools.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
     }
 
     /**
-     * Load existing vendors and customers with available tickets
+     * Once the application takes traffic, compare the counters of journal-recovered events with the tickets
+     * collection in the background
      */
-    private void loadExistingParticipants() {
-        lock.lock();
-        try {
-            // Clear existing maps
-            vendorCurrentAvailableCounts.clear();
-            vendorSoldTicketCounts.clear();
-            customerRemainingTickets.clear();
+    @EventListener(ApplicationReadyEvent.class)
+    public void startConsistencyCheck() {
+        List<EventPool> recovered = pools.values().stream()
+                .filter(pool -> pool.isConfigured() && EventPool.RECOVERED_FROM_JOURNAL.equals(pool.getRecoverySource()))
+                .toList();
+        if (recovered.isEmpty()) {
+            return;
+        }
+        Thread checker = new Thread(() -> recovered.forEach(this::checkConsistency), "PoolConsistencyCheck");
+        checker.setDaemon(true);
+        checker.start();
+    }
 
-            // Load all active vendors
-            List<Vendor> activeVendors = vendorRepository.findByIsActive(true);
+    /**
+     * Compare an event's in-memory sold counts with the tickets stored in Mongo. Differences are reported and
+     * not corrected: tickets still queued for write-behind show up as a shortfall that resolves on its own.
+     *
+     * @param pool Event to check
+     * @return Number of vendors whose counts differ
+     */
+    int checkConsistency(EventPool pool) {
+        long start = System.nanoTime();
+        try {
+            TicketInventory current = pool.getInventory();
+            Map<String, Integer> storedSold = ticketService.countTicketsSoldPerVendor(pool.getEventId());
+            int mismatched = 0;
+            for (VendorTicketSlot slot : current.getVendorSlots()) {
+                int stored = storedSold.getOrDefault(slot.getVendorId(), 0);
+                if (stored != slot.getSold()) {
+                    mismatched++;
+                    log.warn("Vendor {} of event {} has {} sold tickets in memory and {} in the database",
+                            slot.getVendorId(), pool.getEventId(), slot.getSold(), stored);
+                }
+            }
+            log.info("Consistency check of event {} finished in {} ms: {} of {} vendors differ from the database",
+                    pool.getEventId(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), mismatched, current.getVendorSlots().size());
+            return mismatched;
+        } catch (Exception e) {
+            log.error("Consistency check of event {} failed: {}", pool.getEventId(), e.getMessage());
+            return -1;
+        }
+    }
 
-            for (Vendor vendor : activeVendors) {
-                if (vendor.isActive()) {
-                    String vendorId = vendor.getParticipantId();
+    /**
+     * Load an event's existing vendors and customers with available tickets into a fresh inventory.
+     * Active vendors, active customers and the per-vendor sold counts are read concurrently, with the sold
+     * counts coming from one grouped aggregation, and the inventory is then built in parallel.
+     * When the journal holds a baseline for the event, vendor and customer counters come from the snapshot and
+     * journal instead and the tickets collection is only read later by the background consistency check.
+     *
+     * @param eventId   Event the inventory is built for
+     * @param config    Event configuration the inventory is built for
+     * @param journaled Journaled counters of the event, or null
+     * @return Inventory seeded with the current participant state
+     */
+    private TicketInventory loadExistingParticipants(String eventId, EventConfiguration config, PoolCounterState.EventCounters journaled) {
+        boolean fromJournal = journaled != null && journaled.isBaseline();
+        List<String> storedEventIds = EventConfiguration.storedEventIds(eventId);
+        ExecutorService loader = Executors.newFixedThreadPool(3, runnable -> {
+            Thread thread = new Thread(runnable, "PoolRecovery-" + eventId);
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            long start = System.nanoTime();
+            TicketInventory loaded = new TicketInventory(config.getMaxCapacity(),
+                    VendorAllocationStrategy.forName(properties.getAllocation().getStrategy()));
+
+            // Load the event's active vendors, customers and sold counts at the same time
+            CompletableFuture<List<Vendor>> vendorsLoad = CompletableFuture.supplyAsync(
+                    () -> vendorRepository.findByIsActiveAndEventIdIn(true, storedEventIds), loader);
+            CompletableFuture<List<Customer>> customersLoad = CompletableFuture.supplyAsync(
+                    () -> customerRepository.findByIsActiveAndEventIdIn(true, storedEventIds), loader);
+            CompletableFuture<Map<String, Integer>> soldLoad = fromJournal
+                    ? CompletableFuture.completedFuture(Map.of())
+                    : CompletableFuture.supplyAsync(() -> ticketService.countTicketsSoldPerVendor(eventId), loader);
+            List<Vendor> activeVendors = vendorsLoad.join();
+            List<Customer> customers = customersLoad.join();
+            Map<String, Integer> soldCounts = soldLoad.join();
+            long queried = System.nanoTime();
+
+            activeVendors.parallelStream().filter(Vendor::isActive).forEach(vendor -> {
+                String vendorId = vendor.getParticipantId();
+                int soldTickets;
+                int remainingTickets;
+                if (fromJournal && journaled.getVendors().containsKey(vendorId)) {
+                    soldTickets = journaled.getVendorSold(vendorId);
+                    remainingTickets = journaled.getVendorAvailable(vendorId);
+                } else if (fromJournal) {
+                    // Registered but never journaled, so nothing was released or sold since the baseline
+                    soldTickets = vendor.getTotalTicketsSold();
+                    remainingTickets = 0;
+                } else {
                     // Calculate remaining tickets to sell
-                    int soldTickets = ticketService.countTicketsSoldByVendor(vendor);
-                    int remainingTickets = vendor.getTicketsToSell() - soldTickets;
-
-                    // Initialize vendor counts
-                    vendorCurrentAvailableCounts.put(vendorId, new AtomicInteger(Math.max(0, remainingTickets)));
-                    vendorSoldTicketCounts.put(vendorId, new AtomicInteger(soldTickets));
+                    soldTickets = soldCounts.getOrDefault(vendorId, 0);
+                    remainingTickets = vendor.getTicketsToSell() - soldTickets;
+                }
 
-                    log.info("Loaded vendor {} with {} available tickets and {} sold tickets", vendor.getName(), remainingTickets, soldTickets);
+                // Initialize vendor counts
+                // In clustered mode unsold stock stays with the quota authority until this node leases it
+                int available = quotaLeaseService.isEnabled() ? 0 : Math.max(0, remainingTickets);
+                loaded.loadVendor(vendorId, vendor.getTicketsToSell(), available, soldTickets);
+                if (vendor.getTotalTicketsSold() != soldTickets) {
+                    // Stored counter disagrees with the tickets collection, reconcile it before the event reopens
+                    loaded.markDirty(vendorId);
                 }
-            }
+                log.debug("Loaded vendor {} with {} available tickets and {} sold tickets", vendor.getName(), remainingTickets, soldTickets);
+            });
 
             // Load customers and their remaining tickets to purchase
-            List<Customer> customers = customerRepository.findByIsActive(true);
-            for (Customer customer : customers) {
-                int ticketsPurchased = customer.getTotalTicketsPurchased();
-                int remainingTickets = Math.max(0, customer.getTicketsToPurchase() - ticketsPurchased);
-                customerRemainingTickets.put(customer.getParticipantId(), new AtomicInteger(remainingTickets));
-
-                log.info("Loaded customer {} with {} remaining tickets to purchase", customer.getName(), remainingTickets);
+            customers.parallelStream().forEach(customer -> {
+                int purchased = fromJournal
+                        ? journaled.getCustomerPurchased().getOrDefault(customer.getParticipantId(), customer.getTotalTicketsPurchased())
+                        : customer.getTotalTicketsPurchased();
+                int remainingTickets = Math.max(0, customer.getTicketsToPurchase() - purchased);
+                loaded.loadCustomer(customer.getParticipantId(), remainingTickets);
+                log.debug("Loaded customer {} with {} remaining tickets to purchase", customer.getName(), remainingTickets);
+            });
+            participantRegistry.seed(activeVendors, customers);
+            if (journal.isEnabled() && !fromJournal) {
+                journalBaseline(eventId, loaded, customers);
             }
+            long built = System.nanoTime();
+
+            log.info("Recovered {} vendors and {} customers for event {} from {} in {} ms (queries {} ms, build {} ms)",
+                    loaded.getVendorSlots().size(), customers.size(), eventId, fromJournal ? "the journal" : "the database",
+                    TimeUnit.NANOSECONDS.toMillis(built - start),
+                    TimeUnit.NANOSECONDS.toMillis(queried - start),
+                    TimeUnit.NANOSECONDS.toMillis(built - queried));
+            return loaded;
         } catch (Exception e) {
-            log.error("Failed to load vendors and customers with available tickets: {}", e.getMessage());
+            log.error("Failed to load vendors and customers with available tickets for event {}: {}", eventId, e.getMessage());
             throw new ResourceProcessingException("Failed to initialize vendor and customer ticket counts");
         } finally {
-            lock.unlock();
+            loader.shutdown();
         }
     }
 
     /**
-     * Synchronize available tickets count with vendor and customer counts
+     * Journal the loaded counters of an event, so later journal records can be replayed on top of them
      */
-    public void synchronizeAvailableTickets() {
-        lock.lock();
-        try {
-            int totalAvailable = 0;
-            boolean hasRunningVendors = false;
-
-            for (Map.Entry<String, AtomicInteger> entry : vendorCurrentAvailableCounts.entrySet()) {
-                String vendorId = entry.getKey();
-                Optional<Vendor> vendorOpt = vendorRepository.findById(vendorId);
-
-                if (vendorOpt.isPresent()) {
-                    Vendor vendor = vendorOpt.get();
-                    if (vendor.isActive()) {
-                        hasRunningVendors = true;
-                        int vendorAvailable = entry.getValue().get();
-                        totalAvailable += vendorAvailable;
-
-                        // Update sold tickets count
-                        int soldTickets = vendorSoldTicketCounts.getOrDefault(vendorId, new AtomicInteger(0)).get();
-                        vendor.setTotalTicketsSold(soldTickets);
-                        vendorRepository.save(vendor);
-                    }
-                }
+    private void journalBaseline(String eventId, TicketInventory loaded, List<Customer> customers) {
+        List<VendorTicketSlot> slots = new ArrayList<>(loaded.getVendorSlots());
+        int chunk = 0;
+        do {
+            List<VendorTicketSlot> part = slots.subList(chunk, Math.min(slots.size(), chunk + BASELINE_CHUNK));
+            int[] available = new int[part.size()];
+            int[] sold = new int[part.size()];
+            for (int i = 0; i < part.size(); i++) {
+                available[i] = part.get(i).getAvailable();
+                sold[i] = part.get(i).getSold();
             }
+            journal.append(JournalRecord.vendorBaseline(eventId, part.stream().map(VendorTicketSlot::getVendorId).toList(), available, sold));
+            chunk += BASELINE_CHUNK;
+        } while (chunk < slots.size());
+
+        for (int start = 0; start < customers.size(); start += BASELINE_CHUNK) {
+            List<Customer> part = customers.subList(start, Math.min(customers.size(), start + BASELINE_CHUNK));
+            journal.append(JournalRecord.customerBaseline(eventId, part.stream().map(Customer::getParticipantId).toList(),
+                    part.stream().mapToInt(Customer::getTotalTicketsPurchased).toArray()));
+        }
+    }
 
-            if (!hasRunningVendors) {
-                log.warn("No running vendors found, setting available tickets to 0");
-            }
+    /**
+     * Synchronize, for every event, the counters of vendors that changed since the last pass, and the
+     * configuration file, with the inventory
+     */
+    public void synchronizeAvailableTickets() {
+        pools.values().forEach(pool -> synchronizeAvailableTickets(pool, false));
+    }
 
-            availableTickets.set(totalAvailable);
+    private void synchronizeAvailableTickets(EventPool pool, boolean includeActiveState) {
+        try {
+            TicketInventory current = pool.getInventory();
+            if (quotaLeaseService.isEnabled()) {
+                // Other nodes sell from the same vendors, so this node's stock says nothing about their active flags
+                current.drainDirtyVendors();
+            } else {
+                counterSynchronizer.synchronize(current, includeActiveState);
+            }
 
-            if (isConfigured && eventConfiguration != null) {
-                eventConfiguration.setTotalTickets(totalAvailable);
-                configurationService.saveConfiguration(eventConfiguration);
-                log.info("Synchronized ticket counts - Total available: {}", totalAvailable);
+            int totalAvailable = current.getAvailableTickets().get();
+            EventConfiguration configuration = pool.getConfiguration();
+            if (pool.isConfigured() && configuration != null) {
+                configuration.setTotalTickets(totalAvailable);
+                configurationService.saveConfiguration(configuration);
+                log.info("Synchronized ticket counts for event {} - Total available: {}", pool.getEventId(), totalAvailable);
             }
         } catch (Exception e) {
             log.error("Failed to synchronize ticket counts: {}", e.getMessage());
             throw new ResourceProcessingException("Failed to synchronize ticket counts");
-        } finally {
-            lock.unlock();
         }
     }
 
     /**
-     * Configure the event with the provided configuration
+     * Configure an event with the provided configuration. Other events keep running untouched.
      *
-     * @param config Event configuration to apply
+     * @param config Event configuration to apply; a configuration without an event ID configures the default event
      */
     public void configureEvent(EventConfiguration config) {
+        configureEvent(config, null);
+    }
+
+    private void configureEvent(EventConfiguration config, PoolCounterState recovered) {
         if (config == null) {
             log.error("Cannot configure null event");
-            isConfigured = false;
             throw new InvalidResourceOperationException("Provided event configuration is null");
         }
 
-        lock.lock();
+        config.setEventId(EventConfiguration.resolveEventId(config.getEventId()));
+        EventPool pool = getPool(config.getEventId());
+        if (!isValidConfiguration(config)) {
+            log.error("Invalid event configuration provided for event {}", config.getEventId());
+            pool.markUnconfigured();
+            throw new InvalidResourceOperationException("Invalid event configuration provided");
+        }
+
+        pool.getConfigurationLock().lock();
         try {
-            if (!isValidConfiguration(config)) {
-                log.error("Invalid event configuration provided");
-                isConfigured = false;
-                throw new InvalidResourceOperationException("Invalid event configuration provided");
+            // Counters are reloaded from Mongo, so hold back new operations and let the acknowledged ones be
+            // written first; otherwise their sales would be missing from the loaded counts
+            awaitPendingWrites(pool);
+            // Holds belong to the inventory being replaced; hand their tickets back before the counters are read
+            int returnedHolds = holdService.returnHolds(pool.getEventId());
+            if (returnedHolds > 0) {
+                log.info("Returned {} active holds of event {} before reconfiguring it", returnedHolds, pool.getEventId());
+            }
+            if (recovered == null) {
+                recovered = snapshotService.recoverState();
+            }
+            PoolCounterState.EventCounters journaled = recovered == null ? null : recovered.getEvent(pool.getEventId());
+            TicketInventory loaded = loadExistingParticipants(pool.getEventId(), config, journaled);
+            pool.install(config, loaded, journaled != null && journaled.isBaseline()
+                    ? EventPool.RECOVERED_FROM_JOURNAL : EventPool.RECOVERED_FROM_DATABASE);
+            quotaLeaseService.track(pool.getEventId(), loaded);
+            journal.append(JournalRecord.configure(pool.getEventId(), config.getMaxCapacity()));
+            if (quotaLeaseService.isEnabled()) {
+                // Other nodes sell from the same vendors, so this node never writes absolute totals
+                loaded.drainDirtyVendors();
+            } else {
+                // Stored counters that disagree with the tickets collection are fixed before any new purchase
+                counterSynchronizer.reconcileLoaded(loaded);
             }
 
-            this.eventConfiguration = config;
-            this.vendorCurrentAvailableCounts.clear();
-            this.vendorSoldTicketCounts.clear();
+            log.info("Event {} configured successfully with {} total tickets and {} active vendors",
+                    pool.getEventId(), loaded.getAvailableTickets().get(), loaded.getVendorSlots().size());
+        } finally {
+            pool.resume();
+            pool.getConfigurationLock().unlock();
+        }
 
-            // Load existing vendors and initialize their counts
-            loadExistingParticipants();
+        synchronizeAvailableTickets(pool, false);
+    }
 
-            synchronizeAvailableTickets();
-            this.isConfigured = true;
+    /**
+     * Quiesce an event and wait until the writes of its acknowledged operations are in Mongo
+     *
+     * @param pool Event about to be reloaded; the caller resumes it
+     * @throws ResourceProcessingException if the writes did not finish or some had to be dead-lettered
+     */
+    private void awaitPendingWrites(EventPool pool) {
+        long timeoutMillis = properties.getWriteBehind().getShutdownTimeoutMillis();
+        long deadLettered = writeBehindService.getDeadLetteredRecords();
+        try {
+            // Group-committed purchases are written before their callers return, so quiescing covers them
+            if (!pool.quiesce(timeoutMillis) || !writeBehindService.awaitSettled(timeoutMillis)) {
+                throw new ResourceProcessingException("Pending ticket pool writes did not finish, event " + pool.getEventId() + " was not reconfigured");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResourceProcessingException("Interrupted while waiting for pending ticket pool writes");
+        }
+        if (writeBehindService.getDeadLetteredRecords() != deadLettered) {
+            throw new ResourceProcessingException("Some ticket pool writes were dead-lettered, event " + pool.getEventId() + " was not reconfigured");
+        }
+    }
 
-            log.info("Event configured successfully with {} total tickets and {} active vendors", availableTickets.get(), vendorCurrentAvailableCounts.size());
+    /**
+     * Run an operation that changes an event's inventory. Reconfiguration waits for running operations, and
+     * operations arriving during a reconfiguration wait for it, up to the write-behind offer timeout.
+     *
+     * @param pool      Event the operation changes
+     * @param operation Operation, including the submission of its writes
+     * @return Result of the operation
+     */
+    private <T> T inPoolOperation(EventPool pool, Supplier<T> operation) {
+        if (!pool.enterOperation(properties.getWriteBehind().getOfferTimeoutMillis())) {
+            throw new ResourceProcessingException("Event " + pool.getEventId() + " is being reconfigured, please retry");
+        }
+        try {
+            return operation.get();
         } finally {
-            lock.unlock();
+            pool.exitOperation();
         }
     }
 
@@ -220,67 +600,63 @@ public class TicketPoolService {
      * @param vendor Vendor to release tickets for
      * @param count  Number of tickets to release
      */
+    @Override
     public void addTickets(Vendor vendor, int count) {
-        if (!isConfigured || count <= 0 || vendor == null) {
+        EventPool pool = vendor == null ? null : getPool(vendor.getEventId());
+        if (pool == null || !pool.isConfigured() || count <= 0) {
             log.error("Cannot release tickets: Invalid state, count, or vendor");
             throw new IllegalStateException("Cannot release tickets in the current state");
         }
 
-        lock.lock();
-        try {
-            String vendorId = vendor.getParticipantId();
-            Vendor updatedVendor = vendorRepository.findById(vendorId)
-                    .orElseThrow(() -> new ResourceNotFoundException("Vendor not found in database"));
-
-            // Validate ticket release
-            int currentSold = vendorSoldTicketCounts.getOrDefault(vendorId, new AtomicInteger(0)).get();
-            int currentAvailable = getVendorAvailableTickets(vendorId);
-            int totalAfterRelease = currentSold + currentAvailable + count;
-
-            if (totalAfterRelease > updatedVendor.getTicketsToSell()) {
-                vendor.stopVendor();
-                throw new InvalidResourceOperationException(
-                        String.format("Cannot release %d tickets: would exceed vendor's maximum of %d",
-                                count, updatedVendor.getTicketsToSell()));
-            }
-
-            if (availableTickets.get() + count > eventConfiguration.getMaxCapacity()) {
-                throw new InvalidResourceOperationException(
-                        String.format("Cannot release %d tickets: would exceed maximum capacity of %d",
-                                count, eventConfiguration.getMaxCapacity()));
-            }
-
-            // Atomic ticket addition
-            vendorCurrentAvailableCounts.compute(vendorId, (k, v) ->
-                    v == null ? new AtomicInteger(count) : new AtomicInteger(v.get() + count));
-            availableTickets.addAndGet(count);
+        inPoolOperation(pool, () -> {
+            releaseTickets(pool, vendor, count);
+            return null;
+        });
+    }
 
-            // Update vendor
-            updatedVendor.setTicketsReleased(updatedVendor.getTicketsReleased() + count);
-            updatedVendor.setActive(true);
+    private void releaseTickets(EventPool pool, Vendor vendor, int count) {
+        String vendorId = vendor.getParticipantId();
+        Vendor updatedVendor = participantRegistry.getVendor(vendorId);
 
-            if (updatedVendor.getTotalTicketsSold() >= updatedVendor.getTicketsToSell()) {
-                updatedVendor.setActive(false);
+        // Validate and apply the release against the vendor limit and the event's capacity
+        TicketInventory current = pool.getInventory();
+        try {
+            if (quotaLeaseService.isEnabled()) {
+                quotaLeaseService.addQuota(pool.getEventId(), vendorId, updatedVendor.getTicketsToSell(), count);
+            } else if (ringBuffer.isEnabled()) {
+                ringBuffer.publishRelease(current, vendorId, updatedVendor.getTicketsToSell(), count).awaitAndRecycle();
+            } else {
+                current.release(vendorId, updatedVendor.getTicketsToSell(), count);
             }
+        } catch (VendorLimitExceededException e) {
+            vendor.stopVendor();
+            journal.append(JournalRecord.stop(pool.getEventId(), vendorId));
+            throw e;
+        }
+        journal.append(JournalRecord.release(pool.getEventId(), vendorId, count));
 
-            try {
-                vendorRepository.save(updatedVendor);
+        // Update the live vendor
+        boolean active = participantRegistry.recordRelease(vendorId, count);
 
-                // Update configuration
-                eventConfiguration.setTotalTickets(availableTickets.get());
-                configurationService.saveConfiguration(eventConfiguration);
+        try {
+            // Vendor counters are persisted by the write-behind stage
+            writeBehindService.submit(PoolWriteRecord.release(vendorId, count, active));
 
-                log.info("Successfully released {} tickets for vendor {}. Total released: {}",
-                        count, updatedVendor.getName(), updatedVendor.getTicketsReleased());
-                log.debug("Current vendor {} available tickets: {}", updatedVendor.getName(), getVendorAvailableTickets(vendorId));
-                log.debug("Total available tickets in event: {}", availableTickets.get());
+            // Update configuration
+            EventConfiguration configuration = pool.getConfiguration();
+            configuration.setTotalTickets(current.getAvailableTickets().get());
+            configurationService.scheduleSave(configuration);
 
-            } catch (Exception e) {
-                log.error("Failed to update vendor in database: {}", e.getMessage());
-                throw new ResourceProcessingException("Failed to update vendor record");
-            }
-        } finally {
-            lock.unlock();
+            log.info("Successfully released {} tickets for vendor {} in event {}. Total released: {}",
+                    count, updatedVendor.getName(), pool.getEventId(), updatedVendor.getTicketsReleased());
+            log.debug("Current vendor {} available tickets: {}", updatedVendor.getName(), current.getVendorAvailable(vendorId));
+            log.debug("Total available tickets in event: {}", current.getAvailableTickets().get());
+
+        } catch (ResourceProcessingException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Failed to update vendor in database: {}", e.getMessage());
+            throw new ResourceProcessingException("Failed to update vendor record");
         }
     }
 
@@ -291,202 +667,437 @@ public class TicketPoolService {
      * @param count    Number of tickets to purchase
      * @return Number of tickets actually purchased
      */
+    @Override
     public int purchaseTickets(Customer customer, int count) {
-        if (!isConfigured || customer == null || count <= 0) {
+        EventPool pool = customer == null ? null : getPool(customer.getEventId());
+        if (pool == null || !pool.isConfigured() || count <= 0) {
             log.error("Cannot process purchase: system not configured, invalid customer, or invalid count");
             throw new IllegalStateException("Cannot process purchase in current state");
         }
 
-        lock.lock();
-        try {
-            Customer updatedCustomer = customerRepository.findById(customer.getParticipantId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Customer not found in database"));
+        return inPoolOperation(pool, () -> commitPurchase(() -> allocatePurchase(pool, customer, count)));
+    }
 
-            // Calculate actual purchase count
-            int currentPurchased = updatedCustomer.getTotalTicketsPurchased();
-            int remainingAllowedPurchases = updatedCustomer.getTicketsToPurchase() - currentPurchased;
+    /**
+     * Run a purchase allocation and persist its writes through group commit or write-behind
+     *
+     * @param allocation In-memory allocation
+     * @return Number of tickets purchased
+     */
+    private int commitPurchase(Supplier<PurchaseAllocation> allocation) {
+        // In group commit mode the allocation runs on the committer thread and is acknowledged after the bulk write
+        if (groupCommitService.isEnabled()) {
+            return groupCommitService.commit(allocation);
+        }
 
-            if (remainingAllowedPurchases <= 0) {
-                throw new InvalidResourceOperationException("Cannot purchase tickets, customer has reached their limit");
+        PurchaseAllocation result = allocation.get();
+        if (result.getRecord() != null) {
+            try {
+                // Tickets, vendor and customer counters are persisted by the write-behind stage
+                writeBehindService.submit(result.getRecord());
+            } catch (ResourceProcessingException e) {
+                throw e;
+            } catch (Exception e) {
+                log.error("Failed to process batch ticket purchase: {}", e.getMessage());
+                throw new ResourceProcessingException("Failed to process ticket purchase: " + e.getMessage());
             }
+        }
+        return result.getPurchased();
+    }
 
-            int actualPurchaseCount = Math.min(Math.min(count, remainingAllowedPurchases), availableTickets.get());
-            if (actualPurchaseCount <= 0) {
-                return 0;
-            }
+    /**
+     * Allocate tickets for a customer in memory and describe the writes the purchase needs
+     *
+     * @param pool     Event the customer buys in
+     * @param customer Customer to purchase tickets for
+     * @param count    Number of tickets to purchase
+     * @return Allocation result
+     */
+    private PurchaseAllocation allocatePurchase(EventPool pool, Customer customer, int count) {
+        Customer updatedCustomer = loadPurchasingCustomer(customer.getParticipantId());
 
-            // Prepare for batch operations
-            List<Ticket> ticketsToSave = new ArrayList<>();
-            Map<String, Integer> vendorPurchaseCounts = new HashMap<>();
-            int totalPurchased = 0;
+        // Calculate actual purchase count
+        int remainingAllowedPurchases = updatedCustomer.getTicketsToPurchase() - updatedCustomer.getTotalTicketsPurchased();
 
-            // Get eligible vendors and sort by availability
-            List<String> vendorIds = vendorCurrentAvailableCounts.entrySet().stream()
-                    .filter(entry -> entry.getValue().get() > 0)
-                    .map(Map.Entry::getKey)
-                    .collect(Collectors.toList());
+        TicketInventory current = pool.getInventory();
+        if (quotaLeaseService.isEnabled()) {
+            quotaLeaseService.replenish(pool.getEventId(), current, Math.min(count, remainingAllowedPurchases));
+        }
 
-            Map<String, Vendor> vendorMap = vendorRepository.findAllById(vendorIds).stream()
-                    .filter(Vendor::isActive)
-                    .collect(Collectors.toMap(Vendor::getParticipantId, v -> v));
+        // Reserve the customer's allowance and claim from each vendor's slot in one step.
+        // The in-memory allowance is authoritative because persisted counts may still be queued.
+        VendorClaims claims = claimFromVendors(pool, current, updatedCustomer.getParticipantId(),
+                Math.min(count, remainingAllowedPurchases), remainingAllowedPurchases, false);
+        if (claims.total() == 0) {
+            return new PurchaseAllocation(0, null);
+        }
+        return new PurchaseAllocation(claims.total(), purchaseRecord(pool, updatedCustomer, claims.vendors(), claims.claimed(), claims.total()));
+    }
 
-            LocalDateTime purchaseTime = LocalDateTime.now();
+    private record VendorClaims(int total, List<Vendor> vendors, int[] claimed) {
+    }
 
-            // Process purchase from each vendor
-            for (Vendor vendor : vendorMap.values()) {
-                if (totalPurchased >= actualPurchaseCount) break;
+    /**
+     * Purchase or hold tickets for a customer. A selection can come up short when other buyers empty the chosen
+     * vendors first, so vendors are selected again until the request is filled or the event has no stock left.
+     *
+     * @param pool             Event the customer buys in
+     * @param current          Inventory of the event
+     * @param customerId       Customer ID
+     * @param wanted           Number of tickets wanted
+     * @param initialRemaining Allowance to seed if the customer was not loaded yet
+     * @param hold             Hold the tickets instead of selling them
+     * @return Vendors tickets were taken from, with the count taken from each
+     */
+    private VendorClaims claimFromVendors(EventPool pool, TicketInventory current, String customerId, int wanted, int initialRemaining, boolean hold) {
+        Map<String, Vendor> vendors = new LinkedHashMap<>();
+        Map<String, Integer> claimedByVendor = new HashMap<>();
+        int total = 0;
+        for (int round = 0; round < MAX_SELECTION_ROUNDS && total < wanted && current.getAvailableTickets().get() > 0; round++) {
+            List<Vendor> candidates = loadVendorsWithStock(current, wanted - total);
+            if (candidates.isEmpty()) {
+                break;
+            }
+            List<String> candidateIds = candidates.stream().map(Vendor::getParticipantId).collect(Collectors.toList());
+            int[] claimed = new int[candidates.size()];
+            int claimedNow;
+            if (ringBuffer.isEnabled()) {
+                claimedNow = awaitAllocation(hold
+                        ? ringBuffer.publishHold(current, customerId, wanted - total, initialRemaining, candidateIds)
+                        : ringBuffer.publishPurchase(current, customerId, wanted - total, initialRemaining, candidateIds), claimed);
+            } else {
+                claimedNow = hold
+                        ? current.hold(customerId, wanted - total, initialRemaining, candidateIds, claimed)
+                        : current.purchase(customerId, wanted - total, initialRemaining, candidateIds, claimed);
+            }
+            if (claimedNow == TicketInventory.ALLOWANCE_EXHAUSTED) {
+                if (total == 0) {
+                    throw new InvalidResourceOperationException("Cannot purchase tickets, customer has reached their limit");
+                }
+                break;
+            }
+            if (claimedNow == 0) {
+                continue;
+            }
+            // Held tickets are journaled as sold; a cancelled or expired hold journals their return
+            journal.append(JournalRecord.purchase(pool.getEventId(), customerId, candidateIds, claimed, claimedNow));
+            for (int i = 0; i < claimed.length; i++) {
+                if (claimed[i] > 0) {
+                    vendors.putIfAbsent(candidateIds.get(i), candidates.get(i));
+                    claimedByVendor.merge(candidateIds.get(i), claimed[i], Integer::sum);
+                }
+            }
+            total += claimedNow;
+        }
+
+        List<Vendor> claimedVendors = new ArrayList<>(vendors.values());
+        int[] claimed = new int[claimedVendors.size()];
+        for (int i = 0; i < claimed.length; i++) {
+            claimed[i] = claimedByVendor.get(claimedVendors.get(i).getParticipantId());
+        }
+        return new VendorClaims(total, claimedVendors, claimed);
+    }
+
+    /**
+     * Wait for a ring-buffer purchase or hold, copy out what it took from each candidate vendor and hand its slot back
+     */
+    private static int awaitAllocation(AllocationRingBuffer.AllocationHandle handle, int[] claimed) {
+        try {
+            int total = handle.await();
+            for (int i = 0; i < claimed.length; i++) {
+                claimed[i] = handle.claimedFrom(i);
+            }
+            return total;
+        } finally {
+            handle.recycle();
+        }
+    }
 
-                AtomicInteger availableCount = vendorCurrentAvailableCounts.get(vendor.getParticipantId());
-                int vendorAvailable = availableCount.get();
-                int purchaseFromVendor = Math.min(actualPurchaseCount - totalPurchased, vendorAvailable);
+    /**
+     * Load a customer for a purchase, failing if they have already reached their limit
+     *
+     * @param customerId Customer ID
+     * @return Live customer from the participant registry
+     */
+    private Customer loadPurchasingCustomer(String customerId) {
+        Customer updatedCustomer = participantRegistry.getCustomer(customerId);
+        if (updatedCustomer.getTicketsToPurchase() - updatedCustomer.getTotalTicketsPurchased() <= 0) {
+            throw new InvalidResourceOperationException("Cannot purchase tickets, customer has reached their limit");
+        }
+        return updatedCustomer;
+    }
 
-                if (purchaseFromVendor <= 0) continue;
+    /**
+     * Load the active vendors chosen by the allocation strategy, in claim order
+     */
+    private List<Vendor> loadVendorsWithStock(TicketInventory current, int wanted) {
+        List<String> vendorIds = current.selectVendors(wanted);
+        if (vendorIds.isEmpty()) {
+            return List.of();
+        }
+        return participantRegistry.getVendors(vendorIds).stream()
+                .filter(Vendor::isActive)
+                .collect(Collectors.toList());
+    }
 
-                // Create tickets
+    /**
+     * Build the tickets and counter changes for tickets claimed from the given vendors
+     *
+     * @param pool            Event the tickets belong to
+     * @param updatedCustomer Customer buying the tickets
+     * @param vendors         Vendors the tickets were claimed from
+     * @param claimed         Tickets claimed from each vendor
+     * @param totalPurchased  Total tickets claimed
+     * @return Write record for the purchase
+     */
+    private PoolWriteRecord purchaseRecord(EventPool pool, Customer updatedCustomer, List<Vendor> vendors, int[] claimed, int totalPurchased) {
+        List<Ticket> ticketsToSave = new ArrayList<>();
+        List<TicketAllocation> allocationsToSave = new ArrayList<>();
+        Map<String, Integer> vendorSoldDeltas = new HashMap<>();
+        Map<String, Boolean> vendorActiveStates = new HashMap<>();
+
+        for (int v = 0; v < vendors.size(); v++) {
+            int purchaseFromVendor = claimed[v];
+            if (purchaseFromVendor <= 0) continue;
+            Vendor vendor = vendors.get(v);
+
+            // Create tickets
+            long[] serials = allocateSerials(pool.getEventId(), vendor, purchaseFromVendor);
+            if (storeAllocations && serials != null) {
+                addAllocations(allocationsToSave, pool.getEventId(), vendor, updatedCustomer, serials);
+            } else {
                 for (int i = 0; i < purchaseFromVendor; i++) {
-                    ticketsToSave.add(new Ticket(vendor, updatedCustomer));
+                    Ticket ticket = new Ticket(pool.getEventId(), vendor, updatedCustomer);
+                    if (serials != null) {
+                        ticket.setSerialNumber(serials[i]);
+                    }
+                    ticketsToSave.add(ticket);
                 }
+            }
 
-                // Update counts atomically
-                if (availableCount.addAndGet(-purchaseFromVendor) >= 0) {
-                    availableTickets.addAndGet(-purchaseFromVendor);
-                    vendorSoldTicketCounts.computeIfAbsent(vendor.getParticipantId(), k -> new AtomicInteger(0))
-                            .addAndGet(purchaseFromVendor);
+            vendorSoldDeltas.put(vendor.getParticipantId(), purchaseFromVendor);
+            if (participantRegistry.recordSale(vendor, purchaseFromVendor)) {
+                vendorActiveStates.put(vendor.getParticipantId(), false);
+            }
+        }
 
-                    vendorPurchaseCounts.put(vendor.getParticipantId(), purchaseFromVendor);
-                    vendor.setTotalTicketsSold(vendor.getTotalTicketsSold() + purchaseFromVendor);
-                    vendor.setActive(vendor.getTotalTicketsSold() < vendor.getTicketsToSell());
+        TicketInventory current = pool.getInventory();
+        // Update configuration
+        EventConfiguration configuration = pool.getConfiguration();
+        configuration.setTotalTickets(current.getAvailableTickets().get());
+        configurationService.scheduleSave(configuration);
+
+        participantRegistry.recordPurchase(updatedCustomer, totalPurchased);
+        log.info("Batch ticket purchase successful - Customer: {} ({}/{}), Count: {}, Total Available: {}",
+                updatedCustomer.getName(),
+                updatedCustomer.getTotalTicketsPurchased(),
+                updatedCustomer.getTicketsToPurchase(),
+                totalPurchased,
+                current.getAvailableTickets().get());
+
+        return PoolWriteRecord.purchase(updatedCustomer.getParticipantId(), ticketsToSave, allocationsToSave, vendorSoldDeltas, vendorActiveStates);
+    }
 
-                    totalPurchased += purchaseFromVendor;
-                }
+    /**
+     * One allocation per run of consecutive serials; a purchase only spans two runs when it crosses a serial block
+     */
+    private static void addAllocations(List<TicketAllocation> allocations, String eventId, Vendor vendor, Customer customer, long[] serials) {
+        int start = 0;
+        for (int i = 1; i <= serials.length; i++) {
+            if (i == serials.length || serials[i] != serials[i - 1] + 1) {
+                allocations.add(new TicketAllocation(eventId, vendor, customer, serials[start], i - start));
+                start = i;
             }
+        }
+    }
 
-            // Save all changes if any tickets were purchased
-            if (totalPurchased > 0) {
-                try {
-                    // Batch save tickets
-                    ticketService.saveTickets(ticketsToSave);
-
-                    // Update vendors
-                    List<Vendor> updatedVendors = vendorPurchaseCounts.keySet().stream()
-                            .map(vendorMap::get)
-                            .collect(Collectors.toList());
-                    vendorRepository.saveAll(updatedVendors);
-
-                    // Update customer
-                    updatedCustomer.setTotalTicketsPurchased(updatedCustomer.getTotalTicketsPurchased() + totalPurchased);
-                    customerRepository.save(updatedCustomer);
-
-                    // Update configuration
-                    eventConfiguration.setTotalTickets(availableTickets.get());
-                    configurationService.saveConfiguration(eventConfiguration);
-
-                    log.info("Batch ticket purchase successful - Customer: {} ({}/{}), Count: {}, Total Available: {}",
-                            updatedCustomer.getName(),
-                            updatedCustomer.getTotalTicketsPurchased(),
-                            updatedCustomer.getTicketsToPurchase(),
-                            totalPurchased,
-                            availableTickets.get());
-
-                } catch (Exception e) {
-                    log.error("Failed to process batch ticket purchase: {}", e.getMessage());
-                    throw new ResourceProcessingException("Failed to process ticket purchase: " + e.getMessage());
-                }
-            }
+    /**
+     * The tickets are already claimed at this point, so a sale goes through without serials if none can be reserved
+     */
+    private long[] allocateSerials(String eventId, Vendor vendor, int count) {
+        try {
+            return serialAllocator.allocate(eventId, vendor.getParticipantId(), count);
+        } catch (RuntimeException e) {
+            log.warn("Could not reserve ticket serials for vendor {}: {}", vendor.getName(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Hold tickets for a customer until they confirm or the hold expires
+     *
+     * @param eventId    Event to hold tickets in
+     * @param customerId Customer to hold tickets for
+     * @param count      Number of tickets to hold
+     * @return The hold
+     */
+    public TicketHold holdTickets(String eventId, String customerId, int count) {
+        EventPool pool = getPool(eventId);
+        if (!pool.isConfigured() || customerId == null || count <= 0) {
+            log.error("Cannot hold tickets: system not configured, invalid customer, or invalid count");
+            throw new IllegalStateException("Cannot hold tickets in current state");
+        }
 
-            return totalPurchased;
+        return inPoolOperation(pool, () -> holdTickets(pool, customerId, count));
+    }
 
-        } finally {
-            lock.unlock();
+    private TicketHold holdTickets(EventPool pool, String customerId, int count) {
+        Customer updatedCustomer = loadPurchasingCustomer(customerId);
+        if (!pool.getEventId().equals(EventConfiguration.resolveEventId(updatedCustomer.getEventId()))) {
+            throw new InvalidResourceOperationException("Customer is not registered for event " + pool.getEventId());
+        }
+        int remainingAllowedPurchases = updatedCustomer.getTicketsToPurchase() - updatedCustomer.getTotalTicketsPurchased();
+        TicketInventory current = pool.getInventory();
+        if (quotaLeaseService.isEnabled()) {
+            quotaLeaseService.replenish(pool.getEventId(), current, Math.min(count, remainingAllowedPurchases));
         }
+        VendorClaims claims = claimFromVendors(pool, current, customerId, Math.min(count, remainingAllowedPurchases), remainingAllowedPurchases, true);
+        if (claims.total() == 0) {
+            throw new InvalidResourceOperationException("No tickets available to hold");
+        }
+        int totalHeld = claims.total();
+        List<String> heldVendorIds = claims.vendors().stream().map(Vendor::getParticipantId).collect(Collectors.toList());
+        TicketHold hold = new TicketHold(UUID.randomUUID().toString(), pool.getEventId(), customerId, heldVendorIds,
+                claims.claimed(), System.currentTimeMillis() + holdService.getTtlMillis(), current);
+        holdService.register(hold);
+
+        log.info("Held {} tickets for customer {} until {}", totalHeld, updatedCustomer.getName(), hold.getExpiresAtMillis());
+        return hold;
     }
 
     /**
-     * Update the ticket count for a vendor
+     * Confirm a hold, turning its tickets into purchased tickets
      *
-     * @param vendor       Vendor to update ticket count for
-     * @param addedTickets Number of tickets to add
+     * @param eventId Event the hold was taken in
+     * @param holdId  Hold to confirm
+     * @return Number of tickets purchased
      */
-    public void updateVendorTicketCount(Vendor vendor, int addedTickets) {
-        lock.lock();
-        try {
-            String vendorId = vendor.getParticipantId();
-            vendorCurrentAvailableCounts.computeIfPresent(vendorId, (k, v) -> {
-                v.addAndGet(addedTickets);
-                return v;
-            });
-            log.debug("Updated vendor {} ticket count, added {} tickets", vendor.getName(), addedTickets);
-        } finally {
-            lock.unlock();
+    public int confirmHold(String eventId, String holdId) {
+        TicketHold hold = findHold(eventId, holdId);
+        EventPool pool = getPool(hold.getEventId());
+        return inPoolOperation(pool, () -> commitPurchase(() -> allocateHold(pool, hold)));
+    }
+
+    private TicketHold findHold(String eventId, String holdId) {
+        return holdService.getHold(holdId)
+                .filter(hold -> hold.getEventId().equals(EventConfiguration.resolveEventId(eventId)))
+                .orElseThrow(() -> new ResourceNotFoundException("Hold not found or already expired"));
+    }
+
+    /**
+     * Reject a hold taken from an inventory the event no longer sells from. Reconfiguration returns every
+     * hold first, so this only trips if a hold slipped past it.
+     */
+    private static void checkHoldInventory(EventPool pool, TicketHold hold) {
+        if (hold.getInventory() != pool.getInventory()) {
+            throw new InvalidResourceOperationException("Hold was taken before event " + pool.getEventId() + " was reconfigured");
         }
     }
 
     /**
-     * get the available tickets count
-     * @param vendorId
-     * @return
+     * Turn a hold into tickets in memory and describe the writes the purchase needs
      */
-    private int getVendorAvailableTickets(String vendorId) {
-        if (vendorId == null) return 0;
-        AtomicInteger count = vendorCurrentAvailableCounts.get(vendorId);
-        return count != null ? count.get() : 0;
+    private PurchaseAllocation allocateHold(EventPool pool, TicketHold hold) {
+        checkHoldInventory(pool, hold);
+        if (!hold.complete(TicketHold.State.CONFIRMED)) {
+            throw new InvalidResourceOperationException("Hold is no longer active: " + hold.getState());
+        }
+        holdService.remove(hold);
+        if (ringBuffer.isEnabled()) {
+            ringBuffer.publishConfirmHold(hold.getInventory(), hold).awaitAndRecycle();
+        } else {
+            hold.getInventory().confirmHold(hold);
+        }
+
+        Customer updatedCustomer = participantRegistry.getCustomer(hold.getCustomerId());
+        List<Vendor> vendors = new ArrayList<>();
+        int[] claimed = new int[hold.getVendorIds().size()];
+        int total = 0;
+        for (int i = 0; i < hold.getVendorIds().size(); i++) {
+            vendors.add(participantRegistry.getVendor(hold.getVendorIds().get(i)));
+            claimed[i] = hold.getVendorCounts()[i];
+            total += hold.getVendorCounts()[i];
+        }
+        return new PurchaseAllocation(total, purchaseRecord(pool, updatedCustomer, vendors, claimed, total));
     }
 
     /**
-     * Shutdown hook to update vendor and customer states before application shutdown
+     * Cancel a hold and return its tickets to the pool
+     *
+     * @param eventId Event the hold was taken in
+     * @param holdId  Hold to cancel
      */
-    @PreDestroy
-    public void shutdown() {
-        lock.lock();
-        try {
-            if (isConfigured && eventConfiguration != null) {
-                // Update sold ticket counts and running states for all vendors
-                vendorCurrentAvailableCounts.forEach((vendorId, availableCount) -> {
-                    try {
-                        Optional<Vendor> vendorOpt = vendorRepository.findById(vendorId);
-                        if (vendorOpt.isPresent()) {
-                            Vendor vendor = vendorOpt.get();
-                            // Get final counts
-                            int finalAvailable = availableCount.get();
-                            int finalSold = vendorSoldTicketCounts.getOrDefault(vendorId, new AtomicInteger(0)).get();
-
-                            // Update vendor state
-                            vendor.setTotalTicketsSold(finalSold);
-                            vendor.setActive(finalAvailable > 0);
-
-                            // Save vendor state
-                            vendorRepository.save(vendor);
-
-                            log.info("Shutdown: Updated vendor {} - Sold: {}, Available: {}, Running: {}", vendor.getName(), finalSold, finalAvailable, vendor.isActive());
-                        }
-                    } catch (Exception e) {
-                        log.error("Failed to update vendor {} during shutdown: {}", vendorId, e.getMessage());
-                    }
-                });
-
-                // Optional: Persist customer remaining tickets during shutdown
-                customerRemainingTickets.forEach((customerId, remainingTicketsCount) -> {
-                    try {
-                        Optional<Customer> customerOpt = customerRepository.findById(customerId);
-                        if (customerOpt.isPresent()) {
-                            Customer customer = customerOpt.get();
-                            int finalRemainingTickets = remainingTicketsCount.get();
-
-                            log.info("Shutdown: Customer {} - Remaining tickets: {}", customer.getName(), finalRemainingTickets);
-                            // Additional logic if needed to persist remaining tickets
-                        }
-                    } catch (Exception e) {
-                        log.error("Failed to process customer {} during shutdown: {}", customerId, e.getMessage());
-                    }
-                });
+    public void cancelHold(String eventId, String holdId) {
+        TicketHold hold = findHold(eventId, holdId);
+        EventPool pool = getPool(hold.getEventId());
+        inPoolOperation(pool, () -> {
+            checkHoldInventory(pool, hold);
+            if (!hold.complete(TicketHold.State.CANCELLED)) {
+                throw new InvalidResourceOperationException("Hold is no longer active: " + hold.getState());
+            }
+            holdService.remove(hold);
+            if (ringBuffer.isEnabled()) {
+                ringBuffer.publishReturnHold(hold.getInventory(), hold).awaitAndRecycle();
+            } else {
+                hold.getInventory().returnHold(hold);
+            }
+            journal.append(JournalRecord.holdReturn(hold.getEventId(), hold.getCustomerId(), hold.getVendorIds(), hold.getVendorCounts(), hold.getQuantity()));
+            return null;
+        });
+        log.info("Cancelled hold {} and returned {} tickets", holdId, hold.getQuantity());
+    }
 
-                synchronizeAvailableTickets();
-                configurationService.saveConfiguration(eventConfiguration);
+    /**
+     * Update the ticket count for a vendor
+     *
+     * @param vendor       Vendor to update ticket count for
+     * @param addedTickets Number of tickets to add
+     */
+    @Override
+    public void updateVendorTicketCount(Vendor vendor, int addedTickets) {
+        EventPool pool = getPool(vendor.getEventId());
+        int applied = inPoolOperation(pool, () -> {
+            TicketInventory current = pool.getInventory();
+            if (ringBuffer.isEnabled()) {
+                return ringBuffer.publishAdjust(current, vendor.getParticipantId(), addedTickets).awaitAndRecycle();
+            }
+            return current.adjustVendorAvailable(vendor.getParticipantId(), addedTickets);
+        });
+        if (addedTickets == 0) {
+            // A vendor thread reports its final state with an empty update when it stops
+            journal.append(JournalRecord.stop(pool.getEventId(), vendor.getParticipantId()));
+        } else if (applied != 0) {
+            journal.append(JournalRecord.adjust(pool.getEventId(), vendor.getParticipantId(), applied));
+        }
+        log.debug("Updated vendor {} ticket count, added {} tickets", vendor.getName(), addedTickets);
+    }
 
-                log.info("Shutdown completed successfully. Final available tickets: {}", availableTickets.get());
+    /**
+     * Shutdown hook to update vendor and customer states of every event before application shutdown
+     */
+    @PreDestroy
+    public void shutdown() {
+        for (EventPool pool : pools.values()) {
+            pool.getConfigurationLock().lock();
+            try {
+                if (pool.isConfigured() && pool.getConfiguration() != null) {
+                    TicketInventory current = pool.getInventory();
+                    long customersWithAllowance = current.getCustomerRemainingTickets().values().stream()
+                            .filter(remaining -> remaining.get() > 0)
+                            .count();
+                    log.info("Shutdown: {} customers of event {} still have tickets left to purchase", customersWithAllowance, pool.getEventId());
+
+                    // Write sold counts and running states of the vendors that changed in one bulk operation
+                    synchronizeAvailableTickets(pool, true);
+
+                    log.info("Shutdown of event {} completed successfully. Final available tickets: {}",
+                            pool.getEventId(), current.getAvailableTickets().get());
+                }
+            } catch (Exception e) {
+                log.error("Shutdown synchronization failed for event {}: {}", pool.getEventId(), e.getMessage());
+            } finally {
+                pool.getConfigurationLock().unlock();
             }
-        } finally {
-            lock.unlock();
         }
     }
 }
\ No newline at end of file
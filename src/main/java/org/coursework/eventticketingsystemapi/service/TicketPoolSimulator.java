@@ -0,0 +1,348 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import org.coursework.eventticketingsystemapi.config.TicketPoolProperties;
+import org.coursework.eventticketingsystemapi.exception.AdmissionRejectedException;
+import org.coursework.eventticketingsystemapi.exception.InvalidResourceOperationException;
+import org.coursework.eventticketingsystemapi.model.Customer;
+import org.coursework.eventticketingsystemapi.model.EventConfiguration;
+import org.coursework.eventticketingsystemapi.model.Participant;
+import org.coursework.eventticketingsystemapi.model.SimulationReport;
+import org.coursework.eventticketingsystemapi.model.SimulationScenario;
+import org.coursework.eventticketingsystemapi.model.Vendor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.logging.LogLevel;
+import org.springframework.boot.logging.LoggerConfiguration;
+import org.springframework.boot.logging.LoggingSystem;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Discrete-event simulator for vendor and customer workloads.
+ * The real {@link Vendor} and {@link Customer} steps run against a {@link SimulatedTicketPool} backed by a real
+ * {@link TicketInventory}, but delays and signal timeouts advance a simulated clock instead of sleeping. Everything
+ * runs on the calling thread in an order fixed by the seed, including the order of steps due at the same instant,
+ * so a run can be repeated exactly and a different seed explores a different interleaving.
+ */
+@Service
+public class TicketPoolSimulator {
+    private static final Logger log = LoggerFactory.getLogger(TicketPoolSimulator.class);
+    // Participants log every step; muted while simulating, the logging would cost more than the simulation
+    private static final String PARTICIPANT_LOGGER = "org.coursework.eventticketingsystemapi.model";
+    private static final String SIMULATED_EVENT_ID = "simulation";
+    private static final int VENDOR_DETAIL_LIMIT = 1000;
+
+    private final int maxParticipants;
+    // Runs hold a request thread and up to maxParticipants participants in memory, so only one runs at a time
+    private final ReentrantLock running = new ReentrantLock();
+
+    @Autowired
+    public TicketPoolSimulator(TicketPoolProperties properties) {
+        this.maxParticipants = properties.getSimulation().getMaxParticipants();
+    }
+
+    /**
+     * Run a scenario to completion: until every customer is done, stock can no longer change, or the duration ends
+     *
+     * @param scenario Workload to simulate
+     * @return Report of the simulated sale
+     * @throws InvalidResourceOperationException if the scenario is invalid or has too many participants
+     * @throws AdmissionRejectedException if another simulation is running
+     */
+    public SimulationReport run(SimulationScenario scenario) {
+        validate(scenario);
+        if ((long) scenario.getVendors() + scenario.getCustomers() > maxParticipants) {
+            throw new InvalidResourceOperationException(
+                    String.format("Simulations are limited to %d vendors and customers", maxParticipants));
+        }
+        if (!running.tryLock()) {
+            throw new AdmissionRejectedException("A simulation is already running, retry later", 1);
+        }
+        try {
+            return execute(scenario);
+        } finally {
+            running.unlock();
+        }
+    }
+
+    private SimulationReport execute(SimulationScenario scenario) {
+        LoggingSystem loggingSystem = LoggingSystem.get(getClass().getClassLoader());
+        LogLevel previous = setParticipantLogLevel(loggingSystem, LogLevel.WARN);
+        try {
+            SimulationReport report = new Run(scenario).execute();
+            log.info("Simulated {} vendors and {} customers over {} ms of sale time in {} ms: {} of {} tickets sold",
+                    report.getVendors(), report.getCustomers(), report.getSimulatedMillis(), report.getWallClockMillis(),
+                    report.getTicketsSold(), report.getTicketsReleased());
+            return report;
+        } finally {
+            setParticipantLogLevel(loggingSystem, previous);
+        }
+    }
+
+    /**
+     * Set the participant log level, returning the level configured before
+     */
+    private static LogLevel setParticipantLogLevel(LoggingSystem loggingSystem, LogLevel level) {
+        try {
+            LoggerConfiguration previous = loggingSystem.getLoggerConfiguration(PARTICIPANT_LOGGER);
+            loggingSystem.setLogLevel(PARTICIPANT_LOGGER, level);
+            return previous == null ? null : previous.getConfiguredLevel();
+        } catch (RuntimeException e) {
+            // A logging backend that cannot be reconfigured only makes the run slower
+            log.debug("Could not change participant log level: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static void validate(SimulationScenario scenario) {
+        if (scenario == null
+                || scenario.getMaxCapacity() <= 0 || scenario.getCustomerRetrievalRate() <= 0
+                || scenario.getVendors() < 0 || scenario.getCustomers() < 0
+                || scenario.getVendorTicketsToSell() <= 0 || scenario.getVendorTicketsPerRelease() <= 0
+                || scenario.getCustomerTicketsMin() <= 0 || scenario.getCustomerTicketsMin() > scenario.getCustomerTicketsMax()
+                // Steps run again after at least a second, so simulated time always advances
+                || scenario.getVendorReleaseIntervalMinSeconds() < 1
+                || scenario.getVendorReleaseIntervalMinSeconds() > scenario.getVendorReleaseIntervalMaxSeconds()
+                || scenario.getCustomerRetrievalIntervalMinSeconds() < 1
+                || scenario.getCustomerRetrievalIntervalMinSeconds() > scenario.getCustomerRetrievalIntervalMaxSeconds()
+                || scenario.getCustomerArrivalWindowSeconds() < 0 || scenario.getDurationSeconds() <= 0) {
+            throw new InvalidResourceOperationException("Invalid simulation scenario");
+        }
+    }
+
+    /**
+     * State of one simulation run
+     */
+    private static final class Run {
+        private final SimulationScenario scenario;
+        private final SplittableRandom random;
+        private final PriorityQueue<ScheduledStep> queue = new PriorityQueue<>();
+        private final List<SimulatedParticipant> vendors = new ArrayList<>();
+        private final List<SimulatedParticipant> customers = new ArrayList<>();
+        private final SimulatedTicketPool pool;
+        private long now;
+        private long sequence;
+        private long steps;
+        private int activeVendors;
+        private int activeCustomers;
+
+        private Run(SimulationScenario scenario) {
+            this.scenario = scenario;
+            this.random = new SplittableRandom(scenario.getSeed());
+            EventConfiguration configuration = new EventConfiguration("Simulation", null, 0, scenario.getMaxCapacity(),
+                    scenario.getVendorTicketsPerRelease(), scenario.getCustomerRetrievalRate());
+            configuration.setEventId(SIMULATED_EVENT_ID);
+            TicketInventory inventory = new TicketInventory(scenario.getMaxCapacity(),
+                    VendorAllocationStrategy.forName(scenario.getAllocationStrategy(), random.split()));
+            this.pool = new SimulatedTicketPool(configuration, inventory, () -> now,
+                    (long) scenario.getVendors() * scenario.getVendorTicketsToSell());
+        }
+
+        private SimulationReport execute() {
+            long started = System.nanoTime();
+            for (int i = 0; i < scenario.getVendors(); i++) {
+                Vendor vendor = new Vendor("vendor-" + i, "vendor-" + i + "@simulation", null,
+                        scenario.getVendorTicketsPerRelease(),
+                        between(scenario.getVendorReleaseIntervalMinSeconds(), scenario.getVendorReleaseIntervalMaxSeconds()),
+                        scenario.getVendorTicketsToSell());
+                vendor.setParticipantId(vendor.getName());
+                vendor.setEventId(SIMULATED_EVENT_ID);
+                vendor.setTicketPoolService(pool);
+                vendor.startVendor();
+                vendors.add(admit(vendor, true, 0));
+            }
+            for (int i = 0; i < scenario.getCustomers(); i++) {
+                Customer customer = new Customer("customer-" + i, "customer-" + i + "@simulation", null,
+                        between(scenario.getCustomerTicketsMin(), scenario.getCustomerTicketsMax()),
+                        between(scenario.getCustomerRetrievalIntervalMinSeconds(), scenario.getCustomerRetrievalIntervalMaxSeconds()));
+                customer.setParticipantId(customer.getName());
+                customer.setEventId(SIMULATED_EVENT_ID);
+                customer.setTicketPoolService(pool);
+                customer.startCustomer();
+                long arrival = random.nextLong(scenario.getCustomerArrivalWindowSeconds() * 1000 + 1);
+                customers.add(admit(customer, false, arrival));
+            }
+
+            long endMillis = scenario.getDurationSeconds() * 1000;
+            while (!queue.isEmpty() && activeCustomers > 0
+                    && (activeVendors > 0 || pool.getInventory().getAvailableTickets().get() > 0)) {
+                ScheduledStep next = queue.poll();
+                if (next.time > endMillis) {
+                    now = endMillis;
+                    break;
+                }
+                now = next.time;
+                if (next.timeoutOf != null) {
+                    // Only takes effect if the waiter was not signalled first; its completion schedules the step
+                    next.timeoutOf.cancel();
+                } else {
+                    step(next.participant);
+                }
+            }
+            return report(System.nanoTime() - started);
+        }
+
+        private SimulatedParticipant admit(Participant participant, boolean vendor, long arrivalMillis) {
+            SimulatedParticipant simulated = new SimulatedParticipant(participant, vendor, arrivalMillis);
+            if (vendor) {
+                activeVendors++;
+            } else {
+                activeCustomers++;
+            }
+            schedule(arrivalMillis, simulated, null);
+            return simulated;
+        }
+
+        private void step(SimulatedParticipant simulated) {
+            if (simulated.finished) {
+                return;
+            }
+            steps++;
+            ParticipantStep next = simulated.participant.step();
+            if (next.isFinished()) {
+                simulated.finished = true;
+                simulated.participant.onStopped();
+                if (simulated.vendor) {
+                    activeVendors--;
+                } else {
+                    activeCustomers--;
+                }
+                return;
+            }
+            AvailabilitySignal.Waiter waiter = next.getWaiter();
+            schedule(now + next.getDelayMillis(), simulated, waiter);
+            if (waiter != null) {
+                // Signals complete waiters inside another participant's step, at the current simulated time
+                waiter.getFuture().whenComplete((signalled, error) -> schedule(now, simulated, null));
+            }
+        }
+
+        private void schedule(long time, SimulatedParticipant participant, AvailabilitySignal.Waiter timeoutOf) {
+            queue.add(new ScheduledStep(time, random.nextLong(), sequence++, participant, timeoutOf));
+        }
+
+        private int between(int min, int max) {
+            return min == max ? min : min + random.nextInt(max - min + 1);
+        }
+
+        private SimulationReport report(long wallClockNanos) {
+            SimulationReport report = new SimulationReport();
+            report.setSeed(scenario.getSeed());
+            report.setVendors(vendors.size());
+            report.setCustomers(customers.size());
+            report.setStepsExecuted(steps);
+            report.setSimulatedMillis(now);
+            report.setWallClockMillis(wallClockNanos / 1_000_000);
+            report.setTicketsReleased(pool.getReleased());
+            report.setTicketsSold(pool.getSold());
+            report.setSellOutMillis(pool.getSellOutMillis());
+            report.setLastPurchaseMillis(pool.getLastPurchaseMillis());
+            report.setPurchaseBatchSizes(pool.getBatchSizes());
+
+            double[] sellThrough = new double[vendors.size()];
+            Map<String, Double> perVendor = new TreeMap<>();
+            for (int i = 0; i < vendors.size(); i++) {
+                String vendorId = vendors.get(i).participant.getParticipantId();
+                sellThrough[i] = (double) pool.getInventory().getVendorSold(vendorId) / scenario.getVendorTicketsToSell();
+                if (vendors.size() <= VENDOR_DETAIL_LIMIT) {
+                    perVendor.put(vendorId, sellThrough[i]);
+                }
+            }
+            report.setVendorSellThrough(vendors.size() <= VENDOR_DETAIL_LIMIT ? perVendor : null);
+            report.setVendorSellThroughPercentiles(percentiles(sellThrough));
+
+            double shareSum = 0;
+            double shareSquares = 0;
+            List<Long> waits = new ArrayList<>();
+            for (SimulatedParticipant simulated : customers) {
+                Customer customer = (Customer) simulated.participant;
+                double share = (double) customer.getTotalTicketsPurchased() / customer.getTicketsToPurchase();
+                shareSum += share;
+                shareSquares += share * share;
+                if (customer.getTotalTicketsPurchased() >= customer.getTicketsToPurchase()) {
+                    report.setCustomersFullyServed(report.getCustomersFullyServed() + 1);
+                } else if (customer.getTotalTicketsPurchased() > 0) {
+                    report.setCustomersPartlyServed(report.getCustomersPartlyServed() + 1);
+                } else {
+                    report.setCustomersUnserved(report.getCustomersUnserved() + 1);
+                }
+                Long firstPurchase = pool.getFirstPurchaseMillis(customer.getParticipantId());
+                if (firstPurchase != null) {
+                    waits.add(firstPurchase - simulated.arrivalMillis);
+                }
+            }
+            report.setFairnessIndex(shareSquares == 0 ? 0 : shareSum * shareSum / (customers.size() * shareSquares));
+            double[] waitMillis = waits.stream().mapToDouble(Long::doubleValue).toArray();
+            Map<String, Long> waitPercentiles = new LinkedHashMap<>();
+            percentiles(waitMillis).forEach((name, value) -> waitPercentiles.put(name, value.longValue()));
+            report.setFirstPurchaseWaitPercentilesMillis(waitPercentiles);
+            return report;
+        }
+    }
+
+    private static Map<String, Double> percentiles(double[] values) {
+        Map<String, Double> percentiles = new LinkedHashMap<>();
+        if (values.length == 0) {
+            return percentiles;
+        }
+        Arrays.sort(values);
+        for (int percentile : new int[]{0, 50, 90, 99, 100}) {
+            int index = (int) Math.min(values.length - 1, Math.ceil(percentile / 100.0 * values.length) - 1);
+            percentiles.put("p" + percentile, values[Math.max(0, index)]);
+        }
+        return percentiles;
+    }
+
+    private static final class SimulatedParticipant {
+        private final Participant participant;
+        private final boolean vendor;
+        private final long arrivalMillis;
+        private boolean finished;
+
+        private SimulatedParticipant(Participant participant, boolean vendor, long arrivalMillis) {
+            this.participant = participant;
+            this.vendor = vendor;
+            this.arrivalMillis = arrivalMillis;
+        }
+    }
+
+    /**
+     * A participant step, or a waiter's timeout, due at a simulated time. Steps due at the same time run in a
+     * seeded random order.
+     */
+    private static final class ScheduledStep implements Comparable<ScheduledStep> {
+        private final long time;
+        private final long order;
+        private final long sequence;
+        private final SimulatedParticipant participant;
+        private final AvailabilitySignal.Waiter timeoutOf;
+
+        private ScheduledStep(long time, long order, long sequence, SimulatedParticipant participant, AvailabilitySignal.Waiter timeoutOf) {
+            this.time = time;
+            this.order = order;
+            this.sequence = sequence;
+            this.participant = participant;
+            this.timeoutOf = timeoutOf;
+        }
+
+        @Override
+        public int compareTo(ScheduledStep other) {
+            int byTime = Long.compare(time, other.time);
+            if (byTime != 0) {
+                return byTime;
+            }
+            int byOrder = Long.compare(order, other.order);
+            return byOrder != 0 ? byOrder : Long.compare(sequence, other.sequence);
+        }
+    }
+}
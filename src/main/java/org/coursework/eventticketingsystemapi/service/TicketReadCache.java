@@ -0,0 +1,335 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+import org.coursework.eventticketingsystemapi.config.TicketPoolProperties;
+import org.coursework.eventticketingsystemapi.model.Ticket;
+import org.coursework.eventticketingsystemapi.model.TicketAllocation;
+import org.coursework.eventticketingsystemapi.model.TicketPage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Bounded cache of the complete ticket list of a customer or vendor, in the order ticket pages are served.
+ * Entries are evicted least recently used first once there are more than maxEntries of them or their tickets
+ * add up to more than maxWeight, and expire after ttlMillis. Participants with more than maxEntryTickets
+ * tickets are remembered as too large, so their pages keep going to Mongo. Lists are only ever loaded one page
+ * at a time, never in full just to fill the cache.
+ * <p>
+ * Written purchases are merged into the cached lists and deleted tickets are taken out of them. Every change
+ * also moves a stamp for the participant; a list loaded from Mongo is only cached if the stamp it was loaded
+ * under is still current, so a load that raced with a write never caches the state from before it.
+ */
+@Service
+public class TicketReadCache {
+    // Stored ticket IDs and allocation IDs order like the _id scans; tickets of an allocation by serial
+    static final Comparator<String> TICKET_ID_ORDER = Comparator.comparing(TicketReadCache::baseId)
+            .thenComparingLong(TicketReadCache::serial);
+    private static final Comparator<Ticket> TICKET_ORDER = Comparator.comparing(Ticket::getTicketId, TICKET_ID_ORDER);
+    private static final int STAMP_STRIPES = 256;
+
+    public enum Kind {CUSTOMER, VENDOR}
+
+    private record Key(Kind kind, String participantId) {
+    }
+
+    /**
+     * Cached tickets in page order; null when the participant has too many tickets to cache
+     */
+    private record Entry(List<Ticket> tickets, long expiresAt) {
+        long weight() {
+            return tickets == null ? 1 : Math.max(1, tickets.size());
+        }
+    }
+
+    /**
+     * Result of a lookup
+     *
+     * @param hit     Whether the participant was cached
+     * @param tickets The participant's tickets, or null if they have too many to cache
+     */
+    public record Lookup(boolean hit, List<Ticket> tickets) {
+    }
+
+    private final TicketPoolProperties.TicketCache settings;
+    private final LongSupplier clock;
+    // Access order, so iteration starts at the least recently used entry
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLongArray stamps = new AtomicLongArray(STAMP_STRIPES);
+    private long weight;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    @Autowired
+    public TicketReadCache(TicketPoolProperties properties, MeterRegistry meterRegistry) {
+        this(properties.getTicketCache(), System::currentTimeMillis);
+        // cache.gets, cache.puts, cache.evictions and cache.size under the cache name "tickets"
+        new Metrics(this).bindTo(meterRegistry);
+    }
+
+    TicketReadCache(TicketPoolProperties.TicketCache settings, LongSupplier clock) {
+        this.settings = settings;
+        this.clock = clock;
+    }
+
+    public boolean isEnabled() {
+        return settings.isEnabled() && settings.getMaxEntries() > 0 && settings.getMaxWeight() > 0;
+    }
+
+    /**
+     * Largest ticket list that is cached
+     */
+    public int getMaxEntryTickets() {
+        return settings.getMaxEntryTickets();
+    }
+
+    public synchronized Lookup get(Kind kind, String participantId) {
+        Key key = new Key(kind, participantId);
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAt() <= clock.getAsLong()) {
+            remove(key);
+            expirations.increment();
+            entry = null;
+        }
+        if (entry == null) {
+            misses.increment();
+            return new Lookup(false, null);
+        }
+        hits.increment();
+        return new Lookup(true, entry.tickets());
+    }
+
+    /**
+     * Stamp to take before loading a participant's tickets and hand back to {@link #put}
+     */
+    public long stamp(Kind kind, String participantId) {
+        return stamps.get(stripe(new Key(kind, participantId)));
+    }
+
+    /**
+     * Cache a participant's tickets unless they changed since the stamp was taken
+     *
+     * @param tickets All of the participant's tickets in page order, or null if they have more than maxEntryTickets
+     */
+    public synchronized void put(Kind kind, String participantId, long stamp, List<Ticket> tickets) {
+        Key key = new Key(kind, participantId);
+        if (!isEnabled() || stamps.get(stripe(key)) != stamp) {
+            return;
+        }
+        store(key, tickets == null ? null : Collections.unmodifiableList(new ArrayList<>(tickets)));
+        puts.increment();
+    }
+
+    /**
+     * Merge newly written tickets into the lists of their customers and vendors
+     */
+    public void ticketsWritten(Collection<Ticket> tickets) {
+        Map<Key, List<Ticket>> added = new HashMap<>();
+        for (Ticket ticket : tickets) {
+            for (Key key : keys(ticket)) {
+                added.computeIfAbsent(key, k -> new ArrayList<>()).add(ticket);
+            }
+        }
+        synchronized (this) {
+            added.forEach((key, keyTickets) -> {
+                stamps.incrementAndGet(stripe(key));
+                Entry entry = entries.get(key);
+                if (entry == null || entry.tickets() == null) {
+                    return;
+                }
+                // A ticket written again replaces its cached copy
+                Set<String> ids = keyTickets.stream().map(Ticket::getTicketId).collect(Collectors.toSet());
+                List<Ticket> merged = new ArrayList<>(entry.tickets().size() + keyTickets.size());
+                entry.tickets().stream().filter(ticket -> !ids.contains(ticket.getTicketId())).forEach(merged::add);
+                merged.addAll(keyTickets);
+                merged.sort(TICKET_ORDER);
+                store(key, merged.size() > settings.getMaxEntryTickets() ? null : Collections.unmodifiableList(merged));
+            });
+        }
+    }
+
+    /**
+     * Take a deleted or refunded ticket out of the lists of its customer and vendor
+     */
+    public synchronized void ticketRemoved(Ticket ticket) {
+        for (Key key : keys(ticket)) {
+            stamps.incrementAndGet(stripe(key));
+            Entry entry = entries.get(key);
+            if (entry == null || entry.tickets() == null) {
+                continue;
+            }
+            int index = Collections.binarySearch(entry.tickets(), ticket, TICKET_ORDER);
+            if (index >= 0) {
+                List<Ticket> remaining = new ArrayList<>(entry.tickets());
+                remaining.remove(index);
+                store(key, Collections.unmodifiableList(remaining));
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        entries.keySet().forEach(key -> stamps.incrementAndGet(stripe(key)));
+        entries.clear();
+        weight = 0;
+    }
+
+    /**
+     * The page of a cached ticket list that follows the cursor, as TicketService would read it from Mongo
+     */
+    static TicketPage page(List<Ticket> tickets, String after, int limit) {
+        int from = 0;
+        if (after != null) {
+            int low = 0;
+            int high = tickets.size();
+            // First ticket ordered after the cursor
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (TICKET_ID_ORDER.compare(tickets.get(mid).getTicketId(), after) <= 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            from = low;
+        }
+        List<Ticket> page = new ArrayList<>(tickets.subList(from, Math.min(tickets.size(), from + limit)));
+        String nextCursor = page.size() == limit ? page.get(page.size() - 1).getTicketId() : null;
+        return new TicketPage(page, nextCursor);
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized long weight() {
+        return weight;
+    }
+
+    long hitCount() {
+        return hits.sum();
+    }
+
+    long missCount() {
+        return misses.sum();
+    }
+
+    long evictionCount() {
+        return evictions.sum();
+    }
+
+    private void store(Key key, List<Ticket> tickets) {
+        Entry replaced = entries.put(key, new Entry(tickets, clock.getAsLong() + settings.getTtlMillis()));
+        if (replaced != null) {
+            weight -= replaced.weight();
+        }
+        weight += entries.get(key).weight();
+        Iterator<Entry> eldest = entries.values().iterator();
+        while ((entries.size() > settings.getMaxEntries() || weight > settings.getMaxWeight()) && eldest.hasNext()) {
+            weight -= eldest.next().weight();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private void remove(Key key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            weight -= removed.weight();
+        }
+    }
+
+    private static List<Key> keys(Ticket ticket) {
+        List<Key> keys = new ArrayList<>(2);
+        if (ticket.getCustomerId() != null) keys.add(new Key(Kind.CUSTOMER, ticket.getCustomerId()));
+        if (ticket.getVendorId() != null) keys.add(new Key(Kind.VENDOR, ticket.getVendorId()));
+        return keys;
+    }
+
+    private static int stripe(Key key) {
+        return Math.floorMod(key.hashCode(), STAMP_STRIPES);
+    }
+
+    private static String baseId(String ticketId) {
+        return TicketAllocation.isAllocatedTicketId(ticketId) ? TicketAllocation.allocationIdOf(ticketId) : ticketId;
+    }
+
+    private static long serial(String ticketId) {
+        return TicketAllocation.isAllocatedTicketId(ticketId) ? TicketAllocation.serialOf(ticketId) : Long.MIN_VALUE;
+    }
+
+    /**
+     * Standard Micrometer cache meters, so the statistics show under /actuator/metrics/cache.*
+     */
+    private static class Metrics extends CacheMeterBinder<TicketReadCache> {
+        Metrics(TicketReadCache cache) {
+            super(cache, "tickets", Tags.empty());
+        }
+
+        @Override
+        protected Long size() {
+            TicketReadCache cache = getCache();
+            return cache == null ? null : (long) cache.size();
+        }
+
+        @Override
+        protected long hitCount() {
+            TicketReadCache cache = getCache();
+            return cache == null ? 0 : cache.hitCount();
+        }
+
+        @Override
+        protected Long missCount() {
+            TicketReadCache cache = getCache();
+            return cache == null ? null : cache.missCount();
+        }
+
+        @Override
+        protected Long evictionCount() {
+            TicketReadCache cache = getCache();
+            return cache == null ? null : cache.evictionCount() + cache.expirations.sum();
+        }
+
+        @Override
+        protected long putCount() {
+            TicketReadCache cache = getCache();
+            return cache == null ? 0 : cache.puts.sum();
+        }
+
+        @Override
+        protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+            TicketReadCache cache = getCache();
+            if (cache == null) {
+                return;
+            }
+            Gauge.builder("cache.weight", cache, TicketReadCache::weight)
+                    .description("Tickets held by the cache")
+                    .tags(getTagsWithCacheName())
+                    .register(registry);
+            FunctionCounter.builder("cache.expirations", cache, c -> c.expirations.sum())
+                    .description("Entries dropped because their time to live ran out")
+                    .tags(getTagsWithCacheName())
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.coursework.eventticketingsystemapi.config.TicketPoolProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out ticket serials that are dense and increasing per event and vendor.
+ * The node reserves serials from the shared {@link SerialBlockStore} a block at a time and threads take them from
+ * the current block with a compare-and-set, so only a thread that finds the block used up talks to the store.
+ * Unused serials are returned on shutdown, and a node reclaims the blocks it held before a crash when it starts.
+ */
+@Service
+public class TicketSerialAllocator {
+    private static final Logger log = LoggerFactory.getLogger(TicketSerialAllocator.class);
+
+    private final SerialBlockStore store;
+    private final int blockSize;
+    private final String nodeId;
+    private final Map<String, ActiveBlock> blocks = new ConcurrentHashMap<>();
+    // Serializes block changes; allocations only take it when the current block runs out
+    private final ReentrantLock refillLock = new ReentrantLock();
+
+    @Autowired
+    public TicketSerialAllocator(SerialBlockStore store, TicketPoolProperties properties) {
+        TicketPoolProperties.Serials settings = properties.getSerials();
+        this.store = store;
+        this.blockSize = Math.max(1, settings.getBlockSize());
+        this.nodeId = settings.getNodeId() == null || settings.getNodeId().isBlank() ? defaultNodeId() : settings.getNodeId();
+    }
+
+    @PostConstruct
+    public void start() {
+        try {
+            long reclaimed = store.reclaim(nodeId);
+            if (reclaimed > 0) {
+                log.info("Node {} reclaimed {} unused ticket serials from its previous run", nodeId, reclaimed);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not reclaim ticket serials of node {}: {}", nodeId, e.getMessage());
+        }
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Take the next serials of a vendor's tickets
+     *
+     * @param eventId  Event ID
+     * @param vendorId Vendor ID
+     * @param count    Number of serials
+     * @return Serials in increasing order
+     * @throws RuntimeException if a new block could not be reserved; serials taken so far are lost
+     */
+    public long[] allocate(String eventId, String vendorId, int count) {
+        String key = eventId + ":" + vendorId;
+        long[] serials = new long[count];
+        int filled = 0;
+        while (filled < count) {
+            ActiveBlock current = blocks.get(key);
+            if (current != null) {
+                filled += current.take(serials, filled, count - filled);
+            }
+            if (filled < count) {
+                refill(key, eventId, vendorId);
+            }
+        }
+        return serials;
+    }
+
+    private void refill(String key, String eventId, String vendorId) {
+        refillLock.lock();
+        try {
+            ActiveBlock used = blocks.get(key);
+            if (used != null && used.hasRemaining()) {
+                // Another thread refilled while this one waited
+                return;
+            }
+            blocks.put(key, new ActiveBlock(store.reserve(eventId, vendorId, nodeId, blockSize)));
+            if (used != null) {
+                try {
+                    store.release(used.block, used.block.getLast() + 1);
+                } catch (RuntimeException e) {
+                    log.debug("Could not drop used block {}: {}", used.block.getBlockId(), e.getMessage());
+                }
+            }
+        } finally {
+            refillLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refillLock.lock();
+        try {
+            for (ActiveBlock active : blocks.values()) {
+                // Close the block first so a late allocation cannot take a serial that is being returned
+                long nextUnused = active.close();
+                try {
+                    store.release(active.block, nextUnused);
+                } catch (RuntimeException e) {
+                    log.warn("Could not return serials of block {}; they are reclaimed on the next start: {}",
+                            active.block.getBlockId(), e.getMessage());
+                }
+            }
+            blocks.clear();
+        } finally {
+            refillLock.unlock();
+        }
+    }
+
+    private static final class ActiveBlock {
+        private final SerialBlock block;
+        private final AtomicLong next;
+
+        private ActiveBlock(SerialBlock block) {
+            this.block = block;
+            this.next = new AtomicLong(block.getFirst());
+        }
+
+        private boolean hasRemaining() {
+            return next.get() <= block.getLast();
+        }
+
+        private int take(long[] serials, int offset, int wanted) {
+            while (true) {
+                long first = next.get();
+                if (first > block.getLast()) {
+                    return 0;
+                }
+                int taken = (int) Math.min(wanted, block.getLast() - first + 1);
+                if (next.compareAndSet(first, first + taken)) {
+                    for (int i = 0; i < taken; i++) {
+                        serials[offset + i] = first + i;
+                    }
+                    return taken;
+                }
+            }
+        }
+
+        private long close() {
+            return next.getAndSet(block.getLast() + 1);
+        }
+    }
+
+    private static String defaultNodeId() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "node";
+        }
+    }
+}
@@ -1,32 +1,70 @@
 package org.coursework.eventticketingsystemapi.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.bson.Document;
+import org.coursework.eventticketingsystemapi.exception.InvalidResourceOperationException;
 import org.coursework.eventticketingsystemapi.exception.ResourceNotFoundException;
 import org.coursework.eventticketingsystemapi.exception.ResourceProcessingException;
+import org.coursework.eventticketingsystemapi.model.EventConfiguration;
 import org.coursework.eventticketingsystemapi.model.Ticket;
+import org.coursework.eventticketingsystemapi.model.TicketAllocation;
+import org.coursework.eventticketingsystemapi.model.TicketPage;
 import org.coursework.eventticketingsystemapi.model.Vendor;
 import org.coursework.eventticketingsystemapi.repository.TicketRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 @Service
 public class TicketService {
     private static final Logger log = LoggerFactory.getLogger(TicketService.class);
+    static final int MAX_PAGE_SIZE = 10_000;
+    // Tickets fetched per cursor round trip during exports
+    private static final int EXPORT_BATCH_SIZE = 1000;
 
     private final TicketRepository ticketRepository;
+    private final MongoTemplate mongoTemplate;
+    private final TicketMigrationService migrationService;
+    private final ObjectMapper objectMapper;
+    private final TicketReadCache readCache;
 
     /**
      * Constructor for TicketService with dependency injection.
      *
      * @param ticketRepository Repository for ticket data operations
+     * @param mongoTemplate    Template used for aggregations
+     * @param migrationService Migration of tickets still in the DBRef format
+     * @param objectMapper     Mapper used for ticket exports
+     * @param readCache        Cache of customer and vendor ticket lists
      */
     @Autowired
-    public TicketService(TicketRepository ticketRepository) {
+    public TicketService(TicketRepository ticketRepository, MongoTemplate mongoTemplate, TicketMigrationService migrationService,
+                         ObjectMapper objectMapper, TicketReadCache readCache) {
         this.ticketRepository = ticketRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.migrationService = migrationService;
+        this.objectMapper = objectMapper;
+        this.readCache = readCache;
     }
 
     /**
@@ -42,7 +80,16 @@ public class TicketService {
                 throw new IllegalArgumentException("Vendor cannot be null");
             }
             log.debug("Counting tickets sold by vendor: {}", vendor.getName());
-            return ticketRepository.countByVendorParticipantId(vendor.getParticipantId());
+            long stored = mongoTemplate.count(Query.query(
+                    migrationService.participantCriteria("vendorId", "vendor", vendor.getParticipantId())), Ticket.class);
+            // Sum the allocations on the server rather than loading every one of them
+            long allocated = 0;
+            for (Document result : mongoTemplate.getCollection(mongoTemplate.getCollectionName(TicketAllocation.class)).aggregate(List.of(
+                    new Document("$match", new Document("vendorId", vendor.getParticipantId())),
+                    new Document("$group", new Document("_id", null).append("count", activeAllocationCount()))))) {
+                allocated += ((Number) result.get("count")).longValue();
+            }
+            return (int) (stored + allocated);
         } catch (Exception e) {
             log.error("Error counting tickets for vendor: {}", vendor.getName(), e);
             throw new ResourceProcessingException("Failed to count vendor tickets: " + e.getMessage());
@@ -51,15 +98,70 @@ public class TicketService {
 
 
     /**
-     * Retrieves a list of all tickets.
+     * Counts the tickets sold by every vendor in an event with a single grouped aggregation.
+     * The match on eventId uses the leading key of the event indexes. Tickets not yet migrated reference
+     * their vendor through a DBRef, so for those the group key is read from vendor.$id with $getField.
+     *
+     * @param eventId the event to count tickets for
+     * @return map of vendor ID to number of tickets sold; vendors without tickets are absent
+     * @throws ResourceProcessingException if the aggregation fails
+     */
+    public Map<String, Integer> countTicketsSoldPerVendor(String eventId) {
+        try {
+            Document matchEvent = new Document("$match", new Document("eventId", new Document("$in", EventConfiguration.storedEventIds(eventId))));
+            List<Document> ticketPipeline = List.of(matchEvent,
+                    new Document("$group", new Document()
+                    .append("_id", new Document("$ifNull", List.of("$vendorId",
+                            new Document("$getField", new Document("field", new Document("$literal", "$id"))
+                                    .append("input", "$vendor")))))
+                    .append("count", new Document("$sum", 1))));
+            List<Document> allocationPipeline = List.of(matchEvent,
+                    new Document("$group", new Document()
+                    .append("_id", "$vendorId")
+                    .append("count", activeAllocationCount())));
+            Map<String, Integer> counts = new HashMap<>();
+            for (Map.Entry<Class<?>, List<Document>> aggregation : Map.of(Ticket.class, ticketPipeline,
+                    TicketAllocation.class, allocationPipeline).entrySet()) {
+                mongoTemplate.getCollection(mongoTemplate.getCollectionName(aggregation.getKey()))
+                        .aggregate(aggregation.getValue())
+                        .allowDiskUse(true)
+                        .forEach(result -> {
+                            Object vendorId = result.get("_id");
+                            if (vendorId != null) {
+                                // A vendor can appear twice while its tickets are half migrated
+                                counts.merge(vendorId.toString(), ((Number) result.get("count")).intValue(), Integer::sum);
+                            }
+                        });
+            }
+            log.debug("Counted tickets for {} vendors", counts.size());
+            return counts;
+        } catch (Exception e) {
+            log.error("Error counting tickets per vendor", e);
+            throw new ResourceProcessingException("Failed to count vendor tickets: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Group accumulator for the tickets still held in allocations: each counts its range minus the seats refunded from it
+     */
+    private static Document activeAllocationCount() {
+        return new Document("$sum", new Document("$subtract", List.of("$count",
+                new Document("$size", new Document("$ifNull", List.of("$refundedSerials", List.of()))))));
+    }
+
+    /**
+     * Retrieves a page of all tickets.
      *
-     * @return a list of all tickets
+     * @param after cursor returned with the previous page, or null for the first page
+     * @param limit maximum number of tickets in the page
+     * @return a page of tickets in ticket ID order
      * @throws ResourceProcessingException if there is an error retrieving the tickets
      */
-    public List<Ticket> getAllTickets() {
+    public TicketPage getAllTickets(String after, int limit) {
+        checkPageSize(limit);
         try {
-            log.info("Retrieving all active tickets");
-            return ticketRepository.findAll();
+            log.info("Retrieving all active tickets after {}", after);
+            return page(new Criteria(), new Criteria(), after, limit);
         } catch (Exception e) {
             log.error("Error retrieving active tickets", e);
             throw new ResourceProcessingException("Failed to retrieve active tickets");
@@ -67,26 +169,101 @@ public class TicketService {
     }
 
     /**
-     * Retrieves a list of tickets for the specified vendor.
+     * Retrieves a page of the tickets sold in an event.
+     *
+     * @param eventId the ID of the event
+     * @param after   cursor returned with the previous page, or null for the first page
+     * @param limit   maximum number of tickets in the page
+     * @return a page of tickets for the event
+     * @throws ResourceProcessingException if there is an error retrieving the tickets
+     */
+    public TicketPage getTicketsByEvent(String eventId, String after, int limit) {
+        checkPageSize(limit);
+        try {
+            log.info("Retrieving tickets for event: {} after {}", eventId, after);
+            Criteria event = Criteria.where("eventId").in(EventConfiguration.storedEventIds(eventId));
+            return page(event, event, after, limit);
+        } catch (Exception e) {
+            log.error("Error retrieving tickets for event: {}", eventId, e);
+            throw new ResourceProcessingException("Failed to retrieve tickets by event");
+        }
+    }
+
+    /**
+     * Retrieves a page of tickets for the specified vendor.
      *
      * @param vendorId the ID of the vendor
-     * @return a list of tickets for the vendor
+     * @param after    cursor returned with the previous page, or null for the first page
+     * @param limit    maximum number of tickets in the page
+     * @return a page of tickets for the vendor
      * @throws ResourceProcessingException if there is an error retrieving the tickets
      */
-    public List<Ticket> getTicketsByVendor(String vendorId) {
+    public TicketPage getTicketsByVendor(String vendorId, String after, int limit) {
+        checkPageSize(limit);
         try {
             if (vendorId == null || vendorId.trim().isEmpty()) {
                 throw new IllegalArgumentException("Vendor ID cannot be null or empty");
             }
 
-            log.info("Retrieving tickets for vendor: {}", vendorId);
-            return ticketRepository.findTicketsByVendorParticipantId(vendorId);
+            log.info("Retrieving tickets for vendor: {} after {}", vendorId, after);
+            return cachedPage(TicketReadCache.Kind.VENDOR, vendorId, migrationService.participantCriteria("vendorId", "vendor", vendorId),
+                    Criteria.where("vendorId").is(vendorId), after, limit);
         } catch (Exception e) {
             log.error("Error retrieving tickets for vendor: {}", vendorId, e);
             throw new ResourceProcessingException("Failed to retrieve tickets by vendor");
         }
     }
 
+    /**
+     * Writes tickets as newline-delimited JSON straight from Mongo cursors, so memory use does not grow with
+     * the number of tickets. Stored tickets come first, then the tickets of allocations.
+     *
+     * @param eventId the ID of the event, or null for every event
+     * @param out     stream the tickets are written to
+     * @return number of tickets written
+     * @throws ResourceProcessingException if reading the tickets fails
+     */
+    public long exportTickets(String eventId, OutputStream out) throws IOException {
+        Query tickets = new Query().with(Sort.by(Sort.Direction.ASC, "_id")).cursorBatchSize(EXPORT_BATCH_SIZE);
+        Query allocations = new Query().with(Sort.by(Sort.Direction.ASC, "_id")).cursorBatchSize(EXPORT_BATCH_SIZE);
+        if (eventId != null) {
+            tickets.addCriteria(Criteria.where("eventId").in(EventConfiguration.storedEventIds(eventId)));
+            allocations.addCriteria(Criteria.where("eventId").in(EventConfiguration.storedEventIds(eventId)));
+        }
+        long start = System.nanoTime();
+        try (Stream<Ticket> stored = mongoTemplate.stream(tickets, Ticket.class);
+             Stream<TicketAllocation> allocated = mongoTemplate.stream(allocations, TicketAllocation.class)) {
+            long written = writeNdjson(Stream.concat(stored, allocated.flatMap(allocation -> allocation.toTickets().stream())),
+                    objectMapper, out);
+            log.info("Exported {} tickets in {} ms", written, (System.nanoTime() - start) / 1_000_000);
+            return written;
+        } catch (IOException e) {
+            // The client went away; nothing to report back
+            throw e;
+        } catch (Exception e) {
+            log.error("Error exporting tickets", e);
+            throw new ResourceProcessingException("Failed to export tickets");
+        }
+    }
+
+    /**
+     * Write one JSON document per line without flushing between tickets
+     */
+    static long writeNdjson(Stream<Ticket> tickets, ObjectMapper objectMapper, OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(Ticket.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long written = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            Iterator<Ticket> iterator = tickets.iterator();
+            while (iterator.hasNext()) {
+                writer.writeValue(generator, iterator.next());
+                generator.writeRaw('\n');
+                written++;
+            }
+        }
+        return written;
+    }
 
     /**
      * Deletes the ticket with the specified ID.
@@ -100,7 +277,15 @@ public class TicketService {
                 throw new IllegalArgumentException("Ticket ID cannot be null or empty");
             }
             log.info("Deleting ticket: {}", ticketId);
-            ticketRepository.deleteById(ticketId);
+            Ticket deleted;
+            if (TicketAllocation.isAllocatedTicketId(ticketId)) {
+                deleted = refundAllocatedTicket(ticketId);
+            } else {
+                deleted = mongoTemplate.findAndRemove(Query.query(Criteria.where("_id").is(ticketId)), Ticket.class);
+            }
+            if (deleted != null) {
+                readCache.ticketRemoved(deleted);
+            }
         } catch (Exception e) {
             log.error("Error deleting ticket: {}", ticketId, e);
             throw new ResourceProcessingException("Failed to delete ticket");
@@ -121,6 +306,14 @@ public class TicketService {
                 throw new IllegalArgumentException("Ticket ID cannot be null or empty");
             }
             log.info("Retrieving ticket: {}", ticketId);
+            if (TicketAllocation.isAllocatedTicketId(ticketId)) {
+                TicketAllocation allocation = mongoTemplate.findById(TicketAllocation.allocationIdOf(ticketId), TicketAllocation.class);
+                long serial = TicketAllocation.serialOf(ticketId);
+                if (allocation == null || !allocation.contains(serial)) {
+                    throw new ResourceNotFoundException("Ticket not found with id: " + ticketId);
+                }
+                return allocation.toTicket(serial);
+            }
             return ticketRepository.findById(ticketId).orElseThrow(() -> new ResourceNotFoundException("Ticket not found with id: " + ticketId));
         } catch (ResourceNotFoundException e) {
             throw e;
@@ -130,15 +323,17 @@ public class TicketService {
         }
     }
 
-    //get ticket by customer ID
-    public List<Ticket> getTicketsByCustomer(String customerId) {
+    //get a page of tickets by customer ID
+    public TicketPage getTicketsByCustomer(String customerId, String after, int limit) {
+        checkPageSize(limit);
         try {
             if (customerId == null || customerId.trim().isEmpty()) {
                 throw new IllegalArgumentException("Customer ID cannot be null or empty");
             }
 
-            log.info("Retrieving tickets for customer: {}", customerId);
-            return ticketRepository.findTicketsByCustomerParticipantId(customerId);
+            log.info("Retrieving tickets for customer: {} after {}", customerId, after);
+            return cachedPage(TicketReadCache.Kind.CUSTOMER, customerId, migrationService.participantCriteria("customerId", "customer", customerId),
+                    Criteria.where("customerId").is(customerId), after, limit);
         } catch (Exception e) {
             log.error("Error retrieving tickets for customer: {}", customerId, e);
             throw new ResourceProcessingException("Failed to retrieve tickets by customer");
@@ -157,10 +352,124 @@ public class TicketService {
                 throw new IllegalArgumentException("Tickets list cannot be null or empty");
             }
             log.info("Batch saving {} tickets", tickets.size());
-            ticketRepository.saveAll(tickets);
+            readCache.ticketsWritten(ticketRepository.saveAll(tickets));
         } catch (Exception e) {
             log.error("Error batch saving tickets", e);
             throw new ResourceProcessingException("Failed to batch save tickets: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    private static void checkPageSize(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new InvalidResourceOperationException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+    }
+
+    /**
+     * Serve a page of a customer's or vendor's tickets from the read cache. The cache is filled from the pages
+     * callers ask for: a first page read one ticket beyond its limit that turns out to hold the participant's
+     * whole list is cached, and one that already runs past the largest cached list marks the participant as too
+     * large, so their pages keep going straight to Mongo.
+     */
+    private TicketPage cachedPage(TicketReadCache.Kind kind, String participantId, Criteria ticketFilter, Criteria allocationFilter,
+                                  String after, int limit) {
+        if (!readCache.isEnabled()) {
+            return page(ticketFilter, allocationFilter, after, limit);
+        }
+        TicketReadCache.Lookup lookup = readCache.get(kind, participantId);
+        if (lookup.hit() && lookup.tickets() != null) {
+            return TicketReadCache.page(lookup.tickets(), after, limit);
+        }
+        if (lookup.hit() || after != null) {
+            return page(ticketFilter, allocationFilter, after, limit);
+        }
+
+        long stamp = readCache.stamp(kind, participantId);
+        List<Ticket> loaded = page(ticketFilter, allocationFilter, null, limit + 1).getTickets();
+        if (loaded.size() <= Math.min(limit, readCache.getMaxEntryTickets())) {
+            readCache.put(kind, participantId, stamp, loaded);
+        } else if (loaded.size() > readCache.getMaxEntryTickets()) {
+            readCache.put(kind, participantId, stamp, null);
+        }
+        return TicketReadCache.page(loaded, null, limit);
+    }
+
+    /**
+     * Keyset page over stored tickets and allocations, merged in ID order. The cursor is the ID of the last
+     * ticket returned; for a ticket of an allocation that is allocationId:serial, so the next page resumes
+     * inside the allocation. Both queries are range scans on _id that stop after one page.
+     */
+    private TicketPage page(Criteria ticketFilter, Criteria allocationFilter, String after, int limit) {
+        String afterId = after;
+        long afterSerial = Long.MIN_VALUE;
+        if (after != null && TicketAllocation.isAllocatedTicketId(after)) {
+            afterId = TicketAllocation.allocationIdOf(after);
+            afterSerial = TicketAllocation.serialOf(after);
+        }
+
+        List<Ticket> stored = mongoTemplate.find(pageQuery(ticketFilter, afterId, limit), Ticket.class);
+        List<TicketAllocation> allocations = new ArrayList<>();
+        if (afterSerial != Long.MIN_VALUE) {
+            TicketAllocation current = mongoTemplate.findById(afterId, TicketAllocation.class);
+            if (current != null) {
+                allocations.add(current);
+            }
+        }
+        allocations.addAll(mongoTemplate.find(pageQuery(allocationFilter, afterId, limit), TicketAllocation.class));
+
+        return mergePage(stored, allocations, afterId, afterSerial, limit);
+    }
+
+    /**
+     * Merge one page's worth of stored tickets and allocations, both in ID order
+     */
+    static TicketPage mergePage(List<Ticket> stored, List<TicketAllocation> allocations, String afterId, long afterSerial, int limit) {
+        List<Ticket> tickets = new ArrayList<>(Math.min(limit, stored.size() + allocations.size()));
+        int nextStored = 0;
+        int nextAllocation = 0;
+        while (tickets.size() < limit && (nextStored < stored.size() || nextAllocation < allocations.size())) {
+            TicketAllocation allocation = nextAllocation < allocations.size() ? allocations.get(nextAllocation) : null;
+            if (allocation == null || (nextStored < stored.size()
+                    && stored.get(nextStored).getTicketId().compareTo(allocation.getAllocationId()) < 0)) {
+                tickets.add(stored.get(nextStored++));
+                continue;
+            }
+            long firstSerial = allocation.getAllocationId().equals(afterId) ? Math.max(allocation.getFirstSerial(), afterSerial + 1) : allocation.getFirstSerial();
+            for (long serial = firstSerial; serial <= allocation.getLastSerial() && tickets.size() < limit; serial++) {
+                if (allocation.contains(serial)) {
+                    tickets.add(allocation.toTicket(serial));
+                }
+            }
+            nextAllocation++;
+        }
+        String nextCursor = tickets.size() == limit ? tickets.get(tickets.size() - 1).getTicketId() : null;
+        return new TicketPage(tickets, nextCursor);
+    }
+
+    private static Query pageQuery(Criteria filter, String afterId, int limit) {
+        Criteria criteria = afterId == null ? filter : new Criteria().andOperator(filter, Criteria.where("_id").gt(afterId));
+        return Query.query(criteria).with(Sort.by(Sort.Direction.ASC, "_id")).limit(limit);
+    }
+
+    /**
+     * Refund one seat of an allocation; the allocation is removed with its last seat
+     *
+     * @return The refunded ticket, or null if the seat was not held
+     */
+    private Ticket refundAllocatedTicket(String ticketId) {
+        String allocationId = TicketAllocation.allocationIdOf(ticketId);
+        long serial = TicketAllocation.serialOf(ticketId);
+        TicketAllocation updated = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(allocationId)
+                        .and("firstSerial").lte(serial)
+                        .and("lastSerial").gte(serial)
+                        .and("refundedSerials").ne(serial)),
+                new Update().addToSet("refundedSerials", serial),
+                FindAndModifyOptions.options().returnNew(true), TicketAllocation.class);
+        if (updated != null && updated.getActiveCount() <= 0) {
+            mongoTemplate.remove(Query.query(Criteria.where("_id").is(allocationId).and("refundedSerials").size(updated.getCount())),
+                    TicketAllocation.class);
+        }
+        return updated == null ? null : updated.toTicket(serial);
+    }
+}
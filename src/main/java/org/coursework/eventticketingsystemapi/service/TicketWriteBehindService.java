@@ -0,0 +1,323 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.coursework.eventticketingsystemapi.config.TicketPoolProperties;
+import org.coursework.eventticketingsystemapi.exception.ResourceProcessingException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Write-behind stage for ticket pool side effects.
+ * Pool operations commit in memory and enqueue a {@link PoolWriteRecord}; writer threads drain the
+ * bounded queue in batches, write each batch as a {@link PoolWriteBatch} and retry failed writes
+ * with backoff. Operations still failing after maxAttempts are moved to the {@link WriteBehindDeadLetterStore},
+ * so one bad document cannot stall the writers.
+ * <p>
+ * The queue is in memory only: records acknowledged but not yet written are lost if the process dies. Enable
+ * the pool journal to recover the counters of such operations on restart.
+ */
+@Service
+public class TicketWriteBehindService {
+    private static final Logger log = LoggerFactory.getLogger(TicketWriteBehindService.class);
+    private static final long MAX_RETRY_BACKOFF_MILLIS = 5000;
+
+    private final MongoTemplate mongoTemplate;
+    private final TicketReadCache readCache;
+    private final WriteBehindDeadLetterStore deadLetterStore;
+    private final TicketPoolProperties.WriteBehind settings;
+    private final BlockingQueue<PoolWriteRecord> queue;
+    private final List<Thread> writers = new ArrayList<>();
+    private final AtomicLong recordsWritten = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+    private final Counter deadLettered;
+    // Records accepted into the queue, and records written or dead-lettered since; see awaitSettled
+    private final AtomicLong recordsAccepted = new AtomicLong();
+    private final AtomicLong recordsSettled = new AtomicLong();
+    private final Object settledMonitor = new Object();
+    // Submitters hold the read lock from the accepting check until their record is queued, so shutdown
+    // cannot start draining while a record it would miss is still on its way in
+    private final ReadWriteLock acceptGate = new ReentrantReadWriteLock();
+    private volatile boolean accepting;
+    private volatile boolean stopping;
+
+    @Autowired
+    public TicketWriteBehindService(MongoTemplate mongoTemplate, TicketReadCache readCache, WriteBehindDeadLetterStore deadLetterStore,
+                                    TicketPoolProperties properties, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.readCache = readCache;
+        this.deadLetterStore = deadLetterStore;
+        this.settings = properties.getWriteBehind();
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, settings.getQueueCapacity()));
+        this.deadLettered = Counter.builder("ticketpool.write_behind.dead_lettered")
+                .description("Pool records whose writes were moved to the dead-letter file after repeated failures")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Start the writer threads
+     */
+    @PostConstruct
+    public void startWriters() {
+        if (!settings.isEnabled()) {
+            log.info("Write-behind disabled, pool side effects are written synchronously");
+            return;
+        }
+        for (int i = 0; i < Math.max(1, settings.getWriterThreads()); i++) {
+            Thread writer = new Thread(this::drainLoop, "WriteBehind-" + i);
+            writer.setDaemon(true);
+            writer.start();
+            writers.add(writer);
+        }
+        accepting = true;
+        log.info("Write-behind started with {} writers, queue capacity {}, flush size {}, flush interval {} ms",
+                writers.size(), settings.getQueueCapacity(), settings.getFlushSize(), settings.getFlushIntervalMillis());
+    }
+
+    /**
+     * Hand a record to the writers. Blocks while the queue is full and rejects the record once the
+     * offer timeout expires. Records submitted while write-behind is off are written immediately.
+     *
+     * @param record Side effects to persist
+     * @throws ResourceProcessingException if the queue stays full or the synchronous write fails
+     */
+    public void submit(PoolWriteRecord record) {
+        acceptGate.readLock().lock();
+        try {
+            if (accepting) {
+                enqueue(record);
+                return;
+            }
+        } finally {
+            acceptGate.readLock().unlock();
+        }
+        flush(List.of(record));
+    }
+
+    private void enqueue(PoolWriteRecord record) {
+        try {
+            if (!queue.offer(record, settings.getOfferTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("Write-behind queue full ({} records), rejecting operation", queue.size());
+                throw new ResourceProcessingException("Ticket pool is busy persisting earlier operations, please retry");
+            }
+            recordsAccepted.incrementAndGet();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResourceProcessingException("Interrupted while waiting for the write-behind queue");
+        }
+    }
+
+    public int getPendingRecords() {
+        return queue.size();
+    }
+
+    public long getRecordsWritten() {
+        return recordsWritten.get();
+    }
+
+    public long getFailedFlushes() {
+        return failedFlushes.get();
+    }
+
+    public long getDeadLetteredRecords() {
+        return (long) deadLettered.count();
+    }
+
+    /**
+     * Wait until every record accepted before this call has been written or dead-lettered
+     *
+     * @param timeoutMillis Longest time to wait
+     * @return True if they all settled in time
+     */
+    public boolean awaitSettled(long timeoutMillis) throws InterruptedException {
+        long target = recordsAccepted.get();
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (settledMonitor) {
+            while (recordsSettled.get() < target) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                settledMonitor.wait(remaining);
+            }
+        }
+        return true;
+    }
+
+    private void settle(int records) {
+        recordsSettled.addAndGet(records);
+        synchronized (settledMonitor) {
+            settledMonitor.notifyAll();
+        }
+    }
+
+    /**
+     * Writer loop: collect up to flushSize records or whatever arrived within flushInterval, then write them
+     */
+    private void drainLoop() {
+        List<PoolWriteRecord> batch = new ArrayList<>(settings.getFlushSize());
+        while (!stopping || !queue.isEmpty()) {
+            try {
+                PoolWriteRecord first = queue.poll(settings.getFlushIntervalMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(settings.getFlushIntervalMillis());
+                while (batch.size() < settings.getFlushSize()) {
+                    queue.drainTo(batch, settings.getFlushSize() - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= settings.getFlushSize() || remaining <= 0 || stopping) {
+                        break;
+                    }
+                    PoolWriteRecord next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                writeWithRetry(new PoolWriteBatch(batch));
+                settle(batch.size());
+                batch.clear();
+            } catch (InterruptedException e) {
+                log.warn("Write-behind writer interrupted, continuing until the queue is drained");
+            }
+        }
+    }
+
+    /**
+     * Write a batch on the calling thread, retrying with backoff up to maxAttempts times. Operations still
+     * failing after that are moved to the dead-letter store. An interrupt does not cut the retries short; it is
+     * restored once the batch is settled.
+     *
+     * @param batch Merged records to write
+     * @return True if everything was written, false if some operations were dead-lettered
+     */
+    public boolean writeWithRetry(PoolWriteBatch batch) {
+        long backoff = 100;
+        int maxAttempts = Math.max(1, settings.getMaxAttempts());
+        boolean interrupted = false;
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    batch.writeRemaining(mongoTemplate);
+                    updateReadCache(batch);
+                    recordsWritten.addAndGet(batch.getRecordCount());
+                    log.debug("Flushed {} pool records ({} tickets)", batch.getRecordCount(), batch.getTicketCount());
+                    return true;
+                } catch (Exception e) {
+                    failedFlushes.incrementAndGet();
+                    if (attempt >= maxAttempts) {
+                        deadLetter(batch, e.getMessage());
+                        return false;
+                    }
+                    log.error("Flush of {} pool records failed (attempt {} of {}), retrying in {} ms: {}",
+                            batch.getRecordCount(), attempt, maxAttempts, backoff, e.getMessage());
+                    try {
+                        Thread.sleep(backoff);
+                    } catch (InterruptedException ie) {
+                        interrupted = true;
+                    }
+                    backoff = Math.min(backoff * 2, MAX_RETRY_BACKOFF_MILLIS);
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Move the operations of a batch that were not written to the dead-letter store
+     */
+    private void deadLetter(PoolWriteBatch batch, String error) {
+        deadLetterStore.append(batch.pendingOperations(mongoTemplate), error);
+        deadLettered.increment(batch.getRecordCount());
+        // Part of the batch may have been written; drop cached lists rather than guess which
+        readCache.clear();
+    }
+
+    /**
+     * Merge the tickets of a written batch into the cached customer and vendor ticket lists
+     */
+    private void updateReadCache(PoolWriteBatch batch) {
+        if (readCache.isEnabled()) {
+            readCache.ticketsWritten(batch.getInsertedTickets());
+        }
+    }
+
+    /**
+     * Write records on the calling thread
+     *
+     * @param records Records to write
+     */
+    private void flush(List<PoolWriteRecord> records) {
+        try {
+            PoolWriteBatch batch = new PoolWriteBatch(records);
+            batch.writeRemaining(mongoTemplate);
+            updateReadCache(batch);
+            recordsWritten.addAndGet(records.size());
+        } catch (Exception e) {
+            log.error("Failed to persist ticket pool changes: {}", e.getMessage());
+            throw new ResourceProcessingException("Failed to persist ticket pool changes: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stop accepting new records and drain everything already acknowledged. Submissions already offering a
+     * record are waited for, so every acknowledged record is queued before draining starts. Records still queued
+     * when the timeout passes are moved to the dead-letter store; batches the writers already took are always
+     * finished, which takes at most maxAttempts retries.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (writers.isEmpty()) {
+            return;
+        }
+        acceptGate.writeLock().lock();
+        try {
+            accepting = false;
+        } finally {
+            acceptGate.writeLock().unlock();
+        }
+        stopping = true;
+        log.info("Write-behind shutting down, draining {} pending records", queue.size());
+        long deadline = System.currentTimeMillis() + settings.getShutdownTimeoutMillis();
+        try {
+            for (Thread writer : writers) {
+                writer.join(Math.max(1, deadline - System.currentTimeMillis()));
+            }
+            if (!queue.isEmpty()) {
+                List<PoolWriteRecord> remaining = new ArrayList<>();
+                queue.drainTo(remaining);
+                log.warn("Write-behind drain timed out, moving {} queued records to the dead-letter store", remaining.size());
+                PoolWriteBatch batch = new PoolWriteBatch(remaining);
+                deadLetter(batch, "Not written before shutdown");
+                settle(remaining.size());
+            }
+            // Writers still running are in the middle of a batch; wait for it rather than lose it
+            for (Thread writer : writers) {
+                writer.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Write-behind shutdown interrupted with {} records queued", queue.size());
+        }
+        log.info("Write-behind stopped. Records written: {}, dead-lettered: {}", recordsWritten.get(), getDeadLetteredRecords());
+    }
+}
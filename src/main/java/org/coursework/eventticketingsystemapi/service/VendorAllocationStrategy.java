@@ -0,0 +1,54 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * Decides which vendors a purchase claims tickets from.
+ * Each strategy keeps its own index of vendors with stock, updated by the inventory whenever a vendor's
+ * available count changes, so that choosing vendors never scans the whole pool.
+ */
+public interface VendorAllocationStrategy {
+
+    /**
+     * Notify the strategy that a vendor's available count may have changed
+     *
+     * @param slot Vendor slot that changed
+     */
+    void stockChanged(VendorTicketSlot slot);
+
+    /**
+     * Choose vendors to claim from, in claim order, until their combined stock covers the wanted count
+     *
+     * @param wanted Number of tickets wanted
+     * @return Vendor IDs in claim order
+     */
+    List<String> select(int wanted);
+
+    /**
+     * Create a strategy by its configuration name
+     *
+     * @param name round-robin, most-stock-first, oldest-release-first or weighted
+     * @return New strategy with an empty index
+     */
+    static VendorAllocationStrategy forName(String name) {
+        return forName(name, null);
+    }
+
+    /**
+     * Create a strategy by its configuration name, drawing any random choices from the given generator
+     *
+     * @param name   round-robin, most-stock-first, oldest-release-first or weighted
+     * @param random Generator for reproducible runs, or null for a thread-local one
+     * @return New strategy with an empty index
+     */
+    static VendorAllocationStrategy forName(String name, RandomGenerator random) {
+        return switch (name == null ? "round-robin" : name.trim().toLowerCase()) {
+            case "round-robin" -> new RoundRobinAllocationStrategy();
+            case "most-stock-first" -> new MostStockFirstAllocationStrategy();
+            case "oldest-release-first" -> new OldestReleaseFirstAllocationStrategy();
+            case "weighted" -> new WeightedAllocationStrategy(random);
+            default -> throw new IllegalArgumentException("Unknown vendor allocation strategy: " + name);
+        };
+    }
+}
@@ -0,0 +1,127 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reconciliation of vendor counters with the inventory.
+ * Sold counts are kept by the $inc deltas each purchase writes, so absolute counts are only written when an
+ * event is loaded and its stored counters disagree with the tickets collection. That happens while the event is
+ * quiesced and is written before any new purchase, so no delta can be counted twice or lost under a $set.
+ * The periodic pass only writes the active flags of vendors that changed, as one bulk operation.
+ */
+@Service
+public class VendorCounterSynchronizer {
+    private static final Logger log = LoggerFactory.getLogger(VendorCounterSynchronizer.class);
+
+    private final TicketWriteBehindService writeBehindService;
+    private final ParticipantRegistry participantRegistry;
+    private final Timer passDuration;
+    private final DistributionSummary vendorsWritten;
+    private volatile long lastPassMillis;
+    private volatile int lastVendorsWritten;
+
+    @Autowired
+    public VendorCounterSynchronizer(TicketWriteBehindService writeBehindService, ParticipantRegistry participantRegistry,
+                                     MeterRegistry meterRegistry) {
+        this.writeBehindService = writeBehindService;
+        this.participantRegistry = participantRegistry;
+        this.passDuration = Timer.builder("ticketpool.sync.duration")
+                .description("Time taken by one vendor counter synchronization pass")
+                .register(meterRegistry);
+        this.vendorsWritten = DistributionSummary.builder("ticketpool.sync.vendors")
+                .description("Changed vendors written per synchronization pass")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Write the sold counts of the vendors marked dirty while an event was loaded. Must run before the event takes
+     * operations again; the counts are written synchronously, so they land before any later purchase delta,
+     * including purchases written by group commit.
+     *
+     * @param inventory Freshly loaded inventory
+     * @return Number of vendors written
+     */
+    public int reconcileLoaded(TicketInventory inventory) {
+        long start = System.nanoTime();
+        List<String> dirtyVendors = inventory.drainDirtyVendors();
+        Map<String, Integer> soldTotals = new HashMap<>();
+        for (String vendorId : dirtyVendors) {
+            VendorTicketSlot slot = inventory.getVendorSlot(vendorId);
+            if (slot != null) {
+                soldTotals.put(vendorId, slot.getSold());
+            }
+        }
+
+        if (!soldTotals.isEmpty()) {
+            if (!writeBehindService.writeWithRetry(new PoolWriteBatch(List.of(PoolWriteRecord.reconcile(soldTotals, Map.of()))))) {
+                log.warn("Sold counts of {} vendors could not be reconciled and were dead-lettered", soldTotals.size());
+            }
+            soldTotals.forEach(participantRegistry::reconcileSold);
+        }
+        return record(start, soldTotals.size(), inventory);
+    }
+
+    /**
+     * Write the active flags of every vendor that changed since the last pass. Sold counts are left to the
+     * purchase deltas, so the periodic pass writes nothing unless active flags are included.
+     *
+     * @param inventory          Inventory to reconcile
+     * @param includeActiveState Set each changed vendor's active flag from its remaining stock
+     * @return Number of vendors written
+     */
+    public int synchronize(TicketInventory inventory, boolean includeActiveState) {
+        long start = System.nanoTime();
+        if (!includeActiveState) {
+            // Keep the changed vendors for the pass that writes their flags
+            return record(start, 0, inventory);
+        }
+        List<String> dirtyVendors = inventory.drainDirtyVendors();
+        Map<String, Boolean> activeStates = new HashMap<>();
+        for (String vendorId : dirtyVendors) {
+            VendorTicketSlot slot = inventory.getVendorSlot(vendorId);
+            if (slot != null) {
+                activeStates.put(vendorId, slot.getAvailable() > 0);
+            }
+        }
+
+        if (!activeStates.isEmpty()) {
+            try {
+                writeBehindService.submit(PoolWriteRecord.activeStates(activeStates));
+            } catch (RuntimeException e) {
+                // Keep the vendors dirty so the next pass picks them up again
+                dirtyVendors.forEach(inventory::markDirty);
+                throw e;
+            }
+        }
+        return record(start, activeStates.size(), inventory);
+    }
+
+    private int record(long start, int written, TicketInventory inventory) {
+        long elapsed = System.nanoTime() - start;
+        passDuration.record(elapsed, TimeUnit.NANOSECONDS);
+        vendorsWritten.record(written);
+        lastPassMillis = TimeUnit.NANOSECONDS.toMillis(elapsed);
+        lastVendorsWritten = written;
+        log.info("Vendor sync wrote {} changed vendors of {} in {} ms", written, inventory.getVendorSlots().size(), lastPassMillis);
+        return written;
+    }
+
+    public long getLastPassMillis() {
+        return lastPassMillis;
+    }
+
+    public int getLastVendorsWritten() {
+        return lastVendorsWritten;
+    }
+}
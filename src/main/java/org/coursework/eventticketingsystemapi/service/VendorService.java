@@ -18,6 +18,8 @@ public class VendorService {
 
     private final VendorRepository vendorRepository;
     private final TicketPoolService ticketPoolService;
+    private final ParticipantRegistry participantRegistry;
+    private final ParticipantRuntime participantRuntime;
 
     private final Map<String, Vendor> activeVendors = new ConcurrentHashMap<>();
 
@@ -26,11 +28,16 @@ public class VendorService {
      *
      * @param vendorRepository Repository for vendor data operations
      * @param ticketPoolService Service for managing ticket pools
+     * @param participantRegistry Live participant state used by the ticket pool
+     * @param participantRuntime  Runtime that runs the vendors' release loops
      */
     @Autowired
-    public VendorService(VendorRepository vendorRepository, TicketPoolService ticketPoolService) {
+    public VendorService(VendorRepository vendorRepository, TicketPoolService ticketPoolService, ParticipantRegistry participantRegistry,
+                         ParticipantRuntime participantRuntime) {
         this.vendorRepository = vendorRepository;
         this.ticketPoolService = ticketPoolService;
+        this.participantRegistry = participantRegistry;
+        this.participantRuntime = participantRuntime;
     }
 
     /**
@@ -132,6 +139,7 @@ public class VendorService {
         existingVendor.setTicketsPerRelease(newDetails.getTicketsPerRelease());
         existingVendor.setTicketReleaseInterval(newDetails.getTicketReleaseInterval());
         existingVendor.setTicketsToSell(newDetails.getTicketsToSell());
+        existingVendor.setEventId(newDetails.getEventId());
         existingVendor.setTicketsReleased(0);
         existingVendor.setTotalTicketsSold(0);
 
@@ -160,8 +168,9 @@ public class VendorService {
     private Vendor saveAndStartVendor(Vendor vendor) {
         initializeVendorServices(vendor);
         Vendor savedVendor = vendorRepository.save(vendor);
+        participantRegistry.registerVendor(savedVendor);
         activeVendors.put(savedVendor.getParticipantId(), savedVendor);
-        startVendorThread(savedVendor);
+        startVendorRunner(savedVendor);
         return savedVendor;
     }
 
@@ -175,21 +184,20 @@ public class VendorService {
     }
 
     /**
-     * Starts a new thread for a vendor to manage ticket sales.
+     * Starts a vendor's release loop in the participant runtime.
      *
-     * @param vendor Vendor whose thread is to be started
-     * @throws ResourceProcessingException If thread start fails
+     * @param vendor Vendor to start
+     * @throws ResourceProcessingException If the vendor cannot be started
      */
-    private void startVendorThread(Vendor vendor) {
+    private void startVendorRunner(Vendor vendor) {
         try {
             vendor.startVendor();
-            Thread vendorThread = new Thread(vendor);
-            vendorThread.setName("Vendor-" + vendor.getParticipantId());
-            vendorThread.start();
-            log.info("Vendor {} thread started successfully", vendor.getParticipantId());
+            if (participantRuntime.start(vendor)) {
+                log.info("Vendor {} started successfully", vendor.getParticipantId());
+            }
         } catch (Exception e) {
-            log.error("Error starting vendor thread {}: {}", vendor.getParticipantId(), e.getMessage(), e);
-            throw new ResourceProcessingException("Failed to start vendor thread");
+            log.error("Error starting vendor {}: {}", vendor.getParticipantId(), e.getMessage(), e);
+            throw new ResourceProcessingException("Failed to start vendor");
         }
     }
 
@@ -207,8 +215,11 @@ public class VendorService {
 
             vendor.stopVendor();
             vendor.setActive(false);
+            // The running loop belongs to the instance that was started, not the one just loaded
+            participantRuntime.stop(vendorId);
 
             vendorRepository.save(vendor);
+            participantRegistry.updateVendorDetails(vendor);
             activeVendors.remove(vendorId);
 
             log.info("Vendor {} successfully deactivated. Final tickets sold: {}",
@@ -230,9 +241,10 @@ public class VendorService {
         Vendor vendor = getVendorById(vendorId);
         vendor.setActive(true);
         vendorRepository.save(vendor);
+        participantRegistry.updateVendorDetails(vendor);
         vendor.setTicketPoolService(ticketPoolService);
         activeVendors.put(vendor.getParticipantId(), vendor);
-        startVendorThread(vendor);
+        startVendorRunner(vendor);
         log.info("Successfully reactivated vendor: {}", vendorId);
     }
 
@@ -250,6 +262,7 @@ public class VendorService {
                     .orElseThrow(() -> new IllegalArgumentException("Vendor not found with name: " + vendorName));
             deactivateVendor(vendor.getParticipantId());
             vendorRepository.delete(vendor);
+            participantRegistry.removeVendor(vendor.getParticipantId());
 
             log.info("Vendor {} successfully deleted", vendorName);
         } catch (Exception e) {
@@ -324,7 +337,9 @@ public class VendorService {
             existingVendor.setTicketReleaseInterval(vendor.getTicketReleaseInterval());
             existingVendor.setTicketsToSell(vendor.getTicketsToSell());
 
-            return vendorRepository.save(existingVendor);
+            Vendor savedVendor = vendorRepository.save(existingVendor);
+            participantRegistry.updateVendorDetails(savedVendor);
+            return savedVendor;
         } catch (Exception e) {
             log.error("Error updating vendor {}: {}", vendorName, e.getMessage(), e);
             throw new ResourceProcessingException("Failed to update vendor");
@@ -0,0 +1,170 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free stock slot for a single vendor.
+ * The available and sold counters are packed into one long so that both can be
+ * checked against the vendor's ticketsToSell limit and updated with a single CAS.
+ * Held tickets are counted as sold in the packed state, so they still count against the limit,
+ * and are tracked separately until they are confirmed or returned.
+ */
+public class VendorTicketSlot {
+    private static final long LOW_MASK = 0xFFFFFFFFL;
+
+    private final String vendorId;
+    private final AtomicLong state;
+    private final AtomicInteger held = new AtomicInteger();
+    private volatile int ticketsToSell;
+
+    public VendorTicketSlot(String vendorId, int ticketsToSell, int available, int sold) {
+        this.vendorId = vendorId;
+        this.ticketsToSell = ticketsToSell;
+        this.state = new AtomicLong(pack(available, sold));
+    }
+
+    public String getVendorId() {
+        return vendorId;
+    }
+
+    public int getTicketsToSell() {
+        return ticketsToSell;
+    }
+
+    public void setTicketsToSell(int ticketsToSell) {
+        this.ticketsToSell = ticketsToSell;
+    }
+
+    public int getAvailable() {
+        return available(state.get());
+    }
+
+    /**
+     * Get the number of tickets sold, excluding tickets that are only held
+     */
+    public int getSold() {
+        return Math.max(0, sold(state.get()) - held.get());
+    }
+
+    public int getHeld() {
+        return held.get();
+    }
+
+    /**
+     * Add released tickets to the slot if sold + available + count stays within the vendor limit
+     *
+     * @param count Number of tickets to release
+     * @return True if the tickets were added
+     */
+    public boolean tryRelease(int count) {
+        while (true) {
+            long current = state.get();
+            int available = available(current);
+            int sold = sold(current);
+            if ((long) available + sold + count > ticketsToSell) {
+                return false;
+            }
+            if (state.compareAndSet(current, pack(available + count, sold))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Check whether a release would fit the vendor limit without changing the slot
+     *
+     * @param count Number of tickets to release
+     * @return True if the release currently fits
+     */
+    public boolean canRelease(int count) {
+        long current = state.get();
+        return (long) available(current) + sold(current) + count <= ticketsToSell;
+    }
+
+    /**
+     * Move up to max tickets from available to sold
+     *
+     * @param max Maximum number of tickets to claim
+     * @return Number of tickets actually claimed
+     */
+    public int claim(int max) {
+        while (true) {
+            long current = state.get();
+            int available = available(current);
+            int claimed = Math.min(available, max);
+            if (claimed <= 0) {
+                return 0;
+            }
+            if (state.compareAndSet(current, pack(available - claimed, sold(current) + claimed))) {
+                return claimed;
+            }
+        }
+    }
+
+    /**
+     * Move up to max tickets from available to held
+     *
+     * @param max Maximum number of tickets to hold
+     * @return Number of tickets actually held
+     */
+    public int hold(int max) {
+        int claimed = claim(max);
+        if (claimed > 0) {
+            held.addAndGet(claimed);
+        }
+        return claimed;
+    }
+
+    /**
+     * Turn held tickets into sold tickets
+     *
+     * @param count Number of held tickets to confirm
+     */
+    public void confirmHeld(int count) {
+        held.addAndGet(-count);
+    }
+
+    /**
+     * Return held tickets to the available count
+     *
+     * @param count Number of held tickets to return
+     */
+    public void returnHeld(int count) {
+        while (true) {
+            long current = state.get();
+            if (state.compareAndSet(current, pack(available(current) + count, sold(current) - count))) {
+                break;
+            }
+        }
+        held.addAndGet(-count);
+    }
+
+    /**
+     * Adjust the available count directly, used for manual corrections
+     *
+     * @param delta Number of tickets to add (may be negative)
+     * @return The change actually applied, as the available count never drops below zero
+     */
+    public int adjustAvailable(int delta) {
+        while (true) {
+            long current = state.get();
+            int available = Math.max(0, available(current) + delta);
+            if (state.compareAndSet(current, pack(available, sold(current)))) {
+                return available - available(current);
+            }
+        }
+    }
+
+    private static long pack(int available, int sold) {
+        return ((long) available << 32) | (sold & LOW_MASK);
+    }
+
+    private static int available(long state) {
+        return (int) (state >>> 32);
+    }
+
+    private static int sold(long state) {
+        return (int) (state & LOW_MASK);
+    }
+}
@@ -0,0 +1,156 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.random.RandomGenerator;
+
+/**
+ * Picks vendors at random, weighted by their current stock.
+ * Weights live in a Fenwick tree indexed by vendor, so updating a weight and sampling are both O(log n).
+ * The tree is updated with atomic adds, so stock changes and selections never wait on each other; a selection
+ * that races an update may pick a vendor that just sold out, which the claim then simply skips. Only the first
+ * stock change of a vendor takes a lock, to give it a position and grow the tree when it is full.
+ */
+public class WeightedAllocationStrategy implements VendorAllocationStrategy {
+    private final Map<VendorTicketSlot, Integer> positions = new ConcurrentHashMap<>();
+    private final Object registrationLock = new Object();
+    private volatile Index index = new Index(64);
+    // Guarded by registrationLock
+    private int registered;
+    // Seeded generator for reproducible runs; null samples from the calling thread's generator
+    private final RandomGenerator random;
+
+    /**
+     * One generation of the tree; replaced by a larger copy when it runs out of positions
+     */
+    private static final class Index {
+        private final AtomicLongArray tree;
+        private final AtomicLongArray weights;
+        private final AtomicReferenceArray<VendorTicketSlot> slots;
+        private final AtomicLong totalWeight = new AtomicLong();
+
+        Index(int size) {
+            tree = new AtomicLongArray(size);
+            weights = new AtomicLongArray(size);
+            slots = new AtomicReferenceArray<>(size);
+        }
+
+        int size() {
+            return tree.length();
+        }
+    }
+
+    public WeightedAllocationStrategy() {
+        this(null);
+    }
+
+    public WeightedAllocationStrategy(RandomGenerator random) {
+        this.random = random;
+    }
+
+    @Override
+    public void stockChanged(VendorTicketSlot slot) {
+        Integer position = positions.get(slot);
+        if (position == null) {
+            position = register(slot);
+        }
+        Index current = index;
+        while (true) {
+            refresh(current, position, slot);
+            // A concurrent grow may have copied the old weight; refresh the new tree as well
+            Index latest = index;
+            if (latest == current) {
+                return;
+            }
+            current = latest;
+        }
+    }
+
+    @Override
+    public List<String> select(int wanted) {
+        Index current = index;
+        List<String> selected = new ArrayList<>();
+        Set<Integer> picked = new HashSet<>();
+        int covered = 0;
+        // Sample without replacement; give up after a few misses on an almost empty pool
+        for (int attempt = 0; covered < wanted && attempt < 4 * wanted + 4; attempt++) {
+            long total = current.totalWeight.get();
+            if (total <= 0) {
+                break;
+            }
+            int position = find(current, (random != null ? random : ThreadLocalRandom.current()).nextLong(total));
+            VendorTicketSlot slot = position < current.size() ? current.slots.get(position) : null;
+            long weight = slot == null ? 0 : current.weights.get(position);
+            if (weight > 0 && picked.add(position)) {
+                selected.add(slot.getVendorId());
+                covered += (int) weight;
+            }
+        }
+        return selected;
+    }
+
+    private int register(VendorTicketSlot slot) {
+        synchronized (registrationLock) {
+            Integer existing = positions.get(slot);
+            if (existing != null) {
+                return existing;
+            }
+            int position = registered++;
+            Index current = index;
+            if (position + 1 >= current.size()) {
+                Index grown = new Index(current.size() * 2);
+                for (int i = 0; i < position; i++) {
+                    grown.slots.set(i, current.slots.get(i));
+                }
+                index = grown;
+                for (int i = 0; i < position; i++) {
+                    refresh(grown, i, grown.slots.get(i));
+                }
+                current = grown;
+            }
+            current.slots.set(position, slot);
+            positions.put(slot, position);
+            return position;
+        }
+    }
+
+    /**
+     * Set a position's weight to its vendor's current stock. The stock is read again after the weight is set,
+     * so when two updates race the last one to finish always leaves the latest stock behind.
+     */
+    private static void refresh(Index index, int position, VendorTicketSlot slot) {
+        long weight;
+        do {
+            weight = Math.max(0, slot.getAvailable());
+            long delta = weight - index.weights.getAndSet(position, weight);
+            if (delta != 0) {
+                index.totalWeight.addAndGet(delta);
+                for (int i = position + 1; i < index.size(); i += i & -i) {
+                    index.tree.addAndGet(i, delta);
+                }
+            }
+        } while (weight != Math.max(0, slot.getAvailable()));
+    }
+
+    /**
+     * Find the position whose cumulative weight range contains the target
+     */
+    private static int find(Index index, long target) {
+        int position = 0;
+        for (int step = Integer.highestOneBit(index.size() - 1); step > 0; step >>= 1) {
+            int next = position + step;
+            if (next < index.size()) {
+                long weight = index.tree.get(next);
+                if (weight <= target) {
+                    position = next;
+                    target -= weight;
+                }
+            }
+        }
+        return position;
+    }
+}
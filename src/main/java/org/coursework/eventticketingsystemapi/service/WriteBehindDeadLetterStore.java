@@ -0,0 +1,73 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import org.bson.Document;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+import org.coursework.eventticketingsystemapi.config.TicketPoolProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Keeps write-behind operations that could not be written to Mongo, one extended JSON document per line.
+ * Each line names the collection, the operation and the document or update, so it can be re-applied once the
+ * cause is fixed. If the file cannot be written either, the operations are logged in full instead.
+ */
+@Service
+public class WriteBehindDeadLetterStore {
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindDeadLetterStore.class);
+    private static final JsonWriterSettings JSON = JsonWriterSettings.builder().outputMode(JsonMode.EXTENDED).build();
+
+    private final Path file;
+
+    @Autowired
+    public WriteBehindDeadLetterStore(TicketPoolProperties properties) {
+        this(Path.of(properties.getWriteBehind().getDeadLetterFile()));
+    }
+
+    WriteBehindDeadLetterStore(Path file) {
+        this.file = file;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Append operations that failed to write
+     *
+     * @param operations Operations from {@link PoolWriteBatch#pendingOperations}
+     * @param error      Last error of the write
+     */
+    public synchronized void append(List<Document> operations, String error) {
+        if (operations.isEmpty()) {
+            return;
+        }
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE)) {
+                for (Document operation : operations) {
+                    writer.write(new Document(operation).append("error", error).append("failedAt", System.currentTimeMillis()).toJson(JSON));
+                    writer.write('\n');
+                }
+            }
+            log.error("Moved {} write-behind operations to {}: {}", operations.size(), file, error);
+        } catch (IOException e) {
+            log.error("Could not write {} dead-lettered operations to {}: {}", operations.size(), file, e.getMessage());
+            operations.forEach(operation -> log.error("Lost write-behind operation: {}", operation.toJson(JSON)));
+        }
+    }
+}
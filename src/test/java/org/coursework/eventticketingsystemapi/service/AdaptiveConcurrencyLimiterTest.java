@@ -0,0 +1,62 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTest {
+    private static final long BASE_RTT_NANOS = 2_000_000;
+
+    @Test
+    void limitSettlesJustAboveWhatTheServiceAbsorbs() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("write", 20, 4, 1000);
+        runOverload(limiter, 50, 2_000);
+        assertThat(limiter.getLimit()).isBetween(50, 75);
+        assertThat(limiter.getRejected()).isPositive();
+
+        // The service slows down; the limit follows it down instead of queueing more work
+        runOverload(limiter, 10, 2_000);
+        assertThat(limiter.getLimit()).isBetween(10, 25);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    void failuresBackOffAndBoundsHold() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("write", 100, 4, 200);
+        for (int i = 0; i < 100; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+            limiter.onDropped();
+        }
+        assertThat(limiter.getLimit()).isEqualTo(4);
+
+        runOverload(limiter, 1_000, 2_000);
+        assertThat(limiter.getLimit()).isEqualTo(200);
+        assertThat(limiter.retryAfterSeconds()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    void idleServiceDoesNotInflateTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("read", 50, 10, 500);
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+            limiter.onSuccess(BASE_RTT_NANOS);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(50);
+    }
+
+    /**
+     * Offer far more requests than the limit each round; latency grows once more than capacity run at once
+     */
+    private static void runOverload(AdaptiveConcurrencyLimiter limiter, int capacity, int rounds) {
+        for (int round = 0; round < rounds; round++) {
+            int admitted = 0;
+            while (admitted < 5 * capacity && limiter.tryAcquire()) {
+                admitted++;
+            }
+            long rtt = BASE_RTT_NANOS * Math.max(capacity, admitted) / capacity;
+            for (int i = 0; i < admitted; i++) {
+                limiter.onSuccess(rtt);
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AvailabilitySignalTest {
+
+    @Test
+    void releaseWakesOnlyAsManyWaitersAsItCanServe() {
+        AvailabilitySignal signal = new AvailabilitySignal();
+        List<AvailabilitySignal.Waiter> waiters = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            waiters.add(signal.await(2, () -> 0));
+        }
+        waiters.get(1).cancel();
+
+        assertThat(signal.signal(10)).isEqualTo(5);
+        // Arrival order, skipping the cancelled waiter
+        assertThat(waiters.subList(0, 7)).extracting(waiter -> waiter.getFuture().getNow(null))
+                .containsExactly(true, false, true, true, true, true, null);
+        assertThat(signal.getWaiting()).isEqualTo(94);
+
+        signal.releaseAll();
+        assertThat(waiters).allMatch(waiter -> waiter.getFuture().isDone());
+        assertThat(signal.getWaiting()).isZero();
+    }
+
+    @Test
+    void waiterRegisteredAfterReleaseIsServedImmediately() throws Exception {
+        AvailabilitySignal signal = new AvailabilitySignal();
+        assertThat(signal.await(1, () -> 3, 1_000)).isTrue();
+        assertThat(signal.await(1, () -> 0, 10)).isFalse();
+        assertThat(signal.getWaiting()).isZero();
+    }
+
+    @Test
+    void parkedCustomersBuyEveryReleasedTicket() throws Exception {
+        TicketInventory inventory = new TicketInventory(Integer.MAX_VALUE);
+        int customers = 200;
+        int releases = 400;
+        AtomicInteger purchased = new AtomicInteger();
+        AtomicInteger wakeUps = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(customers);
+        CountDownLatch done = new CountDownLatch(customers);
+        for (int c = 0; c < customers; c++) {
+            String customerId = "customer-" + c;
+            executor.execute(() -> {
+                int[] claimed = new int[4];
+                try {
+                    while (purchased.get() < releases) {
+                        List<String> vendors = inventory.selectVendors(1);
+                        if (!vendors.isEmpty() && inventory.purchase(customerId, 1, Integer.MAX_VALUE, vendors, claimed) > 0) {
+                            purchased.incrementAndGet();
+                            continue;
+                        }
+                        if (inventory.getAvailabilitySignal().await(1, inventory.getAvailableTickets()::get, 100)) {
+                            wakeUps.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        for (int i = 0; i < releases; i++) {
+            inventory.release("vendor-" + (i % 10), Integer.MAX_VALUE, 1);
+            Thread.sleep(0, 100_000);
+        }
+        assertThat(done.await(30, TimeUnit.SECONDS)).isTrue();
+        executor.shutdown();
+
+        assertThat(purchased.get()).isEqualTo(releases);
+        assertThat(inventory.getAvailableTickets().get()).isZero();
+        // One-ticket releases wake about one customer each instead of all of them
+        assertThat(wakeUps.get()).isLessThan(releases * 3);
+    }
+}
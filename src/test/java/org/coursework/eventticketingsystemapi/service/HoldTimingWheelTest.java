@@ -0,0 +1,49 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HoldTimingWheelTest {
+    private static final long TICK = 10;
+
+    @Test
+    void holdsExpireOnTheirTickAcrossLevels() {
+        HoldTimingWheel wheel = new HoldTimingWheel(TICK, 8, 3, 0);
+        Random random = new Random(42);
+        List<TicketHold> holds = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            // Spans all three levels and the overflow beyond the top level
+            long expiresAt = TICK + random.nextInt(12_000) * TICK;
+            TicketHold hold = hold("hold-" + i, expiresAt);
+            holds.add(hold);
+            assertThat(wheel.schedule(hold)).isTrue();
+        }
+
+        List<Long> lateBy = new ArrayList<>();
+        for (long now = 0; now <= 12_100 * TICK; now += TICK) {
+            long currentNow = now;
+            wheel.advanceTo(now, hold -> lateBy.add(currentNow - hold.getExpiresAtMillis()));
+        }
+
+        assertThat(lateBy).hasSize(holds.size());
+        assertThat(lateBy).allMatch(late -> late >= 0 && late < TICK);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void dueHoldsAreNotScheduled() {
+        HoldTimingWheel wheel = new HoldTimingWheel(TICK, 8, 3, 1_000);
+        assertThat(wheel.schedule(hold("past", 500))).isFalse();
+        assertThat(wheel.schedule(hold("now", 1_005))).isFalse();
+        assertThat(wheel.schedule(hold("next", 1_010))).isTrue();
+    }
+
+    private static TicketHold hold(String id, long expiresAt) {
+        return new TicketHold(id, "event", "customer", List.of("vendor"), new int[]{1}, expiresAt, null);
+    }
+}
@@ -0,0 +1,226 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.ConnectionString;
+import com.mongodb.DBRef;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.coursework.eventticketingsystemapi.config.TicketPoolProperties;
+import org.coursework.eventticketingsystemapi.model.Customer;
+import org.coursework.eventticketingsystemapi.model.Ticket;
+import org.coursework.eventticketingsystemapi.model.TicketAllocation;
+import org.coursework.eventticketingsystemapi.model.Vendor;
+import org.coursework.eventticketingsystemapi.repository.CustomerRepository;
+import org.coursework.eventticketingsystemapi.repository.TicketRepository;
+import org.coursework.eventticketingsystemapi.repository.VendorRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class IndexBootstrapServiceTest {
+    private static final Set<String> QUERY_COMMANDS = Set.of("find", "aggregate", "count", "distinct", "findAndModify");
+
+    @Test
+    void everyQueriedCollectionHasIndexDefinitions() {
+        MongoClient client = MongoClients.create("mongodb://localhost:27017");
+        try {
+            IndexBootstrapService bootstrap = new IndexBootstrapService(new MongoTemplate(client, "unused"), new TicketPoolProperties());
+            Map<String, List<IndexDefinition>> definitions = bootstrap.definitions();
+            assertThat(definitions).containsKeys("tickets", "ticket_allocations", "customers", "vendors",
+                    MongoQuotaAuthority.QUOTAS, MongoQuotaAuthority.LEASES, MongoSerialBlockStore.BLOCKS);
+
+            Document vendorEmail = options(definitions.get("vendors"), "email_ci");
+            assertThat(vendorEmail).containsEntry("unique", true).containsEntry("sparse", true);
+            assertThat(vendorEmail.get("collation", Document.class)).containsEntry("locale", "en").containsEntry("strength", 2);
+            assertThat(options(definitions.get("customers"), "name_ci")).containsKey("collation");
+            assertThat(options(definitions.get("customers"), "email")).doesNotContainKey("collation");
+            assertThat(definitions.get("tickets")).anySatisfy(index ->
+                    assertThat(index.getIndexKeys()).containsOnlyKeys("vendor.$id"));
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    void repositoryAndServiceQueriesNeverScanCollectionsAgainstLocalMongo() {
+        List<BsonDocument> commands = new ArrayList<>();
+        MongoClient client = MongoClients.create(MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString("mongodb://localhost:27017"))
+                .applyToClusterSettings(cluster -> cluster.serverSelectionTimeout(500, TimeUnit.MILLISECONDS))
+                .addCommandListener(new CommandListener() {
+                    @Override
+                    public void commandStarted(CommandStartedEvent event) {
+                        if (QUERY_COMMANDS.contains(event.getCommandName())) {
+                            synchronized (commands) {
+                                commands.add(event.getCommand().clone());
+                            }
+                        }
+                    }
+                })
+                .build());
+        try {
+            MongoTemplate mongoTemplate = new MongoTemplate(client, "EventTicketingSystemIndexTest");
+            try {
+                mongoTemplate.executeCommand("{ping: 1}");
+            } catch (Exception e) {
+                assumeTrue(false, "No local Mongo available");
+            }
+            mongoTemplate.getDb().drop();
+            TicketPoolProperties properties = new TicketPoolProperties();
+            IndexBootstrapService bootstrap = new IndexBootstrapService(mongoTemplate, properties);
+            int expected = bootstrap.definitions().values().stream().mapToInt(List::size).sum();
+            assertThat(bootstrap.ensureIndexes()).isEqualTo(expected);
+            // A second run finds every index in place
+            assertThat(bootstrap.ensureIndexes()).isEqualTo(expected);
+
+            MongoRepositoryFactory repositories = new MongoRepositoryFactory(mongoTemplate);
+            VendorRepository vendorRepository = repositories.getRepository(VendorRepository.class);
+            CustomerRepository customerRepository = repositories.getRepository(CustomerRepository.class);
+            TicketRepository ticketRepository = repositories.getRepository(TicketRepository.class);
+
+            Vendor vendor = new Vendor("Vendor One", "Vendor@Example.com", "secret", 5, 1, 100);
+            vendor.setEventId("event");
+            vendor.setActive(true);
+            vendor = vendorRepository.save(vendor);
+            Customer customer = new Customer("Customer One", "customer@example.com", "secret", 10, 1);
+            customer.setEventId("event");
+            customer.setActive(true);
+            customer = customerRepository.save(customer);
+            ticketRepository.save(new Ticket("event", vendor, customer));
+            mongoTemplate.insert(new Document("eventId", "event")
+                    .append("vendor", new DBRef("vendors", new ObjectId(vendor.getParticipantId())))
+                    .append("customer", new DBRef("customers", new ObjectId(customer.getParticipantId()))), "tickets");
+            mongoTemplate.insert(new TicketAllocation("event", vendor, customer, 1, 5));
+            mongoTemplate.insert(new Document("_id", "event:" + vendor.getParticipantId()).append("eventId", "event")
+                    .append("vendorId", vendor.getParticipantId()).append("remaining", 10), MongoQuotaAuthority.QUOTAS);
+            mongoTemplate.insert(new Document("_id", "block-1").append("eventId", "event").append("vendorId", vendor.getParticipantId())
+                    .append("nodeId", "node-1").append("first", 100L).append("last", 199L), MongoSerialBlockStore.BLOCKS);
+            synchronized (commands) {
+                commands.clear();
+            }
+
+            // Every query method of the repositories
+            assertThat(vendorRepository.findByEmailIgnoreCase("vendor@example.com")).isPresent();
+            assertThat(vendorRepository.findByNameIgnoreCase("VENDOR ONE")).isPresent();
+            assertThat(vendorRepository.findByIsActive(true)).hasSize(1);
+            assertThat(vendorRepository.findByIsActiveAndEventIdIn(true, List.of("event"))).hasSize(1);
+            assertThat(customerRepository.findByEmail("customer@example.com")).isPresent();
+            assertThat(customerRepository.findByNameIgnoreCase("customer one")).isPresent();
+            assertThat(customerRepository.findByIsActive(true)).hasSize(1);
+            assertThat(customerRepository.findByIsActiveAndEventIdIn(true, List.of("event"))).hasSize(1);
+
+            // Ticket queries, including the DBRef matches used while the migration runs
+            TicketPoolProperties.TicketCache noCache = new TicketPoolProperties.TicketCache();
+            noCache.setEnabled(false);
+            TicketMigrationService migration = new TicketMigrationService(mongoTemplate, properties);
+            TicketService ticketService = new TicketService(ticketRepository, mongoTemplate, migration, new ObjectMapper(),
+                    new TicketReadCache(noCache, System::currentTimeMillis));
+            assertThat(ticketService.getTicketsByVendor(vendor.getParticipantId(), null, 100).getTickets()).hasSize(7);
+            assertThat(ticketService.getTicketsByCustomer(customer.getParticipantId(), null, 100).getTickets()).hasSize(7);
+            assertThat(ticketService.getTicketsByEvent("event", null, 100).getTickets()).hasSize(7);
+            assertThat(ticketService.countTicketsSoldByVendor(vendor)).isEqualTo(7);
+            assertThat(ticketService.countTicketsSoldPerVendor("event")).containsEntry(vendor.getParticipantId(), 7);
+            assertThat(migration.migrateBatch()).isEqualTo(1);
+
+            // Stores that write plain documents
+            assertThat(new MongoQuotaAuthority(mongoTemplate).vendorsWithQuota("event", 10)).containsExactly(vendor.getParticipantId());
+            new MongoQuotaAuthority(mongoTemplate).reclaimExpired(System.currentTimeMillis());
+            new MongoSerialBlockStore(mongoTemplate).reclaim("node-1");
+
+            List<BsonDocument> queries;
+            synchronized (commands) {
+                queries = commands.stream().filter(IndexBootstrapServiceTest::hasFilter).toList();
+            }
+            assertThat(queries).hasSizeGreaterThan(20);
+            List<String> scans = new ArrayList<>();
+            for (BsonDocument query : queries) {
+                Document plan = mongoTemplate.getDb().runCommand(new BsonDocument("explain", explainable(query))
+                        .append("verbosity", new BsonString("queryPlanner")));
+                if (collectionScan(plan.toBsonDocument())) {
+                    scans.add(query.toJson());
+                }
+            }
+            assertThat(scans).as("Queries answered with a collection scan").isEmpty();
+            mongoTemplate.getDb().drop();
+        } finally {
+            client.close();
+        }
+    }
+
+    private static Document options(List<IndexDefinition> indexes, String name) {
+        return indexes.stream().map(IndexDefinition::getIndexOptions)
+                .filter(options -> name.equals(options.get("name")))
+                .findFirst().orElseThrow();
+    }
+
+    /**
+     * Queries without a filter read the whole collection by design
+     */
+    private static boolean hasFilter(BsonDocument command) {
+        String name = command.getFirstKey();
+        return switch (name) {
+            case "find" -> !command.getDocument("filter", new BsonDocument()).isEmpty();
+            case "findAndModify", "count", "distinct" -> !command.getDocument("query", new BsonDocument()).isEmpty();
+            case "aggregate" -> {
+                BsonArray pipeline = command.getArray("pipeline");
+                yield !pipeline.isEmpty() && !pipeline.get(0).asDocument().getDocument("$match", new BsonDocument()).isEmpty();
+            }
+            default -> false;
+        };
+    }
+
+    /**
+     * The command as sent, without the session and routing fields the driver adds
+     */
+    private static BsonDocument explainable(BsonDocument command) {
+        BsonDocument copy = new BsonDocument();
+        command.forEach((key, value) -> {
+            if (!key.startsWith("$") && !key.equals("lsid") && !key.equals("txnNumber")) {
+                copy.append(key, value);
+            }
+        });
+        return copy;
+    }
+
+    private static boolean collectionScan(BsonValue value) {
+        if (value.isDocument()) {
+            for (Map.Entry<String, BsonValue> entry : value.asDocument().entrySet()) {
+                if (entry.getKey().equals("rejectedPlans")) {
+                    continue;
+                }
+                if (entry.getKey().equals("stage") && entry.getValue().isString() && entry.getValue().asString().getValue().equals("COLLSCAN")) {
+                    return true;
+                }
+                if (collectionScan(entry.getValue())) {
+                    return true;
+                }
+            }
+        } else if (value.isArray()) {
+            for (BsonValue element : value.asArray()) {
+                if (collectionScan(element)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,126 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.coursework.eventticketingsystemapi.config.TicketPoolProperties;
+import org.coursework.eventticketingsystemapi.model.Participant;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ParticipantRuntimeTest {
+    private final ParticipantRuntime runtime = newRuntime();
+
+    @AfterEach
+    void shutdown() {
+        runtime.shutdown();
+    }
+
+    @Test
+    void manyParticipantsRunOnAFewThreadsWithoutOverlappingSteps() throws Exception {
+        int participants = 20_000;
+        int stepsEach = 10;
+        CountDownLatch stopped = new CountDownLatch(participants);
+        AtomicBoolean overlapped = new AtomicBoolean();
+        List<CountingParticipant> started = new ArrayList<>();
+        for (int i = 0; i < participants; i++) {
+            CountingParticipant participant = new CountingParticipant("participant-" + i, stopped, overlapped,
+                    () -> ParticipantStep.after(1), stepsEach);
+            assertThat(runtime.start(participant)).isTrue();
+            started.add(participant);
+        }
+        assertThat(runtime.getLiveParticipants()).isPositive();
+        long participantThreads = Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().startsWith("Participant")).count();
+
+        assertThat(stopped.await(60, TimeUnit.SECONDS)).isTrue();
+        assertThat(overlapped).isFalse();
+        assertThat(started).allMatch(participant -> participant.steps.get() == stepsEach && participant.stops.get() == 1);
+        assertThat(participantThreads).isLessThanOrEqualTo(5);
+        assertThat(runtime.getLiveParticipants()).isZero();
+    }
+
+    @Test
+    void signalWakesAParkedParticipantAndStopEndsItOnce() throws Exception {
+        AvailabilitySignal signal = new AvailabilitySignal();
+        CountDownLatch stopped = new CountDownLatch(1);
+        CountingParticipant participant = new CountingParticipant("customer", stopped, new AtomicBoolean(),
+                () -> ParticipantStep.await(signal.await(1, () -> 0), 60_000), Integer.MAX_VALUE);
+        runtime.start(participant);
+
+        awaitCondition(() -> signal.getWaiting() == 1);
+        // A second start of a running participant must not create a second loop
+        assertThat(runtime.start(participant)).isFalse();
+        assertThat(signal.signal(1)).isEqualTo(1);
+        awaitCondition(() -> participant.steps.get() == 2 && signal.getWaiting() == 1);
+
+        runtime.stop(participant.getParticipantId());
+        assertThat(stopped.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(signal.getWaiting()).isZero();
+        assertThat(participant.stops.get()).isEqualTo(1);
+        assertThat(runtime.isRunning(participant.getParticipantId())).isFalse();
+
+        // A stopped participant can be started again and gets a fresh loop
+        assertThat(runtime.start(participant)).isTrue();
+        awaitCondition(() -> participant.steps.get() == 3);
+    }
+
+    private static ParticipantRuntime newRuntime() {
+        TicketPoolProperties properties = new TicketPoolProperties();
+        properties.getParticipants().setWorkerThreads(4);
+        return new ParticipantRuntime(properties, new SimpleMeterRegistry());
+    }
+
+    private static void awaitCondition(Supplier<Boolean> condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.get()) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    private static class CountingParticipant extends Participant {
+        private final CountDownLatch stopped;
+        private final AtomicBoolean overlapped;
+        private final Supplier<ParticipantStep> next;
+        private final int maxSteps;
+        private final AtomicBoolean inStep = new AtomicBoolean();
+        private final AtomicInteger steps = new AtomicInteger();
+        private final AtomicInteger stops = new AtomicInteger();
+
+        CountingParticipant(String name, CountDownLatch stopped, AtomicBoolean overlapped, Supplier<ParticipantStep> next, int maxSteps) {
+            super(name, name + "@example.com", "secret");
+            setParticipantId(name);
+            this.stopped = stopped;
+            this.overlapped = overlapped;
+            this.next = next;
+            this.maxSteps = maxSteps;
+        }
+
+        @Override
+        public ParticipantStep step() {
+            if (!inStep.compareAndSet(false, true)) {
+                overlapped.set(true);
+            }
+            try {
+                return steps.incrementAndGet() >= maxSteps ? ParticipantStep.finished() : next.get();
+            } finally {
+                inStep.set(false);
+            }
+        }
+
+        @Override
+        public void onStopped() {
+            stops.incrementAndGet();
+            stopped.countDown();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import org.coursework.eventticketingsystemapi.config.TicketPoolProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PoolJournalTest {
+    private static final String EVENT = "event";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void reopenedJournalRecoversCountersAndContinuesSequence() {
+        PoolJournal journal = open(1 << 20, "interval");
+        journal.append(JournalRecord.vendorBaseline(EVENT, List.of("v1", "v2"), new int[]{5, 0}, new int[]{3, 0}));
+        journal.append(JournalRecord.release(EVENT, "v2", 10));
+        journal.append(JournalRecord.purchase(EVENT, "c1", List.of("v1", "v2"), new int[]{2, 4}, 6));
+        journal.append(JournalRecord.holdReturn(EVENT, "c1", List.of("v2"), new int[]{1}, 1));
+        journal.append(JournalRecord.adjust(EVENT, "v1", -3));
+        journal.close();
+
+        PoolJournal reopened = open(1 << 20, "interval");
+        PoolCounterState.EventCounters counters = reopened.recoverState().getEvent(EVENT);
+        assertThat(counters.isBaseline()).isTrue();
+        assertThat(counters.getVendorAvailable("v1")).isZero();
+        assertThat(counters.getVendorSold("v1")).isEqualTo(5);
+        assertThat(counters.getVendorAvailable("v2")).isEqualTo(7);
+        assertThat(counters.getVendorSold("v2")).isEqualTo(3);
+        assertThat(counters.getCustomerPurchased()).containsEntry("c1", 5);
+        assertThat(reopened.append(JournalRecord.stop(EVENT, "v1"))).isEqualTo(6);
+        reopened.close();
+    }
+
+    @Test
+    void recordsSpanRolledSegments() throws Exception {
+        PoolJournal journal = open(4096, "always");
+        for (int i = 0; i < 1000; i++) {
+            journal.append(JournalRecord.release(EVENT, "vendor-" + (i % 10), 1));
+        }
+        journal.close();
+
+        assertThat(segments()).hasSizeGreaterThan(1);
+        PoolJournal reopened = open(4096, "always");
+        List<Long> sequences = new ArrayList<>();
+        reopened.replay(500, record -> sequences.add(record.getSequence()));
+        assertThat(sequences).hasSize(500).first().isEqualTo(501L);
+        PoolCounterState state = reopened.recoverState();
+        assertThat(state.getLastSequence()).isEqualTo(1000);
+        assertThat(state.getEvent(EVENT).getVendorAvailable("vendor-3")).isEqualTo(100);
+        reopened.close();
+    }
+
+    @Test
+    void replayStopsAtCorruptRecord() throws Exception {
+        PoolJournal journal = open(1 << 20, "none");
+        for (int i = 0; i < 10; i++) {
+            journal.append(JournalRecord.release(EVENT, "v1", 1));
+        }
+        journal.close();
+
+        // Flip a byte in the body of the sixth record
+        int recordSize = JournalRecord.release(EVENT, "v1", 1).encodedSize();
+        try (RandomAccessFile file = new RandomAccessFile(segments().get(0).toFile(), "rw")) {
+            long offset = 5L * recordSize + JournalRecord.FRAME_HEADER + 3;
+            file.seek(offset);
+            int value = file.read();
+            file.seek(offset);
+            file.write(value ^ 0xFF);
+        }
+
+        PoolJournal reopened = open(1 << 20, "none");
+        PoolCounterState state = reopened.recoverState();
+        assertThat(state.getLastSequence()).isEqualTo(5);
+        assertThat(state.getEvent(EVENT).getVendorAvailable("v1")).isEqualTo(5);
+        // New records overwrite the corrupt tail
+        assertThat(reopened.append(JournalRecord.release(EVENT, "v1", 1))).isEqualTo(6);
+        reopened.close();
+    }
+
+    private PoolJournal open(int segmentSize, String fsync) {
+        PoolJournal journal = new PoolJournal(properties(directory, segmentSize, fsync));
+        journal.open();
+        return journal;
+    }
+
+    private static TicketPoolProperties properties(Path directory, int segmentSize, String fsync) {
+        TicketPoolProperties properties = new TicketPoolProperties();
+        properties.getJournal().setEnabled(true);
+        properties.getJournal().setDirectory(directory.toString());
+        properties.getJournal().setSegmentSizeBytes(segmentSize);
+        properties.getJournal().setFsync(fsync);
+        properties.getJournal().setFsyncIntervalMillis(10);
+        return properties;
+    }
+
+    private List<Path> segments() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+}
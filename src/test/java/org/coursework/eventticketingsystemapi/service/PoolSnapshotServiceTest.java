@@ -0,0 +1,129 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import org.coursework.eventticketingsystemapi.config.TicketPoolProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PoolSnapshotServiceTest {
+    private static final String EVENT = "event";
+    private static final int VENDORS = 10_000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void snapshotPlusTailMatchesFullReplay() throws Exception {
+        TicketPoolProperties properties = properties();
+        PoolJournal journal = new PoolJournal(properties);
+        journal.open();
+        PoolSnapshotService snapshots = new PoolSnapshotService(journal, properties);
+        PoolCounterState expected = new PoolCounterState();
+        appendBaseline(journal, expected);
+        appendSales(journal, expected, 20_000);
+        long firstSnapshot = snapshots.checkpoint();
+        appendSales(journal, expected, 20_000);
+        snapshots.checkpoint();
+        appendSales(journal, expected, 5_000);
+        long lastSequence = journal.getLastSequence();
+        journal.close();
+
+        PoolJournal reopened = new PoolJournal(properties);
+        reopened.open();
+        PoolCounterState recovered = new PoolSnapshotService(reopened, properties).recoverState();
+
+        assertCountersEqual(recovered, expected);
+        assertThat(recovered.getLastSequence()).isEqualTo(lastSequence);
+        // Segments before the oldest kept snapshot are gone
+        List<Long> segmentStarts = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString()).filter(name -> name.startsWith("journal-"))
+                    .forEach(name -> segmentStarts.add(Long.parseLong(name.substring(8, 28))));
+        }
+        assertThat(segmentStarts).allMatch(first -> first > 1).hasSizeGreaterThan(0);
+        assertThat(segmentStarts.stream().mapToLong(Long::longValue).min().getAsLong()).isLessThanOrEqualTo(firstSnapshot + 1);
+        reopened.close();
+    }
+
+    @Test
+    void damagedSnapshotFallsBackToOlderOne() throws Exception {
+        TicketPoolProperties properties = properties();
+        PoolJournal journal = new PoolJournal(properties);
+        journal.open();
+        PoolSnapshotService snapshots = new PoolSnapshotService(journal, properties);
+        PoolCounterState expected = new PoolCounterState();
+        appendBaseline(journal, expected);
+        appendSales(journal, expected, 1_000);
+        snapshots.checkpoint();
+        appendSales(journal, expected, 1_000);
+        long latest = snapshots.checkpoint();
+        appendSales(journal, expected, 100);
+
+        Path newest = directory.resolve(String.format("snapshot-%020d.snap", latest));
+        try (RandomAccessFile file = new RandomAccessFile(newest.toFile(), "rw")) {
+            file.seek(file.length() / 2);
+            int value = file.read();
+            file.seek(file.length() / 2);
+            file.write(value ^ 0xFF);
+        }
+
+        assertCountersEqual(new PoolSnapshotService(journal, properties).recoverState(), expected);
+        journal.close();
+    }
+
+    private TicketPoolProperties properties() {
+        TicketPoolProperties properties = new TicketPoolProperties();
+        properties.getJournal().setEnabled(true);
+        properties.getJournal().setDirectory(directory.toString());
+        properties.getJournal().setSegmentSizeBytes(256 * 1024);
+        properties.getJournal().setFsync("none");
+        return properties;
+    }
+
+    private static void appendBaseline(PoolJournal journal, PoolCounterState expected) {
+        for (int start = 0; start < VENDORS; start += 1000) {
+            List<String> ids = new ArrayList<>();
+            int[] available = new int[1000];
+            for (int i = 0; i < 1000; i++) {
+                ids.add("vendor-" + (start + i));
+                available[i] = 100;
+            }
+            append(journal, expected, JournalRecord.vendorBaseline(EVENT, ids, available, new int[1000]));
+        }
+    }
+
+    private static void appendSales(PoolJournal journal, PoolCounterState expected, int count) {
+        for (int i = 0; i < count; i++) {
+            String vendorId = "vendor-" + (i * 7919 % VENDORS);
+            if (i % 10 == 0) {
+                append(journal, expected, JournalRecord.release(EVENT, vendorId, 2));
+            } else {
+                append(journal, expected, JournalRecord.purchase(EVENT, "customer-" + (i % 500), List.of(vendorId), new int[]{1}, 1));
+            }
+        }
+    }
+
+    private static void append(PoolJournal journal, PoolCounterState expected, JournalRecord record) {
+        journal.append(record);
+        expected.apply(record);
+    }
+
+    private static void assertCountersEqual(PoolCounterState actual, PoolCounterState expected) {
+        PoolCounterState.EventCounters actualEvent = actual.getEvent(EVENT);
+        PoolCounterState.EventCounters expectedEvent = expected.getEvent(EVENT);
+        assertThat(actualEvent.isBaseline()).isTrue();
+        assertThat(actualEvent.getVendors()).hasSameSizeAs(expectedEvent.getVendors());
+        expectedEvent.getVendors().forEach((vendorId, counters) ->
+                assertThat(new int[]{actualEvent.getVendorAvailable(vendorId), actualEvent.getVendorSold(vendorId)})
+                        .as(vendorId).containsExactly(counters));
+        assertThat(actualEvent.getCustomerPurchased()).isEqualTo(expectedEvent.getCustomerPurchased());
+    }
+}
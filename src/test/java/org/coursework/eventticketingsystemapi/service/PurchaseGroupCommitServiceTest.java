@@ -0,0 +1,134 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.coursework.eventticketingsystemapi.config.TicketPoolProperties;
+import org.coursework.eventticketingsystemapi.exception.PurchasePendingException;
+import org.coursework.eventticketingsystemapi.exception.ResourceProcessingException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PurchaseGroupCommitServiceTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void purchaseAbandonedAfterCommitTimeoutIsNeverAllocated() throws Exception {
+        TicketPoolProperties properties = properties();
+        properties.getGroupCommit().setCommitTimeoutMillis(100);
+        PurchaseGroupCommitService service = service(properties);
+        service.start();
+        try {
+            CountDownLatch release = new CountDownLatch(1);
+            CompletableFuture<Integer> blocking = CompletableFuture.supplyAsync(() -> service.commit(() -> {
+                awaitQuietly(release);
+                return new PurchaseAllocation(2, null);
+            }));
+            Thread.sleep(20);
+
+            // Queued behind the blocked allocation, so its caller times out before it starts
+            AtomicBoolean allocated = new AtomicBoolean();
+            assertThatThrownBy(() -> service.commit(() -> {
+                allocated.set(true);
+                return new PurchaseAllocation(1, null);
+            })).isInstanceOf(ResourceProcessingException.class).hasMessageContaining("please retry");
+
+            release.countDown();
+            assertThatThrownBy(() -> blocking.get(5, TimeUnit.SECONDS)).hasMessageContaining("still being written");
+            assertThat(service.commit(() -> new PurchaseAllocation(3, null))).isEqualTo(3);
+            assertThat(allocated).isFalse();
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void purchasesStillQueuedAtShutdownAreFailed() throws Exception {
+        TicketPoolProperties properties = properties();
+        properties.getGroupCommit().setShutdownTimeoutMillis(50);
+        PurchaseGroupCommitService service = service(properties);
+        service.start();
+
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Integer> blocking = CompletableFuture.supplyAsync(() -> service.commit(() -> {
+            awaitQuietly(release);
+            return new PurchaseAllocation(2, null);
+        }));
+        Thread.sleep(20);
+        CompletableFuture<Integer> queued = CompletableFuture.supplyAsync(() -> service.commit(() -> new PurchaseAllocation(1, null)));
+        Thread.sleep(20);
+
+        service.shutdown();
+        assertThatThrownBy(() -> queued.get(5, TimeUnit.SECONDS)).hasMessageContaining("shutting down");
+        assertThatThrownBy(() -> service.commit(() -> new PurchaseAllocation(1, null)))
+                .isInstanceOf(ResourceProcessingException.class);
+
+        // The purchase that was already being allocated still completes
+        release.countDown();
+        assertThat(blocking.get(5, TimeUnit.SECONDS)).isEqualTo(2);
+    }
+
+    @Test
+    void purchasesWhoseWriteIsDeadLetteredAreReportedAsPending() throws Exception {
+        // Nothing listens on port 1, so the bulk write fails and is dead-lettered
+        MongoClient client = MongoClients.create(MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString("mongodb://localhost:1"))
+                .applyToClusterSettings(cluster -> cluster.serverSelectionTimeout(50, TimeUnit.MILLISECONDS))
+                .build());
+        TicketPoolProperties properties = properties();
+        properties.getWriteBehind().setMaxAttempts(1);
+        WriteBehindDeadLetterStore deadLetters = new WriteBehindDeadLetterStore(directory.resolve("dead-letters.ndjson"));
+        PurchaseGroupCommitService service = new PurchaseGroupCommitService(new TicketWriteBehindService(new MongoTemplate(client, "unused"),
+                new TicketReadCache(properties.getTicketCache(), System::currentTimeMillis), deadLetters, properties, new SimpleMeterRegistry()),
+                properties, new SimpleMeterRegistry());
+        service.start();
+        try {
+            assertThatThrownBy(() -> service.commit(() -> new PurchaseAllocation(2, PoolWriteRecord.release("65f0c0ffee00000000000001", 2, true))))
+                    .isInstanceOfSatisfying(PurchasePendingException.class, e -> assertThat(e.getTicketsPurchased()).isEqualTo(2))
+                    .hasMessageContaining("do not retry");
+            assertThat(Files.readAllLines(deadLetters.getFile())).hasSize(1);
+            // A purchase without writes in a later group is unaffected
+            assertThat(service.commit(() -> new PurchaseAllocation(0, null))).isZero();
+        } finally {
+            service.shutdown();
+            client.close();
+        }
+    }
+
+    private TicketPoolProperties properties() {
+        TicketPoolProperties properties = new TicketPoolProperties();
+        properties.getGroupCommit().setEnabled(true);
+        properties.getGroupCommit().setWindowMillis(1);
+        return properties;
+    }
+
+    private PurchaseGroupCommitService service(TicketPoolProperties properties) {
+        // Allocations without records never reach Mongo, so the template is never used
+        TicketWriteBehindService writeBehind = new TicketWriteBehindService(null,
+                new TicketReadCache(properties.getTicketCache(), System::currentTimeMillis),
+                new WriteBehindDeadLetterStore(directory.resolve("dead-letters.ndjson")), properties, new SimpleMeterRegistry());
+        return new PurchaseGroupCommitService(writeBehind, properties, new SimpleMeterRegistry());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.bson.Document;
+import org.coursework.eventticketingsystemapi.config.TicketPoolProperties;
+import org.coursework.eventticketingsystemapi.exception.VendorLimitExceededException;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToIntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class QuotaLeaseServiceTest {
+    private static final String EVENT = "event";
+    private static final int NODES = 4;
+    private static final int VENDORS = 20;
+    private static final int TICKETS_PER_VENDOR = 2_000;
+    private static final int RELEASE_SIZE = 50;
+    private static final int BUYERS = 16;
+
+    @Test
+    void nodesInOneJvmNeverOversell() throws Exception {
+        InMemoryQuotaAuthority authority = new InMemoryQuotaAuthority();
+        runCluster(authority, authority::remaining);
+        assertThat(authority.leases).isEmpty();
+    }
+
+    @Test
+    @Tag("integration")
+    void nodesSharingLocalMongoNeverOversell() throws Exception {
+        MongoClient client = MongoClients.create(MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString("mongodb://localhost:27017"))
+                .applyToClusterSettings(cluster -> cluster.serverSelectionTimeout(500, TimeUnit.MILLISECONDS))
+                .build());
+        try {
+            MongoTemplate mongoTemplate = new MongoTemplate(client, "EventTicketingSystemQuotaTest");
+            try {
+                mongoTemplate.executeCommand("{ping: 1}");
+            } catch (Exception e) {
+                assumeTrue(false, "No local Mongo available");
+            }
+            mongoTemplate.dropCollection(MongoQuotaAuthority.QUOTAS);
+            mongoTemplate.dropCollection(MongoQuotaAuthority.LEASES);
+
+            runCluster(new MongoQuotaAuthority(mongoTemplate), vendorId -> {
+                Document quota = mongoTemplate.findById(EVENT + ":" + vendorId, Document.class, MongoQuotaAuthority.QUOTAS);
+                return quota == null ? 0 : quota.getInteger("remaining");
+            });
+            assertThat(mongoTemplate.count(new org.springframework.data.mongodb.core.query.Query(), MongoQuotaAuthority.LEASES)).isZero();
+            mongoTemplate.getDb().drop();
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    @Tag("integration")
+    void stockOfAnInterruptedAcquisitionIsReturnedWhenTheLeaseIsReclaimed() {
+        MongoClient client = MongoClients.create(MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString("mongodb://localhost:27017"))
+                .applyToClusterSettings(cluster -> cluster.serverSelectionTimeout(500, TimeUnit.MILLISECONDS))
+                .build());
+        try {
+            MongoTemplate mongoTemplate = new MongoTemplate(client, "EventTicketingSystemQuotaTest");
+            try {
+                mongoTemplate.executeCommand("{ping: 1}");
+            } catch (Exception e) {
+                assumeTrue(false, "No local Mongo available");
+            }
+            mongoTemplate.dropCollection(MongoQuotaAuthority.QUOTAS);
+            mongoTemplate.dropCollection(MongoQuotaAuthority.LEASES);
+
+            // The node took 3 tickets for the first intent and crashed before crediting its lease;
+            // the second intent never got to take any stock
+            mongoTemplate.insert(new Document("_id", EVENT + ":vendor").append("eventId", EVENT).append("vendorId", "vendor")
+                    .append("released", 10).append("remaining", 5).append("intents", List.of("taken")), MongoQuotaAuthority.QUOTAS);
+            mongoTemplate.insert(new Document("_id", QuotaLease.leaseId(EVENT, "vendor", "node")).append("eventId", EVENT)
+                    .append("vendorId", "vendor").append("nodeId", "node").append("granted", 2).append("consumed", 0)
+                    .append("pending", new Document("taken", 3).append("untaken", 4)).append("expiresAt", 0L), MongoQuotaAuthority.LEASES);
+
+            assertThat(new MongoQuotaAuthority(mongoTemplate).reclaimExpired(1)).isEqualTo(5);
+            Document quota = mongoTemplate.findById(EVENT + ":vendor", Document.class, MongoQuotaAuthority.QUOTAS);
+            assertThat(quota.getInteger("remaining")).isEqualTo(10);
+            assertThat(quota.getList("intents", String.class)).isEmpty();
+            mongoTemplate.getDb().drop();
+        } finally {
+            client.close();
+        }
+    }
+
+    /**
+     * Vendors release into the authority while buyers on several nodes sell from leased blocks and a maintenance
+     * thread keeps expiring leases. Every vendor must end with sold + unleased stock equal to what it released.
+     */
+    private void runCluster(QuotaAuthority authority, ToIntFunction<String> remaining) throws Exception {
+        TicketPoolProperties properties = new TicketPoolProperties();
+        properties.getCluster().setEnabled(true);
+        properties.getCluster().setLeaseBlockSize(20);
+        properties.getCluster().setLeaseTtlMillis(60_000);
+        List<QuotaLeaseService> nodes = new ArrayList<>();
+        List<TicketInventory> inventories = new ArrayList<>();
+        for (int n = 0; n < NODES; n++) {
+            properties.getCluster().setNodeId("node-" + n);
+            QuotaLeaseService node = new QuotaLeaseService(authority, new AllocationRingBuffer(properties), properties);
+            TicketInventory inventory = new TicketInventory(Integer.MAX_VALUE);
+            node.track(EVENT, inventory);
+            nodes.add(node);
+            inventories.add(inventory);
+        }
+
+        AtomicInteger[] sold = new AtomicInteger[VENDORS];
+        AtomicInteger[] released = new AtomicInteger[VENDORS];
+        Map<String, Integer> vendorIndex = new HashMap<>();
+        for (int v = 0; v < VENDORS; v++) {
+            sold[v] = new AtomicInteger();
+            released[v] = new AtomicInteger();
+            vendorIndex.put("vendor-" + v, v);
+        }
+        AtomicBoolean releasing = new AtomicBoolean(true);
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newCachedThreadPool();
+        CountDownLatch releasesDone = new CountDownLatch(VENDORS);
+
+        for (int v = 0; v < VENDORS; v++) {
+            int vendor = v;
+            executor.execute(() -> {
+                try {
+                    // Releases overshoot the limit on purpose; the authority must refuse the excess
+                    for (int i = 0; i < TICKETS_PER_VENDOR / RELEASE_SIZE + 5; i++) {
+                        try {
+                            nodes.get(i % NODES).addQuota(EVENT, "vendor-" + vendor, TICKETS_PER_VENDOR, RELEASE_SIZE);
+                            released[vendor].addAndGet(RELEASE_SIZE);
+                        } catch (VendorLimitExceededException ignored) {
+                            // limit reached
+                        }
+                    }
+                } finally {
+                    releasesDone.countDown();
+                }
+            });
+        }
+        CountDownLatch buyersDone = new CountDownLatch(BUYERS);
+        for (int b = 0; b < BUYERS; b++) {
+            int buyer = b;
+            executor.execute(() -> {
+                int[] claimed = new int[16];
+                try {
+                    while (running.get()) {
+                        int n = ThreadLocalRandom.current().nextInt(NODES);
+                        TicketInventory inventory = inventories.get(n);
+                        nodes.get(n).replenish(EVENT, inventory, 3);
+                        List<String> selected = inventory.selectVendors(3);
+                        int purchased = inventory.purchase("customer-" + buyer, 3, Integer.MAX_VALUE, selected, claimed);
+                        for (int i = 0; i < selected.size(); i++) {
+                            sold[vendorIndex.get(selected.get(i))].addAndGet(claimed[i]);
+                        }
+                        if (purchased <= 0 && !releasing.get()) {
+                            Thread.onSpinWait();
+                        }
+                    }
+                } finally {
+                    buyersDone.countDown();
+                }
+            });
+        }
+        // Force lease returns while sales are running
+        executor.execute(() -> {
+            while (running.get()) {
+                for (QuotaLeaseService node : nodes) {
+                    node.tick(System.currentTimeMillis() + (ThreadLocalRandom.current().nextBoolean() ? 60_000 : 0));
+                }
+            }
+        });
+
+        assertThat(releasesDone.await(30, TimeUnit.SECONDS)).isTrue();
+        releasing.set(false);
+        int totalReleased = 0;
+        for (AtomicInteger count : released) {
+            totalReleased += count.get();
+        }
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (totalSold(sold) < totalReleased && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        running.set(false);
+        assertThat(buyersDone.await(10, TimeUnit.SECONDS)).isTrue();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        nodes.forEach(QuotaLeaseService::shutdown);
+
+        for (int v = 0; v < VENDORS; v++) {
+            String vendorId = "vendor-" + v;
+            assertThat(released[v].get()).isEqualTo(TICKETS_PER_VENDOR);
+            assertThat(sold[v].get()).as(vendorId).isLessThanOrEqualTo(released[v].get());
+            assertThat(sold[v].get() + remaining.applyAsInt(vendorId)).as(vendorId).isEqualTo(released[v].get());
+        }
+        assertThat(totalSold(sold)).isEqualTo(totalReleased);
+    }
+
+    private static int totalSold(AtomicInteger[] sold) {
+        int total = 0;
+        for (AtomicInteger count : sold) {
+            total += count.get();
+        }
+        return total;
+    }
+
+    /**
+     * Same contract as the Mongo authority, with each document update made atomic by a monitor
+     */
+    private static class InMemoryQuotaAuthority implements QuotaAuthority {
+        private final Map<String, int[]> quotas = new HashMap<>();
+        private final Map<String, int[]> leases = new HashMap<>();
+
+        @Override
+        public synchronized void addQuota(String eventId, String vendorId, int ticketsToSell, int count) {
+            int[] quota = quotas.computeIfAbsent(vendorId, id -> new int[2]);
+            if (quota[0] + count > ticketsToSell) {
+                throw new VendorLimitExceededException("limit");
+            }
+            quota[0] += count;
+            quota[1] += count;
+        }
+
+        @Override
+        public synchronized List<String> vendorsWithQuota(String eventId, int limit) {
+            return quotas.entrySet().stream().filter(quota -> quota.getValue()[1] > 0).map(Map.Entry::getKey).limit(limit).toList();
+        }
+
+        @Override
+        public synchronized QuotaLease acquire(QuotaLease lease, String eventId, String vendorId, String nodeId, int wanted, long expiresAt) {
+            int[] quota = quotas.get(vendorId);
+            int take = quota == null ? 0 : Math.min(wanted, quota[1]);
+            if (take <= 0) {
+                return lease;
+            }
+            quota[1] -= take;
+            leases.computeIfAbsent(QuotaLease.leaseId(eventId, vendorId, nodeId), id -> new int[2])[0] += take;
+            if (lease == null) {
+                return new QuotaLease(eventId, vendorId, nodeId, take, expiresAt);
+            }
+            lease.grow(take, expiresAt);
+            return lease;
+        }
+
+        @Override
+        public synchronized void report(QuotaLease lease, int consumed) {
+            int[] stored = leases.get(lease.getLeaseId());
+            if (stored != null) {
+                stored[1] = consumed;
+            }
+            lease.reported(consumed);
+        }
+
+        @Override
+        public synchronized void release(QuotaLease lease, int unused) {
+            if (leases.remove(lease.getLeaseId()) != null) {
+                quotas.get(lease.getVendorId())[1] += unused;
+            }
+        }
+
+        @Override
+        public int reclaimExpired(long cutoffMillis) {
+            return 0;
+        }
+
+        synchronized int remaining(String vendorId) {
+            int[] quota = quotas.get(vendorId);
+            return quota == null ? 0 : quota[1];
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import org.coursework.eventticketingsystemapi.model.Customer;
+import org.coursework.eventticketingsystemapi.model.Ticket;
+import org.coursework.eventticketingsystemapi.model.TicketAllocation;
+import org.coursework.eventticketingsystemapi.model.Vendor;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TicketAllocationTest {
+
+    @Test
+    void allocationMaterializesOneTicketPerUnrefundedSerial() {
+        TicketAllocation allocation = new TicketAllocation("event", vendor(), customer(), 41, 5);
+        allocation.setAllocationId("65f0c0ffee0000000000abcd");
+        allocation.getRefundedSerials().add(43L);
+
+        List<Ticket> tickets = allocation.toTickets();
+        assertThat(tickets).extracting(Ticket::getSerialNumber).containsExactly(41L, 42L, 44L, 45L);
+        assertThat(allocation.getActiveCount()).isEqualTo(4);
+        Ticket ticket = tickets.get(2);
+        assertThat(ticket.getVendorId()).isEqualTo("vendor-1");
+        assertThat(ticket.getCustomerName()).isEqualTo("Customer One");
+        assertThat(ticket.getPurchasedAt()).isEqualTo(allocation.getPurchasedAt());
+
+        // Ticket-level IDs lead back to the allocation and serial
+        String ticketId = ticket.getTicketId();
+        assertThat(TicketAllocation.isAllocatedTicketId(ticketId)).isTrue();
+        assertThat(TicketAllocation.allocationIdOf(ticketId)).isEqualTo("65f0c0ffee0000000000abcd");
+        assertThat(TicketAllocation.serialOf(ticketId)).isEqualTo(44);
+        assertThat(TicketAllocation.isAllocatedTicketId("65f0c0ffee0000000000abcd")).isFalse();
+        assertThat(allocation.contains(43)).isFalse();
+        assertThat(allocation.contains(46)).isFalse();
+    }
+
+    @Test
+    void purchaseRecordCountsAllocatedTicketsLikeStoredOnes() {
+        Customer customer = customer();
+        List<TicketAllocation> allocations = List.of(
+                new TicketAllocation("event", vendor(), customer, 1, 3),
+                new TicketAllocation("event", vendor(), customer, 65, 2));
+        PoolWriteRecord record = PoolWriteRecord.purchase(customer.getParticipantId(), List.of(new Ticket("event", vendor(), customer)),
+                allocations, Map.of("vendor-1", 6), Map.of());
+        assertThat(record.getCustomerPurchasedDeltas()).containsEntry("customer-1", 6);
+
+        PoolWriteBatch batch = new PoolWriteBatch(List.of(record));
+        assertThat(batch.getTicketCount()).isEqualTo(6);
+        assertThat(allocations).allMatch(allocation -> allocation.getAllocationId() != null);
+    }
+
+    private static Vendor vendor() {
+        Vendor vendor = new Vendor();
+        vendor.setParticipantId("vendor-1");
+        vendor.setName("Vendor One");
+        return vendor;
+    }
+
+    private static Customer customer() {
+        Customer customer = new Customer();
+        customer.setParticipantId("customer-1");
+        customer.setName("Customer One");
+        return customer;
+    }
+}
@@ -0,0 +1,300 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import org.coursework.eventticketingsystemapi.config.TicketPoolProperties;
+import org.coursework.eventticketingsystemapi.exception.InvalidResourceOperationException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TicketInventoryTest {
+    private static final int VENDORS = 64;
+    private static final int TICKETS_PER_VENDOR = 5_000;
+    private static final int MAX_CAPACITY = 500;
+
+    @Test
+    void concurrentReleasesAndPurchasesNeverOversell() throws Exception {
+        TicketInventory inventory = new TicketInventory(MAX_CAPACITY);
+        AtomicInteger purchased = new AtomicInteger();
+        AtomicBoolean capacityExceeded = new AtomicBoolean();
+
+        runConcurrently(32, 20_000, (thread, i) -> {
+            String vendorId = "vendor-" + (i % VENDORS);
+            if ((thread & 1) == 0) {
+                try {
+                    inventory.release(vendorId, TICKETS_PER_VENDOR / 10, 3);
+                } catch (InvalidResourceOperationException ignored) {
+                    // capacity or vendor limit reached
+                }
+            } else {
+                purchased.addAndGet(inventory.claimFromVendor(vendorId, 2));
+            }
+            if (inventory.getAvailableTickets().get() > MAX_CAPACITY) {
+                capacityExceeded.set(true);
+            }
+        });
+
+        assertThat(capacityExceeded).isFalse();
+        int totalAvailable = 0;
+        int totalSold = 0;
+        for (VendorTicketSlot slot : inventory.getVendorSlots()) {
+            assertThat(slot.getAvailable() + slot.getSold()).isLessThanOrEqualTo(slot.getTicketsToSell());
+            totalAvailable += slot.getAvailable();
+            totalSold += slot.getSold();
+        }
+        assertThat(inventory.getAvailableTickets().get()).isEqualTo(totalAvailable);
+        assertThat(purchased.get()).isEqualTo(totalSold);
+    }
+
+    @Test
+    void customerAllowanceIsNeverExceeded() throws Exception {
+        TicketInventory inventory = new TicketInventory(MAX_CAPACITY);
+        inventory.loadVendor("vendor", TICKETS_PER_VENDOR, TICKETS_PER_VENDOR, 0);
+        inventory.loadCustomer("customer", 100);
+        List<String> vendorIds = List.of("vendor");
+        AtomicInteger purchased = new AtomicInteger();
+
+        runConcurrently(16, 1_000, (thread, i) -> {
+            int claimed = inventory.purchase("customer", 3, 0, vendorIds, new int[1]);
+            if (claimed != TicketInventory.ALLOWANCE_EXHAUSTED) {
+                purchased.addAndGet(claimed);
+            }
+        });
+
+        assertThat(purchased.get()).isEqualTo(100);
+        assertThat(inventory.getVendorSold("vendor")).isEqualTo(100);
+    }
+
+    @Test
+    void onlyChangedVendorsAreDrainedForSync() {
+        TicketInventory inventory = new TicketInventory(MAX_CAPACITY);
+        for (int i = 0; i < VENDORS; i++) {
+            inventory.loadVendor("vendor-" + i, TICKETS_PER_VENDOR, 0, 0);
+        }
+        assertThat(inventory.drainDirtyVendors()).isEmpty();
+
+        inventory.release("vendor-1", TICKETS_PER_VENDOR, 5);
+        inventory.claimFromVendor("vendor-1", 2);
+        inventory.adjustVendorAvailable("vendor-7", 1);
+
+        assertThat(inventory.drainDirtyVendors()).containsExactlyInAnyOrder("vendor-1", "vendor-7");
+        assertThat(inventory.drainDirtyVendors()).isEmpty();
+    }
+
+    @Test
+    void concurrentClaimsNeverOversell() throws Exception {
+        TicketInventory inventory = new TicketInventory(Integer.MAX_VALUE);
+        for (int v = 0; v < VENDORS; v++) {
+            inventory.loadVendor("vendor-" + v, 500, 500, 0);
+        }
+        AtomicInteger purchased = new AtomicInteger();
+
+        // Far more demand than stock, so every thread keeps claiming until the pool is empty
+        runConcurrently(32, 5_000, (thread, i) -> {
+            List<String> selected = inventory.selectVendors(3);
+            int claimed = inventory.purchase("customer-" + thread, 3, Integer.MAX_VALUE, selected, new int[selected.size()]);
+            purchased.addAndGet(Math.max(0, claimed));
+        });
+
+        assertThat(purchased.get()).isEqualTo(VENDORS * 500);
+        assertThat(inventory.getAvailableTickets().get()).isZero();
+        for (VendorTicketSlot slot : inventory.getVendorSlots()) {
+            assertThat(slot.getAvailable()).isZero();
+            assertThat(slot.getSold()).isEqualTo(500);
+        }
+    }
+
+    @Test
+    void totalsAreConservedAcrossReleasesClaimsHoldsAndAdjustments() throws Exception {
+        TicketInventory inventory = new TicketInventory(MAX_CAPACITY);
+        LongAdder released = new LongAdder();
+        LongAdder adjusted = new LongAdder();
+        LongAdder sold = new LongAdder();
+
+        runConcurrently(16, 10_000, (thread, i) -> {
+            String vendorId = "vendor-" + (i % VENDORS);
+            switch ((thread + i) % 4) {
+                case 0 -> {
+                    try {
+                        inventory.release(vendorId, TICKETS_PER_VENDOR, 4);
+                        released.add(4);
+                    } catch (InvalidResourceOperationException ignored) {
+                        // capacity or vendor limit reached
+                    }
+                }
+                case 1 -> sold.add(inventory.claimFromVendor(vendorId, 3));
+                case 2 -> {
+                    int[] held = new int[1];
+                    int total = inventory.hold("customer-" + thread, 2, Integer.MAX_VALUE, List.of(vendorId), held);
+                    if (total > 0) {
+                        TicketHold hold = new TicketHold("hold", "event", "customer-" + thread, List.of(vendorId), held, 0, inventory);
+                        if ((i & 1) == 0) {
+                            inventory.confirmHold(hold);
+                            sold.add(total);
+                        } else {
+                            inventory.returnHold(hold);
+                        }
+                    }
+                }
+                default -> adjusted.add(inventory.adjustVendorAvailable(vendorId, -1));
+            }
+        });
+
+        int totalAvailable = 0;
+        int totalSold = 0;
+        for (VendorTicketSlot slot : inventory.getVendorSlots()) {
+            assertThat(slot.getHeld()).isZero();
+            assertThat(slot.getAvailable()).isNotNegative();
+            totalAvailable += slot.getAvailable();
+            totalSold += slot.getSold();
+        }
+        assertThat(inventory.getAvailableTickets().get()).isEqualTo(totalAvailable).isLessThanOrEqualTo(MAX_CAPACITY);
+        assertThat(totalSold).isEqualTo(sold.intValue());
+        // Every ticket released is still available, sold, or was taken out by an adjustment
+        assertThat(released.sum() + adjusted.sum()).isEqualTo(totalAvailable + totalSold);
+    }
+
+    @Test
+    void holdsAndLeasedStockGoThroughTheAllocationRing() throws Exception {
+        TicketPoolProperties properties = new TicketPoolProperties();
+        properties.getRingBuffer().setEnabled(true);
+        properties.getRingBuffer().setSize(64);
+        AllocationRingBuffer ring = new AllocationRingBuffer(properties);
+        ring.start();
+        try {
+            TicketInventory inventory = new TicketInventory(Integer.MAX_VALUE);
+            LongAdder leased = new LongAdder();
+            LongAdder taken = new LongAdder();
+            LongAdder sold = new LongAdder();
+
+            runConcurrently(16, 5_000, (thread, i) -> {
+                String vendorId = "vendor-" + (i % VENDORS);
+                switch ((thread + i) % 3) {
+                    case 0 -> {
+                        ring.publishAddLeased(inventory, vendorId, 3).awaitAndRecycle();
+                        leased.add(3);
+                    }
+                    case 1 -> {
+                        AllocationRingBuffer.AllocationHandle handle = ring.publishHold(inventory, "customer-" + thread, 2, Integer.MAX_VALUE, List.of(vendorId));
+                        int[] held = new int[1];
+                        int total;
+                        try {
+                            total = handle.await();
+                            held[0] = handle.claimedFrom(0);
+                        } finally {
+                            handle.recycle();
+                        }
+                        if (total > 0) {
+                            TicketHold hold = new TicketHold("hold", "event", "customer-" + thread, List.of(vendorId), held, 0, inventory);
+                            if ((i & 1) == 0) {
+                                ring.publishConfirmHold(inventory, hold).awaitAndRecycle();
+                                sold.add(total);
+                            } else {
+                                ring.publishReturnHold(inventory, hold).awaitAndRecycle();
+                            }
+                        }
+                    }
+                    default -> {
+                        if (i % 50 == 0) {
+                            taken.add(ring.publishTakeAvailable(inventory, vendorId).awaitAndRecycle());
+                        }
+                    }
+                }
+            });
+
+            int totalAvailable = 0;
+            int totalSold = 0;
+            for (VendorTicketSlot slot : inventory.getVendorSlots()) {
+                assertThat(slot.getHeld()).isZero();
+                totalAvailable += slot.getAvailable();
+                totalSold += slot.getSold();
+            }
+            assertThat(inventory.getAvailableTickets().get()).isEqualTo(totalAvailable);
+            assertThat(totalSold).isEqualTo(sold.intValue());
+            assertThat(leased.sum()).isEqualTo(totalAvailable + totalSold + taken.sum());
+        } finally {
+            ring.shutdown();
+        }
+    }
+
+    @Test
+    void expiredHoldReturnsIntoAPoolRefilledWhileItWasOpen() throws Exception {
+        TicketPoolProperties properties = new TicketPoolProperties();
+        properties.getHolds().setTickMillis(10);
+        TicketHoldService holds = new TicketHoldService(properties, new PoolJournal(properties), new AllocationRingBuffer(properties));
+        holds.startTicker();
+        try {
+            TicketInventory inventory = new TicketInventory(10);
+            inventory.release("vendor-0", 100, 10);
+            int[] held = new int[1];
+            assertThat(inventory.hold("customer", 4, 4, List.of("vendor-0"), held)).isEqualTo(4);
+            holds.register(new TicketHold("hold", "event", "customer", List.of("vendor-0"), held, System.currentTimeMillis() + 50, inventory));
+
+            // The held tickets keep their room, so vendors can only refill what purchases free
+            assertThat(inventory.getFreeCapacity()).isZero();
+            assertThatThrownBy(() -> inventory.release("vendor-1", 100, 1)).isInstanceOf(InvalidResourceOperationException.class);
+            inventory.claimFromVendor("vendor-0", 3);
+            inventory.release("vendor-1", 100, inventory.getFreeCapacity());
+            assertThat(inventory.getFreeCapacity()).isZero();
+
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (holds.getExpiredHoldCount() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(holds.getExpiredHoldCount()).isEqualTo(1);
+            assertThat(inventory.getAvailableTickets().get()).isEqualTo(inventory.getMaxCapacity());
+            assertThat(inventory.getHeldTickets()).isZero();
+            assertThat(inventory.getFreeCapacity()).isZero();
+        } finally {
+            holds.shutdown();
+        }
+    }
+
+    @Test
+    void purchasesWakeParkedVendorsInTurn() {
+        TicketInventory inventory = new TicketInventory(10);
+        inventory.release("vendor-0", 100, 10);
+        List<AvailabilitySignal.Waiter> vendors = List.of(
+                inventory.getCapacitySignal().await(5, inventory::getFreeCapacity),
+                inventory.getCapacitySignal().await(5, inventory::getFreeCapacity),
+                inventory.getCapacitySignal().await(5, inventory::getFreeCapacity));
+
+        inventory.claimFromVendor("vendor-0", 4);
+        assertThat(vendors).extracting(vendor -> vendor.getFuture().getNow(null)).containsExactly(true, null, null);
+        inventory.claimFromVendor("vendor-0", 6);
+        assertThat(vendors).allMatch(vendor -> vendor.getFuture().getNow(false));
+        assertThat(inventory.getCapacitySignal().getWaiting()).isZero();
+    }
+
+    private void runConcurrently(int threads, int iterations, Work work) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            executor.execute(() -> {
+                try {
+                    for (int i = 0; i < iterations; i++) {
+                        work.run(thread, i);
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        assertThat(done.await(30, TimeUnit.SECONDS)).isTrue();
+        executor.shutdown();
+    }
+
+    private interface Work {
+        void run(int thread, int iteration);
+    }
+}
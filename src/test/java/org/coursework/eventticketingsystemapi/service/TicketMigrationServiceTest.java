@@ -0,0 +1,115 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.DBRef;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.coursework.eventticketingsystemapi.config.TicketPoolProperties;
+import org.coursework.eventticketingsystemapi.model.Customer;
+import org.coursework.eventticketingsystemapi.model.Participant;
+import org.coursework.eventticketingsystemapi.model.Ticket;
+import org.coursework.eventticketingsystemapi.model.Vendor;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class TicketMigrationServiceTest {
+
+    @Test
+    void ticketsInBothFormatsReadWithoutResolvingReferences() {
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        // Fails any attempt to load a referenced document
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+
+        ObjectId vendorId = new ObjectId();
+        ObjectId customerId = new ObjectId();
+        Document legacy = new Document("_id", new ObjectId())
+                .append("eventId", "event")
+                .append("vendor", new DBRef("vendors", vendorId))
+                .append("customer", new DBRef("customers", customerId));
+        Ticket read = converter.read(Ticket.class, legacy);
+        assertThat(read.getVendorId()).isEqualTo(vendorId.toHexString());
+        assertThat(read.getCustomerId()).isEqualTo(customerId.toHexString());
+
+        Ticket ticket = new Ticket("event", participant(new Vendor(), "vendor-1", "Vendor One"), participant(new Customer(), "customer-1", "Customer One"));
+        Document written = new Document();
+        converter.write(ticket, written);
+        assertThat(written).containsEntry("vendorId", "vendor-1").containsEntry("vendorName", "Vendor One")
+                .containsEntry("customerId", "customer-1").containsEntry("customerName", "Customer One")
+                .doesNotContainKeys("vendor", "customer");
+        assertThat(written.toJson()).doesNotContain("secret");
+    }
+
+    @Test
+    void migrationRewritesLegacyTicketsAgainstLocalMongo() {
+        MongoClient client = MongoClients.create(MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString("mongodb://localhost:27017"))
+                .applyToClusterSettings(cluster -> cluster.serverSelectionTimeout(500, TimeUnit.MILLISECONDS))
+                .build());
+        try {
+            MongoTemplate mongoTemplate = new MongoTemplate(client, "EventTicketingSystemMigrationTest");
+            try {
+                mongoTemplate.executeCommand("{ping: 1}");
+            } catch (Exception e) {
+                assumeTrue(false, "No local Mongo available");
+            }
+            mongoTemplate.getDb().drop();
+            ObjectId vendorId = new ObjectId();
+            ObjectId customerId = new ObjectId();
+            mongoTemplate.insert(new Document("_id", vendorId).append("name", "Vendor One"), "vendors");
+            mongoTemplate.insert(new Document("_id", customerId).append("name", "Customer One"), "customers");
+            List<Document> legacy = new ArrayList<>();
+            for (int i = 0; i < 250; i++) {
+                legacy.add(new Document("eventId", "event")
+                        .append("vendor", new DBRef("vendors", vendorId))
+                        .append("customer", new DBRef("customers", customerId)));
+            }
+            mongoTemplate.insert(legacy, "tickets");
+
+            TicketPoolProperties properties = new TicketPoolProperties();
+            properties.getTicketMigration().setBatchSize(100);
+            TicketMigrationService migration = new TicketMigrationService(mongoTemplate, properties);
+            assertThat(mongoTemplate.find(Query.query(migration.participantCriteria("vendorId", "vendor", vendorId.toHexString())), Ticket.class))
+                    .hasSize(250);
+
+            int batches = 0;
+            while (migration.migrateBatch() > 0) {
+                batches++;
+            }
+            assertThat(batches).isEqualTo(3);
+            List<Document> migrated = mongoTemplate.findAll(Document.class, "tickets");
+            assertThat(migrated).allSatisfy(ticket -> assertThat(ticket)
+                    .containsEntry("vendorId", vendorId.toHexString()).containsEntry("vendorName", "Vendor One")
+                    .containsEntry("customerId", customerId.toHexString()).containsEntry("customerName", "Customer One")
+                    .doesNotContainKeys("vendor", "customer"));
+            mongoTemplate.getDb().drop();
+        } finally {
+            client.close();
+        }
+    }
+
+    private static <T extends Participant> T participant(T participant, String id, String name) {
+        participant.setParticipantId(id);
+        participant.setName(name);
+        participant.setPassword("secret");
+        return participant;
+    }
+}
@@ -0,0 +1,113 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.bson.types.ObjectId;
+import org.coursework.eventticketingsystemapi.model.Customer;
+import org.coursework.eventticketingsystemapi.model.Participant;
+import org.coursework.eventticketingsystemapi.model.Ticket;
+import org.coursework.eventticketingsystemapi.model.TicketAllocation;
+import org.coursework.eventticketingsystemapi.model.TicketPage;
+import org.coursework.eventticketingsystemapi.model.Vendor;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TicketPagingTest {
+    private static final Vendor VENDOR = participant(new Vendor(), "vendor-1", "Vendor One");
+    private static final Customer CUSTOMER = participant(new Customer(), "customer-1", "Customer One");
+
+    @Test
+    void pagesVisitEveryStoredAndAllocatedTicketOnceInOrder() {
+        List<Ticket> stored = new ArrayList<>();
+        List<TicketAllocation> allocations = new ArrayList<>();
+        long serial = 1;
+        // Interleave IDs of both collections; allocations of 1-7 tickets, some with refunded seats
+        for (int i = 0; i < 300; i++) {
+            String id = new ObjectId().toHexString();
+            if (i % 3 == 0) {
+                Ticket ticket = new Ticket("event", VENDOR, CUSTOMER);
+                ticket.setTicketId(id);
+                stored.add(ticket);
+            } else {
+                int count = 1 + i % 7;
+                TicketAllocation allocation = new TicketAllocation("event", VENDOR, CUSTOMER, serial, count);
+                allocation.setAllocationId(id);
+                if (count > 2 && i % 5 == 0) {
+                    allocation.getRefundedSerials().add(serial + 1);
+                }
+                serial += count;
+                allocations.add(allocation);
+            }
+        }
+        List<String> expected = new ArrayList<>();
+        stored.forEach(ticket -> expected.add(ticket.getTicketId()));
+        allocations.forEach(allocation -> allocation.toTickets().forEach(ticket -> expected.add(ticket.getTicketId())));
+
+        for (int limit : new int[]{1, 4, 37, 1000}) {
+            List<String> visited = new ArrayList<>();
+            String cursor = null;
+            int pages = 0;
+            do {
+                TicketPage page = page(stored, allocations, cursor, limit);
+                assertThat(page.getTickets()).hasSizeLessThanOrEqualTo(limit);
+                page.getTickets().forEach(ticket -> visited.add(ticket.getTicketId()));
+                cursor = page.getNextCursor();
+                pages++;
+            } while (cursor != null);
+            assertThat(visited).containsExactlyInAnyOrderElementsOf(expected);
+            assertThat(visited).doesNotHaveDuplicates();
+            assertThat(pages).isLessThanOrEqualTo(expected.size() / limit + 1);
+        }
+    }
+
+    @Test
+    void exportWritesOneJsonDocumentPerLine() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        TicketAllocation allocation = new TicketAllocation("event", VENDOR, CUSTOMER, 10, 3);
+        allocation.setAllocationId("65f0c0ffee0000000000abcd");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long written = TicketService.writeNdjson(allocation.toTickets().stream(), objectMapper, out);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(written).isEqualTo(3);
+        assertThat(lines).hasSize(3);
+        assertThat(objectMapper.readValue(lines[2], Ticket.class).getTicketId()).isEqualTo("65f0c0ffee0000000000abcd:12");
+        assertThat(lines[0]).doesNotContain("legacy", "password");
+
+    }
+
+    /**
+     * The two keyset queries of TicketService.page, run over lists
+     */
+    private static TicketPage page(List<Ticket> stored, List<TicketAllocation> allocations, String after, int limit) {
+        String afterId = after;
+        long afterSerial = Long.MIN_VALUE;
+        if (after != null && TicketAllocation.isAllocatedTicketId(after)) {
+            afterId = TicketAllocation.allocationIdOf(after);
+            afterSerial = TicketAllocation.serialOf(after);
+        }
+        String from = afterId;
+        List<Ticket> storedPage = stored.stream().filter(ticket -> from == null || ticket.getTicketId().compareTo(from) > 0)
+                .sorted(Comparator.comparing(Ticket::getTicketId)).limit(limit).toList();
+        List<TicketAllocation> allocationPage = new ArrayList<>();
+        if (afterSerial != Long.MIN_VALUE) {
+            allocations.stream().filter(allocation -> allocation.getAllocationId().equals(from)).forEach(allocationPage::add);
+        }
+        allocations.stream().filter(allocation -> from == null || allocation.getAllocationId().compareTo(from) > 0)
+                .sorted(Comparator.comparing(TicketAllocation::getAllocationId)).limit(limit).forEach(allocationPage::add);
+        return TicketService.mergePage(storedPage, allocationPage, afterId, afterSerial, limit);
+    }
+
+    private static <T extends Participant> T participant(T participant, String id, String name) {
+        participant.setParticipantId(id);
+        participant.setName(name);
+        return participant;
+    }
+}
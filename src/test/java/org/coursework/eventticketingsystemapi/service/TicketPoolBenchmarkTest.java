@@ -0,0 +1,317 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.bson.types.ObjectId;
+import org.coursework.eventticketingsystemapi.config.TicketPoolProperties;
+import org.coursework.eventticketingsystemapi.exception.InvalidResourceOperationException;
+import org.coursework.eventticketingsystemapi.model.Customer;
+import org.coursework.eventticketingsystemapi.model.Ticket;
+import org.coursework.eventticketingsystemapi.model.TicketAllocation;
+import org.coursework.eventticketingsystemapi.model.Vendor;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Throughput and latency measurements of the ticket pool. Excluded from the default test run; run them with
+ * {@code mvn test -Pbenchmark} and compare the logged figures between builds.
+ */
+@Tag("benchmark")
+class TicketPoolBenchmarkTest {
+    private static final Logger log = LoggerFactory.getLogger(TicketPoolBenchmarkTest.class);
+    private static final int VENDORS = 64;
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32, 64};
+    private static final long RUN_MILLIS = 1000;
+    private static final String[] STRATEGIES = {"round-robin", "most-stock-first", "oldest-release-first", "weighted"};
+    private static final int SELECTION_VENDORS = 10_000;
+    private static final int SELECTION_PURCHASES = 50_000;
+
+    @Test
+    void inventoryThroughputComparedWithLockedPool() throws Exception {
+        log.info(String.format("%8s %16s %16s", "threads", "locked ops/s", "cas ops/s"));
+        for (int threads : THREAD_COUNTS) {
+            // Warm up both paths before measuring
+            measure(threads, new LockedPool(), RUN_MILLIS / 4);
+            measure(threads, new InventoryPool(), RUN_MILLIS / 4);
+            long locked = measure(threads, new LockedPool(), RUN_MILLIS);
+            long lockFree = measure(threads, new InventoryPool(), RUN_MILLIS);
+            log.info(String.format("%8d %16d %16d", threads, locked, lockFree));
+        }
+    }
+
+    @Test
+    void vendorSelectionCostWith10kVendors() {
+        log.info(String.format("%-22s %14s", "strategy", "ns/purchase"));
+        log.info(String.format("%-22s %14d", "linear scan", selectionCost(null)));
+        for (String name : STRATEGIES) {
+            log.info(String.format("%-22s %14d", name, selectionCost(name)));
+        }
+    }
+
+    @Test
+    void journalAppendLatencyPerFsyncPolicy(@TempDir Path directory) {
+        log.info(String.format("%-10s %10s %10s %10s", "fsync", "appends", "p50 ns", "p99 ns"));
+        for (String fsync : List.of("none", "interval", "always")) {
+            TicketPoolProperties properties = new TicketPoolProperties();
+            properties.getJournal().setEnabled(true);
+            properties.getJournal().setDirectory(directory.resolve(fsync).toString());
+            properties.getJournal().setSegmentSizeBytes(64 << 20);
+            properties.getJournal().setFsync(fsync);
+            properties.getJournal().setFsyncIntervalMillis(10);
+            PoolJournal journal = new PoolJournal(properties);
+            journal.open();
+
+            int appends = "always".equals(fsync) ? 2_000 : 100_000;
+            long[] latencies = new long[appends];
+            JournalRecord record = JournalRecord.purchase("event", "customer", List.of("vendor-1", "vendor-2"), new int[]{1, 1}, 2);
+            for (int i = 0; i < appends; i++) {
+                long start = System.nanoTime();
+                journal.append(record);
+                latencies[i] = System.nanoTime() - start;
+            }
+            journal.close();
+            Arrays.sort(latencies);
+            log.info(String.format("%-10s %10d %10d %10d", fsync, appends, latencies[appends / 2], latencies[appends * 99 / 100]));
+        }
+    }
+
+    @Test
+    void ndjsonExportThroughput() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        Vendor vendor = new Vendor();
+        vendor.setParticipantId("vendor-1");
+        vendor.setName("Vendor One");
+        Customer customer = new Customer();
+        customer.setParticipantId("customer-1");
+        customer.setName("Customer One");
+
+        // Constant memory: tickets are materialized one allocation at a time and written to a sink
+        int tickets = 1_000_000;
+        Stream<Ticket> source = IntStream.range(0, tickets / 100).mapToObj(i -> {
+            TicketAllocation batch = new TicketAllocation("event", vendor, customer, i * 100L + 1, 100);
+            batch.setAllocationId(new ObjectId().toHexString());
+            return batch;
+        }).flatMap(batch -> batch.toTickets().stream());
+        CountingOutputStream sink = new CountingOutputStream();
+        long start = System.nanoTime();
+        long written = TicketService.writeNdjson(source, objectMapper, sink);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        log.info(String.format("Exported %d tickets (%d MB) in %.2f s: %.0f tickets/s", written, sink.bytes >> 20, seconds, written / seconds));
+    }
+
+    @Test
+    void occupancyOfSignalledAndPollingVendorsDuringSellThrough() throws Exception {
+        double polled = occupancyUnderSellThrough(false);
+        double signalled = occupancyUnderSellThrough(true);
+        log.info(String.format("Time-weighted occupancy during sell-through: polling %.2f, signalled %.2f", polled, signalled));
+    }
+
+    /**
+     * Four vendors keep a 20 ticket pool topped up while one customer buys a ticket every half millisecond
+     */
+    private static double occupancyUnderSellThrough(boolean signalled) throws Exception {
+        TicketInventory inventory = new TicketInventory(20);
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+        for (int v = 0; v < 4; v++) {
+            String vendorId = "vendor-" + v;
+            executor.execute(() -> {
+                while (running.get()) {
+                    int count = Math.min(5, inventory.getFreeCapacity());
+                    try {
+                        if (count > 0) {
+                            inventory.release(vendorId, Integer.MAX_VALUE, count);
+                        } else if (signalled) {
+                            inventory.getCapacitySignal().await(5, inventory::getFreeCapacity, 50);
+                        } else {
+                            Thread.sleep(50);
+                        }
+                    } catch (InvalidResourceOperationException ignored) {
+                        // another vendor filled the room first
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            });
+        }
+        executor.execute(() -> {
+            while (running.get()) {
+                for (String vendorId : inventory.selectVendors(1)) {
+                    if (inventory.claimFromVendor(vendorId, 1) > 0) {
+                        break;
+                    }
+                }
+                try {
+                    Thread.sleep(0, 500_000);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        Thread.sleep(500);
+        double occupancy = inventory.getAverageOccupancy();
+        running.set(false);
+        executor.shutdownNow();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+        return occupancy;
+    }
+
+    /**
+     * Average cost of choosing vendors and claiming two tickets, with most vendors sold out
+     */
+    private static long selectionCost(String strategy) {
+        TicketInventory inventory = strategy == null ? new TicketInventory(Integer.MAX_VALUE)
+                : new TicketInventory(Integer.MAX_VALUE, VendorAllocationStrategy.forName(strategy));
+        for (int i = 0; i < SELECTION_VENDORS; i++) {
+            inventory.loadVendor("vendor-" + i, Integer.MAX_VALUE / 2, i % 20 == 0 ? SELECTION_PURCHASES : 0, 0);
+        }
+
+        int[] claimed = new int[64];
+        long start = System.nanoTime();
+        for (int i = 0; i < SELECTION_PURCHASES; i++) {
+            List<String> selected = strategy == null ? scan(inventory, 2) : inventory.selectVendors(2);
+            inventory.purchase("customer", 2, Integer.MAX_VALUE, selected, claimed);
+        }
+        return (System.nanoTime() - start) / SELECTION_PURCHASES;
+    }
+
+    /**
+     * The approach before allocation strategies: walk every vendor slot on each purchase
+     */
+    private static List<String> scan(TicketInventory inventory, int wanted) {
+        List<String> vendorIds = new ArrayList<>();
+        for (VendorTicketSlot slot : inventory.getVendorSlots()) {
+            if (slot.getAvailable() > 0) {
+                vendorIds.add(slot.getVendorId());
+            }
+        }
+        return vendorIds.size() > wanted ? vendorIds.subList(0, wanted) : vendorIds;
+    }
+
+    private static long measure(int threads, Pool pool, long millis) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder operations = new LongAdder();
+        CountDownLatch started = new CountDownLatch(threads);
+
+        for (int t = 0; t < threads; t++) {
+            String vendorId = "vendor-" + (t % VENDORS);
+            executor.execute(() -> {
+                started.countDown();
+                while (running.get()) {
+                    if (pool.release(vendorId, 2)) {
+                        operations.increment();
+                    }
+                    if (pool.purchase(vendorId, 2) > 0) {
+                        operations.increment();
+                    }
+                }
+            });
+        }
+        started.await();
+        Thread.sleep(millis);
+        running.set(false);
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+        return operations.sum() * 1000 / millis;
+    }
+
+    private interface Pool {
+        boolean release(String vendorId, int count);
+
+        int purchase(String vendorId, int count);
+    }
+
+    private static class InventoryPool implements Pool {
+        private final TicketInventory inventory = new TicketInventory(Integer.MAX_VALUE);
+
+        @Override
+        public boolean release(String vendorId, int count) {
+            try {
+                inventory.release(vendorId, Integer.MAX_VALUE, count);
+                return true;
+            } catch (InvalidResourceOperationException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public int purchase(String vendorId, int count) {
+            return inventory.claimFromVendor(vendorId, count);
+        }
+    }
+
+    /**
+     * In-memory equivalent of the previous TicketPoolService path: one ReentrantLock around every operation
+     */
+    private static class LockedPool implements Pool {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<String, AtomicInteger> available = new HashMap<>();
+        private final Map<String, AtomicInteger> sold = new HashMap<>();
+        private final AtomicInteger availableTickets = new AtomicInteger();
+
+        @Override
+        public boolean release(String vendorId, int count) {
+            lock.lock();
+            try {
+                available.computeIfAbsent(vendorId, k -> new AtomicInteger()).addAndGet(count);
+                availableTickets.addAndGet(count);
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public int purchase(String vendorId, int count) {
+            lock.lock();
+            try {
+                AtomicInteger vendorAvailable = available.get(vendorId);
+                int claimed = vendorAvailable == null ? 0 : Math.min(count, vendorAvailable.get());
+                if (claimed > 0) {
+                    vendorAvailable.addAndGet(-claimed);
+                    availableTickets.addAndGet(-claimed);
+                    sold.computeIfAbsent(vendorId, k -> new AtomicInteger()).addAndGet(claimed);
+                }
+                return claimed;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        private long bytes;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import org.coursework.eventticketingsystemapi.config.TicketPoolProperties;
+import org.coursework.eventticketingsystemapi.exception.InvalidResourceOperationException;
+import org.coursework.eventticketingsystemapi.model.SimulationReport;
+import org.coursework.eventticketingsystemapi.model.SimulationScenario;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TicketPoolSimulatorTest {
+    private final TicketPoolSimulator simulator = new TicketPoolSimulator(new TicketPoolProperties());
+
+    @Test
+    void sameSeedReproducesTheSaleExactly() {
+        SimulationReport first = simulator.run(scarceSupply(42));
+        SimulationReport second = simulator.run(scarceSupply(42));
+        SimulationReport otherSeed = simulator.run(scarceSupply(43));
+
+        first.setWallClockMillis(0);
+        second.setWallClockMillis(0);
+        otherSeed.setWallClockMillis(0);
+        assertThat(second).isEqualTo(first);
+        assertThat(otherSeed).isNotEqualTo(first);
+    }
+
+    @Test
+    void scarceSupplySellsOutWithoutOversellingAnyone() {
+        SimulationScenario scenario = scarceSupply(7);
+        SimulationReport report = simulator.run(scenario);
+
+        long supply = (long) scenario.getVendors() * scenario.getVendorTicketsToSell();
+        assertThat(report.getTicketsReleased()).isEqualTo(supply);
+        assertThat(report.getTicketsSold()).isEqualTo(supply);
+        assertThat(report.getSellOutMillis()).isNotNull().isPositive();
+        assertThat(report.getVendorSellThroughPercentiles()).containsEntry("p0", 1.0);
+
+        long soldInBatches = report.getPurchaseBatchSizes().entrySet().stream()
+                .mapToLong(batch -> batch.getKey() * batch.getValue()).sum();
+        assertThat(soldInBatches).isEqualTo(report.getTicketsSold());
+        assertThat(report.getPurchaseBatchSizes().keySet()).allMatch(size -> size >= 1 && size <= scenario.getCustomerRetrievalRate());
+        assertThat(report.getCustomersFullyServed() + report.getCustomersPartlyServed() + report.getCustomersUnserved())
+                .isEqualTo(scenario.getCustomers());
+        assertThat(report.getCustomersUnserved()).isPositive();
+        assertThat(report.getFairnessIndex()).isBetween(0.0, 1.0);
+    }
+
+    @Test
+    void invalidScenarioIsRejected() {
+        SimulationScenario scenario = scarceSupply(1);
+        scenario.setCustomerRetrievalIntervalMinSeconds(0);
+        assertThatThrownBy(() -> simulator.run(scenario)).isInstanceOf(InvalidResourceOperationException.class);
+
+        SimulationScenario oversized = scarceSupply(1);
+        oversized.setCustomers(new TicketPoolProperties().getSimulation().getMaxParticipants());
+        assertThatThrownBy(() -> simulator.run(oversized)).hasMessageContaining("limited to");
+    }
+
+    /**
+     * Twice as many tickets wanted as vendors will ever release, with weighted allocation so the seed matters
+     */
+    private static SimulationScenario scarceSupply(long seed) {
+        SimulationScenario scenario = new SimulationScenario();
+        scenario.setSeed(seed);
+        scenario.setAllocationStrategy("weighted");
+        scenario.setVendors(50);
+        scenario.setVendorTicketsToSell(500);
+        scenario.setMaxCapacity(200);
+        scenario.setCustomers(20_000);
+        scenario.setCustomerTicketsMin(1);
+        scenario.setCustomerTicketsMax(4);
+        scenario.setCustomerArrivalWindowSeconds(600);
+        return scenario;
+    }
+}
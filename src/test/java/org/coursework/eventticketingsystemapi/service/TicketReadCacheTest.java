@@ -0,0 +1,116 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.coursework.eventticketingsystemapi.config.TicketPoolProperties;
+import org.coursework.eventticketingsystemapi.model.Customer;
+import org.coursework.eventticketingsystemapi.model.Participant;
+import org.coursework.eventticketingsystemapi.model.Ticket;
+import org.coursework.eventticketingsystemapi.model.TicketAllocation;
+import org.coursework.eventticketingsystemapi.model.TicketPage;
+import org.coursework.eventticketingsystemapi.model.Vendor;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TicketReadCacheTest {
+    private static final Vendor VENDOR = participant(new Vendor(), "vendor-1", "Vendor One");
+    private static final TicketReadCache.Kind CUSTOMER = TicketReadCache.Kind.CUSTOMER;
+
+    @Test
+    void entriesAreBoundedByCountWeightAndAge() {
+        TicketPoolProperties.TicketCache settings = new TicketPoolProperties.TicketCache();
+        settings.setMaxEntries(3);
+        settings.setMaxWeight(10);
+        settings.setTtlMillis(1000);
+        AtomicLong now = new AtomicLong();
+        TicketReadCache cache = new TicketReadCache(settings, now::get);
+
+        for (int i = 1; i <= 3; i++) {
+            cache.put(CUSTOMER, "customer-" + i, cache.stamp(CUSTOMER, "customer-" + i), tickets("customer-" + i, 2));
+        }
+        // customer-1 is the most recently used, so the fourth entry evicts customer-2
+        assertThat(cache.get(CUSTOMER, "customer-1").hit()).isTrue();
+        cache.put(CUSTOMER, "customer-4", cache.stamp(CUSTOMER, "customer-4"), tickets("customer-4", 2));
+        assertThat(cache.get(CUSTOMER, "customer-2").hit()).isFalse();
+        assertThat(cache.size()).isEqualTo(3);
+
+        // 6 tickets cached; 5 more go over a weight of 10 and evict the least recently used entry
+        cache.put(CUSTOMER, "customer-5", cache.stamp(CUSTOMER, "customer-5"), tickets("customer-5", 5));
+        assertThat(cache.weight()).isLessThanOrEqualTo(10);
+        assertThat(cache.get(CUSTOMER, "customer-3").hit()).isFalse();
+        assertThat(cache.evictionCount()).isEqualTo(2);
+
+        now.set(1000);
+        assertThat(cache.get(CUSTOMER, "customer-5").hit()).isFalse();
+        assertThat(cache.hitCount()).isEqualTo(1);
+        assertThat(cache.missCount()).isEqualTo(3);
+    }
+
+    @Test
+    void writesUpdateCachedListsAndDiscardRacingLoads() {
+        TicketReadCache cache = new TicketReadCache(new TicketPoolProperties.TicketCache(), System::currentTimeMillis);
+        cache.put(CUSTOMER, "customer-1", cache.stamp(CUSTOMER, "customer-1"), tickets("customer-1", 3));
+
+        // A purchase written after the customer's list was cached is merged into it
+        TicketAllocation allocation = new TicketAllocation("event", VENDOR, participant(new Customer(), "customer-1", "Customer One"), 9, 3);
+        allocation.setAllocationId("65f0c0ffee0000000000ffff");
+        long vendorStamp = cache.stamp(TicketReadCache.Kind.VENDOR, "vendor-1");
+        cache.ticketsWritten(allocation.toTickets());
+        List<Ticket> cached = cache.get(CUSTOMER, "customer-1").tickets();
+        assertThat(cached).extracting(Ticket::getTicketId).containsExactly("65f0c0ffee0000000000000a", "65f0c0ffee0000000000000b",
+                "65f0c0ffee0000000000000c", "65f0c0ffee0000000000ffff:9", "65f0c0ffee0000000000ffff:10", "65f0c0ffee0000000000ffff:11");
+        // The vendor's list was loaded before the write landed, so it is not cached
+        cache.put(TicketReadCache.Kind.VENDOR, "vendor-1", vendorStamp, tickets("customer-1", 3));
+        assertThat(cache.get(TicketReadCache.Kind.VENDOR, "vendor-1").hit()).isFalse();
+
+        cache.ticketRemoved(allocation.toTicket(10));
+        cached = cache.get(CUSTOMER, "customer-1").tickets();
+        assertThat(cached).hasSize(5).extracting(Ticket::getTicketId).doesNotContain("65f0c0ffee0000000000ffff:10");
+
+        // Pages cut from the cached list resume after the cursor, including inside an allocation
+        TicketPage first = TicketReadCache.page(cached, null, 4);
+        assertThat(first.getNextCursor()).isEqualTo("65f0c0ffee0000000000ffff:9");
+        TicketPage second = TicketReadCache.page(cached, first.getNextCursor(), 4);
+        assertThat(second.getTickets()).extracting(Ticket::getTicketId).containsExactly("65f0c0ffee0000000000ffff:11");
+        assertThat(second.getNextCursor()).isNull();
+        // Same order as the page merged from Mongo
+        allocation.getRefundedSerials().add(10L);
+        assertThat(TicketService.mergePage(tickets("customer-1", 3), List.of(allocation), null, Long.MIN_VALUE, 10).getTickets())
+                .extracting(Ticket::getTicketId).containsExactlyElementsOf(cached.stream().map(Ticket::getTicketId).toList());
+    }
+
+    @Test
+    void statisticsAreRegisteredAsCacheMeters() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TicketReadCache cache = new TicketReadCache(new TicketPoolProperties(), registry);
+        cache.get(CUSTOMER, "customer-1");
+        cache.put(CUSTOMER, "customer-1", cache.stamp(CUSTOMER, "customer-1"), tickets("customer-1", 1));
+        cache.get(CUSTOMER, "customer-1");
+
+        assertThat(registry.get("cache.gets").tag("cache", "tickets").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("cache.gets").tag("cache", "tickets").tag("result", "miss").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("cache.size").tag("cache", "tickets").gauge().value()).isEqualTo(1);
+        assertThat(registry.get("cache.weight").tag("cache", "tickets").gauge().value()).isEqualTo(1);
+    }
+
+    private static List<Ticket> tickets(String customerId, int count) {
+        Customer customer = participant(new Customer(), customerId, customerId);
+        List<Ticket> tickets = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Ticket ticket = new Ticket("event", VENDOR, customer);
+            ticket.setTicketId(String.format("65f0c0ffee000000000000%02x", 10 + i));
+            tickets.add(ticket);
+        }
+        return tickets;
+    }
+
+    private static <T extends Participant> T participant(T participant, String id, String name) {
+        participant.setParticipantId(id);
+        participant.setName(name);
+        return participant;
+    }
+}
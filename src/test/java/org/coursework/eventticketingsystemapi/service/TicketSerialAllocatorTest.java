@@ -0,0 +1,164 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import org.coursework.eventticketingsystemapi.config.TicketPoolProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.ToLongFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TicketSerialAllocatorTest {
+    private static final String EVENT = "event";
+    private static final String VENDOR = "vendor";
+
+    @Test
+    void nodesAndThreadsGetUniqueIncreasingSerialsWithoutGaps() throws Exception {
+        InMemorySerialBlockStore store = new InMemorySerialBlockStore(block -> block.getFirst() - 1);
+        List<TicketSerialAllocator> nodes = List.of(newAllocator(store, "node-a", 64), newAllocator(store, "node-b", 64));
+        int threadsPerNode = 4;
+        int batchesPerThread = 2_000;
+        Set<Long> issued = ConcurrentHashMap.newKeySet();
+        AtomicBoolean duplicated = new AtomicBoolean();
+        AtomicBoolean outOfOrder = new AtomicBoolean();
+        CountDownLatch done = new CountDownLatch(nodes.size() * threadsPerNode);
+        ExecutorService executor = Executors.newFixedThreadPool(nodes.size() * threadsPerNode);
+        for (TicketSerialAllocator node : nodes) {
+            for (int t = 0; t < threadsPerNode; t++) {
+                executor.execute(() -> {
+                    long previous = 0;
+                    for (int i = 0; i < batchesPerThread; i++) {
+                        for (long serial : node.allocate(EVENT, VENDOR, 1 + i % 3)) {
+                            duplicated.compareAndSet(false, !issued.add(serial));
+                            // Each thread takes its serials from an increasing sequence of blocks
+                            outOfOrder.compareAndSet(false, serial <= previous);
+                            previous = serial;
+                        }
+                    }
+                    done.countDown();
+                });
+            }
+        }
+        assertThat(done.await(30, TimeUnit.SECONDS)).isTrue();
+        executor.shutdown();
+        assertThat(duplicated).isFalse();
+        assertThat(outOfOrder).isFalse();
+
+        // Unused serials go back to the store, so a node started later fills the gaps first
+        nodes.forEach(TicketSerialAllocator::shutdown);
+        assertThat(store.blocks).isEmpty();
+        TicketSerialAllocator later = newAllocator(store, "node-c", 64);
+        long returned = store.freeSerials();
+        for (long serial : later.allocate(EVENT, VENDOR, (int) returned)) {
+            assertThat(issued.add(serial)).isTrue();
+        }
+        long highest = issued.stream().mapToLong(Long::longValue).max().orElseThrow();
+        assertThat(issued).hasSize((int) highest);
+        assertThat(later.allocate(EVENT, VENDOR, 1)).containsExactly(highest + 1);
+    }
+
+    @Test
+    void restartedNodeReclaimsWhatItNeverSaved() {
+        Map<Long, Boolean> saved = new HashMap<>();
+        InMemorySerialBlockStore store = new InMemorySerialBlockStore(block -> {
+            long highest = block.getFirst() - 1;
+            for (long serial = block.getFirst(); serial <= block.getLast(); serial++) {
+                if (saved.containsKey(serial)) highest = serial;
+            }
+            return highest;
+        });
+        TicketSerialAllocator crashed = newAllocator(store, "node-a", 100);
+        TicketSerialAllocator other = newAllocator(store, "node-b", 100);
+        for (long serial : crashed.allocate(EVENT, VENDOR, 10)) {
+            if (serial <= 7) saved.put(serial, true);
+        }
+        assertThat(other.allocate(EVENT, VENDOR, 1)).containsExactly(101);
+
+        // The crashed node never shut down; its successor returns 8-100, which are not on any saved ticket
+        TicketSerialAllocator restarted = newAllocator(store, "node-a", 100);
+        restarted.start();
+        assertThat(store.blocks.values()).noneMatch(block -> block.getNodeId().equals("node-a"));
+        assertThat(restarted.allocate(EVENT, VENDOR, 3)).containsExactly(8, 9, 10);
+        assertThat(other.allocate(EVENT, VENDOR, 1)).containsExactly(102);
+    }
+
+    private static TicketSerialAllocator newAllocator(SerialBlockStore store, String nodeId, int blockSize) {
+        TicketPoolProperties properties = new TicketPoolProperties();
+        properties.getSerials().setNodeId(nodeId);
+        properties.getSerials().setBlockSize(blockSize);
+        return new TicketSerialAllocator(store, properties);
+    }
+
+    /**
+     * Same rules as the Mongo store: returned ranges at the end of the counter move it back, others are reused first
+     */
+    private static class InMemorySerialBlockStore implements SerialBlockStore {
+        private final Map<String, Long> reserved = new HashMap<>();
+        private final Map<String, Deque<long[]>> free = new HashMap<>();
+        private final Map<String, SerialBlock> blocks = new HashMap<>();
+        private final ToLongFunction<SerialBlock> highestSaved;
+
+        InMemorySerialBlockStore(ToLongFunction<SerialBlock> highestSaved) {
+            this.highestSaved = highestSaved;
+        }
+
+        @Override
+        public synchronized SerialBlock reserve(String eventId, String vendorId, String nodeId, int size) {
+            String key = eventId + ":" + vendorId;
+            long[] range = free.computeIfAbsent(key, k -> new ArrayDeque<>()).pollFirst();
+            if (range == null) {
+                long last = reserved.merge(key, (long) size, Long::sum);
+                range = new long[]{last - size + 1, last};
+            }
+            SerialBlock block = new SerialBlock(eventId, vendorId, nodeId, range[0], range[1]);
+            blocks.put(block.getBlockId(), block);
+            return block;
+        }
+
+        @Override
+        public synchronized void release(SerialBlock block, long nextUnused) {
+            if (blocks.remove(block.getBlockId()) != null && nextUnused <= block.getLast()) {
+                returnRange(block.getEventId() + ":" + block.getVendorId(), Math.max(nextUnused, block.getFirst()), block.getLast());
+            }
+        }
+
+        @Override
+        public synchronized long reclaim(String nodeId) {
+            long returned = 0;
+            for (SerialBlock block : new ArrayList<>(blocks.values())) {
+                if (!block.getNodeId().equals(nodeId)) continue;
+                blocks.remove(block.getBlockId());
+                long from = Math.max(block.getFirst(), highestSaved.applyAsLong(block) + 1);
+                if (from <= block.getLast()) {
+                    returnRange(block.getEventId() + ":" + block.getVendorId(), from, block.getLast());
+                    returned += block.getLast() - from + 1;
+                }
+            }
+            return returned;
+        }
+
+        synchronized long freeSerials() {
+            return free.values().stream().flatMap(Deque::stream).mapToLong(range -> range[1] - range[0] + 1).sum();
+        }
+
+        private void returnRange(String key, long first, long last) {
+            if (reserved.get(key) == last) {
+                reserved.put(key, first - 1);
+            } else {
+                free.computeIfAbsent(key, k -> new ArrayDeque<>()).addLast(new long[]{first, last});
+            }
+        }
+    }
+}
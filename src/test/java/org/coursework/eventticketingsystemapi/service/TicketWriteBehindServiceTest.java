@@ -0,0 +1,147 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.coursework.eventticketingsystemapi.config.TicketPoolProperties;
+import org.coursework.eventticketingsystemapi.exception.ResourceProcessingException;
+import org.coursework.eventticketingsystemapi.model.Customer;
+import org.coursework.eventticketingsystemapi.model.Ticket;
+import org.coursework.eventticketingsystemapi.model.Vendor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TicketWriteBehindServiceTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void batchesThatKeepFailingAreDeadLetteredAfterMaxAttempts() throws Exception {
+        // Nothing listens on port 1, so every write fails quickly
+        MongoClient client = MongoClients.create(MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString("mongodb://localhost:1"))
+                .applyToClusterSettings(cluster -> cluster.serverSelectionTimeout(50, TimeUnit.MILLISECONDS))
+                .build());
+        try {
+            TicketPoolProperties properties = new TicketPoolProperties();
+            properties.getWriteBehind().setMaxAttempts(3);
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            WriteBehindDeadLetterStore deadLetters = new WriteBehindDeadLetterStore(directory.resolve("dead-letters.ndjson"));
+            TicketWriteBehindService service = new TicketWriteBehindService(new MongoTemplate(client, "unused"),
+                    new TicketReadCache(properties.getTicketCache(), System::currentTimeMillis), deadLetters, properties, registry);
+
+            Vendor vendor = new Vendor();
+            vendor.setParticipantId("65f0c0ffee00000000000001");
+            Customer customer = new Customer();
+            customer.setParticipantId("65f0c0ffee00000000000002");
+            PoolWriteRecord purchase = PoolWriteRecord.purchase(customer.getParticipantId(),
+                    List.of(new Ticket("event", vendor, customer), new Ticket("event", vendor, customer)),
+                    Map.of(vendor.getParticipantId(), 2), Map.of());
+
+            assertThat(service.writeWithRetry(new PoolWriteBatch(List.of(purchase)))).isFalse();
+            assertThat(service.getFailedFlushes()).isEqualTo(3);
+            assertThat(service.getDeadLetteredRecords()).isEqualTo(1);
+            assertThat(registry.get("ticketpool.write_behind.dead_lettered").counter().count()).isEqualTo(1);
+
+            // Two ticket inserts and the customer's and vendor's counter updates, each on its own line
+            List<Document> lines = Files.readAllLines(deadLetters.getFile()).stream().map(Document::parse).toList();
+            assertThat(lines).extracting(line -> line.getString("operation")).containsExactlyInAnyOrder("insert", "insert", "update", "update");
+            assertThat(lines).extracting(line -> line.getString("collection")).contains("tickets", "vendors", "customers");
+            assertThat(lines).allSatisfy(line -> assertThat(line.getString("error")).isNotBlank());
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    void recordsAcknowledgedWhileShuttingDownAreNeverLost() throws Exception {
+        MongoClient client = MongoClients.create(MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString("mongodb://localhost:1"))
+                .applyToClusterSettings(cluster -> cluster.serverSelectionTimeout(50, TimeUnit.MILLISECONDS))
+                .build());
+        try {
+            TicketPoolProperties properties = new TicketPoolProperties();
+            properties.getWriteBehind().setMaxAttempts(1);
+            properties.getWriteBehind().setQueueCapacity(1000);
+            properties.getWriteBehind().setOfferTimeoutMillis(10);
+            properties.getWriteBehind().setShutdownTimeoutMillis(200);
+            WriteBehindDeadLetterStore deadLetters = new WriteBehindDeadLetterStore(directory.resolve("dead-letters.ndjson"));
+            TicketWriteBehindService service = new TicketWriteBehindService(new MongoTemplate(client, "unused"),
+                    new TicketReadCache(properties.getTicketCache(), System::currentTimeMillis), deadLetters, properties,
+                    new SimpleMeterRegistry());
+            service.startWriters();
+
+            // Submitters keep going through shutdown; only submits that returned normally were acknowledged
+            AtomicBoolean done = new AtomicBoolean();
+            AtomicLong acknowledged = new AtomicLong();
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            for (int i = 0; i < 4; i++) {
+                String vendorId = "65f0c0ffee0000000000000" + i;
+                executor.execute(() -> {
+                    while (!done.get()) {
+                        try {
+                            service.submit(PoolWriteRecord.release(vendorId, 1, true));
+                            acknowledged.incrementAndGet();
+                        } catch (ResourceProcessingException ignored) {
+                            // queue full, or written synchronously against the unreachable database after shutdown
+                        }
+                    }
+                });
+            }
+            while (acknowledged.get() < 100) {
+                Thread.sleep(1);
+            }
+            service.shutdown();
+            done.set(true);
+            executor.shutdown();
+            assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+            assertThat(service.getPendingRecords()).isZero();
+            assertThat(service.getRecordsWritten() + service.getDeadLetteredRecords()).isEqualTo(acknowledged.get());
+            assertThat(service.awaitSettled(0)).isTrue();
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    void reconfigurationWaitsForRunningOperationsAndHoldsBackNewOnes() throws Exception {
+        EventPool pool = new EventPool("event");
+        assertThat(pool.enterOperation(0)).isTrue();
+
+        // The running operation keeps the pool from quiescing
+        assertThat(pool.quiesce(20)).isFalse();
+        assertThat(pool.enterOperation(20)).isFalse();
+        pool.exitOperation();
+        assertThat(pool.quiesce(20)).isTrue();
+
+        Thread waiting = new Thread(() -> {
+            if (pool.enterOperation(5_000)) {
+                pool.exitOperation();
+            }
+        });
+        waiting.start();
+        Thread.sleep(20);
+        assertThat(waiting.isAlive()).isTrue();
+        pool.resume();
+        waiting.join(5_000);
+        assertThat(waiting.isAlive()).isFalse();
+        assertThat(pool.quiesce(0)).isTrue();
+    }
+}
@@ -0,0 +1,105 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VendorAllocationStrategyTest {
+    private static final String[] STRATEGIES = {"round-robin", "most-stock-first", "oldest-release-first", "weighted"};
+
+    @Test
+    void strategiesOnlySelectVendorsWithStockAndSellEverything() {
+        for (String name : STRATEGIES) {
+            TicketInventory inventory = new TicketInventory(Integer.MAX_VALUE, VendorAllocationStrategy.forName(name));
+            for (int i = 0; i < 1_000; i++) {
+                inventory.loadVendor("vendor-" + i, 10, 0, 0);
+                if (i % 3 == 0) {
+                    inventory.release("vendor-" + i, 10, 1 + i % 10);
+                }
+            }
+            int released = inventory.getAvailableTickets().get();
+
+            int sold = 0;
+            int[] claimed = new int[64];
+            for (int attempt = 0; attempt < 100_000 && inventory.getAvailableTickets().get() > 0; attempt++) {
+                List<String> selected = inventory.selectVendors(3);
+                selected.forEach(vendorId -> assertThat(inventory.getVendorAvailable(vendorId)).as(name).isPositive());
+                int purchased = inventory.purchase("customer", 3, Integer.MAX_VALUE, selected, claimed);
+                sold += Math.max(0, purchased);
+            }
+
+            assertThat(sold).as(name).isEqualTo(released);
+            assertThat(inventory.selectVendors(1)).as(name).isEmpty();
+        }
+    }
+
+    @Test
+    void mostStockFirstAndOldestReleaseFirstRespectTheirOrder() {
+        TicketInventory byStock = new TicketInventory(1_000, VendorAllocationStrategy.forName("most-stock-first"));
+        TicketInventory byAge = new TicketInventory(1_000, VendorAllocationStrategy.forName("oldest-release-first"));
+        for (TicketInventory inventory : List.of(byStock, byAge)) {
+            inventory.release("small", 100, 2);
+            inventory.release("large", 100, 50);
+            inventory.release("medium", 100, 10);
+        }
+
+        assertThat(byStock.selectVendors(100)).containsExactly("large", "medium", "small");
+        assertThat(byAge.selectVendors(100)).containsExactly("small", "large", "medium");
+
+        byStock.claimFromVendor("large", 45);
+        assertThat(byStock.selectVendors(1)).containsExactly("medium");
+    }
+
+    @Test
+    void weightedSelectionStaysConsistentUnderConcurrentStockChanges() throws Exception {
+        TicketInventory inventory = new TicketInventory(Integer.MAX_VALUE, VendorAllocationStrategy.forName("weighted"));
+        int vendors = 500;
+        int perVendor = 40;
+        AtomicInteger sold = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            // Vendors register and release while buyers sample, so the tree grows and changes under the selections
+            for (int t = 0; t < 4; t++) {
+                int first = t;
+                futures.add(executor.submit(() -> {
+                    for (int v = first; v < vendors; v += 4) {
+                        for (int r = 0; r < perVendor / 4; r++) {
+                            inventory.release("vendor-" + v, perVendor, 4);
+                        }
+                    }
+                }));
+            }
+            for (int t = 0; t < 4; t++) {
+                int customer = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 20_000; i++) {
+                        List<String> selected = inventory.selectVendors(3);
+                        sold.addAndGet(Math.max(0, inventory.purchase("customer-" + customer, 3, Integer.MAX_VALUE, selected, new int[selected.size()])));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Whatever the buyers missed is still reachable through the tree
+        int[] claimed = new int[64];
+        for (int attempt = 0; attempt < 100_000 && inventory.getAvailableTickets().get() > 0; attempt++) {
+            sold.addAndGet(Math.max(0, inventory.purchase("customer", 3, Integer.MAX_VALUE, inventory.selectVendors(3), claimed)));
+        }
+        assertThat(sold.get()).isEqualTo(vendors * perVendor);
+        assertThat(inventory.selectVendors(1)).isEmpty();
+    }
+}
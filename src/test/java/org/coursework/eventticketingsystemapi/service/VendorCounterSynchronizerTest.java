@@ -0,0 +1,127 @@
+package org.coursework.eventticketingsystemapi.service;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.coursework.eventticketingsystemapi.config.TicketPoolProperties;
+import org.coursework.eventticketingsystemapi.model.Customer;
+import org.coursework.eventticketingsystemapi.model.Ticket;
+import org.coursework.eventticketingsystemapi.model.Vendor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VendorCounterSynchronizerTest {
+    private static final String VENDOR = "65f0c0ffee00000000000001";
+    private static final String CUSTOMER = "65f0c0ffee00000000000002";
+
+    @TempDir
+    Path directory;
+    private MongoClient client;
+    private MongoTemplate template;
+    private RecordingWriteBehind writeBehind;
+    private VendorCounterSynchronizer synchronizer;
+
+    @BeforeEach
+    void setUp() {
+        // Only used to map operations to documents; nothing is written
+        client = MongoClients.create("mongodb://localhost:1");
+        template = new MongoTemplate(client, "unused");
+        TicketPoolProperties properties = new TicketPoolProperties();
+        writeBehind = new RecordingWriteBehind(template, properties, directory.resolve("dead-letters.ndjson"));
+        synchronizer = new VendorCounterSynchronizer(writeBehind, new ParticipantRegistry(null, null), new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+    }
+
+    @Test
+    void syncBetweenAClaimAndItsWriteRecordDoesNotCountTheSaleTwice() {
+        TicketInventory inventory = new TicketInventory(100);
+        inventory.loadVendor(VENDOR, 100, 10, 5);
+
+        // The purchase has claimed its tickets but not yet queued its write record when the sync runs
+        int[] claimed = new int[1];
+        int purchased = inventory.purchase(CUSTOMER, 2, 10, List.of(VENDOR), claimed);
+        synchronizer.synchronize(inventory, true);
+        writeBehind.submit(purchaseRecord(purchased));
+
+        Document update = vendorUpdate(new PoolWriteBatch(writeBehind.submitted));
+        assertThat(update.get("$inc", Document.class).getInteger("totalTicketsSold")).isEqualTo(2);
+        assertThat(update.get("$set", Document.class)).containsOnlyKeys("isActive");
+        // Applied to the stored count of 5, the writes end at the inventory's sold count
+        assertThat(5 + update.get("$inc", Document.class).getInteger("totalTicketsSold")).isEqualTo(inventory.getVendorSold(VENDOR));
+    }
+
+    @Test
+    void loadedCountersAreReconciledSynchronouslyAndPeriodicPassesLeaveSoldCountsToDeltas() {
+        TicketInventory inventory = new TicketInventory(100);
+        inventory.loadVendor(VENDOR, 100, 10, 5);
+        inventory.markDirty(VENDOR);
+
+        assertThat(synchronizer.reconcileLoaded(inventory)).isEqualTo(1);
+        assertThat(writeBehind.submitted).isEmpty();
+        assertThat(writeBehind.written).hasSize(1);
+        assertThat(vendorUpdate(writeBehind.written.get(0)).get("$set", Document.class).getInteger("totalTicketsSold")).isEqualTo(5);
+
+        inventory.claimFromVendor(VENDOR, 3);
+        assertThat(synchronizer.synchronize(inventory, false)).isZero();
+        assertThat(writeBehind.submitted).isEmpty();
+    }
+
+    private PoolWriteRecord purchaseRecord(int purchased) {
+        Vendor vendor = new Vendor();
+        vendor.setParticipantId(VENDOR);
+        Customer customer = new Customer();
+        customer.setParticipantId(CUSTOMER);
+        List<Ticket> tickets = new ArrayList<>();
+        for (int i = 0; i < purchased; i++) {
+            tickets.add(new Ticket("event", vendor, customer));
+        }
+        return PoolWriteRecord.purchase(CUSTOMER, tickets, Map.of(VENDOR, purchased), Map.of());
+    }
+
+    private Document vendorUpdate(PoolWriteBatch batch) {
+        return batch.pendingOperations(template).stream()
+                .filter(operation -> "update".equals(operation.getString("operation")) && VENDOR.equals(operation.getString("id")))
+                .map(operation -> operation.get("update", Document.class))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    /**
+     * Keeps queued records and synchronous batches in memory, in the order they were handed over
+     */
+    private static class RecordingWriteBehind extends TicketWriteBehindService {
+        private final List<PoolWriteRecord> submitted = new ArrayList<>();
+        private final List<PoolWriteBatch> written = new ArrayList<>();
+
+        RecordingWriteBehind(MongoTemplate template, TicketPoolProperties properties, Path deadLetters) {
+            super(template, new TicketReadCache(properties.getTicketCache(), System::currentTimeMillis),
+                    new WriteBehindDeadLetterStore(deadLetters), properties, new SimpleMeterRegistry());
+        }
+
+        @Override
+        public void submit(PoolWriteRecord record) {
+            submitted.add(record);
+        }
+
+        @Override
+        public boolean writeWithRetry(PoolWriteBatch batch) {
+            written.add(batch);
+            return true;
+        }
+    }
+}